@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package org.questdb;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.LogFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trade/quote style ASOF and LT joins. Throughput is reported in joined (master) rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AsOfJoinBenchmark {
+
+    private static final int TRADE_COUNT = 1_000_000;
+    private static final int QUOTE_COUNT = 10_000_000;
+
+    private static final CairoConfiguration configuration = new DefaultCairoConfiguration(System.getProperty("java.io.tmpdir"));
+
+    @Param({"asof", "lt"})
+    public String joinType;
+    @Param({"keyed", "none"})
+    public String key;
+
+    private CairoEngine engine;
+    private SqlExecutionContextImpl ctx;
+    private SqlCompiler compiler;
+    private RecordCursorFactory factory;
+
+    public static void main(String[] args) throws RunnerException {
+        try (CairoEngine engine = new CairoEngine(configuration)) {
+            SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, 1)
+                    .with(
+                            AllowAllCairoSecurityContext.INSTANCE,
+                            null,
+                            null,
+                            -1,
+                            null
+                    );
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                compiler.compile("create table if not exists trades as (select" +
+                        " rnd_symbol(100, 4, 4, 0) sym," +
+                        " rnd_double() price," +
+                        " rnd_long(1, 1000, 0) qty," +
+                        " timestamp_sequence(0, " + (QUOTE_COUNT / TRADE_COUNT) * 100 + ") ts" +
+                        " from long_sequence(" + TRADE_COUNT + ")) timestamp(ts) partition by hour", sqlExecutionContext);
+                compiler.compile("create table if not exists quotes as (select" +
+                        " rnd_symbol(100, 4, 4, 0) sym," +
+                        " rnd_double() bid," +
+                        " rnd_double() ask," +
+                        " timestamp_sequence(0, 100) ts" +
+                        " from long_sequence(" + QUOTE_COUNT + ")) timestamp(ts) partition by hour", sqlExecutionContext);
+            } catch (SqlException e) {
+                e.printStackTrace();
+            }
+        }
+
+        Options opt = new OptionsBuilder()
+                .include(AsOfJoinBenchmark.class.getSimpleName())
+                .warmupIterations(2)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+
+        LogFactory.INSTANCE.haltThread();
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        engine = new CairoEngine(configuration);
+        ctx = new SqlExecutionContextImpl(engine, 1);
+        compiler = new SqlCompiler(engine);
+        factory = compiler.compile(
+                "select t.ts, t.sym, t.price, q.bid, q.ask from trades t " + joinType + " join quotes q" + ("keyed".equals(key) ? " on (sym)" : ""),
+                ctx
+        ).getRecordCursorFactory();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        factory.close();
+        compiler.close();
+        engine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRADE_COUNT)
+    public void testJoin(Blackhole bh) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(ctx)) {
+            final Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                bh.consume(record.getDouble(3));
+            }
+        }
+    }
+}
@@ -30,7 +30,9 @@ import io.questdb.cairo.map.CompactMap;
 import io.questdb.cairo.map.FastMap;
 import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
+import io.questdb.std.HugePageNativeAllocator;
 import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -45,6 +47,19 @@ import java.util.concurrent.TimeUnit;
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
 public class QMapWriteBenchmark {
 
+    // Run with -Dhuge.page.path=/dev/hugepages to compare against maps placed in explicit huge pages,
+    // forked JVMs inherit the property.
+    // Pages have to be reserved upfront, e.g. sysctl vm.nr_hugepages=2048
+    private static final String HUGE_PAGE_PATH = System.getProperty("huge.page.path");
+    private static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024;
+    private static final long HUGE_PAGE_POOL_SIZE = 2048 * HUGE_PAGE_SIZE;
+
+    static {
+        if (HUGE_PAGE_PATH != null) {
+            Unsafe.setNativeAllocator(new HugePageNativeAllocator(HUGE_PAGE_PATH, HUGE_PAGE_SIZE, HUGE_PAGE_POOL_SIZE, HUGE_PAGE_SIZE));
+        }
+    }
+
     private static final double loadFactor = 0.5;
     private static final int M = 25;
     private static final CompactMap qmap = new CompactMap(1024 * 1024, new SingleColumnType(ColumnType.STRING), new SingleColumnType(ColumnType.LONG), 64, loadFactor, 1024, Integer.MAX_VALUE);
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package org.questdb;
+
+import io.questdb.Metrics;
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.LogFactory;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares row by row appends via {@link TableWriter.Row} with columnar
+ * {@link TableWriter#appendBatch(ColumnBatch)} for the same data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableWriteBatchBenchmark {
+
+    private static final int BATCH_SIZE = 4096;
+    private static final CairoConfiguration configuration = new DefaultCairoConfiguration(".");
+    private final ColumnBatch batch = new ColumnBatch();
+    private final Rnd rnd = new Rnd();
+    private TableWriter writer;
+    private long intAddr;
+    private long longAddr;
+    private long doubleAddr;
+    private long timestampAddr;
+    private long ts;
+
+    public static void main(String[] args) throws RunnerException {
+        try (CairoEngine engine = new CairoEngine(configuration)) {
+            SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, 1)
+                    .with(
+                            AllowAllCairoSecurityContext.INSTANCE,
+                            null,
+                            null,
+                            -1,
+                            null
+                    );
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                compiler.compile("create table if not exists test_batch(i int, l long, d double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            } catch (SqlException e) {
+                e.printStackTrace();
+            }
+        }
+        Options opt = new OptionsBuilder()
+                .include(TableWriteBatchBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+
+        LogFactory.INSTANCE.haltThread();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        writer = new TableWriter(configuration, "test_batch", Metrics.disabled());
+        intAddr = Unsafe.malloc((long) BATCH_SIZE * Integer.BYTES, MemoryTag.NATIVE_DEFAULT);
+        longAddr = Unsafe.malloc((long) BATCH_SIZE * Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        doubleAddr = Unsafe.malloc((long) BATCH_SIZE * Double.BYTES, MemoryTag.NATIVE_DEFAULT);
+        timestampAddr = Unsafe.malloc((long) BATCH_SIZE * Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        rnd.reset();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Unsafe.getUnsafe().putInt(intAddr + (long) i * Integer.BYTES, rnd.nextInt());
+            Unsafe.getUnsafe().putLong(longAddr + (long) i * Long.BYTES, rnd.nextLong());
+            Unsafe.getUnsafe().putDouble(doubleAddr + (long) i * Double.BYTES, rnd.nextDouble());
+        }
+        batch.of(BATCH_SIZE)
+                .putColumn(0, intAddr)
+                .putColumn(1, longAddr)
+                .putColumn(2, doubleAddr)
+                .putColumn(3, timestampAddr);
+        ts = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        writer.commit();
+        writer.truncate();
+        writer.close();
+        Unsafe.free(intAddr, (long) BATCH_SIZE * Integer.BYTES, MemoryTag.NATIVE_DEFAULT);
+        Unsafe.free(longAddr, (long) BATCH_SIZE * Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        Unsafe.free(doubleAddr, (long) BATCH_SIZE * Double.BYTES, MemoryTag.NATIVE_DEFAULT);
+        Unsafe.free(timestampAddr, (long) BATCH_SIZE * Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    @Benchmark
+    public void testAppendBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Unsafe.getUnsafe().putLong(timestampAddr + (long) i * Long.BYTES, ts++ << 8);
+        }
+        writer.appendBatch(batch);
+    }
+
+    @Benchmark
+    public void testAppendRows() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            TableWriter.Row r = writer.newRow(ts++ << 8);
+            r.putInt(0, Unsafe.getUnsafe().getInt(intAddr + (long) i * Integer.BYTES));
+            r.putLong(1, Unsafe.getUnsafe().getLong(longAddr + (long) i * Long.BYTES));
+            r.putDouble(2, Unsafe.getUnsafe().getDouble(doubleAddr + (long) i * Double.BYTES));
+            r.append();
+        }
+    }
+}
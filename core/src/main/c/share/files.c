@@ -39,6 +39,8 @@
 #endif
 
 #include <stdlib.h>
+#include <stdint.h>
+#include <limits.h>
 #include <dirent.h>
 #include <sys/errno.h>
 #include <sys/time.h>
@@ -262,6 +264,98 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync(JNIEnv *e, jclass cl, jlo
     return msync((void *) addr, len, async ? MS_ASYNC : MS_SYNC);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    int adv;
+    switch (advice) {
+        case com_questdb_std_Files_POSIX_MADV_RANDOM:
+            adv = POSIX_MADV_RANDOM;
+            break;
+        case com_questdb_std_Files_POSIX_MADV_SEQUENTIAL:
+            adv = POSIX_MADV_SEQUENTIAL;
+            break;
+        case com_questdb_std_Files_POSIX_MADV_WILLNEED:
+            adv = POSIX_MADV_WILLNEED;
+            break;
+        case com_questdb_std_Files_POSIX_MADV_DONTNEED:
+            adv = POSIX_MADV_DONTNEED;
+            break;
+        default:
+            adv = POSIX_MADV_NORMAL;
+            break;
+    }
+    // the range has to start at page boundary
+    const uintptr_t page_size = (uintptr_t) sysconf(_SC_PAGESIZE);
+    const uintptr_t start = (uintptr_t) address & ~(page_size - 1);
+    return posix_madvise((void *) start, (size_t) (len + ((uintptr_t) address - start)), adv) == 0 ? 0 : -1;
+}
+
+#ifdef __APPLE__
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fadvise0
+        (JNIEnv *e, jclass cl, jlong fd, jlong offset, jlong len, jint advice) {
+    // there is no posix_fadvise() on OSX, read-ahead is controlled via fcntl() instead
+    switch (advice) {
+        case com_questdb_std_Files_POSIX_FADV_WILLNEED: {
+            if (len == 0) {
+                struct stat st;
+                if (fstat((int) fd, &st) != 0) {
+                    return -1;
+                }
+                len = st.st_size - offset;
+            }
+            if (len <= 0) {
+                return 0;
+            }
+            struct radvisory ra;
+            ra.ra_offset = (off_t) offset;
+            ra.ra_count = len > INT_MAX ? INT_MAX : (int) len;
+            return fcntl((int) fd, F_RDADVISE, &ra) == -1 ? -1 : 0;
+        }
+        case com_questdb_std_Files_POSIX_FADV_RANDOM:
+            return fcntl((int) fd, F_RDAHEAD, 0) == -1 ? -1 : 0;
+        case com_questdb_std_Files_POSIX_FADV_SEQUENTIAL:
+        case com_questdb_std_Files_POSIX_FADV_NORMAL:
+            return fcntl((int) fd, F_RDAHEAD, 1) == -1 ? -1 : 0;
+        default:
+            // DONTNEED has no counterpart
+            return 0;
+    }
+}
+
+#else
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fadvise0
+        (JNIEnv *e, jclass cl, jlong fd, jlong offset, jlong len, jint advice) {
+    int adv;
+    switch (advice) {
+        case com_questdb_std_Files_POSIX_FADV_RANDOM:
+            adv = POSIX_FADV_RANDOM;
+            break;
+        case com_questdb_std_Files_POSIX_FADV_SEQUENTIAL:
+            adv = POSIX_FADV_SEQUENTIAL;
+            break;
+        case com_questdb_std_Files_POSIX_FADV_WILLNEED:
+            adv = POSIX_FADV_WILLNEED;
+            break;
+        case com_questdb_std_Files_POSIX_FADV_DONTNEED:
+            adv = POSIX_FADV_DONTNEED;
+            break;
+        default:
+            adv = POSIX_FADV_NORMAL;
+            break;
+    }
+    // posix_fadvise() returns error number rather than setting errno
+    const int rc = posix_fadvise((int) fd, (off_t) offset, (off_t) len, adv);
+    if (rc != 0) {
+        errno = rc;
+        return -1;
+    }
+    return 0;
+}
+
+#endif
+
 JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync(JNIEnv *e, jclass cl, jlong fd) {
     return fsync((int) fd);
 }
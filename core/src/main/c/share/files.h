@@ -29,6 +29,26 @@ extern "C" {
 #define com_questdb_std_Files_MAP_RO 1L
 #undef com_questdb_std_Files_MAP_RW
 #define com_questdb_std_Files_MAP_RW 2L
+#undef com_questdb_std_Files_POSIX_MADV_NORMAL
+#define com_questdb_std_Files_POSIX_MADV_NORMAL 0L
+#undef com_questdb_std_Files_POSIX_MADV_RANDOM
+#define com_questdb_std_Files_POSIX_MADV_RANDOM 1L
+#undef com_questdb_std_Files_POSIX_MADV_SEQUENTIAL
+#define com_questdb_std_Files_POSIX_MADV_SEQUENTIAL 2L
+#undef com_questdb_std_Files_POSIX_MADV_WILLNEED
+#define com_questdb_std_Files_POSIX_MADV_WILLNEED 3L
+#undef com_questdb_std_Files_POSIX_MADV_DONTNEED
+#define com_questdb_std_Files_POSIX_MADV_DONTNEED 4L
+#undef com_questdb_std_Files_POSIX_FADV_NORMAL
+#define com_questdb_std_Files_POSIX_FADV_NORMAL 0L
+#undef com_questdb_std_Files_POSIX_FADV_RANDOM
+#define com_questdb_std_Files_POSIX_FADV_RANDOM 1L
+#undef com_questdb_std_Files_POSIX_FADV_SEQUENTIAL
+#define com_questdb_std_Files_POSIX_FADV_SEQUENTIAL 2L
+#undef com_questdb_std_Files_POSIX_FADV_WILLNEED
+#define com_questdb_std_Files_POSIX_FADV_WILLNEED 3L
+#undef com_questdb_std_Files_POSIX_FADV_DONTNEED
+#define com_questdb_std_Files_POSIX_FADV_DONTNEED 4L
 /*
  * Class:     com_questdb_std_Files
  * Method:    append
@@ -45,6 +65,22 @@ JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_append
 JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_exists
         (JNIEnv *, jclass, jlong);
 
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    fadvise0
+ * Signature: (JJJI)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fadvise0
+        (JNIEnv *, jclass, jlong, jlong, jlong, jint);
+
+/*
+ * Class:     com_questdb_std_Files
+ * Method:    madvise0
+ * Signature: (JJI)I
+ */
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *, jclass, jlong, jlong, jint);
+
 /*
  * Class:     com_questdb_std_Files
  * Method:    findClose
@@ -687,3 +687,13 @@ JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_rename(JNIEnv *e, jclass cl
     SaveLastError();
     return FALSE;
 }
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0(JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // Windows has no access pattern hints for mapped views and PrefetchVirtualMemory() is Windows 8+
+    return 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fadvise0(JNIEnv *e, jclass cl, jlong fd, jlong offset, jlong len, jint advice) {
+    // access pattern of a file is set by flags when it is opened, there is nothing to change on open handle
+    return 0;
+}
@@ -91,6 +91,12 @@ public interface MessageBus extends Closeable {
 
     int getPageFrameReduceShardCount();
 
+    MPSequence getPartitionPrefetchPubSeq();
+
+    RingQueue<PartitionPrefetchTask> getPartitionPrefetchQueue();
+
+    MCSequence getPartitionPrefetchSubSeq();
+
     MCSequence getPageFrameReduceSubSeq(int shard);
 
     FanOut getTableWriterEventFanOut();
@@ -74,6 +74,10 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence queryCacheEventPubSeq;
     private final FanOut queryCacheEventSubSeq;
 
+    private final RingQueue<PartitionPrefetchTask> partitionPrefetchQueue;
+    private final MPSequence partitionPrefetchPubSeq;
+    private final MCSequence partitionPrefetchSubSeq;
+
     private final int pageFrameReduceShardCount;
     private final MPSequence[] pageFrameReducePubSeq;
     private final MCSequence[] pageFrameReduceSubSeq;
@@ -120,6 +124,11 @@ public class MessageBusImpl implements MessageBus {
         this.o3PurgeDiscoverySubSeq = new MCSequence(this.o3PurgeDiscoveryQueue.getCycle());
         this.o3PurgeDiscoveryPubSeq.then(this.o3PurgeDiscoverySubSeq).then(o3PurgeDiscoveryPubSeq);
 
+        this.partitionPrefetchQueue = new RingQueue<>(PartitionPrefetchTask::new, configuration.getPartitionPrefetchQueueCapacity());
+        this.partitionPrefetchPubSeq = new MPSequence(this.partitionPrefetchQueue.getCycle());
+        this.partitionPrefetchSubSeq = new MCSequence(this.partitionPrefetchQueue.getCycle());
+        this.partitionPrefetchPubSeq.then(this.partitionPrefetchSubSeq).then(partitionPrefetchPubSeq);
+
         this.latestByQueue = new RingQueue<>(LatestByTask::new, configuration.getLatestByQueueCapacity());
         this.latestByPubSeq = new MPSequence(latestByQueue.getCycle());
         this.latestBySubSeq = new MCSequence(latestByQueue.getCycle());
@@ -323,6 +332,21 @@ public class MessageBusImpl implements MessageBus {
         return pageFrameReduceShardCount;
     }
 
+    @Override
+    public MPSequence getPartitionPrefetchPubSeq() {
+        return partitionPrefetchPubSeq;
+    }
+
+    @Override
+    public RingQueue<PartitionPrefetchTask> getPartitionPrefetchQueue() {
+        return partitionPrefetchQueue;
+    }
+
+    @Override
+    public MCSequence getPartitionPrefetchSubSeq() {
+        return partitionPrefetchSubSeq;
+    }
+
     @Override
     public MCSequence getPageFrameReduceSubSeq(int shard) {
         return pageFrameReduceSubSeq[shard];
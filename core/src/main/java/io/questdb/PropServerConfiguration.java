@@ -79,6 +79,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int createAsSelectRetryCount;
     private final CharSequence defaultMapType;
     private final boolean defaultSymbolCacheFlag;
+    private final boolean symbolCacheShared;
+    private final boolean columnMappingShared;
     private final int defaultSymbolCapacity;
     private final int fileOperationRetryCount;
     private final long idleCheckInterval;
@@ -89,6 +91,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int mkdirMode;
     private final int parallelIndexThreshold;
     private final int readerPoolMaxSegments;
+    private final CharSequenceIntHashMap readerPoolPinnedTables = new CharSequenceIntHashMap();
+    private final boolean replicationEnabled;
+    private final String replicationFollowerRoot;
+    private final ObjList<CharSequence> replicationTables = new ObjList<>();
     private final long spinLockTimeoutUs;
     private final boolean httpSqlCacheEnabled;
     private final int httpSqlCacheBlockCount;
@@ -171,6 +177,18 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean sqlJitDebugEnabled;
     private final DateLocale locale;
     private final String backupRoot;
+    private final String exportRoot;
+    private final long sqlQueryArenaChunkSize;
+    private final long sqlQueryMemoryLimit;
+    private final long sqlGlobalMemoryLimit;
+    private final boolean sqlSpillEnabled;
+    private final long sqlSpillPageSize;
+    private final int sqlSpillPartitionCount;
+    private final String hugePagePath;
+    private final long hugePageSize;
+    private final long hugePageAllocThreshold;
+    private final long hugePagePoolSize;
+    private final int exportRowGroupSize;
     private final DateFormat backupDirTimestampFormat;
     private final CharSequence backupTempDirName;
     private final int backupMkdirMode;
@@ -256,6 +274,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int columnPurgeRetryLimitDays;
     private final long columnPurgeRetryDelay;
     private final boolean sqlParallelFilterEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelSortEnabled;
+    private final boolean sqlVectorizedProjectionEnabled;
+    private final boolean sqlVectorizedGroupByEnabled;
+    private final int sqlVectorizedGroupByMaxSymbolCount;
+    private final boolean sqlParallelLatestByEnabled;
+    private final boolean sqlPartitionPrefetchEnabled;
+    private final int partitionPrefetchQueueCapacity;
     private final int cairoPageFrameReduceShardCount;
     private int lineUdpDefaultPartitionBy;
     private int httpMinNetConnectionLimit;
@@ -660,6 +686,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.createAsSelectRetryCount = getInt(properties, env, PropertyKey.CAIRO_CREAT_AS_SELECT_RETRY_COUNT, 5);
             this.defaultMapType = getString(properties, env, PropertyKey.CAIRO_DEFAULT_MAP_TYPE, "fast");
             this.defaultSymbolCacheFlag = getBoolean(properties, env, PropertyKey.CAIRO_DEFAULT_SYMBOL_CACHE_FLAG, true);
+            this.symbolCacheShared = getBoolean(properties, env, PropertyKey.CAIRO_SYMBOL_CACHE_SHARED, true);
+            this.columnMappingShared = getBoolean(properties, env, PropertyKey.CAIRO_READER_COLUMN_MAPPING_SHARED, true);
             this.defaultSymbolCapacity = getInt(properties, env, PropertyKey.CAIRO_DEFAULT_SYMBOL_CAPACITY, 256);
             this.fileOperationRetryCount = getInt(properties, env, PropertyKey.CAIRO_FILE_OPERATION_RETRY_COUNT, 30);
             this.idleCheckInterval = getLong(properties, env, PropertyKey.CAIRO_IDLE_CHECK_INTERVAL, 5 * 60 * 1000L);
@@ -669,6 +697,13 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.maxSwapFileCount = getInt(properties, env, PropertyKey.CAIRO_MAX_SWAP_FILE_COUNT, 30);
             this.parallelIndexThreshold = getInt(properties, env, PropertyKey.CAIRO_PARALLEL_INDEX_THRESHOLD, 100000);
             this.readerPoolMaxSegments = getInt(properties, env, PropertyKey.CAIRO_READER_POOL_MAX_SEGMENTS, 5);
+            parsePinnedTables(getString(properties, env, PropertyKey.CAIRO_READER_POOL_PINNED_TABLES, null), readerPoolPinnedTables);
+            this.replicationEnabled = getBoolean(properties, env, PropertyKey.CAIRO_REPLICATION_ENABLED, false);
+            this.replicationFollowerRoot = getString(properties, env, PropertyKey.CAIRO_REPLICATION_FOLLOWER_ROOT, null);
+            parseReplicationTables(getString(properties, env, PropertyKey.CAIRO_REPLICATION_TABLES, null), replicationTables);
+            if (replicationEnabled && replicationFollowerRoot == null) {
+                throw ServerConfigurationException.forInvalidKey(PropertyKey.CAIRO_REPLICATION_FOLLOWER_ROOT.getPropertyPath(), "required when replication is enabled");
+            }
             this.spinLockTimeoutUs = getLong(properties, env, PropertyKey.CAIRO_SPIN_LOCK_TIMEOUT, 1_000_000);
             this.httpSqlCacheEnabled = getBoolean(properties, env, PropertyKey.HTTP_QUERY_CACHE_ENABLED, true);
             this.httpSqlCacheBlockCount = getInt(properties, env, PropertyKey.HTTP_QUERY_CACHE_BLOCK_COUNT, 4);
@@ -722,6 +757,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoPageFrameReduceRowIdListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY, 256));
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, true);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED, true);
+            this.sqlParallelSortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, true);
+            this.sqlVectorizedProjectionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_VECTORIZED_PROJECTION_ENABLED, true);
+            this.sqlVectorizedGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_VECTORIZED_GROUPBY_ENABLED, true);
+            this.sqlVectorizedGroupByMaxSymbolCount = getInt(properties, env, PropertyKey.CAIRO_SQL_VECTORIZED_GROUPBY_MAX_SYMBOL_COUNT, 65536);
+            this.sqlParallelLatestByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_LATEST_BY_ENABLED, true);
+            this.sqlPartitionPrefetchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARTITION_PREFETCH_ENABLED, false);
+            this.partitionPrefetchQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_PARTITION_PREFETCH_QUEUE_CAPACITY, 64));
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 4);
             this.cairoPageFrameReduceTaskPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY, 4);
 
@@ -784,6 +827,18 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.backupDirTimestampFormat = getTimestampFormat(properties, env);
             this.backupTempDirName = getString(properties, env, PropertyKey.CAIRO_SQL_BACKUP_DIR_TMP_NAME, "tmp");
             this.backupMkdirMode = getInt(properties, env, PropertyKey.CAIRO_SQL_BACKUP_MKDIR_MODE, 509);
+            this.exportRoot = getString(properties, env, PropertyKey.CAIRO_SQL_EXPORT_ROOT, null);
+            this.exportRowGroupSize = getInt(properties, env, PropertyKey.CAIRO_SQL_EXPORT_ROW_GROUP_SIZE, 1024 * 1024);
+            this.sqlQueryArenaChunkSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_QUERY_ARENA_CHUNK_SIZE, 64 * 1024);
+            this.sqlQueryMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_SQL_QUERY_MEMORY_LIMIT, 0);
+            this.sqlGlobalMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_SQL_GLOBAL_MEMORY_LIMIT, 0);
+            this.sqlSpillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_SPILL_ENABLED, true);
+            this.sqlSpillPageSize = Files.ceilPageSize(getLongSize(properties, env, PropertyKey.CAIRO_SQL_SPILL_PAGE_SIZE, Numbers.SIZE_1MB));
+            this.sqlSpillPartitionCount = Math.max(2, getInt(properties, env, PropertyKey.CAIRO_SQL_SPILL_PARTITION_COUNT, 16));
+            this.hugePagePath = getString(properties, env, PropertyKey.CAIRO_HUGE_PAGE_PATH, null);
+            this.hugePageSize = Numbers.ceilPow2(getLongSize(properties, env, PropertyKey.CAIRO_HUGE_PAGE_SIZE, 2 * 1024 * 1024));
+            this.hugePageAllocThreshold = getLongSize(properties, env, PropertyKey.CAIRO_HUGE_PAGE_ALLOC_THRESHOLD, 4 * 1024 * 1024);
+            this.hugePagePoolSize = getLongSize(properties, env, PropertyKey.CAIRO_HUGE_PAGE_POOL_SIZE, 1024 * 1024 * 1024);
             this.columnIndexerQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_COLUMN_INDEXER_QUEUE_CAPACITY, 64));
             this.vectorAggregateQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_VECTOR_AGGREGATE_QUEUE_CAPACITY, 128));
             this.o3CallbackQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_O3_CALLBACK_QUEUE_CAPACITY, 128));
@@ -1134,6 +1189,44 @@ public class PropServerConfiguration implements ServerConfiguration {
         return result;
     }
 
+    private static void parsePinnedTables(String value, CharSequenceIntHashMap pinnedTables) throws ServerConfigurationException {
+        if (value == null) {
+            return;
+        }
+        for (String item : value.split(",")) {
+            item = item.trim();
+            if (item.length() == 0) {
+                continue;
+            }
+            final int sep = item.indexOf(':');
+            int count = 1;
+            if (sep > -1) {
+                try {
+                    count = Numbers.parseInt(item, sep + 1, item.length());
+                } catch (NumericException e) {
+                    count = -1;
+                }
+                item = item.substring(0, sep).trim();
+            }
+            if (count < 1 || item.length() == 0) {
+                throw ServerConfigurationException.forInvalidKey(PropertyKey.CAIRO_READER_POOL_PINNED_TABLES.getPropertyPath(), "invalid pinned table: " + value);
+            }
+            pinnedTables.put(item, count);
+        }
+    }
+
+    private static void parseReplicationTables(String value, ObjList<CharSequence> tables) {
+        if (value == null) {
+            return;
+        }
+        for (String item : value.split(",")) {
+            item = item.trim();
+            if (item.length() > 0) {
+                tables.add(item);
+            }
+        }
+    }
+
     protected boolean getBoolean(Properties properties, @Nullable Map<String, String> env, PropertyKey key, boolean defaultValue) {
         final String value = overrideWithEnv(properties, env, key);
         return value == null ? defaultValue : Boolean.parseBoolean(value);
@@ -1969,6 +2062,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return defaultSymbolCacheFlag;
         }
 
+        @Override
+        public boolean isSymbolCacheShared() {
+            return symbolCacheShared;
+        }
+
+        @Override
+        public boolean isColumnMappingShared() {
+            return columnMappingShared;
+        }
+
         @Override
         public int getDefaultSymbolCapacity() {
             return defaultSymbolCapacity;
@@ -2119,6 +2222,46 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelFilterEnabled;
         }
 
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
+
+        @Override
+        public boolean isSqlVectorizedProjectionEnabled() {
+            return sqlVectorizedProjectionEnabled;
+        }
+
+        @Override
+        public boolean isSqlVectorizedGroupByEnabled() {
+            return sqlVectorizedGroupByEnabled;
+        }
+
+        @Override
+        public int getSqlVectorizedGroupByMaxSymbolCount() {
+            return sqlVectorizedGroupByMaxSymbolCount;
+        }
+
+        @Override
+        public boolean isSqlParallelLatestByEnabled() {
+            return sqlParallelLatestByEnabled;
+        }
+
+        @Override
+        public boolean isSqlPartitionPrefetchEnabled() {
+            return sqlPartitionPrefetchEnabled;
+        }
+
+        @Override
+        public int getPartitionPrefetchQueueCapacity() {
+            return partitionPrefetchQueueCapacity;
+        }
+
         @Override
         public int getPageFrameReduceShardCount() {
             return cairoPageFrameReduceShardCount;
@@ -2139,6 +2282,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return readerPoolMaxSegments;
         }
 
+        @Override
+        public CharSequenceIntHashMap getReaderPoolPinnedTables() {
+            return readerPoolPinnedTables;
+        }
+
+        @Override
+        public CharSequence getReplicationFollowerRoot() {
+            return replicationFollowerRoot;
+        }
+
+        @Override
+        public ObjList<CharSequence> getReplicationTables() {
+            return replicationTables;
+        }
+
         @Override
         public int getRenameTableModelPoolCapacity() {
             return sqlRenameTableModelPoolCapacity;
@@ -2234,6 +2392,66 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlDistinctTimestampLoadFactor;
         }
 
+        @Override
+        public CharSequence getSqlExportRoot() {
+            return exportRoot;
+        }
+
+        @Override
+        public long getSqlQueryArenaChunkSize() {
+            return sqlQueryArenaChunkSize;
+        }
+
+        @Override
+        public long getSqlQueryMemoryLimit() {
+            return sqlQueryMemoryLimit;
+        }
+
+        @Override
+        public long getSqlGlobalMemoryLimit() {
+            return sqlGlobalMemoryLimit;
+        }
+
+        @Override
+        public boolean isSqlSpillEnabled() {
+            return sqlSpillEnabled;
+        }
+
+        @Override
+        public long getSqlSpillPageSize() {
+            return sqlSpillPageSize;
+        }
+
+        @Override
+        public int getSqlSpillPartitionCount() {
+            return sqlSpillPartitionCount;
+        }
+
+        @Override
+        public CharSequence getHugePagePath() {
+            return hugePagePath;
+        }
+
+        @Override
+        public long getHugePageSize() {
+            return hugePageSize;
+        }
+
+        @Override
+        public long getHugePageAllocThreshold() {
+            return hugePageAllocThreshold;
+        }
+
+        @Override
+        public long getHugePagePoolSize() {
+            return hugePagePoolSize;
+        }
+
+        @Override
+        public int getSqlExportRowGroupSize() {
+            return exportRowGroupSize;
+        }
+
         @Override
         public int getSqlExpressionPoolCapacity() {
             return sqlExpressionPoolCapacity;
@@ -2463,6 +2681,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isReplicationEnabled() {
+            return replicationEnabled;
+        }
+
         @Override
         public boolean isSqlJitDebugEnabled() {
             return sqlJitDebugEnabled;
@@ -47,6 +47,8 @@ public enum PropertyKey {
     CAIRO_DEFAULT_MAP_TYPE("cairo.default.map.type"),
     CAIRO_DEFAULT_SYMBOL_CACHE_FLAG("cairo.default.symbol.cache.flag"),
     CAIRO_DEFAULT_SYMBOL_CAPACITY("cairo.default.symbol.capacity"),
+    CAIRO_SYMBOL_CACHE_SHARED("cairo.symbol.cache.shared"),
+    CAIRO_READER_COLUMN_MAPPING_SHARED("cairo.reader.column.mapping.shared"),
     CAIRO_FILE_OPERATION_RETRY_COUNT("cairo.file.operation.retry.count"),
     CAIRO_IDLE_CHECK_INTERVAL("cairo.idle.check.interval"),
     CAIRO_INACTIVE_READER_TTL("cairo.inactive.reader.ttl"),
@@ -55,6 +57,10 @@ public enum PropertyKey {
     CAIRO_MAX_SWAP_FILE_COUNT("cairo.max.swap.file.count"),
     CAIRO_PARALLEL_INDEX_THRESHOLD("cairo.parallel.index.threshold"),
     CAIRO_READER_POOL_MAX_SEGMENTS("cairo.reader.pool.max.segments"),
+    CAIRO_READER_POOL_PINNED_TABLES("cairo.reader.pool.pinned.tables"),
+    CAIRO_REPLICATION_ENABLED("cairo.replication.enabled"),
+    CAIRO_REPLICATION_FOLLOWER_ROOT("cairo.replication.follower.root"),
+    CAIRO_REPLICATION_TABLES("cairo.replication.tables"),
     CAIRO_SPIN_LOCK_TIMEOUT("cairo.spin.lock.timeout"),
     CAIRO_CHARACTER_STORE_CAPACITY("cairo.character.store.capacity"),
     CAIRO_CHARACTER_STORE_SEQUENCE_POOL_CAPACITY("cairo.character.store.sequence.pool.capacity"),
@@ -88,6 +94,14 @@ public enum PropertyKey {
     CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY("cairo.page.frame.rowid.list.capacity"),
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
+    CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED("cairo.sql.parallel.hash.join.enabled"),
+    CAIRO_SQL_PARALLEL_SORT_ENABLED("cairo.sql.parallel.sort.enabled"),
+    CAIRO_SQL_VECTORIZED_PROJECTION_ENABLED("cairo.sql.vectorized.projection.enabled"),
+    CAIRO_SQL_VECTORIZED_GROUPBY_ENABLED("cairo.sql.vectorized.groupby.enabled"),
+    CAIRO_SQL_VECTORIZED_GROUPBY_MAX_SYMBOL_COUNT("cairo.sql.vectorized.groupby.max.symbol.count"),
+    CAIRO_SQL_PARALLEL_LATEST_BY_ENABLED("cairo.sql.parallel.latest.by.enabled"),
+    CAIRO_SQL_PARTITION_PREFETCH_ENABLED("cairo.sql.partition.prefetch.enabled"),
+    CAIRO_SQL_PARTITION_PREFETCH_QUEUE_CAPACITY("cairo.sql.partition.prefetch.queue.capacity"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
     CAIRO_SQL_JOIN_METADATA_PAGE_SIZE("cairo.sql.join.metadata.page.size"),
@@ -130,6 +144,18 @@ public enum PropertyKey {
     CAIRO_SQL_BACKUP_ROOT("cairo.sql.backup.root"),
     CAIRO_SQL_BACKUP_DIR_TMP_NAME("cairo.sql.backup.dir.tmp.name"),
     CAIRO_SQL_BACKUP_MKDIR_MODE("cairo.sql.backup.mkdir.mode"),
+    CAIRO_SQL_EXPORT_ROOT("cairo.sql.export.root"),
+    CAIRO_SQL_EXPORT_ROW_GROUP_SIZE("cairo.sql.export.row.group.size"),
+    CAIRO_SQL_QUERY_ARENA_CHUNK_SIZE("cairo.sql.query.arena.chunk.size"),
+    CAIRO_SQL_QUERY_MEMORY_LIMIT("cairo.sql.query.memory.limit"),
+    CAIRO_SQL_GLOBAL_MEMORY_LIMIT("cairo.sql.global.memory.limit"),
+    CAIRO_SQL_SPILL_ENABLED("cairo.sql.spill.enabled"),
+    CAIRO_SQL_SPILL_PAGE_SIZE("cairo.sql.spill.page.size"),
+    CAIRO_SQL_SPILL_PARTITION_COUNT("cairo.sql.spill.partition.count"),
+    CAIRO_HUGE_PAGE_PATH("cairo.huge.page.path"),
+    CAIRO_HUGE_PAGE_SIZE("cairo.huge.page.size"),
+    CAIRO_HUGE_PAGE_ALLOC_THRESHOLD("cairo.huge.page.alloc.threshold"),
+    CAIRO_HUGE_PAGE_POOL_SIZE("cairo.huge.page.pool.size"),
     CAIRO_COLUMN_INDEXER_QUEUE_CAPACITY("cairo.column.indexer.queue.capacity"),
     CAIRO_VECTOR_AGGREGATE_QUEUE_CAPACITY("cairo.vector.aggregate.queue.capacity"),
     CAIRO_O3_CALLBACK_QUEUE_CAPACITY("cairo.o3.callback.queue.capacity"),
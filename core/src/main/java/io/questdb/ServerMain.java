@@ -179,6 +179,21 @@ public class ServerMain {
             }
         }
 
+        final CharSequence hugePagePath = cairoConfiguration.getHugePagePath();
+        if (hugePagePath != null) {
+            Unsafe.setNativeAllocator(new HugePageNativeAllocator(
+                    hugePagePath,
+                    cairoConfiguration.getHugePageSize(),
+                    cairoConfiguration.getHugePagePoolSize(),
+                    cairoConfiguration.getHugePageAllocThreshold()
+            ));
+            log.advisoryW().$("huge pages [path=").$(hugePagePath)
+                    .$(", pageSize=").$(cairoConfiguration.getHugePageSize())
+                    .$(", poolSize=").$(cairoConfiguration.getHugePagePoolSize())
+                    .$(", allocThreshold=").$(cairoConfiguration.getHugePageAllocThreshold())
+                    .I$();
+        }
+
         Metrics metrics;
         if (configuration.getMetricsConfiguration().isEnabled()) {
             metrics = Metrics.enabled();
@@ -196,6 +211,7 @@ public class ServerMain {
         LogFactory.configureFromSystemProperties(workerPool);
         final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration(), metrics);
         workerPool.assign(cairoEngine.getEngineMaintenanceJob());
+        workerPool.assign(cairoEngine.getPinnedReaderRefreshJob());
         instancesToClean.add(cairoEngine);
 
         final DatabaseSnapshotAgent snapshotAgent = new DatabaseSnapshotAgent(cairoEngine);
@@ -225,6 +241,11 @@ public class ServerMain {
             workerPool.assign(new ColumnIndexerJob(cairoEngine.getMessageBus()));
             workerPool.assign(new GroupByJob(cairoEngine.getMessageBus()));
             workerPool.assign(new LatestByAllIndexedJob(cairoEngine.getMessageBus()));
+            workerPool.assign(new PartitionPrefetchJob(cairoEngine.getMessageBus()));
+
+            if (configuration.getCairoConfiguration().isReplicationEnabled()) {
+                setupReplication(workerPool, cairoEngine, metrics, instancesToClean, log);
+            }
 
             instancesToClean.add(createHttpServer(workerPool, log, cairoEngine, functionFactoryCache, snapshotAgent, metrics));
             instancesToClean.add(createMinHttpServer(workerPool, log, cairoEngine, functionFactoryCache, snapshotAgent, metrics));
@@ -558,6 +579,38 @@ public class ServerMain {
         return fileInCanonicalDir.getCanonicalFile().equals(fileInCanonicalDir.getAbsoluteFile());
     }
 
+    private static void setupReplication(
+            WorkerPool workerPool,
+            CairoEngine cairoEngine,
+            Metrics metrics,
+            ObjList<Closeable> instancesToClean,
+            Log log
+    ) {
+        final CairoConfiguration configuration = cairoEngine.getConfiguration();
+        final CharSequence followerRoot = configuration.getReplicationFollowerRoot();
+        try (Path path = new Path()) {
+            path.of(followerRoot).slash$();
+            if (configuration.getFilesFacade().mkdirs(path, configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(configuration.getFilesFacade().errno()).put("could not create follower root [dir=").put(path).put(']');
+            }
+        }
+        // follower engine owns follower root, it purges partitions replaced by replication
+        final CairoEngine followerEngine = new CairoEngine(new DefaultCairoConfiguration(followerRoot), metrics);
+        instancesToClean.add(followerEngine);
+        final O3PartitionPurgeJob purgeJob = new O3PartitionPurgeJob(followerEngine.getMessageBus(), workerPool.getWorkerCount());
+        workerPool.assign(purgeJob);
+        workerPool.freeOnHalt(purgeJob);
+
+        final TableReplicationJob replicationJob = new TableReplicationJob(cairoEngine, followerEngine);
+        final ObjList<CharSequence> tables = configuration.getReplicationTables();
+        for (int i = 0, n = tables.size(); i < n; i++) {
+            replicationJob.addTable(tables.getQuick(i));
+        }
+        workerPool.assign(replicationJob);
+        workerPool.freeOnHalt(replicationJob);
+        log.advisoryW().$("replicating [tables=").$(tables.size()).$(", followerRoot=").$(followerRoot).$(']').$();
+    }
+
     protected static void shutdownQuestDb(final WorkerPool workerPool, final ObjList<? extends Closeable> instancesToClean) {
         workerPool.halt();
         Misc.freeObjList(instancesToClean);
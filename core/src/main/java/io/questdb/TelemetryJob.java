@@ -76,8 +76,10 @@ public class TelemetryJob extends SynchronizedJob implements Closeable {
         this.queue = engine.getTelemetryQueue();
         this.subSeq = engine.getTelemetrySubSequence();
 
-        try (final SqlCompiler compiler = new SqlCompiler(engine, functionFactoryCache, null)) {
-            final SqlExecutionContextImpl sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        try (
+                final SqlCompiler compiler = new SqlCompiler(engine, functionFactoryCache, null);
+                final SqlExecutionContextImpl sqlExecutionContext = new SqlExecutionContextImpl(engine, 1)
+        ) {
             sqlExecutionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
             if (enabled) {
                 compiler.compile("CREATE TABLE IF NOT EXISTS " + tableName + " (created timestamp, event short, origin short) timestamp(created)", sqlExecutionContext);
@@ -28,6 +28,7 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Os;
@@ -40,6 +41,7 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
     protected final static Log LOG = LogFactory.getLog(BitmapIndexBwdReader.class);
     protected final MemoryMR keyMem = Vm.getMRInstance();
     protected final MemoryMR valueMem = Vm.getMRInstance();
+    protected final BitmapIndexBlockDirectory blockDirectory = new BitmapIndexBlockDirectory();
     protected int blockValueCountMod;
     protected int blockCapacity;
     protected long spinLockTimeoutUs;
@@ -54,6 +56,7 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
             Misc.free(keyMem);
             Misc.free(valueMem);
         }
+        blockDirectory.clear();
     }
 
     @Override
@@ -95,6 +98,7 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
         TableUtils.txnPartitionConditionally(path, partitionTxn);
         final int plen = path.length();
         this.spinLockTimeoutUs = configuration.getSpinLockTimeoutUs();
+        this.blockDirectory.clear();
 
         try {
             this.keyMem.wholeFile(configuration.getFilesFacade(), BitmapIndexUtils.keyFileName(path, name, columnNameTxn), MemoryTag.MMAP_INDEX_READER);
@@ -151,6 +155,9 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
             this.keyCount = keyCount;
             this.keyCountIncludingNulls = unIndexedNullCount > 0 ? keyCount + 1 : keyCount;
             this.valueMem.of(configuration.getFilesFacade(), BitmapIndexUtils.valueFileName(path.trimTo(plen), name, columnNameTxn), valueMemSize, valueMemSize, MemoryTag.MMAP_INDEX_READER);
+            // value blocks are visited by key, which is random access as far as the page cache is concerned
+            this.keyMem.advise(Files.POSIX_MADV_RANDOM);
+            this.valueMem.advise(Files.POSIX_MADV_RANDOM);
         } catch (Throwable e) {
             close();
             throw e;
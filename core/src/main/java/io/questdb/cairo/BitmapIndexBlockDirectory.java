@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.IntObjHashMap;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+
+/**
+ * Offsets of value blocks of index keys, in chain order. Value blocks are linked lists, finding n-th block
+ * of a key requires walking the chain. Directory is built lazily the first time key is seeked into and
+ * then extended as writer appends blocks, so that seeks can binary search blocks by their first value
+ * instead of visiting every block between the chain end and the value.
+ * <p>
+ * Only offsets are kept, values are always read from value memory. Directory is checked against first
+ * and last block offsets of the key entry and is rebuilt when chain does not match, e.g. after values
+ * were rolled back. Directory is not thread-safe, it belongs to index reader.
+ */
+class BitmapIndexBlockDirectory implements Mutable {
+    // keys with fewer blocks are cheaper to walk than to keep directory for
+    static final int MIN_BLOCK_COUNT = 8;
+    private final IntObjHashMap<LongList> directories = new IntObjHashMap<>();
+    private final ObjList<LongList> lists = new ObjList<>();
+    private int listCount;
+
+    /**
+     * @param directory  block offsets
+     * @param blockCount number of blocks to search
+     * @param valueMem   value block memory
+     * @param value      value to search for
+     * @return index of last block, which first value is less or equal to value, or -1 when all blocks start with
+     * greater values
+     */
+    static int findBlock(LongList directory, int blockCount, MemoryR valueMem, long value) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (valueMem.getLong(directory.getQuick(mid)) <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    static int getBlockCount(long valueCount, long blockValueCountMod) {
+        return (int) ((valueCount + blockValueCountMod) / (blockValueCountMod + 1));
+    }
+
+    @Override
+    public void clear() {
+        directories.clear();
+        listCount = 0;
+    }
+
+    /**
+     * Returns block offsets of the key, of which first blockCount correspond to the value count. Value memory
+     * must cover last value block.
+     *
+     * @return block offsets or null when key has too few blocks to benefit from directory
+     */
+    LongList of(int key, long valueCount, long firstBlockOffset, long lastBlockOffset, MemoryR valueMem, long blockValueCountMod) {
+        final int blockCount = getBlockCount(valueCount, blockValueCountMod);
+        if (blockCount < MIN_BLOCK_COUNT) {
+            return null;
+        }
+
+        final int index = directories.keyIndex(key);
+        final LongList directory;
+        if (index < 0) {
+            directory = directories.valueAt(index);
+            final int knownCount = directory.size();
+            if (knownCount > 0 && directory.getQuick(0) == firstBlockOffset) {
+                if (knownCount >= blockCount) {
+                    if (directory.getQuick(blockCount - 1) == lastBlockOffset) {
+                        return directory;
+                    }
+                } else if (extend(directory, blockCount, lastBlockOffset, valueMem, blockValueCountMod)) {
+                    return directory;
+                }
+            }
+            directory.clear();
+        } else {
+            directory = nextList();
+            directories.putAt(index, key, directory);
+        }
+
+        directory.add(firstBlockOffset);
+        if (extend(directory, blockCount, lastBlockOffset, valueMem, blockValueCountMod)) {
+            return directory;
+        }
+        // chain is inconsistent with the key entry, do not cache it
+        directory.clear();
+        return null;
+    }
+
+    private static boolean extend(LongList directory, int blockCount, long lastBlockOffset, MemoryR valueMem, long blockValueCountMod) {
+        final long nextBlockOffset = (blockValueCountMod + 1) * 8 + 8;
+        long blockOffset = directory.getLast();
+        for (int i = directory.size(); i < blockCount; i++) {
+            final long next = valueMem.getLong(blockOffset + nextBlockOffset);
+            // blocks are allocated at the end of value memory, chain offsets are ascending
+            if (next <= blockOffset || next > lastBlockOffset) {
+                return false;
+            }
+            directory.add(blockOffset = next);
+        }
+        return blockOffset == lastBlockOffset;
+    }
+
+    private LongList nextList() {
+        if (listCount < lists.size()) {
+            final LongList list = lists.getQuick(listCount++);
+            list.clear();
+            return list;
+        }
+        final LongList list = new LongList();
+        lists.add(list);
+        listCount++;
+        return list;
+    }
+}
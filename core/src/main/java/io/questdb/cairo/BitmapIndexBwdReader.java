@@ -154,6 +154,7 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
                 // should these values do not match.
                 long valueCount;
                 long valueBlockOffset;
+                long firstValueBlockOffset;
                 final long deadline = clock.getTicks() + spinLockTimeoutUs;
                 while (true) {
                     valueCount = keyMem.getLong(offset + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT);
@@ -161,6 +162,7 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
                     Unsafe.getUnsafe().loadFence();
                     if (keyMem.getLong(offset + BitmapIndexUtils.KEY_ENTRY_OFFSET_COUNT_CHECK) == valueCount) {
                         valueBlockOffset = keyMem.getLong(offset + BitmapIndexUtils.KEY_ENTRY_OFFSET_LAST_VALUE_BLOCK_OFFSET);
+                        firstValueBlockOffset = keyMem.getLong(offset + BitmapIndexUtils.KEY_ENTRY_OFFSET_FIRST_VALUE_BLOCK_OFFSET);
 
                         Unsafe.getUnsafe().loadFence();
                         if (keyMem.getLong(offset + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT) == valueCount) {
@@ -177,7 +179,7 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
                 valueMem.extend(valueBlockOffset + blockCapacity);
 
                 if (valueCount > 0) {
-                    BitmapIndexUtils.seekValueBlockRTL(valueCount, valueBlockOffset, valueMem, maxValue, blockValueCountMod, SEEKER);
+                    BitmapIndexUtils.seekValueBlockRTL(valueCount, key, firstValueBlockOffset, valueBlockOffset, valueMem, maxValue, blockValueCountMod, blockDirectory, SEEKER);
                 } else {
                     seekValue(valueCount, valueBlockOffset);
                 }
@@ -214,7 +214,7 @@ public class BitmapIndexFwdReader extends AbstractIndexReader {
                 valueMem.extend(lastValueBlockOffset + blockCapacity);
                 this.valueCount = valueCount;
                 if (valueCount > 0) {
-                    BitmapIndexUtils.seekValueBlockLTR(valueCount, valueBlockOffset, valueMem, minValue, blockValueCountMod, SEEKER);
+                    BitmapIndexUtils.seekValueBlockLTR(valueCount, key, valueBlockOffset, lastValueBlockOffset, valueMem, minValue, blockValueCountMod, blockDirectory, SEEKER);
                 } else {
                     seekValue(valueCount, valueBlockOffset);
                 }
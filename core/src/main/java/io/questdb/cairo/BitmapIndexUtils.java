@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.std.LongList;
 import io.questdb.std.str.Path;
 
 import static io.questdb.cairo.TableUtils.COLUMN_NAME_TXN_NONE;
@@ -197,6 +198,110 @@ public final class BitmapIndexUtils {
         seeker.seek(totalCount - valueCount, valueBlockOffset);
     }
 
+    /**
+     * Seeks value block for rows <= maxValue, same as {@link #seekValueBlockRTL(long, long, MemoryR, long, long, ValueBlockSeeker)}.
+     * When the last block does not contain maxValue, the block is found by binary search of the key's
+     * {@link BitmapIndexBlockDirectory block directory} instead of walking the chain of blocks.
+     *
+     * @param valueCount         total count of values in all blocks
+     * @param key                index key, used to look up block directory
+     * @param firstBlockOffset   offset of first value block in chain of blocks
+     * @param lastBlockOffset    offset of last value block in chain of blocks
+     * @param valueMem           value block memory, must cover all blocks of the chain
+     * @param maxValue           upper limit for block values
+     * @param blockValueCountMod number of values in single block - 1
+     * @param blockDirectory     block directories of index keys
+     * @param seeker             interface that collects results of the search
+     */
+    static void seekValueBlockRTL(
+            long valueCount,
+            int key,
+            long firstBlockOffset,
+            long lastBlockOffset,
+            MemoryR valueMem,
+            long maxValue,
+            long blockValueCountMod,
+            BitmapIndexBlockDirectory blockDirectory,
+            ValueBlockSeeker seeker
+    ) {
+        final LongList directory;
+        if (valueMem.getLong(lastBlockOffset) <= maxValue
+                || (directory = blockDirectory.of(key, valueCount, firstBlockOffset, lastBlockOffset, valueMem, blockValueCountMod)) == null) {
+            seekValueBlockRTL(valueCount, lastBlockOffset, valueMem, maxValue, blockValueCountMod, seeker);
+            return;
+        }
+
+        // last block starts above maxValue, which makes the block we are looking for a full one
+        final long blockValueCount = blockValueCountMod + 1;
+        final int block = BitmapIndexBlockDirectory.findBlock(directory, BitmapIndexBlockDirectory.getBlockCount(valueCount, blockValueCountMod), valueMem, maxValue);
+        if (block < 0) {
+            seeker.seek(0, firstBlockOffset);
+            return;
+        }
+        final long blockOffset = directory.getQuick(block);
+        final long count = block * blockValueCount;
+        if (valueMem.getLong(blockOffset + blockValueCountMod * 8) <= maxValue) {
+            seeker.seek(count + blockValueCount, blockOffset);
+        } else {
+            seeker.seek(count + searchValueBlock(valueMem, blockOffset, blockValueCount, maxValue), blockOffset);
+        }
+    }
+
+    /**
+     * Seeks first value, which is greater or equal to minValue, same as
+     * {@link #seekValueBlockLTR(long, long, MemoryR, long, long, ValueBlockSeeker)}. When the first block does not
+     * contain minValue, the block is found by binary search of the key's {@link BitmapIndexBlockDirectory block directory}
+     * instead of walking the chain of blocks.
+     * <p>
+     * When last block is beyond the memory boundary, the chain is walked from the first block with the boundary checks
+     * of the single ended version.
+     *
+     * @param valueCount         total count of values in all blocks
+     * @param key                index key, used to look up block directory
+     * @param firstBlockOffset   offset of first value block in chain of blocks
+     * @param lastBlockOffset    offset of last value block in chain of blocks
+     * @param valueMem           value block memory
+     * @param minValue           lower limit for values
+     * @param blockValueCountMod number of values in single block - 1
+     * @param blockDirectory     block directories of index keys
+     * @param seeker             interface that collects results of the search
+     */
+    static void seekValueBlockLTR(
+            long valueCount,
+            int key,
+            long firstBlockOffset,
+            long lastBlockOffset,
+            MemoryR valueMem,
+            long minValue,
+            long blockValueCountMod,
+            BitmapIndexBlockDirectory blockDirectory,
+            ValueBlockSeeker seeker
+    ) {
+        final LongList directory;
+        if (lastBlockOffset + (blockValueCountMod + 1) * 8 + VALUE_BLOCK_FILE_RESERVED > valueMem.size()
+                || valueMem.getLong(firstBlockOffset + Math.min(valueCount - 1, blockValueCountMod) * 8) >= minValue
+                || (directory = blockDirectory.of(key, valueCount, firstBlockOffset, lastBlockOffset, valueMem, blockValueCountMod)) == null) {
+            seekValueBlockLTR(valueCount, firstBlockOffset, valueMem, minValue, blockValueCountMod, seeker);
+            return;
+        }
+
+        // first block ends below minValue, which makes the search always find a block
+        final long blockValueCount = blockValueCountMod + 1;
+        final int blockCount = BitmapIndexBlockDirectory.getBlockCount(valueCount, blockValueCountMod);
+        final int block = BitmapIndexBlockDirectory.findBlock(directory, blockCount, valueMem, minValue - 1);
+        final long blockOffset = directory.getQuick(block);
+        final long count = block * blockValueCount;
+        final long cellCount = block < blockCount - 1 ? blockValueCount : valueCount - count;
+        if (valueMem.getLong(blockOffset + (cellCount - 1) * 8) >= minValue) {
+            seekInBlock(valueMem, blockOffset, count, cellCount, minValue, seeker);
+        } else if (block < blockCount - 1) {
+            // values we are after start at the beginning of the next block
+            seeker.seek(count + cellCount, directory.getQuick(block + 1));
+        } else {
+            seeker.seek(valueCount, blockOffset);
+        }
+    }
+
     static long getKeyEntryOffset(int key) {
         return key * KEY_ENTRY_SIZE + KEY_FILE_RESERVED;
     }
@@ -253,6 +358,13 @@ public final class BitmapIndexUtils {
         }
     }
 
+    private static void seekInBlock(MemoryR valueMem, long blockOffset, long count, long cellCount, long minValue, ValueBlockSeeker seeker) {
+        if (minValue > valueMem.getLong(blockOffset)) {
+            count += searchValueBlock(valueMem, blockOffset, cellCount, minValue - 1);
+        }
+        seeker.seek(count, blockOffset);
+    }
+
     @FunctionalInterface
     interface ValueBlockSeeker {
         void seek(long count, long offset);
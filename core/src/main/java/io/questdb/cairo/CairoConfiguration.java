@@ -118,6 +118,22 @@ public interface CairoConfiguration {
 
     boolean getDefaultSymbolCacheFlag();
 
+    /**
+     * When true, table readers share decoded values of cached symbol columns. Values are decoded
+     * once per column version rather than once per reader.
+     *
+     * @return true when symbol value cache is shared by readers
+     */
+    boolean isSymbolCacheShared();
+
+    /**
+     * When true, readers of the same table share read-only mappings of column files instead of
+     * mapping their own copies.
+     *
+     * @return true when column mappings are shared by readers
+     */
+    boolean isColumnMappingShared();
+
     int getDefaultSymbolCapacity();
 
     int getDoubleToStrCastScale();
@@ -132,6 +148,25 @@ public interface CairoConfiguration {
 
     int getGroupByPoolCapacity();
 
+    /**
+     * Directory on a hugetlbfs mount, large native allocations are placed in explicit huge pages
+     * backed by this directory. Defaults to {@code null}, which disables huge page allocation.
+     *
+     * @return path to hugetlbfs mount or null
+     */
+    CharSequence getHugePagePath();
+
+    long getHugePageSize();
+
+    long getHugePageAllocThreshold();
+
+    /**
+     * Size of the region mapped in huge pages at startup, large allocations are carved from it.
+     *
+     * @return size of huge page pool in bytes
+     */
+    long getHugePagePoolSize();
+
     long getIdleCheckInterval();
 
     long getInactiveReaderTTL();
@@ -195,6 +230,8 @@ public interface CairoConfiguration {
 
     int getPartitionPurgeListCapacity();
 
+    int getPartitionPrefetchQueueCapacity();
+
     int getQueryCacheEventQueueCapacity();
 
     default Rnd getRandom() {
@@ -210,6 +247,21 @@ public interface CairoConfiguration {
 
     int getReaderPoolMaxSegments();
 
+    /**
+     * Tables that keep readers open and reloaded to the latest transaction, mapped to
+     * the number of readers to keep. Pinned readers are not released as inactive and
+     * are refreshed in the background when the table writer commits.
+     */
+    CharSequenceIntHashMap getReaderPoolPinnedTables();
+
+    /**
+     * Root directory of the follower database that {@link TableReplicationJob} keeps in sync
+     * with this one, used only when replication is enabled.
+     */
+    CharSequence getReplicationFollowerRoot();
+
+    ObjList<CharSequence> getReplicationTables();
+
     int getRenameTableModelPoolCapacity();
 
     int getRndFunctionMemoryMaxPages();
@@ -263,6 +315,34 @@ public interface CairoConfiguration {
 
     double getSqlDistinctTimestampLoadFactor();
 
+    CharSequence getSqlExportRoot();
+
+    long getSqlQueryArenaChunkSize();
+
+    /**
+     * Limit on native memory a single query can take from its arena, see
+     * {@link io.questdb.std.NativeArena}. Sorts, hash joins and group-by spill to disk
+     * when the limit is reached, other operators fail the query.
+     *
+     * @return memory limit in bytes, 0 means unlimited
+     */
+    long getSqlQueryMemoryLimit();
+
+    /**
+     * Limit on native memory all queries of the server can take from their arenas combined.
+     *
+     * @return memory limit in bytes, 0 means unlimited
+     */
+    long getSqlGlobalMemoryLimit();
+
+    boolean isSqlSpillEnabled();
+
+    long getSqlSpillPageSize();
+
+    int getSqlSpillPartitionCount();
+
+    int getSqlExportRowGroupSize();
+
     int getSqlExpressionPoolCapacity();
 
     double getSqlFastMapLoadFactor();
@@ -362,6 +442,12 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    /**
+     * A flag to enable replication of {@link #getReplicationTables() tables} to the follower database.
+     * Defaults to {@code false}.
+     */
+    boolean isReplicationEnabled();
+
     /**
      * A flag to enable/disable snapshot recovery mechanism. Defaults to {@code true}.
      *
@@ -372,4 +458,60 @@ public interface CairoConfiguration {
     boolean isSqlJitDebugEnabled();
 
     boolean isSqlParallelFilterEnabled();
+
+    /**
+     * When enabled, inner hash joins of tables build the hash table and probe it with page frames of the
+     * master table on the shared worker pool.
+     *
+     * @return true when parallel hash join is enabled, defaults to {@code true}
+     */
+    boolean isSqlParallelHashJoinEnabled();
+
+    /**
+     * When enabled, ORDER BY on a single integer or timestamp column of a table radix sorts page
+     * frames on the shared worker pool and merges the sorted frames.
+     *
+     * @return true when parallel sort is enabled, defaults to {@code true}
+     */
+    boolean isSqlParallelSortEnabled();
+
+    /**
+     * When enabled, arithmetic expressions of SELECT list over table columns are compiled and
+     * evaluated for a batch of page frame rows at a time.
+     *
+     * @return true when vectorized projection is enabled, defaults to {@code true}
+     */
+    boolean isSqlVectorizedProjectionEnabled();
+
+    /**
+     * When enabled, GROUP BY over arithmetic expressions of table columns, either without keys or keyed
+     * by a single symbol column, is computed by workers frame by frame and partial results are merged.
+     *
+     * @return true when vectorized group by is enabled, defaults to {@code true}
+     */
+    boolean isSqlVectorizedGroupByEnabled();
+
+    /**
+     * Vectorized GROUP BY keeps a slot per symbol value in every partial result. Queries keyed by a symbol
+     * column with more distinct values than this are handed over to hash map based GROUP BY.
+     *
+     * @return max number of distinct values of the symbol key, defaults to 65536
+     */
+    int getSqlVectorizedGroupByMaxSymbolCount();
+
+    /**
+     * When enabled, unfiltered LATEST BY on multiple columns or on a non-symbol column is computed
+     * by workers frame by frame, newest frames first.
+     *
+     * @return true when parallel latest by is enabled, defaults to {@code true}
+     */
+    boolean isSqlParallelLatestByEnabled();
+
+    /**
+     * When enabled, table readers publish column files of the partition that a scan is going to visit next
+     * to a background job, which pulls them into page cache while current partition is being read.
+     *
+     * @return true when partition prefetch is enabled, defaults to {@code false}
+     */
+    boolean isSqlPartitionPrefetchEnabled();
 }
@@ -61,12 +61,14 @@ public class CairoEngine implements Closeable, WriterSource {
     private final CairoConfiguration configuration;
     private final Metrics metrics;
     private final EngineMaintenanceJob engineMaintenanceJob;
+    private final PinnedReaderRefreshJob pinnedReaderRefreshJob;
     private final MessageBus messageBus;
     private final RingQueue<TelemetryTask> telemetryQueue;
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
     private final long tableIdMemSize;
     private final AtomicLong asyncCommandCorrelationId = new AtomicLong();
+    private final MemoryBudget queryMemoryBudget;
     private long tableIdFd = -1;
     private long tableIdMem = 0;
 
@@ -82,7 +84,12 @@ public class CairoEngine implements Closeable, WriterSource {
         this.messageBus = new MessageBusImpl(configuration);
         this.writerPool = new WriterPool(configuration, messageBus, metrics);
         this.readerPool = new ReaderPool(configuration, messageBus);
+        if (configuration.getReaderPoolPinnedTables().size() > 0) {
+            this.writerPool.setCommitListener(readerPool);
+        }
         this.engineMaintenanceJob = new EngineMaintenanceJob(configuration);
+        this.pinnedReaderRefreshJob = new PinnedReaderRefreshJob();
+        this.queryMemoryBudget = new MemoryBudget(configuration.getSqlGlobalMemoryLimit());
         if (configuration.getTelemetryConfiguration().getEnabled()) {
             this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
             this.telemetryPubSeq = new MPSequence(telemetryQueue.getCycle());
@@ -214,6 +221,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return engineMaintenanceJob;
     }
 
+    public Job getPinnedReaderRefreshJob() {
+        return pinnedReaderRefreshJob;
+    }
+
     public MessageBus getMessageBus() {
         return messageBus;
     }
@@ -222,6 +233,10 @@ public class CairoEngine implements Closeable, WriterSource {
         return metrics;
     }
 
+    public MemoryBudget getQueryMemoryBudget() {
+        return queryMemoryBudget;
+    }
+
     public long getNextTableId() {
         long next;
         long x = Unsafe.getUnsafe().getLong(tableIdMem);
@@ -538,4 +553,11 @@ public class CairoEngine implements Closeable, WriterSource {
             return false;
         }
     }
+
+    private class PinnedReaderRefreshJob extends SynchronizedJob {
+        @Override
+        protected boolean runSerially() {
+            return readerPool.refreshPinnedReaders();
+        }
+    }
 }
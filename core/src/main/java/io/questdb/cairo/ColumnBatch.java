@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+
+/**
+ * Columnar batch of rows for {@link TableWriter#appendBatch(ColumnBatch)}. Column values are supplied
+ * as native memory blocks in the same format the writer stores them on disk:
+ * <ul>
+ *     <li>fixed size columns - one value per row, symbol columns take keys resolved via
+ *     {@link TableWriter#resolveSymbol(int, CharSequence)}</li>
+ *     <li>STRING and BINARY columns - data block and rowCount + 1 long offsets into that block,
+ *     the first offset is the start of the first value and the last one is end of the last value</li>
+ * </ul>
+ * Columns that are not set in the batch are filled with nulls. Batch does not own the memory.
+ */
+public class ColumnBatch implements Mutable {
+    private final LongList dataAddresses = new LongList();
+    private final LongList offsetAddresses = new LongList();
+    private long rowCount;
+
+    @Override
+    public void clear() {
+        rowCount = 0;
+        dataAddresses.clear();
+        offsetAddresses.clear();
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public ColumnBatch of(long rowCount) {
+        clear();
+        this.rowCount = rowCount;
+        return this;
+    }
+
+    public ColumnBatch putColumn(int columnIndex, long dataAddress) {
+        return putVarColumn(columnIndex, dataAddress, 0);
+    }
+
+    public ColumnBatch putVarColumn(int columnIndex, long dataAddress, long offsetsAddress) {
+        final int size = dataAddresses.size();
+        if (columnIndex > size) {
+            // columns in the gap are not set
+            dataAddresses.seed(size, columnIndex - size, 0);
+        }
+        dataAddresses.extendAndSet(columnIndex, dataAddress);
+        offsetAddresses.extendAndSet(columnIndex, offsetsAddress);
+        return this;
+    }
+
+    long getDataAddress(int columnIndex) {
+        return columnIndex < dataAddresses.size() ? dataAddresses.getQuick(columnIndex) : 0;
+    }
+
+    long getOffsetsAddress(int columnIndex) {
+        return offsetAddresses.getQuick(columnIndex);
+    }
+}
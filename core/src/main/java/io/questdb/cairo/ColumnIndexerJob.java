@@ -39,6 +39,7 @@ public class ColumnIndexerJob extends AbstractQueueConsumerJob<ColumnIndexerTask
         final ColumnIndexerTask queueItem = queue.get(cursor);
         // copy values and release queue item
         final ColumnIndexer indexer = queueItem.indexer;
+        final SortedColumnIndexer sortedIndexer = queueItem.sortedIndexer;
         final long lo = queueItem.lo;
         final long hi = queueItem.hi;
         final long indexSequence = queueItem.sequence;
@@ -49,7 +50,12 @@ public class ColumnIndexerJob extends AbstractQueueConsumerJob<ColumnIndexerTask
         // child workers. The reason it is undesirable is because all writers
         // share the same queue and main thread end up indexing content for other writers.
         // Using CAS allows main thread to steal only parts of its own job.
-        if (indexer.tryLock(indexSequence)) {
+        if (sortedIndexer != null) {
+            if (sortedIndexer.tryLock(indexSequence)) {
+                TableWriter.sortedIndexAndCountDown(sortedIndexer, latch);
+                return true;
+            }
+        } else if (indexer.tryLock(indexSequence)) {
             TableWriter.indexAndCountDown(indexer, lo, hi, latch);
             return true;
         }
@@ -277,6 +277,16 @@ public class ColumnPurgeOperator implements Closeable {
                         continue;
                     }
                 }
+
+                // sorted index of non-symbol column, file does not exist unless column is indexed
+                if (SortedIndexUtils.isSupportedType(task.getColumnType())) {
+                    path.trimTo(pathTrimToPartition);
+                    TableUtils.siFile(path, task.getColumnName(), columnVersion);
+                    if (couldNotRemove(ff, path)) {
+                        allDone = false;
+                        continue;
+                    }
+                }
                 completedRecordIds.add(updateRecordId);
             }
         } finally {
@@ -85,6 +85,41 @@ public class ColumnVersionWriter extends ColumnVersionReader {
         return hasChanges;
     }
 
+    /**
+     * Replaces all entries with the entries of another column version file and publishes them
+     * under that file's version. Readers cross-check column version against the transaction file,
+     * so a replica has to carry exactly the same version number as its master.
+     *
+     * @param entries column version entries, 4 longs per entry
+     * @param version version to publish entries under
+     */
+    public void replicate(LongList entries, long version) {
+        if (version == this.version) {
+            return;
+        }
+        if (((version ^ this.version) & 1L) == 0L) {
+            // new version maps to the area readers are using now, switch areas first
+            doCommit();
+        }
+        LongList cachedList = getCachedList();
+        cachedList.clear();
+        cachedList.add(entries);
+        int entryCount = cachedList.size() / BLOCK_SIZE;
+        long areaSize = calculateSize(entryCount);
+        long writeOffset = calculateWriteOffset(areaSize);
+        bumpFileSize(writeOffset + areaSize);
+        store(entryCount, writeOffset);
+        if (isCurrentA()) {
+            updateB(writeOffset, areaSize);
+        } else {
+            updateA(writeOffset, areaSize);
+        }
+        Unsafe.getUnsafe().storeFence();
+        this.version = version;
+        mem.putLong(OFFSET_VERSION_64, version);
+        hasChanges = false;
+    }
+
     public void removeColumnTop(long partitionTimestamp, int columnIndex) {
         int recordIndex = getRecordIndex(partitionTimestamp, columnIndex);
         if (recordIndex >= 0) {
@@ -49,6 +49,8 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final SqlExecutionCircuitBreakerConfiguration circuitBreakerConfiguration = new DefaultSqlExecutionCircuitBreakerConfiguration();
 
     private final BuildInformation buildInformation = new BuildInformationHolder();
+    private final CharSequenceIntHashMap pinnedTables = new CharSequenceIntHashMap();
+    private final ObjList<CharSequence> replicationTables = new ObjList<>();
 
     private final long databaseIdLo;
     private final long databaseIdHi;
@@ -248,6 +250,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSymbolCacheShared() {
+        return true;
+    }
+
+    @Override
+    public boolean isColumnMappingShared() {
+        return true;
+    }
+
     @Override
     public int getDefaultSymbolCapacity() {
         return 128;
@@ -393,6 +405,46 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlVectorizedProjectionEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlVectorizedGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlVectorizedGroupByMaxSymbolCount() {
+        return 65536;
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlPartitionPrefetchEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getPartitionPrefetchQueueCapacity() {
+        return 64;
+    }
+
     @Override
     public int getPageFrameReduceQueueCapacity() {
         return 32;
@@ -423,6 +475,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 5;
     }
 
+    @Override
+    public CharSequenceIntHashMap getReaderPoolPinnedTables() {
+        return pinnedTables;
+    }
+
+    @Override
+    public CharSequence getReplicationFollowerRoot() {
+        return null;
+    }
+
+    @Override
+    public ObjList<CharSequence> getReplicationTables() {
+        return replicationTables;
+    }
+
     @Override
     public int getRenameTableModelPoolCapacity() {
         return 8;
@@ -520,6 +587,66 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 0.5;
     }
 
+    @Override
+    public CharSequence getSqlExportRoot() {
+        return null;
+    }
+
+    @Override
+    public long getSqlQueryArenaChunkSize() {
+        return 64 * 1024;
+    }
+
+    @Override
+    public long getSqlQueryMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public long getSqlGlobalMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public boolean isSqlSpillEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getSqlSpillPageSize() {
+        return Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public int getSqlSpillPartitionCount() {
+        return 16;
+    }
+
+    @Override
+    public CharSequence getHugePagePath() {
+        return null;
+    }
+
+    @Override
+    public long getHugePageSize() {
+        return 2 * 1024 * 1024;
+    }
+
+    @Override
+    public long getHugePageAllocThreshold() {
+        return 4 * 1024 * 1024;
+    }
+
+    @Override
+    public long getHugePagePoolSize() {
+        return 1024 * 1024 * 1024;
+    }
+
+    @Override
+    public int getSqlExportRowGroupSize() {
+        return 1024 * 1024;
+    }
+
     @Override
     public int getSqlExpressionPoolCapacity() {
         return 8192;
@@ -754,6 +881,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isReplicationEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isSqlJitDebugEnabled() {
         return false;
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.IntList;
+import io.questdb.std.Transient;
+
+/**
+ * Copies every column of the record in column order, symbols are copied as their int keys.
+ * Unlike sinks produced by {@link RecordSinkFactory} this one does not generate bytecode, it
+ * is meant for rarely taken code paths, such as spilling operator state to disk.
+ */
+public class EntityRecordSink implements RecordSink {
+    private final IntList columnTypes = new IntList();
+
+    public EntityRecordSink(@Transient ColumnTypes columnTypes) {
+        for (int i = 0, n = columnTypes.getColumnCount(); i < n; i++) {
+            this.columnTypes.add(columnTypes.getColumnType(i));
+        }
+    }
+
+    @Override
+    public void copy(Record r, RecordSinkSPI w) {
+        for (int i = 0, n = columnTypes.size(); i < n; i++) {
+            final int type = columnTypes.getQuick(i);
+            switch (ColumnType.tagOf(type)) {
+                case ColumnType.BOOLEAN:
+                    w.putBool(r.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    w.putByte(r.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    w.putShort(r.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    w.putChar(r.getChar(i));
+                    break;
+                case ColumnType.INT:
+                case ColumnType.SYMBOL:
+                    w.putInt(r.getInt(i));
+                    break;
+                case ColumnType.LONG:
+                    w.putLong(r.getLong(i));
+                    break;
+                case ColumnType.DATE:
+                    w.putDate(r.getDate(i));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    w.putTimestamp(r.getTimestamp(i));
+                    break;
+                case ColumnType.FLOAT:
+                    w.putFloat(r.getFloat(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    w.putDouble(r.getDouble(i));
+                    break;
+                case ColumnType.STRING:
+                    w.putStr(r.getStr(i));
+                    break;
+                case ColumnType.BINARY:
+                    w.putBin(r.getBin(i));
+                    break;
+                case ColumnType.LONG256:
+                    w.putLong256(r.getLong256A(i));
+                    break;
+                case ColumnType.GEOBYTE:
+                    w.putByte(r.getGeoByte(i));
+                    break;
+                case ColumnType.GEOSHORT:
+                    w.putShort(r.getGeoShort(i));
+                    break;
+                case ColumnType.GEOINT:
+                    w.putInt(r.getGeoInt(i));
+                    break;
+                case ColumnType.GEOLONG:
+                    w.putLong(r.getGeoLong(i));
+                    break;
+                case ColumnType.RECORD:
+                    w.putRecord(r.getRecord(i));
+                    break;
+                default:
+                    throw CairoException.instance(0).put("unsupported column type: ").put(ColumnType.nameOf(type));
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.std.Files;
 import org.jetbrains.annotations.Nullable;
 
 public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
@@ -37,6 +38,8 @@ public class FullBwdDataFrameCursor extends AbstractFullDataFrameCursor {
                 // this partition is missing, skip
                 partitionIndex--;
             } else {
+                reader.adviseColumns(partitionIndex, Files.POSIX_MADV_SEQUENTIAL);
+                reader.prefetchPartition(partitionIndex - 1);
                 frame.partitionIndex = partitionIndex;
                 frame.rowHi = hi;
                 partitionIndex--;
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.std.Files;
 import org.jetbrains.annotations.Nullable;
 
 public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
@@ -32,11 +33,14 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public @Nullable DataFrame next() {
         while (this.partitionIndex < partitionHi) {
-            final long hi = getTableReader().openPartition(partitionIndex);
+            final TableReader reader = getTableReader();
+            final long hi = reader.openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
                 partitionIndex++;
             } else {
+                reader.adviseColumns(partitionIndex, Files.POSIX_MADV_SEQUENTIAL);
+                reader.prefetchPartition(partitionIndex + 1);
                 frame.partitionIndex = partitionIndex;
                 frame.rowLo = 0;
                 frame.rowHi = hi;
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Copy of {@link LatestRowsUtils latest rows} of a symbol column as of a given transaction. The file is
+ * read rather than mapped, it is small and the writer updates it in place.
+ */
+public class LatestRowsReader implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LatestRowsReader.class);
+    private long address;
+    private long capacity;
+    private long keyCount;
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, capacity, MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+            address = 0;
+            capacity = 0;
+        }
+        keyCount = 0;
+    }
+
+    /**
+     * @return number of keys including null symbol, which is the number of symbols plus one
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * @return partition timestamp of the latest row of the key, {@link io.questdb.std.Numbers#LONG_NaN} when
+     * the key has no rows
+     */
+    public long getPartitionTimestamp(long slot) {
+        return Unsafe.getUnsafe().getLong(address + LatestRowsUtils.getEntryOffset(slot));
+    }
+
+    public long getRow(long slot) {
+        return Unsafe.getUnsafe().getLong(address + LatestRowsUtils.getEntryOffset(slot) + Long.BYTES);
+    }
+
+    /**
+     * Reads latest rows file.
+     *
+     * @param ff   files facade
+     * @param name latest rows file name
+     * @param txn  transaction of the table reader
+     * @return false when file does not exist, is being updated or is not consistent with the transaction
+     */
+    public boolean of(FilesFacade ff, LPSZ name, long txn) {
+        keyCount = 0;
+        if (!ff.exists(name)) {
+            return false;
+        }
+        final long fd = ff.openRO(name);
+        if (fd == -1) {
+            LOG.error().$("could not open latest rows [file=").$(name).$(", errno=").$(ff.errno()).I$();
+            return false;
+        }
+        try {
+            ensureCapacity(LatestRowsUtils.HEADER_SIZE);
+            if (ff.read(fd, address, LatestRowsUtils.HEADER_SIZE, 0) != LatestRowsUtils.HEADER_SIZE) {
+                return false;
+            }
+            final long sequence = Unsafe.getUnsafe().getLong(address + LatestRowsUtils.HEADER_OFFSET_SEQUENCE);
+            if ((sequence & 1) != 0 || Unsafe.getUnsafe().getLong(address + LatestRowsUtils.HEADER_OFFSET_TXN) != txn) {
+                return false;
+            }
+
+            final long count = Unsafe.getUnsafe().getLong(address + LatestRowsUtils.HEADER_OFFSET_KEY_COUNT);
+            final long size = LatestRowsUtils.getEntryOffset(count);
+            ensureCapacity(size);
+            if (ff.read(fd, address, size, 0) != size) {
+                return false;
+            }
+            // entries are valid when writer did not start updating the file while they were read
+            if (Unsafe.getUnsafe().getLong(address + LatestRowsUtils.HEADER_OFFSET_SEQUENCE) != sequence
+                    || ff.readULong(fd, LatestRowsUtils.HEADER_OFFSET_SEQUENCE) != sequence) {
+                return false;
+            }
+            keyCount = count;
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private void ensureCapacity(long size) {
+        if (size > capacity) {
+            address = Unsafe.realloc(address, capacity, size, MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+            capacity = size;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+
+/**
+ * Layout of the latest rows file of a symbol column. Table writer keeps the file up to date on every
+ * commit, the file has the latest row of every symbol key of the column, so that LATEST BY the column
+ * does not have to scan the table.
+ * <p>
+ * File is in table root, it consists of a header followed by (partition timestamp, row) pairs of 16 bytes
+ * each, one per key. Null symbol comes first, it is followed by symbol keys in ascending order. Partition
+ * timestamp of a key that has no rows is {@link io.questdb.std.Numbers#LONG_NaN}. Header has the txn of
+ * the transaction file the entries are consistent with and a sequence, which is odd while the file is
+ * updated.
+ */
+public final class LatestRowsUtils {
+    public static final long HEADER_SIZE = 64;
+    public static final int ENTRY_SIZE_SHL = 4;
+    static final long HEADER_OFFSET_SEQUENCE = 0;
+    static final long HEADER_OFFSET_TXN = 8;
+    static final long HEADER_OFFSET_KEY_COUNT = 16;
+    // rows of partitions up to this partition timestamp and row count are reflected in the entries
+    static final long HEADER_OFFSET_SCANNED_PARTITION = 24;
+    static final long HEADER_OFFSET_SCANNED_ROW_COUNT = 32;
+
+    private LatestRowsUtils() {
+    }
+
+    public static long getEntryOffset(long slot) {
+        return HEADER_SIZE + (slot << ENTRY_SIZE_SHL);
+    }
+
+    /**
+     * @param symbolKey symbol key, {@link SymbolTable#VALUE_IS_NULL} for null
+     * @return slot of the key in the file
+     */
+    public static long toSlot(int symbolKey) {
+        return symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1L;
+    }
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Maintains {@link LatestRowsUtils latest rows} file of a symbol column on behalf of table writer. Entries
+ * are changed between {@link #beginUpdate()} and {@link #endUpdate(long, long, long)}, readers retry or
+ * fall back to scanning the table when they see the file in the middle of an update.
+ */
+public class LatestRowsWriter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LatestRowsWriter.class);
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    // slots that were reset ahead of rescan of the partitions their rows were in
+    private final LongList resetSlots = new LongList();
+    private int columnIndex;
+    private long keyCount;
+
+    @Override
+    public void close() {
+        mem.close();
+        resetSlots.clear();
+        keyCount = 0;
+    }
+
+    public void beginUpdate() {
+        mem.putLong(LatestRowsUtils.HEADER_OFFSET_SEQUENCE, mem.getLong(LatestRowsUtils.HEADER_OFFSET_SEQUENCE) + 1);
+        Unsafe.getUnsafe().storeFence();
+    }
+
+    /**
+     * Marks all keys as having no rows.
+     */
+    public void clear() {
+        for (long slot = 0; slot < keyCount; slot++) {
+            putAbsent(slot);
+        }
+        resetSlots.clear();
+    }
+
+    public void endUpdate(long txn, long scannedPartitionTimestamp, long scannedRowCount) {
+        mem.putLong(LatestRowsUtils.HEADER_OFFSET_TXN, txn);
+        mem.putLong(LatestRowsUtils.HEADER_OFFSET_SCANNED_PARTITION, scannedPartitionTimestamp);
+        mem.putLong(LatestRowsUtils.HEADER_OFFSET_SCANNED_ROW_COUNT, scannedRowCount);
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(LatestRowsUtils.HEADER_OFFSET_SEQUENCE, mem.getLong(LatestRowsUtils.HEADER_OFFSET_SEQUENCE) + 1);
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public long getScannedPartitionTimestamp() {
+        return mem.getLong(LatestRowsUtils.HEADER_OFFSET_SCANNED_PARTITION);
+    }
+
+    public long getScannedRowCount() {
+        return mem.getLong(LatestRowsUtils.HEADER_OFFSET_SCANNED_ROW_COUNT);
+    }
+
+    public long getTxn() {
+        return mem.getLong(LatestRowsUtils.HEADER_OFFSET_TXN);
+    }
+
+    /**
+     * @return true when a key that was reset by {@link #reset(long)} has not been found by the rescan,
+     * latest row of such key is in one of the partitions that were not rescanned
+     */
+    public boolean hasLostKeys() {
+        for (int i = 0, n = resetSlots.size(); i < n; i++) {
+            if (getPartitionTimestamp(resetSlots.getQuick(i)) == Numbers.LONG_NaN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false when writer was interrupted while updating the file
+     */
+    public boolean isConsistent() {
+        return (mem.getLong(LatestRowsUtils.HEADER_OFFSET_SEQUENCE) & 1) == 0;
+    }
+
+    public void of(FilesFacade ff, LPSZ name, int columnIndex) {
+        close();
+        this.columnIndex = columnIndex;
+        mem.of(ff, name, ff.getPageSize(), MemoryTag.MMAP_TABLE_WRITER, CairoConfiguration.O_NONE);
+        if (mem.getAppendOffset() < LatestRowsUtils.HEADER_SIZE) {
+            mem.putLong(LatestRowsUtils.HEADER_OFFSET_SEQUENCE, 0);
+            mem.putLong(LatestRowsUtils.HEADER_OFFSET_TXN, -1);
+            mem.putLong(LatestRowsUtils.HEADER_OFFSET_KEY_COUNT, 0);
+            mem.putLong(LatestRowsUtils.HEADER_OFFSET_SCANNED_PARTITION, Numbers.LONG_NaN);
+            mem.putLong(LatestRowsUtils.HEADER_OFFSET_SCANNED_ROW_COUNT, 0);
+            keyCount = 0;
+        } else {
+            keyCount = mem.getLong(LatestRowsUtils.HEADER_OFFSET_KEY_COUNT);
+        }
+        mem.jumpTo(LatestRowsUtils.getEntryOffset(keyCount));
+    }
+
+    /**
+     * Marks keys as having no rows when their latest row is older than the given partition.
+     */
+    public void removeBefore(long partitionTimestamp) {
+        for (long slot = 0; slot < keyCount; slot++) {
+            final long timestamp = getPartitionTimestamp(slot);
+            if (timestamp != Numbers.LONG_NaN && timestamp < partitionTimestamp) {
+                putAbsent(slot);
+            }
+        }
+    }
+
+    /**
+     * Marks keys as having no rows when their latest row is in the given partition or a newer one. Partitions
+     * are expected to be rescanned, keys that are not found by the rescan are reported by {@link #hasLostKeys()}.
+     */
+    public void reset(long partitionTimestamp) {
+        resetSlots.clear();
+        for (long slot = 0; slot < keyCount; slot++) {
+            if (getPartitionTimestamp(slot) >= partitionTimestamp) {
+                putAbsent(slot);
+                resetSlots.add(slot);
+            }
+        }
+    }
+
+    /**
+     * Records rows of a partition of the symbol column, rows that are scanned later replace rows of the
+     * same key that were scanned earlier.
+     *
+     * @param path          partition path, it is restored before the method returns
+     * @param columnTop     rows below column top have null symbol
+     * @param lo            first row to scan
+     * @param hi            row to scan up to, exclusive
+     */
+    public void scan(
+            FilesFacade ff,
+            Path path,
+            CharSequence columnName,
+            long columnNameTxn,
+            long columnTop,
+            long partitionTimestamp,
+            long lo,
+            long hi
+    ) {
+        if (lo < columnTop) {
+            putEntry(0, partitionTimestamp, Math.min(columnTop, hi) - 1);
+            lo = columnTop;
+        }
+        if (lo >= hi) {
+            return;
+        }
+
+        final int plen = path.length();
+        final long size = (hi - columnTop) << 2;
+        final long fd = TableUtils.openRO(ff, TableUtils.dFile(path, columnName, columnNameTxn), LOG);
+        try {
+            final long address = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+            try {
+                for (long r = lo; r < hi; r++) {
+                    final long slot = LatestRowsUtils.toSlot(Unsafe.getUnsafe().getInt(address + ((r - columnTop) << 2)));
+                    if (slot >= keyCount) {
+                        setKeyCount(slot + 1);
+                    }
+                    putEntry(slot, partitionTimestamp, r);
+                }
+            } finally {
+                ff.munmap(address, size, MemoryTag.MMAP_TABLE_WRITER);
+            }
+        } finally {
+            ff.close(fd);
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Extends the file to the given number of keys, new keys have no rows.
+     */
+    public void setKeyCount(long keyCount) {
+        mem.jumpTo(LatestRowsUtils.getEntryOffset(keyCount));
+        for (long slot = this.keyCount; slot < keyCount; slot++) {
+            putAbsent(slot);
+        }
+        this.keyCount = keyCount;
+        mem.putLong(LatestRowsUtils.HEADER_OFFSET_KEY_COUNT, keyCount);
+    }
+
+    public void sync(int commitMode) {
+        if (commitMode != CommitMode.NOSYNC) {
+            mem.sync(commitMode == CommitMode.ASYNC);
+        }
+    }
+
+    private long getPartitionTimestamp(long slot) {
+        return mem.getLong(LatestRowsUtils.getEntryOffset(slot));
+    }
+
+    private void putAbsent(long slot) {
+        putEntry(slot, Numbers.LONG_NaN, 0);
+    }
+
+    private void putEntry(long slot, long partitionTimestamp, long row) {
+        final long p = mem.addressOf(LatestRowsUtils.getEntryOffset(slot));
+        Unsafe.getUnsafe().putLong(p, partitionTimestamp);
+        Unsafe.getUnsafe().putLong(p + Long.BYTES, row);
+    }
+}
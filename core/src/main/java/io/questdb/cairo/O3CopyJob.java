@@ -1064,7 +1064,8 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long dstVarOffset,
             long dstVarOffsetEnd
     ) {
-        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1;
+        // deduplication can remove rows from the merge index, it is the source of truth for the row count
+        final long rowCount = timestampMergeIndexSize / TIMESTAMP_MERGE_ENTRY_BYTES;
         switch (ColumnType.tagOf(columnType)) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+import java.util.Arrays;
+
+/**
+ * Deduplication of O3 commits. Table rows are considered duplicates when they have the same designated
+ * timestamp and the same values in all the key columns. Both the sorted O3 timestamp index and the merge
+ * index consist of (timestamp, row) pairs ordered by timestamp, so duplicates are always adjacent and can
+ * be removed in a single pass over the index without touching column data.
+ */
+final class O3Dedup {
+    // row value that marks index entry for removal, data rows have the top bit set and O3 rows are non-negative
+    private static final long ROW_REMOVED = -1L;
+
+    private O3Dedup() {
+    }
+
+    /**
+     * Removes duplicate entries from merge index. Data rows, that have the same key as one of the O3 rows,
+     * are removed, O3 rows are never removed because they are the most recent writes.
+     *
+     * @param indexAddr merge index address
+     * @param count     number of entries in the merge index
+     * @param keys      values of key columns for both data and O3 rows
+     * @return number of entries left in the index
+     */
+    static long dedupMergeIndex(long indexAddr, long count, Keys keys) {
+        long lo = 0;
+        while (lo < count) {
+            final long hi = findRunHi(indexAddr, lo, count);
+            if (hi - lo > 1) {
+                final int mask = keys.clearSlots(hi - lo);
+                final long[] slots = keys.slots;
+                for (long i = lo; i < hi; i++) {
+                    final long row = getRow(indexAddr, i);
+                    if (row > -1) {
+                        int slot = (int) keys.hashO3(row) & mask;
+                        while (slots[slot] != -1) {
+                            slot = (slot + 1) & mask;
+                        }
+                        slots[slot] = i;
+                    }
+                }
+                for (long i = lo; i < hi; i++) {
+                    final long row = getRow(indexAddr, i);
+                    if (row < 0) {
+                        final long dataRow = row & ~(1L << 63);
+                        int slot = (int) keys.hashData(dataRow) & mask;
+                        long p;
+                        while ((p = slots[slot]) != -1) {
+                            if (keys.equalsDataO3(dataRow, getRow(indexAddr, p))) {
+                                setRow(indexAddr, i, ROW_REMOVED);
+                                break;
+                            }
+                            slot = (slot + 1) & mask;
+                        }
+                    }
+                }
+            }
+            lo = hi;
+        }
+        return compact(indexAddr, 0, count, 0);
+    }
+
+    /**
+     * Removes duplicate entries from the sorted O3 timestamp index, that has not yet been flattened.
+     * When there are several rows with the same key the row written last is kept. Rows that were
+     * moved into O3 memory from the last partition are appended after O3 rows, but they were written
+     * before any of them.
+     *
+     * @param indexAddr     sorted timestamp index address
+     * @param lo            first entry to process, inclusive
+     * @param hi            last entry to process, exclusive
+     * @param dst           position to compact entries to, must be less or equal to "lo"
+     * @param keys          values of key columns for O3 rows
+     * @param movedRowsLo   row number of the first row moved from the last partition
+     * @param movedRowCount number of rows moved from the last partition
+     * @return position after the last kept entry
+     */
+    static long dedupSortedIndex(long indexAddr, long lo, long hi, long dst, Keys keys, long movedRowsLo, long movedRowCount) {
+        long runLo = lo;
+        while (runLo < hi) {
+            final long runHi = findRunHi(indexAddr, runLo, hi);
+            if (runHi - runLo > 1) {
+                final int mask = keys.clearSlots(runHi - runLo);
+                final long[] slots = keys.slots;
+                for (long i = runLo; i < runHi; i++) {
+                    final long row = getRow(indexAddr, i);
+                    int slot = (int) keys.hashO3(row) & mask;
+                    long p;
+                    while ((p = slots[slot]) != -1) {
+                        final long other = getRow(indexAddr, p);
+                        if (keys.equalsO3O3(row, other)) {
+                            if (writeRank(row, movedRowsLo, movedRowCount) > writeRank(other, movedRowsLo, movedRowCount)) {
+                                setRow(indexAddr, p, ROW_REMOVED);
+                                slots[slot] = i;
+                            } else {
+                                setRow(indexAddr, i, ROW_REMOVED);
+                            }
+                            break;
+                        }
+                        slot = (slot + 1) & mask;
+                    }
+                    if (p == -1) {
+                        slots[slot] = i;
+                    }
+                }
+            }
+            runLo = runHi;
+        }
+        return compact(indexAddr, lo, hi, dst);
+    }
+
+    static boolean isKeyColumnTypeSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.SYMBOL:
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static long compact(long indexAddr, long lo, long hi, long dst) {
+        for (long i = lo; i < hi; i++) {
+            final long row = getRow(indexAddr, i);
+            if (row != ROW_REMOVED) {
+                if (dst != i) {
+                    Unsafe.getUnsafe().putLong(indexAddr + dst * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES, getTimestamp(indexAddr, i));
+                    setRow(indexAddr, dst, row);
+                }
+                dst++;
+            }
+        }
+        return dst;
+    }
+
+    private static long findRunHi(long indexAddr, long lo, long hi) {
+        final long timestamp = getTimestamp(indexAddr, lo);
+        long i = lo + 1;
+        while (i < hi && getTimestamp(indexAddr, i) == timestamp) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long getRow(long indexAddr, long i) {
+        return Unsafe.getUnsafe().getLong(indexAddr + i * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES + Long.BYTES);
+    }
+
+    private static long getTimestamp(long indexAddr, long i) {
+        return Unsafe.getUnsafe().getLong(indexAddr + i * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES);
+    }
+
+    private static void setRow(long indexAddr, long i, long row) {
+        Unsafe.getUnsafe().putLong(indexAddr + i * TableWriter.TIMESTAMP_MERGE_ENTRY_BYTES + Long.BYTES, row);
+    }
+
+    private static long writeRank(long row, long movedRowsLo, long movedRowCount) {
+        return row < movedRowsLo ? row + movedRowCount : row - movedRowsLo;
+    }
+
+    /**
+     * Addresses of key column values. Data columns can have column top, rows above the top
+     * are read as nulls.
+     */
+    static class Keys {
+        private final int keyCount;
+        private final int[] types;
+        private final int[] shifts;
+        private final long[] o3Addresses;
+        private final long[] dataAddresses;
+        private final long[] dataTops;
+        private long[] slots = new long[16];
+
+        Keys(int keyCount) {
+            this.keyCount = keyCount;
+            this.types = new int[keyCount];
+            this.shifts = new int[keyCount];
+            this.o3Addresses = new long[keyCount];
+            this.dataAddresses = new long[keyCount];
+            this.dataTops = new long[keyCount];
+        }
+
+        int getKeyCount() {
+            return keyCount;
+        }
+
+        void of(int key, int columnType, long o3Address, long dataAddress, long dataTop) {
+            types[key] = columnType;
+            shifts[key] = ColumnType.pow2SizeOf(columnType);
+            o3Addresses[key] = o3Address;
+            dataAddresses[key] = dataAddress;
+            dataTops[key] = dataTop;
+        }
+
+        private static long mix(long hash, long value) {
+            final long h = (hash + value) * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+
+        private int clearSlots(long entryCount) {
+            final int capacity = Numbers.ceilPow2((int) Math.min(entryCount * 2, 1 << 30));
+            if (slots.length < capacity) {
+                slots = new long[capacity];
+            }
+            Arrays.fill(slots, 0, capacity, -1L);
+            return capacity - 1;
+        }
+
+        private long hashData(long row) {
+            long hash = 0;
+            for (int i = 0; i < keyCount; i++) {
+                hash = mix(hash, dataValue(i, row));
+            }
+            return hash;
+        }
+
+        private long hashO3(long row) {
+            long hash = 0;
+            for (int i = 0; i < keyCount; i++) {
+                hash = mix(hash, o3Value(i, row));
+            }
+            return hash;
+        }
+
+        private static long nullValue(int columnType) {
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.SYMBOL:
+                    return SymbolTable.VALUE_IS_NULL;
+                case ColumnType.INT:
+                    return Numbers.INT_NaN;
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    return Numbers.LONG_NaN;
+                default:
+                    return 0;
+            }
+        }
+
+        private static long getValue(long address, int columnType, int shift) {
+            switch (shift) {
+                case 0:
+                    return Unsafe.getUnsafe().getByte(address);
+                case 1:
+                    return Unsafe.getUnsafe().getShort(address);
+                case 2:
+                    final int value = Unsafe.getUnsafe().getInt(address);
+                    // column tops of symbol columns are back-filled with -1 rather than null key
+                    return ColumnType.isSymbol(columnType) && value < 0 ? SymbolTable.VALUE_IS_NULL : value;
+                default:
+                    return Unsafe.getUnsafe().getLong(address);
+            }
+        }
+
+        private long dataValue(int key, long row) {
+            final long top = dataTops[key];
+            if (row < top) {
+                return nullValue(types[key]);
+            }
+            return getValue(dataAddresses[key] + ((row - top) << shifts[key]), types[key], shifts[key]);
+        }
+
+        private boolean equalsDataO3(long dataRow, long o3Row) {
+            for (int i = 0; i < keyCount; i++) {
+                if (dataValue(i, dataRow) != o3Value(i, o3Row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean equalsO3O3(long rowA, long rowB) {
+            for (int i = 0; i < keyCount; i++) {
+                if (o3Value(i, rowA) != o3Value(i, rowB)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long o3Value(int key, long row) {
+            return getValue(o3Addresses[key] + (row << shifts[key]), types[key], shifts[key]);
+        }
+    }
+}
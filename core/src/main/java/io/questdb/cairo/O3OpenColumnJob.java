@@ -315,7 +315,10 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             int columnIndex,
             long columnNameTxn
     ) {
-        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1;
+        // merge index can be shorter than the merged blocks when deduplication removed some of the data rows
+        final long mergeLen = mergeType == O3_BLOCK_MERGE
+                ? timestampMergeIndexSize / TIMESTAMP_MERGE_ENTRY_BYTES
+                : mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1;
         final Path pathToPartition = Path.getThreadLocal(pathToTable);
         TableUtils.setPathForPartition(pathToPartition, tableWriter.getPartitionBy(), oooTimestampLo, false);
         final int pplen = pathToPartition.length();
@@ -1851,6 +1854,39 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
         }
     }
 
+    private static long getDedupRowCount(
+            int mergeType,
+            long mergeOOOLo,
+            long mergeOOOHi,
+            long mergeDataLo,
+            long mergeDataHi,
+            long mergeLen
+    ) {
+        if (mergeType == O3_BLOCK_MERGE) {
+            return mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1 - mergeLen;
+        }
+        return 0;
+    }
+
+    private static long getMergedVarColumnLength(
+            long timestampMergeIndexAddr,
+            long mergeLen,
+            long srcDataFixAddr,
+            long srcOooFixAddr
+    ) {
+        long len = 0;
+        for (long i = 0; i < mergeLen; i++) {
+            final long row = Unsafe.getUnsafe().getLong(timestampMergeIndexAddr + i * TIMESTAMP_MERGE_ENTRY_BYTES + Long.BYTES);
+            if (row < 0) {
+                // data rows are marked by the top bit
+                len += O3Utils.getVarColumnLength(row & ~(1L << 63), row & ~(1L << 63), srcDataFixAddr);
+            } else {
+                len += O3Utils.getVarColumnLength(row, row, srcOooFixAddr);
+            }
+        }
+        return len;
+    }
+
     private static void mergeFixColumn(
             Path pathToPartition,
             int pplen,
@@ -1943,7 +1979,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
 
             dFile(pathToPartition.trimTo(pDirNameLen), columnName, columnNameTxn);
             dstFixFd = openRW(ff, pathToPartition, LOG, tableWriter.getConfiguration().getWriterFileOpenOpts());
-            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop) << shl;
+            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop - getDedupRowCount(mergeType, mergeOOOLo, mergeOOOHi, mergeDataLo, mergeDataHi, mergeLen)) << shl;
             dstFixAddr = mapRW(ff, dstFixFd, dstFixSize, MemoryTag.MMAP_O3);
 
             // when prefix is "data" we need to reduce it by "srcDataTop"
@@ -2241,7 +2277,8 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
 
             iFile(pathToPartition.trimTo(pDirNameLen), columnName, columnNameTxn);
             dstFixFd = openRW(ff, pathToPartition, LOG, tableWriter.getConfiguration().getWriterFileOpenOpts());
-            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop + 1) * Long.BYTES;
+            final long dedupRowCount = getDedupRowCount(mergeType, mergeOOOLo, mergeOOOHi, mergeDataLo, mergeDataHi, mergeLen);
+            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop + 1 - dedupRowCount) * Long.BYTES;
             dstFixAddr = mapRW(ff, dstFixFd, dstFixSize, MemoryTag.MMAP_O3);
 
             dFile(pathToPartition.trimTo(pDirNameLen), columnName, columnNameTxn);
@@ -2277,7 +2314,16 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             }
 
             // offset 2
-            if (mergeDataLo > -1 && mergeOOOLo > -1) {
+            if (dedupRowCount > 0) {
+                // rows removed by deduplication do not contribute to the var column size
+                dstFixAppendOffset2 = dstFixAppendOffset1 + (mergeLen * Long.BYTES);
+                dstVarAppendOffset2 = dstVarAppendOffset1 + getMergedVarColumnLength(
+                        timestampMergeIndexAddr,
+                        mergeLen,
+                        srcDataFixAddr + srcDataFixOffset - srcDataTop * 8,
+                        srcOooFixAddr
+                );
+            } else if (mergeDataLo > -1 && mergeOOOLo > -1) {
                 long oooLen = O3Utils.getVarColumnLength(
                         mergeOOOLo,
                         mergeOOOHi,
@@ -164,6 +164,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long suffixLo;
             long suffixHi;
             final int openColumnMode;
+            boolean sharedPartition = false;
 
             try {
                 // out of order is hitting existing partition
@@ -187,6 +188,9 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     srcTimestampFd = openRW(ff, path, LOG, tableWriter.getConfiguration().getWriterFileOpenOpts());
                     srcTimestampAddr = mapRW(ff, srcTimestampFd, srcTimestampSize, MemoryTag.MMAP_O3);
                     dataTimestampHi = Unsafe.getUnsafe().getLong(srcTimestampAddr + srcTimestampSize - Long.BYTES);
+                    // files of partitions hard-linked by CLONE TABLE are shared with another table,
+                    // they are never appended to in place
+                    sharedPartition = ff.getLinkCount(path) > 1;
                 }
                 dataTimestampLo = Unsafe.getUnsafe().getLong(srcTimestampAddr);
 
@@ -217,7 +221,88 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
 
                 int branch;
 
-                if (o3TimestampLo > dataTimestampLo) {
+                final long o3TimestampHi = getTimestampIndexValue(sortedTimestampsAddr, srcOooHi);
+                if (tableWriter.isDedupEnabled() && o3TimestampLo <= dataTimestampHi && o3TimestampHi >= dataTimestampLo) {
+                    // O3 rows can be duplicates of existing rows with the same timestamp, including
+                    // timestamps at the edges of the partition. The merge block covers all rows,
+                    // both data and O3, of the overlapping timestamp interval
+                    branch = 9;
+                    if (o3TimestampLo > dataTimestampLo) {
+                        mergeDataLo = Vect.boundedBinarySearch64Bit(
+                                srcTimestampAddr,
+                                o3TimestampLo - 1,
+                                0,
+                                srcDataMax - 1,
+                                BinarySearch.SCAN_DOWN
+                        ) + 1;
+                    } else {
+                        mergeDataLo = 0;
+                    }
+                    if (o3TimestampHi < dataTimestampHi) {
+                        mergeDataHi = Vect.boundedBinarySearch64Bit(
+                                srcTimestampAddr,
+                                o3TimestampHi,
+                                0,
+                                srcDataMax - 1,
+                                BinarySearch.SCAN_DOWN
+                        );
+                    } else {
+                        mergeDataHi = srcDataMax - 1;
+                    }
+                    if (dataTimestampLo > o3TimestampLo) {
+                        mergeO3Lo = Vect.boundedBinarySearchIndexT(
+                                sortedTimestampsAddr,
+                                dataTimestampLo - 1,
+                                srcOooLo,
+                                srcOooHi,
+                                BinarySearch.SCAN_DOWN
+                        ) + 1;
+                    } else {
+                        mergeO3Lo = srcOooLo;
+                    }
+                    if (dataTimestampHi < o3TimestampHi) {
+                        mergeO3Hi = Vect.boundedBinarySearchIndexT(
+                                sortedTimestampsAddr,
+                                dataTimestampHi,
+                                srcOooLo,
+                                srcOooHi,
+                                BinarySearch.SCAN_DOWN
+                        );
+                    } else {
+                        mergeO3Hi = srcOooHi;
+                    }
+
+                    if (mergeDataLo > 0) {
+                        prefixType = O3_BLOCK_DATA;
+                        prefixLo = 0;
+                        prefixHi = mergeDataLo - 1;
+                    } else if (mergeO3Lo > srcOooLo) {
+                        prefixType = O3_BLOCK_O3;
+                        prefixLo = srcOooLo;
+                        prefixHi = mergeO3Lo - 1;
+                    } else {
+                        // empty prefix, merge block starts at the top of the partition
+                        prefixLo = 0;
+                    }
+
+                    if (mergeDataLo <= mergeDataHi && mergeO3Lo <= mergeO3Hi) {
+                        mergeType = O3_BLOCK_MERGE;
+                    } else if (mergeO3Lo <= mergeO3Hi) {
+                        mergeType = O3_BLOCK_O3;
+                    } else {
+                        mergeType = O3_BLOCK_DATA;
+                    }
+
+                    if (mergeDataHi < srcDataMax - 1) {
+                        suffixType = O3_BLOCK_DATA;
+                        suffixLo = mergeDataHi + 1;
+                        suffixHi = srcDataMax - 1;
+                    } else if (mergeO3Hi < srcOooHi) {
+                        suffixType = O3_BLOCK_O3;
+                        suffixLo = mergeO3Hi + 1;
+                        suffixHi = srcOooHi;
+                    }
+                } else if (o3TimestampLo > dataTimestampLo) {
                     //   +------+
                     //   | data |  +-----+
                     //   |      |  | OOO |
@@ -463,11 +548,17 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                         .$(", table=").$(pathToTable)
                         .I$();
 
-                if (prefixType == O3_BLOCK_NONE) {
+                if (prefixType == O3_BLOCK_NONE && mergeType == O3_BLOCK_NONE && !sharedPartition) {
                     // We do not need to create a copy of partition when we simply need to append
                     // existing the one.
                     openColumnMode = OPEN_MID_PARTITION_FOR_APPEND;
                 } else {
+                    if (prefixType == O3_BLOCK_NONE && mergeType == O3_BLOCK_NONE) {
+                        // shared partition is copied into new version, existing rows become the prefix
+                        prefixType = O3_BLOCK_DATA;
+                        prefixLo = 0;
+                        prefixHi = srcDataMax - 1;
+                    }
                     txnPartition(path.trimTo(pplen), txn);
                     createDirsOrFail(ff, path.slash$(), tableWriter.getConfiguration().getMkDirMode());
                     if (last) {
@@ -593,27 +684,87 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long mergeDataLo,
             long mergeDataHi,
             long mergeOOOLo,
-            long mergeOOOHi,
-            long indexSize
+            long mergeOOOHi
     ) {
         // Create "index" for existing timestamp column. When we reshuffle timestamps during merge we will
         // have to go back and find data rows we need to move accordingly
+        final long indexSize = (mergeDataHi - mergeDataLo + 1) * TIMESTAMP_MERGE_ENTRY_BYTES;
+        assert indexSize > 0; // avoid SIGSEGV
         final long index = Unsafe.malloc(indexSize, MemoryTag.NATIVE_O3);
         try {
             Vect.makeTimestampIndex(srcDataTimestampAddr, mergeDataLo, mergeDataHi, index);
-            long ptr = Vect.mergeTwoLongIndexesAsc(
+            return Vect.mergeTwoLongIndexesAsc(
                     index,
                     mergeDataHi - mergeDataLo + 1,
                     sortedTimestampsAddr + mergeOOOLo * 16,
                     mergeOOOHi - mergeOOOLo + 1
             );
-            Unsafe.recordMemAlloc(indexSize, MemoryTag.NATIVE_O3);
-            return ptr;
         } finally {
             Unsafe.free(index, indexSize, MemoryTag.NATIVE_O3);
         }
     }
 
+    private static long dedupMergeIndex(
+            TableWriter tableWriter,
+            ObjList<MemoryMA> columns,
+            ObjList<MemoryCARW> oooColumns,
+            Path pathToTable,
+            int openColumnMode,
+            long partitionTimestamp,
+            long srcDataTxn,
+            long srcDataMax,
+            long timestampMergeIndexAddr,
+            long mergeRowCount
+    ) {
+        final IntList keyColumns = tableWriter.getDedupKeyColumns();
+        final int keyCount = keyColumns.size();
+        final TableWriterMetadata metadata = tableWriter.getMetadata();
+        final FilesFacade ff = tableWriter.getFilesFacade();
+        final O3Dedup.Keys keys = new O3Dedup.Keys(keyCount);
+        final long[] dataFds = new long[keyCount];
+        final long[] dataAddresses = new long[keyCount];
+        final long[] dataSizes = new long[keyCount];
+
+        final Path path = Path.getThreadLocal2(pathToTable);
+        TableUtils.setPathForPartition(path, tableWriter.getPartitionBy(), partitionTimestamp, false);
+        TableUtils.txnPartitionConditionally(path, srcDataTxn);
+        final int plen = path.length();
+        try {
+            for (int i = 0; i < keyCount; i++) {
+                final int columnIndex = keyColumns.getQuick(i);
+                final int columnType = metadata.getColumnType(columnIndex);
+                final int primaryIndex = TableWriter.getPrimaryColumnIndex(columnIndex);
+                final long srcDataTop;
+                final long srcDataFd;
+                if (openColumnMode == OPEN_LAST_PARTITION_FOR_MERGE) {
+                    // negative fd indicates descriptor reuse
+                    srcDataTop = tableWriter.getColumnTop(columnIndex);
+                    srcDataFd = -columns.getQuick(primaryIndex).getFd();
+                } else {
+                    srcDataTop = tableWriter.getColumnTop(partitionTimestamp, columnIndex, srcDataMax);
+                    if (srcDataTop < srcDataMax) {
+                        final long columnNameTxn = tableWriter.getColumnNameTxn(partitionTimestamp, columnIndex);
+                        srcDataFd = openRO(ff, dFile(path.trimTo(plen), metadata.getColumnName(columnIndex), columnNameTxn), LOG);
+                    } else {
+                        srcDataFd = 0;
+                    }
+                }
+                dataFds[i] = srcDataFd;
+                if (srcDataTop < srcDataMax) {
+                    dataSizes[i] = (srcDataMax - srcDataTop) << ColumnType.pow2SizeOf(columnType);
+                    dataAddresses[i] = mapRO(ff, Math.abs(srcDataFd), dataSizes[i], MemoryTag.MMAP_O3);
+                }
+                keys.of(i, columnType, oooColumns.getQuick(primaryIndex).addressOf(0), dataAddresses[i], srcDataTop);
+            }
+            return O3Dedup.dedupMergeIndex(timestampMergeIndexAddr, mergeRowCount, keys);
+        } finally {
+            for (int i = 0; i < keyCount; i++) {
+                O3Utils.unmap(ff, dataAddresses[i], dataSizes[i]);
+                O3Utils.close(ff, dataFds[i]);
+            }
+        }
+    }
+
     private static void publishOpenColumnTaskHarmonized(
             long cursor,
             int openColumnMode,
@@ -755,28 +906,58 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
 
         LOG.debug().$("partition [ts=").$ts(oooTimestampLo).$(']').$();
 
+        final TableWriterMetadata metadata = tableWriter.getMetadata();
+        final int columnCount = metadata.getColumnCount();
         final long timestampMergeIndexAddr;
         final long timestampMergeIndexSize;
         if (mergeType == O3_BLOCK_MERGE) {
-            timestampMergeIndexSize = (mergeDataHi - mergeDataLo + 1) * TIMESTAMP_MERGE_ENTRY_BYTES;
-            assert timestampMergeIndexSize > 0; // avoid SIGSEGV
-
+            final long mergeRowCount = mergeDataHi - mergeDataLo + 1 + mergeOOOHi - mergeOOOLo + 1;
             timestampMergeIndexAddr = createMergeIndex(
                     srcTimestampAddr,
                     sortedTimestampsAddr,
                     mergeDataLo,
                     mergeDataHi,
                     mergeOOOLo,
-                    mergeOOOHi,
-                    timestampMergeIndexSize
+                    mergeOOOHi
             );
+            long mergeIndexRowCount = mergeRowCount;
+            if (tableWriter.isDedupEnabled()) {
+                try {
+                    mergeIndexRowCount = dedupMergeIndex(
+                            tableWriter,
+                            columns,
+                            oooColumns,
+                            pathToTable,
+                            openColumnMode,
+                            partitionTimestamp,
+                            srcDataTxn,
+                            srcDataMax,
+                            timestampMergeIndexAddr,
+                            mergeRowCount
+                    );
+                } catch (Throwable e) {
+                    LOG.error().$("dedup error [table=").$(tableWriter.getTableName())
+                            .$(", e=").$(e)
+                            .I$();
+                    Vect.freeMergedIndex(timestampMergeIndexAddr, 0);
+                    O3Utils.unmap(tableWriter.getFilesFacade(), srcTimestampAddr, srcTimestampSize);
+                    O3Utils.close(tableWriter.getFilesFacade(), srcTimestampFd);
+                    tableWriter.o3BumpErrorCount();
+                    tableWriter.o3ClockDownPartitionUpdateCount();
+                    tableWriter.o3CountDownDoneLatch();
+                    throw e;
+                }
+                // the number of removed rows is reported after column tops in the sink
+                Unsafe.getUnsafe().putLong(colTopSinkAddr + (long) columnCount * Long.BYTES, mergeRowCount - mergeIndexRowCount);
+            }
+            timestampMergeIndexSize = mergeIndexRowCount * TIMESTAMP_MERGE_ENTRY_BYTES;
+            assert timestampMergeIndexSize > 0; // avoid SIGSEGV
+            Unsafe.recordMemAlloc(timestampMergeIndexSize, MemoryTag.NATIVE_O3);
         } else {
             timestampMergeIndexAddr = 0;
             timestampMergeIndexSize = 0;
         }
 
-        final TableWriterMetadata metadata = tableWriter.getMetadata();
-        final int columnCount = metadata.getColumnCount();
         columnCounter.set(metadata.getDenseColumnCount());
         int columnsInFlight = columnCount;
         if (openColumnMode == OPEN_LAST_PARTITION_FOR_MERGE || openColumnMode == OPEN_MID_PARTITION_FOR_MERGE) {
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.AbstractQueueConsumerJob;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.PartitionPrefetchTask;
+
+/**
+ * Pulls column files of a partition into page cache ahead of a table scan. Table readers publish
+ * partition directories they are about to read, see {@link TableReader#prefetchPartition(int)}.
+ * Files are opened by name, so the job does not depend on reader's mappings which could be released
+ * while the task is in flight.
+ */
+public class PartitionPrefetchJob extends AbstractQueueConsumerJob<PartitionPrefetchTask> {
+    private static final Log LOG = LogFactory.getLog(PartitionPrefetchJob.class);
+    private final FilesFacade ff;
+
+    public PartitionPrefetchJob(MessageBus messageBus) {
+        super(messageBus.getPartitionPrefetchQueue(), messageBus.getPartitionPrefetchSubSeq());
+        this.ff = messageBus.getConfiguration().getFilesFacade();
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor) {
+        final Path path = Path.getThreadLocal(queue.get(cursor).getPartitionPath());
+        subSeq.done(cursor);
+
+        final int plen = path.length();
+        final long p = ff.findFirst(path.$());
+        if (p > 0) {
+            try {
+                do {
+                    if (ff.findType(p) == Files.DT_FILE) {
+                        prefetchFile(path.trimTo(plen).concat(ff.findName(p)).$());
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        }
+        return true;
+    }
+
+    private void prefetchFile(Path path) {
+        final long fd = ff.openRO(path);
+        if (fd > -1) {
+            try {
+                if (ff.fadvise(fd, 0, 0, Files.POSIX_FADV_WILLNEED) != 0) {
+                    LOG.debug().$("could not prefetch [file=").utf8(path).$(", errno=").$(ff.errno()).I$();
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Builds {@link SortedIndexUtils sorted index} of a column in a partition that is no longer appended to.
+ * Index is built from scratch every time, it is written to a temporary file, which is then renamed over
+ * the previous version of the index. Readers that have the previous version mapped are not affected.
+ * <p>
+ * Instances are published on the indexer queue and built by {@link ColumnIndexerJob} in parallel with
+ * the table writer thread. Build failure does not distress table writer, queries continue to scan
+ * partitions without index.
+ */
+public class SortedColumnIndexer implements Closeable {
+    private static final Log LOG = LogFactory.getLog(SortedColumnIndexer.class);
+    private static final long SEQUENCE_OFFSET;
+    private final Path path = new Path();
+    private FilesFacade ff;
+    private int plen;
+    private String columnName;
+    private long columnNameTxn;
+    private int columnType;
+    private long columnTop;
+    private long rowCount;
+    @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+
+    @Override
+    public void close() {
+        Misc.free(path);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @param ff            files facade
+     * @param partitionPath partition directory
+     * @param columnName    name of indexed column
+     * @param columnNameTxn column version in the partition
+     * @param columnType    type of indexed column, one of {@link SortedIndexUtils#isSupportedType(int) supported types}
+     * @param columnTop     number of rows in the partition before the column was added
+     * @param rowCount      number of rows in the partition
+     * @return this
+     */
+    public SortedColumnIndexer of(
+            FilesFacade ff,
+            Path partitionPath,
+            CharSequence columnName,
+            long columnNameTxn,
+            int columnType,
+            long columnTop,
+            long rowCount
+    ) {
+        this.ff = ff;
+        this.path.of(partitionPath);
+        this.plen = path.length();
+        this.columnName = Chars.toString(columnName);
+        this.columnNameTxn = columnNameTxn;
+        this.columnType = columnType;
+        this.columnTop = columnTop;
+        this.rowCount = rowCount;
+        return this;
+    }
+
+    /**
+     * Builds index of the whole partition. Errors are logged and the partition is left without index.
+     */
+    public void index() {
+        try {
+            if (ff.exists(TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn))) {
+                build();
+            }
+            // otherwise column was added after the partition, there is nothing to index
+        } catch (CairoException e) {
+            LOG.error().$("could not build sorted index [path=").$(path.trimTo(plen))
+                    .$(", column=").utf8(columnName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            ff.remove(tmpFile());
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    private static long readFixedKey(long address, long row, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return Unsafe.getUnsafe().getByte(address + row);
+            case ColumnType.SHORT:
+                return Unsafe.getUnsafe().getShort(address + (row << 1));
+            case ColumnType.CHAR:
+                return Unsafe.getUnsafe().getChar(address + (row << 1));
+            case ColumnType.INT:
+                return Unsafe.getUnsafe().getInt(address + (row << 2));
+            default:
+                return Unsafe.getUnsafe().getLong(address + (row << 3));
+        }
+    }
+
+    private void build() {
+        final long count = Math.max(0, rowCount - columnTop);
+        final long entriesSize = count << SortedIndexUtils.ENTRY_SIZE_SHL;
+        final long size = SortedIndexUtils.HEADER_SIZE + entriesSize;
+        final long address = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+        try {
+            final long entries = address + SortedIndexUtils.HEADER_SIZE;
+            if (count > 0) {
+                // keys are stored with flipped sign bit for the duration of the sort,
+                // radix sort orders them as unsigned values
+                if (ColumnType.isVariableLength(columnType)) {
+                    readStrKeys(entries, count);
+                } else {
+                    readFixedKeys(entries, count);
+                }
+                final long cpy = Unsafe.malloc(entriesSize, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    Vect.radixSortLongIndexAscInPlace(entries, count, cpy);
+                } finally {
+                    Unsafe.free(cpy, entriesSize, MemoryTag.NATIVE_DEFAULT);
+                }
+                for (long p = entries, hi = entries + entriesSize; p < hi; p += 1L << SortedIndexUtils.ENTRY_SIZE_SHL) {
+                    Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(p) ^ Long.MIN_VALUE);
+                }
+            }
+            Vect.memset(address, SortedIndexUtils.HEADER_SIZE, 0);
+            Unsafe.getUnsafe().putLong(address + SortedIndexUtils.HEADER_OFFSET_ROW_COUNT, rowCount);
+            Unsafe.getUnsafe().putLong(address + SortedIndexUtils.HEADER_OFFSET_COLUMN_TOP, columnTop);
+            Unsafe.getUnsafe().putInt(address + SortedIndexUtils.HEADER_OFFSET_COLUMN_TYPE, columnType);
+
+            // leftover of failed build would not be truncated
+            ff.remove(tmpFile());
+            final long fd = TableUtils.openRW(ff, path, LOG, CairoConfiguration.O_NONE);
+            try {
+                if (ff.write(fd, address, size, 0) != size) {
+                    throw CairoException.instance(ff.errno()).put("could not write [fd=").put(fd).put(", size=").put(size).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+        } finally {
+            Unsafe.free(address, size, MemoryTag.NATIVE_DEFAULT);
+        }
+
+        final Path other = Path.getThreadLocal2(path.trimTo(plen));
+        TableUtils.siFile(other, columnName, columnNameTxn);
+        if (!ff.rename(tmpFile(), other)) {
+            throw CairoException.instance(ff.errno()).put("could not rename [from=").put(path).put(", to=").put(other).put(']');
+        }
+        LOG.info().$("sorted index built [path=").$(other).$(", rows=").$(count).I$();
+    }
+
+    private void readFixedKeys(long entries, long count) {
+        final long fd = TableUtils.openRO(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), LOG);
+        final long size = count << ColumnType.pow2SizeOf(columnType);
+        try {
+            final long address = TableUtils.mapRO(ff, fd, size, MemoryTag.MMAP_TABLE_WRITER);
+            try {
+                for (long r = 0, p = entries; r < count; r++, p += 1L << SortedIndexUtils.ENTRY_SIZE_SHL) {
+                    Unsafe.getUnsafe().putLong(p, readFixedKey(address, r, columnType) ^ Long.MIN_VALUE);
+                    Unsafe.getUnsafe().putLong(p + Long.BYTES, columnTop + r);
+                }
+            } finally {
+                ff.munmap(address, size, MemoryTag.MMAP_TABLE_WRITER);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private void readStrKeys(long entries, long count) {
+        final long indexFd = TableUtils.openRO(ff, TableUtils.iFile(path.trimTo(plen), columnName, columnNameTxn), LOG);
+        try {
+            final long indexSize = (count + 1) * Long.BYTES;
+            final long indexAddress = TableUtils.mapRO(ff, indexFd, indexSize, MemoryTag.MMAP_TABLE_WRITER);
+            try {
+                final long dataFd = TableUtils.openRO(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), LOG);
+                try {
+                    final long dataSize = Unsafe.getUnsafe().getLong(indexAddress + count * Long.BYTES);
+                    final long dataAddress = dataSize > 0 ? TableUtils.mapRO(ff, dataFd, dataSize, MemoryTag.MMAP_TABLE_WRITER) : 0;
+                    try {
+                        for (long r = 0, p = entries; r < count; r++, p += 1L << SortedIndexUtils.ENTRY_SIZE_SHL) {
+                            final long offset = Unsafe.getUnsafe().getLong(indexAddress + r * Long.BYTES);
+                            final int len = Unsafe.getUnsafe().getInt(dataAddress + offset);
+                            final long key = len < 0 ? SortedIndexUtils.NULL_STR_KEY : SortedIndexUtils.hash(dataAddress + offset + Integer.BYTES, len);
+                            Unsafe.getUnsafe().putLong(p, key ^ Long.MIN_VALUE);
+                            Unsafe.getUnsafe().putLong(p + Long.BYTES, columnTop + r);
+                        }
+                    } finally {
+                        if (dataAddress != 0) {
+                            ff.munmap(dataAddress, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+                        }
+                    }
+                } finally {
+                    ff.close(dataFd);
+                }
+            } finally {
+                ff.munmap(indexAddress, indexSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+        } finally {
+            ff.close(indexFd);
+        }
+    }
+
+    private Path tmpFile() {
+        TableUtils.siFile(path.trimTo(plen), columnName, columnNameTxn);
+        path.put(".tmp").$();
+        return path;
+    }
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(SortedColumnIndexer.class, "sequence");
+    }
+}
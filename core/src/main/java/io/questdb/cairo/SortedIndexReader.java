@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Read-only view of {@link SortedIndexUtils sorted index} of a column in a partition.
+ */
+public class SortedIndexReader implements Closeable {
+    private static final Log LOG = LogFactory.getLog(SortedIndexReader.class);
+    private FilesFacade ff;
+    private long fd = -1;
+    private long address;
+    private long size;
+    private long entryCount;
+    private long rowCount;
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            ff.munmap(address, size, MemoryTag.MMAP_INDEX_READER);
+            address = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+        entryCount = 0;
+        rowCount = 0;
+    }
+
+    /**
+     * @return number of entries in the index, which is the number of covered rows less column top
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getKey(long entry) {
+        return Unsafe.getUnsafe().getLong(address + SortedIndexUtils.HEADER_SIZE + (entry << SortedIndexUtils.ENTRY_SIZE_SHL));
+    }
+
+    /**
+     * @return partition row count at the time index was built, rows from this one onwards are not indexed
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getRowId(long entry) {
+        return Unsafe.getUnsafe().getLong(address + SortedIndexUtils.HEADER_SIZE + (entry << SortedIndexUtils.ENTRY_SIZE_SHL) + Long.BYTES);
+    }
+
+    /**
+     * Finds first entry with key greater or equal to the given key.
+     *
+     * @param key signed key
+     * @return entry index, {@link #getEntryCount()} when all keys are less than the given key
+     */
+    public long lowerBound(long key) {
+        long lo = 0;
+        long hi = entryCount;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (getKey(mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Maps index file. Previously mapped file is released.
+     *
+     * @param ff   files facade
+     * @param name index file name
+     * @return false when index file does not exist or is not valid
+     */
+    public boolean of(FilesFacade ff, LPSZ name) {
+        close();
+        this.ff = ff;
+        if (!ff.exists(name)) {
+            return false;
+        }
+        fd = ff.openRO(name);
+        if (fd == -1) {
+            LOG.error().$("could not open sorted index [file=").$(name).$(", errno=").$(ff.errno()).I$();
+            return false;
+        }
+        final long len = ff.length(fd);
+        if (len < SortedIndexUtils.HEADER_SIZE || ((len - SortedIndexUtils.HEADER_SIZE) & ((1L << SortedIndexUtils.ENTRY_SIZE_SHL) - 1)) != 0) {
+            LOG.error().$("invalid sorted index [file=").$(name).$(", size=").$(len).I$();
+            close();
+            return false;
+        }
+        address = TableUtils.mapRO(ff, fd, len, MemoryTag.MMAP_INDEX_READER);
+        size = len;
+        entryCount = (len - SortedIndexUtils.HEADER_SIZE) >>> SortedIndexUtils.ENTRY_SIZE_SHL;
+        rowCount = Unsafe.getUnsafe().getLong(address + SortedIndexUtils.HEADER_OFFSET_ROW_COUNT);
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Layout of sorted column index. Index is a file per partition and column, it consists of a header
+ * followed by (key, row id) pairs of 16 bytes each, ordered by signed key and then by row id. Keys of
+ * fixed width integer columns are column values, keys of string columns are 64-bit hashes of the
+ * string chars. Rows above column top, up to the row count in the header, are covered by the index.
+ * Rows written to the partition after the index was built are not.
+ */
+public final class SortedIndexUtils {
+    public static final long HEADER_SIZE = 32;
+    public static final int ENTRY_SIZE_SHL = 4;
+    // key of null string, hashes of non-null strings may collide with it
+    public static final long NULL_STR_KEY = Numbers.LONG_NaN;
+    static final long HEADER_OFFSET_ROW_COUNT = 0;
+    static final long HEADER_OFFSET_COLUMN_TOP = 8;
+    static final long HEADER_OFFSET_COLUMN_TYPE = 16;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SortedIndexUtils() {
+    }
+
+    public static long hash(CharSequence value) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    public static boolean isSupportedType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.STRING:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Hashes string chars the same way {@link #hash(CharSequence)} does.
+     *
+     * @param lo  address of the first char
+     * @param len number of chars
+     * @return 64-bit hash
+     */
+    static long hash(long lo, int len) {
+        long h = FNV_OFFSET_BASIS;
+        for (long p = lo, hi = lo + ((long) len << 1); p < hi; p += Character.BYTES) {
+            h = (h ^ Unsafe.getUnsafe().getChar(p)) * FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Record chain backed by a temporary file in the db root. Operators that exceed their memory
+ * budget write their state into spill chains and read it back through the page cache.
+ * <p>
+ * The file is removed as soon as it is open on the OSes that allow it, so that it cannot outlive
+ * the process. Spill chain is single use: both clear() and close() release the file.
+ */
+public class SpillRecordChain extends RecordChain {
+    public static final String SPILL_FILE_PREFIX = "_spill.";
+    private static final Log LOG = LogFactory.getLog(SpillRecordChain.class);
+    private static final AtomicLong FILE_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private Path path;
+
+    public SpillRecordChain(CairoConfiguration configuration, @Transient ColumnTypes columnTypes, RecordSink recordSink) {
+        this(configuration, columnTypes, recordSink, Vm.getCMARWInstance());
+    }
+
+    private SpillRecordChain(CairoConfiguration configuration, ColumnTypes columnTypes, RecordSink recordSink, MemoryCMARW mem) {
+        super(columnTypes, recordSink, mem);
+        this.ff = configuration.getFilesFacade();
+        final Path path = new Path().of(configuration.getRoot()).concat(SPILL_FILE_PREFIX).put(FILE_ID.incrementAndGet()).$();
+        try {
+            mem.of(ff, path, configuration.getSqlSpillPageSize(), -1, MemoryTag.MMAP_SPILL, configuration.getWriterFileOpenOpts());
+        } catch (Throwable e) {
+            path.close();
+            throw e;
+        }
+        LOG.debug().$("spill [file=").$(path).$(']').$();
+        if (ff.remove(path)) {
+            path.close();
+        } else {
+            this.path = path;
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (path != null) {
+            ff.remove(path);
+            path = Misc.free(path);
+        }
+    }
+}
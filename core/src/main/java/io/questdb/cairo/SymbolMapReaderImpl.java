@@ -35,6 +35,7 @@ import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
@@ -57,7 +58,11 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     private CairoConfiguration configuration;
     private final Path path = new Path();
     private final StringSink columnNameSink = new StringSink();
+    private final StringSink sharedCacheKeySink = new StringSink();
     private long columnNameTxn;
+    private SymbolValueCachePool sharedCachePool;
+    // when set, decoded values are shared with other readers of the same column version
+    private SymbolValueCache sharedCache;
 
     public SymbolMapReaderImpl() {
     }
@@ -66,11 +71,25 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
         of(configuration, path, name, columnNameTxn, symbolCount);
     }
 
+    public SymbolMapReaderImpl(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence name,
+            long columnNameTxn,
+            int symbolCount,
+            @Nullable SymbolValueCachePool sharedCachePool,
+            int tableId,
+            long truncateVersion
+    ) {
+        of(configuration, path, name, columnNameTxn, symbolCount, sharedCachePool, tableId, truncateVersion);
+    }
+
     @Override
     public void close() {
         Misc.free(indexReader);
         Misc.free(charMem);
         this.cache.clear();
+        releaseSharedCache();
         long fd = this.offsetMem.getFd();
         Misc.free(offsetMem);
         Misc.free(path);
@@ -99,6 +118,10 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
 
     @Override
     public void updateSymbolCount(int symbolCount) {
+        if (symbolCount == this.symbolCount) {
+            // nothing was added or rolled back, mapped files and index are current
+            return;
+        }
         if (symbolCount > this.symbolCount) {
             this.symbolCount = symbolCount;
             this.maxOffset = SymbolMapWriter.keyToOffset(symbolCount);
@@ -108,7 +131,11 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
             this.offsetMem.extend(maxOffset + Long.BYTES);
             this.charMem.extend(this.offsetMem.getLong(maxOffset));
         } else if (symbolCount < this.symbolCount) {
-            cache.remove(symbolCount + 1, this.symbolCount);
+            if (sharedCache != null) {
+                sharedCache.truncate(symbolCount);
+            } else {
+                cache.remove(symbolCount + 1, this.symbolCount);
+            }
             this.symbolCount = symbolCount;
         }
         // Refresh index reader to avoid memory remapping on keyOf() calls.
@@ -116,7 +143,22 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     }
 
     public void of(CairoConfiguration configuration, Path path, CharSequence columnName, long columnNameTxn, int symbolCount) {
+        of(configuration, path, columnName, columnNameTxn, symbolCount, null, 0, 0);
+    }
+
+    public void of(
+            CairoConfiguration configuration,
+            Path path,
+            CharSequence columnName,
+            long columnNameTxn,
+            int symbolCount,
+            @Nullable SymbolValueCachePool sharedCachePool,
+            int tableId,
+            long truncateVersion
+    ) {
         FilesFacade ff = configuration.getFilesFacade();
+        releaseSharedCache();
+        this.sharedCachePool = sharedCachePool;
         this.configuration = configuration;
         this.path.of(path);
         this.columnNameSink.clear();
@@ -164,10 +206,16 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
             // theoretically should require 2 value cells in index per hash
             // we use 4 cells to compensate for occasionally unlucky hash distribution
             this.maxHash = Numbers.ceilPow2(symbolCapacity / 2) - 1;
-            if (cached) {
-                this.cache.setPos(symbolCapacity);
-            }
+            // cache grows as values are decoded, reader open does not depend on symbol capacity
             this.cache.clear();
+            if (cached && sharedCachePool != null) {
+                // truncate rewrites symbol files in place under the same column version, readers opened
+                // after truncate must not see values decoded before it
+                sharedCacheKeySink.clear();
+                sharedCacheKeySink.put(tableId).put(':').put(truncateVersion).put(':')
+                        .put(path.trimTo(plen)).put(Files.SEPARATOR).put(columnName).put('.').put(columnNameTxn);
+                this.sharedCache = sharedCachePool.acquire(sharedCacheKeySink);
+            }
             LOG.debug().$("open [columnName=").$(path.trimTo(plen).concat(columnName).$()).$(", fd=").$(this.offsetMem.getFd()).$(", capacity=").$(symbolCapacity).$(']').$();
         } catch (Throwable e) {
             close();
@@ -189,7 +237,7 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
             final RowCursor cursor = indexReader.getCursor(true, hash, 0, maxOffset - Long.BYTES);
             while (cursor.hasNext()) {
                 final long offsetOffset = cursor.next();
-                if (Chars.equals(value, charMem.getStr(offsetMem.getLong(offsetOffset)))) {
+                if (valueEquals(value, offsetOffset)) {
                     return SymbolMapWriter.offsetToKey(offsetOffset);
                 }
             }
@@ -230,7 +278,7 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
     }
 
     private CharSequence cachedValue(int key) {
-        String symbol = cache.getQuiet(key);
+        String symbol = sharedCache != null ? sharedCache.get(key) : cache.getQuiet(key);
         return symbol != null ? symbol : fetchAndCache(key);
     }
 
@@ -238,10 +286,22 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
         String symbol;
         CharSequence cs = charMem.getStr(offsetMem.getLong(SymbolMapWriter.keyToOffset(key)));
         assert cs != null;
-        cache.extendAndSet(key, symbol = Chars.toString(cs));
+        symbol = Chars.toString(cs);
+        if (sharedCache != null) {
+            sharedCache.put(key, symbol);
+        } else {
+            cache.extendAndSet(key, symbol);
+        }
         return symbol;
     }
 
+    private void releaseSharedCache() {
+        if (sharedCache != null) {
+            sharedCachePool.release(sharedCache);
+            sharedCache = null;
+        }
+    }
+
     private CharSequence uncachedValue(int key) {
         return charMem.getStr(offsetMem.getLong(SymbolMapWriter.keyToOffset(key)));
     }
@@ -250,10 +310,15 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
         return charMem.getStr2(offsetMem.getLong(SymbolMapWriter.keyToOffset(key)));
     }
 
+    // compares value to the symbol in the char file in place, symbols are never null there
+    private boolean valueEquals(CharSequence value, long offsetOffset) {
+        final long address = charMem.addressOf(offsetMem.getLong(offsetOffset));
+        return Chars.equals(value, address + Vm.STRING_LENGTH_BYTES, Unsafe.getUnsafe().getInt(address));
+    }
+
     private class SymbolTableView implements StaticSymbolTable {
         private final MemoryCR.CharSequenceView csview = new MemoryCR.CharSequenceView();
         private final MemoryCR.CharSequenceView csview2 = new MemoryCR.CharSequenceView();
-        private final MemoryCR.CharSequenceView csviewInternal = new MemoryCR.CharSequenceView();
         private RowCursor rowCursor;
 
         @Override
@@ -273,7 +338,7 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
                 rowCursor = indexReader.initCursor(rowCursor, hash, 0, maxOffset - Long.BYTES);
                 while (rowCursor.hasNext()) {
                     final long offsetOffset = rowCursor.next();
-                    if (Chars.equals(value, charMem.getStr(offsetMem.getLong(offsetOffset), csviewInternal))) {
+                    if (valueEquals(value, offsetOffset)) {
                         return SymbolMapWriter.offsetToKey(offsetOffset);
                     }
                 }
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Numbers;
+
+import java.util.Arrays;
+
+/**
+ * Decoded symbol values of one version of a symbol column, shared by all readers of the column.
+ * Values are immutable strings and are published without locking, concurrent readers may race to
+ * decode the same value, which only costs a duplicate string.
+ * <p>
+ * Instances are reference-counted by {@link SymbolValueCachePool}.
+ */
+public class SymbolValueCache {
+    private static final int INITIAL_CAPACITY = 16;
+    private final String key;
+    private volatile String[] values;
+    // guarded by pool
+    int refCount;
+
+    SymbolValueCache(String key) {
+        this.key = key;
+        this.values = new String[INITIAL_CAPACITY];
+    }
+
+    public String get(int symbolKey) {
+        final String[] values = this.values;
+        return symbolKey < values.length ? values[symbolKey] : null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void put(int symbolKey, String value) {
+        String[] values = this.values;
+        if (symbolKey >= values.length) {
+            values = grow(symbolKey);
+        }
+        values[symbolKey] = value;
+    }
+
+    /**
+     * Forgets values of keys from symbolCount onwards. Writer reuses keys of rolled back
+     * symbols for new values.
+     *
+     * @param symbolCount number of symbols to keep
+     */
+    public synchronized void truncate(int symbolCount) {
+        final String[] values = this.values;
+        if (symbolCount < values.length) {
+            Arrays.fill(values, symbolCount, values.length, null);
+        }
+    }
+
+    private synchronized String[] grow(int symbolKey) {
+        String[] values = this.values;
+        if (symbolKey >= values.length) {
+            values = Arrays.copyOf(values, Numbers.ceilPow2(symbolKey + 1));
+            this.values = values;
+        }
+        return values;
+    }
+}
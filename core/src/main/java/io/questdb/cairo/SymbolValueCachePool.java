@@ -0,0 +1,67 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+
+/**
+ * Registry of symbol value caches shared by table readers. Cache is looked up by table id, column
+ * name and column version, so opening a reader does not decode or allocate anything per symbol.
+ * Cache is released when the last reader of the column version lets go of it.
+ */
+public class SymbolValueCachePool {
+    private static final Log LOG = LogFactory.getLog(SymbolValueCachePool.class);
+    private final CharSequenceObjHashMap<SymbolValueCache> caches = new CharSequenceObjHashMap<>();
+
+    public synchronized SymbolValueCache acquire(CharSequence key) {
+        final int index = caches.keyIndex(key);
+        SymbolValueCache cache;
+        if (index > -1) {
+            final String k = Chars.toString(key);
+            cache = new SymbolValueCache(k);
+            caches.putAt(index, k, cache);
+            LOG.debug().$("new [key=").$(k).$(']').$();
+        } else {
+            cache = caches.valueAtQuick(index);
+        }
+        cache.refCount++;
+        return cache;
+    }
+
+    public synchronized int getCacheCount() {
+        return caches.size();
+    }
+
+    public synchronized void release(SymbolValueCache cache) {
+        assert cache.refCount > 0;
+        if (--cache.refCount == 0) {
+            caches.remove(cache.getKey());
+            LOG.debug().$("released [key=").$(cache.getKey()).$(']').$();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Creates an independent copy of a table as of the transaction visible to a {@link TableReader}.
+ * Files of all partitions except the last are hard-linked, they are immutable as long as the
+ * writers of both tables never append to them in place, which O3 guarantees by rewriting
+ * linked partitions into a new partition version. The last partition, which is still being
+ * appended to, and bitmap index files, which are updated in place, are copied. Symbol maps
+ * are rebuilt from the reader and metadata files are dumped from the reader snapshot.
+ * <p>
+ * When the file system does not support hard links the files are copied instead.
+ */
+public class TableCloner implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableCloner.class);
+    private static final SymbolValueCountCollector NOOP_COLLECTOR = (symbolIndexInTxWriter, count) -> {
+    };
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final Path srcPath = new Path();
+    private final Path dstPath = new Path();
+    private final FindVisitor cloneFileVisitor = this::cloneFile;
+    private final MemoryCMARW mem = Vm.getCMARWInstance();
+    private int srcRootLen;
+    private int dstRootLen;
+    private int srcPartitionLen;
+    private int dstPartitionLen;
+    private boolean linkFiles;
+    private int linkedFileCount;
+    private int copiedFileCount;
+
+    public TableCloner(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(mem);
+        Misc.free(srcPath);
+        Misc.free(dstPath);
+    }
+
+    public void clone(CairoSecurityContext securityContext, CharSequence srcTableName, CharSequence dstTableName) {
+        final CharSequence lockedReason = engine.lock(securityContext, dstTableName, "cloneTable");
+        if (lockedReason != null) {
+            throw EntryUnavailableException.instance(lockedReason);
+        }
+
+        boolean newTable = false;
+        try {
+            if (engine.getStatus(securityContext, dstPath, dstTableName) != TABLE_DOES_NOT_EXIST) {
+                throw CairoException.instance(0).put("table already exists [table=").put(dstTableName).put(']');
+            }
+
+            try (TableReader reader = engine.getReader(securityContext, srcTableName)) {
+                srcPath.of(configuration.getRoot()).concat(reader.getTableName());
+                srcRootLen = srcPath.length();
+                dstPath.of(configuration.getRoot()).concat(dstTableName);
+                dstRootLen = dstPath.length();
+                if (ff.mkdirs(dstPath.slash$(), configuration.getMkDirMode()) != 0) {
+                    throw CairoException.instance(ff.errno()).put("could not create [dir=").put(dstPath).put(']');
+                }
+
+                try {
+                    cloneUnsafe(reader);
+                    newTable = true;
+                } catch (Throwable e) {
+                    if (ff.rmdir(dstPath.trimTo(dstRootLen).slash$()) != 0) {
+                        LOG.error().$("could not remove partially cloned table [path=").$(dstPath).$(", errno=").$(ff.errno()).I$();
+                    }
+                    throw e;
+                }
+
+                LOG.info().$("cloned [from=").$(srcTableName)
+                        .$(", to=").$(dstTableName)
+                        .$(", txn=").$(reader.getTxn())
+                        .$(", linked=").$(linkedFileCount)
+                        .$(", copied=").$(copiedFileCount)
+                        .I$();
+            }
+        } finally {
+            engine.unlock(securityContext, dstTableName, null, newTable);
+        }
+    }
+
+    private void cloneFile(long pUtf8NameZ, int type) {
+        if (type == Files.DT_FILE) {
+            srcPath.trimTo(srcPartitionLen).concat(pUtf8NameZ).$();
+            dstPath.trimTo(dstPartitionLen).concat(pUtf8NameZ).$();
+            if (linkFiles && !isIndexFile(srcPath) && ff.hardLink(srcPath, dstPath) == 0) {
+                linkedFileCount++;
+                return;
+            }
+            if (ff.copy(srcPath, dstPath) < 0) {
+                throw CairoException.instance(ff.errno()).put("could not copy [from=").put(srcPath).put(", to=").put(dstPath).put(']');
+            }
+            copiedFileCount++;
+        }
+    }
+
+    private void clonePartition(int partitionBy, long partitionTimestamp, long partitionNameTxn, boolean link) {
+        setPathForPartition(srcPath.trimTo(srcRootLen), partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(srcPath, partitionNameTxn);
+        setPathForPartition(dstPath.trimTo(dstRootLen), partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(dstPath, partitionNameTxn);
+        if (!ff.exists(srcPath.slash$())) {
+            // empty table has no partition directory
+            return;
+        }
+        if (ff.mkdirs(dstPath.slash$(), configuration.getMkDirMode()) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [dir=").put(dstPath).put(']');
+        }
+        srcPartitionLen = srcPath.length();
+        dstPartitionLen = dstPath.length();
+        linkFiles = link;
+        ff.iterateDir(srcPath, cloneFileVisitor);
+    }
+
+    private void cloneUnsafe(TableReader reader) {
+        linkedFileCount = 0;
+        copiedFileCount = 0;
+
+        final TxReader txFile = reader.getTxFile();
+        final int partitionBy = reader.getPartitionedBy();
+        for (int i = 0, n = reader.getPartitionCount(), last = n - 1; i < n; i++) {
+            clonePartition(partitionBy, reader.getPartitionTimestampByIndex(i), txFile.getPartitionNameTxn(i), i < last);
+        }
+
+        // symbol maps are appended to in place, rebuild them with the values visible to the reader
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final ColumnVersionReader columnVersionReader = reader.getColumnVersionReader();
+        int denseSymbolIndex = 0;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (!ColumnType.isSymbol(metadata.getColumnType(i))) {
+                continue;
+            }
+            final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(i);
+            final CharSequence columnName = metadata.getColumnName(i);
+            final long columnNameTxn = columnVersionReader.getDefaultColumnNameTxn(i);
+            MapWriter.createSymbolMapFiles(
+                    ff,
+                    mem,
+                    dstPath.trimTo(dstRootLen),
+                    columnName,
+                    columnNameTxn,
+                    symbolMapReader.getSymbolCapacity(),
+                    symbolMapReader.isCached()
+            );
+            try (
+                    SymbolMapWriter symbolMapWriter = new SymbolMapWriter(
+                            configuration,
+                            dstPath.trimTo(dstRootLen),
+                            columnName,
+                            columnNameTxn,
+                            0,
+                            denseSymbolIndex++,
+                            NOOP_COLLECTOR
+                    )
+            ) {
+                for (int key = 0, count = symbolMapReader.getSymbolCount(); key < count; key++) {
+                    symbolMapWriter.put(symbolMapReader.valueOf(key));
+                }
+                symbolMapWriter.updateNullFlag(symbolMapReader.containsNullValue());
+            }
+        }
+
+        dstPath.trimTo(dstRootLen).concat(META_FILE_NAME).$();
+        mem.smallFile(ff, dstPath, MemoryTag.MMAP_DEFAULT);
+        metadata.dumpTo(mem);
+        mem.putInt(META_OFFSET_TABLE_ID, (int) engine.getNextTableId());
+        mem.close(false);
+
+        dstPath.trimTo(dstRootLen).concat(COLUMN_VERSION_FILE_NAME).$();
+        mem.smallFile(ff, dstPath, MemoryTag.MMAP_DEFAULT);
+        columnVersionReader.dumpTo(mem);
+        mem.close(false);
+
+        dstPath.trimTo(dstRootLen).concat(TXN_FILE_NAME).$();
+        mem.smallFile(ff, dstPath, MemoryTag.MMAP_DEFAULT);
+        txFile.dumpTo(mem);
+        mem.close(false);
+    }
+
+    private static boolean isIndexFile(Path path) {
+        return Chars.endsWith(path, ".k") || Chars.endsWith(path, ".v")
+                || Chars.contains(path, ".k.") || Chars.contains(path, ".v.");
+    }
+}
@@ -27,16 +27,20 @@ package io.questdb.cairo;
 import io.questdb.MessageBus;
 import io.questdb.cairo.sql.StaticSymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.ColumnMappingCache;
 import io.questdb.cairo.vm.NullMemoryMR;
+import io.questdb.cairo.vm.SharedMemoryCMR;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.mp.MPSequence;
 import io.questdb.std.*;
 import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -60,6 +64,9 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final PartitionBy.PartitionFloorMethod partitionFloorMethod;
     private final String tableName;
     private final MessageBus messageBus;
+    private final SymbolValueCachePool symbolValueCachePool;
+    private final ColumnMappingCache columnMappingCache;
+    private final StringSink columnMappingKeyPrefix = new StringSink();
     private final ObjList<SymbolMapReader> symbolMapReaders = new ObjList<>();
     private final CairoConfiguration configuration;
     private final TxReader txFile;
@@ -70,6 +77,8 @@ public class TableReader implements Closeable, SymbolTableSource {
     private LongList columnTops;
     private ObjList<MemoryMR> columns;
     private ObjList<BitmapIndexReader> bitmapIndexes;
+    // sorted index readers, slots are addressed the same way as column files
+    private final ObjList<SortedIndexSlot> sortedIndexes = new ObjList<>();
     private int columnCount;
     private int columnCountShl;
     private long rowCount;
@@ -82,7 +91,19 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName, @Nullable MessageBus messageBus) {
+        this(configuration, tableName, messageBus, null, null);
+    }
+
+    public TableReader(
+            CairoConfiguration configuration,
+            CharSequence tableName,
+            @Nullable MessageBus messageBus,
+            @Nullable SymbolValueCachePool symbolValueCachePool,
+            @Nullable ColumnMappingCache columnMappingCache
+    ) {
         this.configuration = configuration;
+        this.symbolValueCachePool = symbolValueCachePool;
+        this.columnMappingCache = columnMappingCache;
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.messageBus = messageBus;
@@ -141,12 +162,34 @@ public class TableReader implements Closeable, SymbolTableSource {
         return 2 + base + index * 2;
     }
 
+    /**
+     * Sets access pattern hint on column files of the partition. Columns that are not mapped are skipped.
+     *
+     * @param partitionIndex index of open partition
+     * @param advice         one of Files.POSIX_MADV_* constants
+     */
+    public void adviseColumns(int partitionIndex, int advice) {
+        final int base = getColumnBase(partitionIndex);
+        for (int i = 0; i < columnCount; i++) {
+            final int index = getPrimaryColumnIndex(base, i);
+            final MemoryMR primary = columns.getQuick(index);
+            if (primary != null) {
+                primary.advise(advice);
+            }
+            final MemoryMR secondary = columns.getQuick(index + 1);
+            if (secondary != null) {
+                secondary.advise(advice);
+            }
+        }
+    }
+
     @Override
     public void close() {
         if (isOpen()) {
             goPassive();
             freeSymbolMapReaders();
             freeBitmapIndexCache();
+            Misc.freeObjList(sortedIndexes);
             Misc.free(metadata);
             Misc.free(txFile);
             Misc.free(todoMem);
@@ -173,6 +216,7 @@ public class TableReader implements Closeable, SymbolTableSource {
             // when we come to reloading table reader we would be able to
             // tell that column has to be attempted to be read from disk
             closePartitionColumnFile(getColumnBase(partitionIndex), columnIndex);
+            Misc.free(sortedIndexes.getQuiet(getPrimaryColumnIndex(getColumnBase(partitionIndex), columnIndex)));
         }
 
         if (ColumnType.isSymbol(metadata.getColumnType(columnIndex))) {
@@ -211,6 +255,63 @@ public class TableReader implements Closeable, SymbolTableSource {
         return createBitmapIndexReaderAt(index, columnBase, columnIndex, columnNameTxn, direction, txFile.getPartitionNameTxn(partitionIndex));
     }
 
+    /**
+     * Returns sorted index of the column in the given partition, the partition must be open. Index file
+     * stays mapped until the partition or column files change, or the reader is closed. Missing index is
+     * looked up again on the next transaction.
+     *
+     * @return null when index has not been built for the partition or for the current column version
+     */
+    @Nullable
+    public SortedIndexReader getSortedIndexReader(int partitionIndex, int columnIndex) {
+        final int index = getPrimaryColumnIndex(getColumnBase(partitionIndex), columnIndex);
+        SortedIndexSlot slot = sortedIndexes.getQuiet(index);
+        if (slot == null) {
+            slot = new SortedIndexSlot();
+            sortedIndexes.extendAndSet(index, slot);
+        }
+
+        final long partitionTimestamp = txFile.getPartitionTimestamp(partitionIndex);
+        final long partitionNameTxn = txFile.getPartitionNameTxn(partitionIndex);
+        final long columnNameTxn = columnVersionReader.getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(columnIndex));
+        if (slot.partitionTimestamp != partitionTimestamp
+                || slot.partitionNameTxn != partitionNameTxn
+                || slot.columnNameTxn != columnNameTxn
+                || (!slot.open && slot.lookupTxn != txn)) {
+            try {
+                pathGenPartitioned(partitionIndex);
+                TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+                slot.open = slot.reader.of(ff, TableUtils.siFile(path, metadata.getColumnName(columnIndex), columnNameTxn));
+            } finally {
+                path.trimTo(rootLen);
+            }
+            slot.partitionTimestamp = partitionTimestamp;
+            slot.partitionNameTxn = partitionNameTxn;
+            slot.columnNameTxn = columnNameTxn;
+            slot.lookupTxn = txn;
+        }
+        return slot.open ? slot.reader : null;
+    }
+
+    /**
+     * Reads latest rows of the symbol column that table writer maintains when the column
+     * {@link TableReaderMetadata#hasLatestRows(int) has latest rows}.
+     *
+     * @return false when latest rows are not consistent with the transaction of this reader
+     */
+    public boolean readLatestRows(int columnIndex, LatestRowsReader latestRowsReader) {
+        final int writerIndex = metadata.getWriterIndex(columnIndex);
+        try {
+            return latestRowsReader.of(
+                    ff,
+                    TableUtils.lrFile(path.trimTo(rootLen), metadata.getColumnName(columnIndex), columnVersionReader.getDefaultColumnNameTxn(writerIndex)),
+                    txn
+            );
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public MemoryR getColumn(int absoluteIndex) {
         return columns.getQuick(absoluteIndex);
     }
@@ -336,6 +437,38 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Asks background job to load column files of the partition into page cache. This is a hint, the call
+     * does nothing when prefetch is disabled, the reader has no message bus, partition is already open
+     * or the prefetch queue is full.
+     *
+     * @param partitionIndex index of partition the caller is going to open next
+     */
+    public void prefetchPartition(int partitionIndex) {
+        if (messageBus == null
+                || !configuration.isSqlPartitionPrefetchEnabled()
+                || partitionIndex < 0
+                || partitionIndex >= partitionCount
+                || getPartitionRowCount(partitionIndex) != -1) {
+            return;
+        }
+
+        final MPSequence pubSeq = messageBus.getPartitionPrefetchPubSeq();
+        final long cursor = pubSeq.next();
+        if (cursor > -1) {
+            try {
+                TableUtils.txnPartitionConditionally(
+                        pathGenPartitioned(partitionIndex),
+                        txFile.getPartitionNameTxn(partitionIndex)
+                );
+                messageBus.getPartitionPrefetchQueue().get(cursor).of(path);
+            } finally {
+                path.trimTo(rootLen);
+                pubSeq.done(cursor);
+            }
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex, boolean forceTruncate) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -758,7 +891,10 @@ public class TableReader implements Closeable, SymbolTableSource {
                 path,
                 metadata.getColumnName(columnIndex),
                 columnVersionReader.getDefaultColumnNameTxn(metadata.getWriterIndex(columnIndex)),
-                txFile.getSymbolValueCount(symbolColumnIndex)
+                txFile.getSymbolValueCount(symbolColumnIndex),
+                symbolValueCachePool,
+                metadata.getId(),
+                txFile.getTruncateVersion()
         );
     }
 
@@ -796,7 +932,20 @@ public class TableReader implements Closeable, SymbolTableSource {
             MemoryMR mem,
             long columnSize
     ) {
-        if (mem != null && mem != NullMemoryMR.INSTANCE) {
+        if (columnMappingCache != null) {
+            // file at the same path is a different file after table is re-created, truncated
+            // or after partition is dropped, versions in the key tell these apart
+            columnMappingKeyPrefix.clear();
+            columnMappingKeyPrefix.put(metadata.getId())
+                    .put(':').put(txFile.getTruncateVersion())
+                    .put(':').put(txFile.getPartitionTableVersion())
+                    .put(':');
+            if (!(mem instanceof SharedMemoryCMR)) {
+                mem = new SharedMemoryCMR(columnMappingCache);
+                columns.setQuick(primaryIndex, mem);
+            }
+            ((SharedMemoryCMR) mem).of(columnMappingKeyPrefix, ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+        } else if (mem != null && mem != NullMemoryMR.INSTANCE) {
             mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
         } else {
             mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
@@ -994,7 +1143,16 @@ public class TableReader implements Closeable, SymbolTableSource {
                     final int writerColumnIndex = metadata.getWriterIndex(columnIndex);
                     final long columnNameTxn = columnVersionReader.getDefaultColumnNameTxn(writerColumnIndex);
                     int symbolCount = txFile.getSymbolValueCount(symbolMapIndex++);
-                    ((SymbolMapReaderImpl) symbolMapReader).of(configuration, path, metadata.getColumnName(columnIndex), columnNameTxn, symbolCount);
+                    ((SymbolMapReaderImpl) symbolMapReader).of(
+                            configuration,
+                            path,
+                            metadata.getColumnName(columnIndex),
+                            columnNameTxn,
+                            symbolCount,
+                            symbolValueCachePool,
+                            metadata.getId(),
+                            txFile.getTruncateVersion()
+                    );
                 }
             }
         }
@@ -1142,21 +1300,26 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     /**
-     * Updates boundaries of all columns in partition.
+     * Updates boundaries of all columns in partition. Symbol map counts are left to the caller.
      *
      * @param partitionIndex index of partition
      * @param rowCount       number of rows in partition
      */
     private void reloadPartition(int partitionIndex, long rowCount, long openPartitionNameTxn) {
-        Path path = pathGenPartitioned(partitionIndex);
-        TableUtils.txnPartitionConditionally(path, openPartitionNameTxn);
+        // partition path is only needed to open columns that are not mapped yet,
+        // growing mapped columns is the common case when rows are appended to the last partition
+        boolean pathReady = false;
         try {
-            int symbolMapIndex = 0;
             int columnBase = getColumnBase(partitionIndex);
             for (int i = 0; i < columnCount; i++) {
                 final int index = getPrimaryColumnIndex(columnBase, i);
                 final MemoryMR mem1 = columns.getQuick(index);
                 if (mem1 instanceof NullMemoryMR) {
+                    if (!pathReady) {
+                        pathGenPartitioned(partitionIndex);
+                        TableUtils.txnPartitionConditionally(path, openPartitionNameTxn);
+                        pathReady = true;
+                    }
                     reloadColumnAt(
                             partitionIndex,
                             path,
@@ -1175,13 +1338,6 @@ public class TableReader implements Closeable, SymbolTableSource {
                             rowCount - getColumnTop(columnBase, i)
                     );
                 }
-
-                // reload symbol map
-                SymbolMapReader reader = symbolMapReaders.getQuick(i);
-                if (reader == null) {
-                    continue;
-                }
-                reader.updateSymbolCount(txFile.getSymbolValueCount(symbolMapIndex++));
             }
         } finally {
             path.trimTo(rootLen);
@@ -1217,10 +1373,10 @@ public class TableReader implements Closeable, SymbolTableSource {
             final int writerColumnIndex = metadata.getWriterIndex(columnIndex);
             final long columnNameTxn = columnVersionReader.getDefaultColumnNameTxn(writerColumnIndex);
             if (reader instanceof SymbolMapReaderImpl) {
-                ((SymbolMapReaderImpl) reader).of(configuration, path, metadata.getColumnName(columnIndex), columnNameTxn, 0);
+                ((SymbolMapReaderImpl) reader).of(configuration, path, metadata.getColumnName(columnIndex), columnNameTxn, 0, symbolValueCachePool, metadata.getId(), txFile.getTruncateVersion());
                 return reader;
             }
-            return new SymbolMapReaderImpl(configuration, path, metadata.getColumnName(columnIndex), columnNameTxn, 0);
+            return new SymbolMapReaderImpl(configuration, path, metadata.getColumnName(columnIndex), columnNameTxn, 0, symbolValueCachePool, metadata.getId(), txFile.getTruncateVersion());
         } else {
             return reader;
         }
@@ -1318,4 +1474,21 @@ public class TableReader implements Closeable, SymbolTableSource {
             }
         }
     }
+
+    private static class SortedIndexSlot implements Closeable {
+        private final SortedIndexReader reader = new SortedIndexReader();
+        private long partitionTimestamp = Numbers.LONG_NaN;
+        private long partitionNameTxn;
+        private long columnNameTxn;
+        // reader transaction of the last lookup
+        private long lookupTxn;
+        private boolean open;
+
+        @Override
+        public void close() {
+            reader.close();
+            open = false;
+            partitionTimestamp = Numbers.LONG_NaN;
+        }
+    }
 }
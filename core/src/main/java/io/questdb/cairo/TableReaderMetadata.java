@@ -204,6 +204,22 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return version;
     }
 
+    /**
+     * @param columnIndex index of column in this metadata
+     * @return true when column has sorted index, which is maintained for non-symbol columns
+     */
+    public boolean isColumnSortedIndexed(int columnIndex) {
+        return TableUtils.isSortedIndexed(metaMem, getWriterIndex(columnIndex));
+    }
+
+    /**
+     * @param columnIndex index of column in this metadata
+     * @return true when table writer maintains latest row of every value of the symbol column
+     */
+    public boolean hasLatestRows(int columnIndex) {
+        return TableUtils.hasLatestRows(metaMem, getWriterIndex(columnIndex));
+    }
+
     public TableReaderMetadata of(Path path, int expectedVersion) {
         this.path.of(path).$();
         try {
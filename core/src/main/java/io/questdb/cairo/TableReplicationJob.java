@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Periodically replicates a fixed set of tables from master engine to follower engine.
+ * Failure to replicate one table does not stop replication of the others, the table
+ * is retried on the next run.
+ */
+public class TableReplicationJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableReplicationJob.class);
+    private final TableReplicator replicator;
+    private final ObjList<CharSequence> tableNames = new ObjList<>();
+
+    public TableReplicationJob(CairoEngine masterEngine, CairoEngine followerEngine) {
+        this.replicator = new TableReplicator(masterEngine, followerEngine);
+    }
+
+    public TableReplicationJob addTable(CharSequence tableName) {
+        tableNames.add(tableName);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(replicator);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        boolean useful = false;
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            final CharSequence tableName = tableNames.getQuick(i);
+            try {
+                useful |= replicator.sync(tableName);
+            } catch (Throwable th) {
+                LOG.error().$("could not replicate [table=").$(tableName).$(']').$(th).$();
+            }
+        }
+        return useful;
+    }
+}
@@ -0,0 +1,557 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Keeps tables of a follower engine in sync with the same tables of a master engine. Each call
+ * to {@link #sync(CharSequence)} takes a {@link TableReader} of the master table and diffs its
+ * transaction against the follower's _txn into a {@link TableSyncModel}. Only what the follower
+ * is missing is shipped: whole partitions when a partition is new or was rewritten by an O3 merge,
+ * and the appended row range of every column file otherwise. Symbol tables, _meta and _cv follow,
+ * and _txn is published last so that follower readers never observe a partially copied transaction.
+ * <p>
+ * Master writer is never taken, the reader pins master's transaction in the txn scoreboard, so
+ * the files of that transaction are not purged while they are copied. Bitmap index files are
+ * being updated in place by the master writer, their copies are validated and re-copied until
+ * consistent.
+ * <p>
+ * Follower tables are read-only, nothing other than the replicator must write to them.
+ */
+public class TableReplicator implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableReplicator.class);
+    private static final long COPY_CHUNK_SIZE = 16 * Numbers.SIZE_1MB;
+    private final CairoEngine masterEngine;
+    private final CairoEngine followerEngine;
+    private final FilesFacade ff;
+    private final MicrosecondClock microsecondClock;
+    private final long spinLockTimeoutUs;
+    private final int mkDirMode;
+    private final long fileOpenOpts;
+    private final Path masterPath = new Path();
+    private final Path followerPath = new Path();
+    private final TxReader followerTxReader;
+    private final TableSyncModel syncModel = new TableSyncModel();
+    private final MemoryCARW txnSnapshotMem;
+    private final MemoryCMARW metaMem = Vm.getCMARWInstance();
+    private final long tempMem8b = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+    private final FindVisitor copyFileVisitor = this::copyFile;
+    private int masterRootLen;
+    private int followerRootLen;
+    private int masterPartitionLen;
+    private int followerPartitionLen;
+    private boolean copyMissingOnly;
+
+    public TableReplicator(CairoEngine masterEngine, CairoEngine followerEngine) {
+        this.masterEngine = masterEngine;
+        this.followerEngine = followerEngine;
+        final CairoConfiguration configuration = masterEngine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.microsecondClock = configuration.getMicrosecondClock();
+        this.spinLockTimeoutUs = configuration.getSpinLockTimeoutUs();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.fileOpenOpts = configuration.getWriterFileOpenOpts();
+        this.followerTxReader = new TxReader(ff);
+        this.txnSnapshotMem = Vm.getCARWInstance(ff.getPageSize(), Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(followerTxReader);
+        Misc.free(txnSnapshotMem);
+        Misc.free(metaMem);
+        Misc.free(masterPath);
+        Misc.free(followerPath);
+        Unsafe.free(tempMem8b, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Brings follower copy of the table up to the last committed transaction of the master.
+     *
+     * @param tableName name of the table, same on master and follower
+     * @return true when follower has been changed, false when it was already in sync
+     */
+    public boolean sync(CharSequence tableName) {
+        try (TableReader reader = masterEngine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            if (!PartitionBy.isPartitioned(reader.getPartitionedBy())) {
+                throw CairoException.instance(0).put("replication requires partitioned table [table=").put(tableName).put(']');
+            }
+            masterPath.of(masterEngine.getConfiguration().getRoot()).concat(tableName);
+            followerPath.of(followerEngine.getConfiguration().getRoot()).concat(tableName);
+            masterRootLen = masterPath.length();
+            followerRootLen = followerPath.length();
+
+            if (!ff.exists(followerPath.concat(TXN_FILE_NAME).$())) {
+                bootstrap(reader);
+                return true;
+            }
+
+            followerTxReader.ofRO(followerPath.trimTo(followerRootLen), reader.getPartitionedBy());
+            safeReadTxn(followerTxReader, microsecondClock, spinLockTimeoutUs);
+            if (followerTxReader.getTxn() == reader.getTxn()) {
+                return false;
+            }
+            syncIncrementally(reader);
+            return true;
+        } finally {
+            followerTxReader.clear();
+            masterPath.trimTo(0);
+            followerPath.trimTo(0);
+        }
+    }
+
+    private static long getColumnTop(ColumnVersionReader columnVersionReader, long partitionTimestamp, int writerIndex) {
+        final int recordIndex = columnVersionReader.getRecordIndex(partitionTimestamp, writerIndex);
+        if (recordIndex > -1) {
+            return columnVersionReader.getColumnTopByIndex(recordIndex);
+        }
+        // column added after the partition has no data in it
+        return columnVersionReader.getColumnTopPartitionTimestamp(writerIndex) <= partitionTimestamp ? 0 : -1;
+    }
+
+    private void bootstrap(TableReader reader) {
+        if (ff.mkdirs(followerPath.trimTo(followerRootLen).slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [dir=").put(followerPath).put(']');
+        }
+
+        final TxReader masterTxReader = reader.getTxFile();
+        for (int i = 0, n = masterTxReader.getPartitionCount(); i < n; i++) {
+            setPartitionPaths(reader.getPartitionedBy(), masterTxReader.getPartitionTimestamp(i), masterTxReader.getPartitionNameTxn(i));
+            copyPartition(false);
+            copyPartitionIndexes(reader, masterTxReader.getPartitionTimestamp(i));
+        }
+
+        followerPath.trimTo(followerRootLen).concat(META_FILE_NAME).$();
+        metaMem.smallFile(ff, followerPath, MemoryTag.MMAP_DEFAULT);
+        reader.getMetadata().dumpTo(metaMem);
+        metaMem.close(false);
+
+        followerPath.trimTo(followerRootLen).concat(COLUMN_VERSION_FILE_NAME).$();
+        metaMem.smallFile(ff, followerPath, MemoryTag.MMAP_DEFAULT);
+        reader.getColumnVersionReader().dumpTo(metaMem);
+        metaMem.close(false);
+
+        copySymbols(reader, true);
+
+        // _txn goes last, it makes the table visible to follower readers
+        followerPath.trimTo(followerRootLen).concat(TXN_FILE_NAME).$();
+        metaMem.smallFile(ff, followerPath, MemoryTag.MMAP_DEFAULT);
+        masterTxReader.dumpTo(metaMem);
+        metaMem.close(false);
+        LOG.info().$("bootstrapped follower [table=").$(reader.getTableName()).$(", txn=").$(reader.getTxn()).I$();
+    }
+
+    private void copyBitmapIndex(int masterLen, int followerLen, CharSequence columnName, long columnNameTxn) {
+        // Master writer updates index files in place. Copy is retried until the key file header
+        // and every key entry are consistent, and the value file covers what the key file refers to.
+        final long deadline = microsecondClock.getTicks() + spinLockTimeoutUs;
+        while (true) {
+            copyWholeFile(
+                    BitmapIndexUtils.keyFileName(masterPath.trimTo(masterLen), columnName, columnNameTxn),
+                    BitmapIndexUtils.keyFileName(followerPath.trimTo(followerLen), columnName, columnNameTxn)
+            );
+            final long valueMemSize = validateKeyFile(followerPath);
+            copyWholeFile(
+                    BitmapIndexUtils.valueFileName(masterPath.trimTo(masterLen), columnName, columnNameTxn),
+                    BitmapIndexUtils.valueFileName(followerPath.trimTo(followerLen), columnName, columnNameTxn)
+            );
+            if (valueMemSize > -1 && ff.length(followerPath) >= valueMemSize) {
+                return;
+            }
+            if (microsecondClock.getTicks() > deadline) {
+                throw CairoException.instance(0).put("could not copy consistent index [file=").put(masterPath).put(']');
+            }
+            Os.pause();
+        }
+    }
+
+    private void copyFile(long pUtf8NameZ, int type) {
+        if (type == Files.DT_FILE) {
+            masterPath.trimTo(masterPartitionLen).concat(pUtf8NameZ).$();
+            followerPath.trimTo(followerPartitionLen).concat(pUtf8NameZ).$();
+            if (!copyMissingOnly || !ff.exists(followerPath)) {
+                copyOrFail(masterPath, followerPath);
+            }
+        }
+    }
+
+    private void copyOrFail(Path from, Path to) {
+        if (ff.copy(from, to) < 0) {
+            throw CairoException.instance(ff.errno()).put("could not copy [from=").put(from).put(", to=").put(to).put(']');
+        }
+    }
+
+    private void copyPartition(boolean missingFilesOnly) {
+        if (!missingFilesOnly && ff.exists(followerPath.slash$())) {
+            // partition has been rewritten on master and follower copy is stale
+            if (ff.rmdir(followerPath) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not remove [dir=").put(followerPath).put(']');
+            }
+        }
+        if (ff.mkdirs(followerPath.trimTo(followerPartitionLen).slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [dir=").put(followerPath).put(']');
+        }
+        masterPartitionLen = masterPath.slash().length();
+        followerPartitionLen = followerPath.length();
+        copyMissingOnly = missingFilesOnly;
+        ff.iterateDir(masterPath.$(), copyFileVisitor);
+    }
+
+    private void copyPartitionIndexes(TableReader reader, long partitionTimestamp) {
+        // whole file copy of the partition could have caught index files mid-update
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final ColumnVersionReader columnVersionReader = reader.getColumnVersionReader();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.isColumnIndexed(i)) {
+                final int writerIndex = metadata.getWriterIndex(i);
+                if (getColumnTop(columnVersionReader, partitionTimestamp, writerIndex) > -1) {
+                    copyBitmapIndex(
+                            masterPartitionLen,
+                            followerPartitionLen,
+                            metadata.getColumnName(i),
+                            columnVersionReader.getColumnNameTxn(partitionTimestamp, writerIndex)
+                    );
+                }
+            }
+        }
+    }
+
+    private void copyRange(Path from, Path to, long offset, long len) {
+        final long srcFd = TableUtils.openRO(ff, from, LOG);
+        try {
+            final long dstFd = TableUtils.openRW(ff, to, LOG, fileOpenOpts);
+            try {
+                final long pageSize = ff.getPageSize();
+                final long hi = offset + len;
+                long pos = offset;
+                while (pos < hi) {
+                    final long mapOffset = pos - pos % pageSize;
+                    final long mapSize = Math.min(hi - mapOffset, COPY_CHUNK_SIZE);
+                    final long address = TableUtils.mapRO(ff, srcFd, mapSize, mapOffset, MemoryTag.MMAP_DEFAULT);
+                    try {
+                        final long n = mapSize - (pos - mapOffset);
+                        if (ff.write(dstFd, address + pos - mapOffset, n, pos) != n) {
+                            throw CairoException.instance(ff.errno()).put("could not write [file=").put(to).put(", offset=").put(pos).put(']');
+                        }
+                        pos += n;
+                    } finally {
+                        ff.munmap(address, mapSize, MemoryTag.MMAP_DEFAULT);
+                    }
+                }
+            } finally {
+                ff.close(dstFd);
+            }
+        } finally {
+            ff.close(srcFd);
+        }
+    }
+
+    private void copyRows(TableReader reader, long partitionTimestamp, long rowLo, long rowHi) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final ColumnVersionReader columnVersionReader = reader.getColumnVersionReader();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int writerIndex = metadata.getWriterIndex(i);
+            final long columnTop = getColumnTop(columnVersionReader, partitionTimestamp, writerIndex);
+            if (columnTop < 0 || columnTop >= rowHi) {
+                // column has no data in this partition
+                continue;
+            }
+
+            final int columnType = metadata.getColumnType(i);
+            final CharSequence columnName = metadata.getColumnName(i);
+            final long columnNameTxn = columnVersionReader.getColumnNameTxn(partitionTimestamp, writerIndex);
+            long lo = Math.max(rowLo - columnTop, 0);
+            final long hi = rowHi - columnTop;
+
+            if (ColumnType.isVariableLength(columnType)) {
+                iFile(masterPath.trimTo(masterPartitionLen), columnName, columnNameTxn);
+                if (!ff.exists(iFile(followerPath.trimTo(followerPartitionLen), columnName, columnNameTxn))) {
+                    lo = 0;
+                }
+                final long dataLo = readLongAtOffset(ff, masterPath, tempMem8b, lo * Long.BYTES);
+                final long dataHi = readLongAtOffset(ff, masterPath, tempMem8b, hi * Long.BYTES);
+                copyRange(masterPath, followerPath, lo * Long.BYTES, (hi - lo + 1) * Long.BYTES);
+                dFile(masterPath.trimTo(masterPartitionLen), columnName, columnNameTxn);
+                dFile(followerPath.trimTo(followerPartitionLen), columnName, columnNameTxn);
+                copyRange(masterPath, followerPath, dataLo, dataHi - dataLo);
+            } else {
+                dFile(masterPath.trimTo(masterPartitionLen), columnName, columnNameTxn);
+                if (!ff.exists(dFile(followerPath.trimTo(followerPartitionLen), columnName, columnNameTxn))) {
+                    lo = 0;
+                }
+                final int shl = ColumnType.pow2SizeOf(columnType);
+                copyRange(masterPath, followerPath, lo << shl, (hi - lo) << shl);
+            }
+
+            if (metadata.isColumnIndexed(i)) {
+                copyBitmapIndex(masterPartitionLen, followerPartitionLen, columnName, columnNameTxn);
+            }
+        }
+    }
+
+    private void copySymbols(TableReader reader, boolean force) {
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final ColumnVersionReader columnVersionReader = reader.getColumnVersionReader();
+        final TxReader masterTxReader = reader.getTxFile();
+        int denseSymbolIndex = 0;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (!ColumnType.isSymbol(metadata.getColumnType(i))) {
+                continue;
+            }
+            final int symbolCount = masterTxReader.getSymbolValueCount(denseSymbolIndex);
+            final boolean changed = force
+                    || denseSymbolIndex >= followerTxReader.getSymbolColumnCount()
+                    || followerTxReader.getSymbolValueCount(denseSymbolIndex) != symbolCount;
+            denseSymbolIndex++;
+            if (!changed) {
+                continue;
+            }
+
+            // symbol files are append-only, copy the committed part of them in place,
+            // follower readers keep using the prefix they already know about
+            final CharSequence columnName = metadata.getColumnName(i);
+            final long columnNameTxn = columnVersionReader.getDefaultColumnNameTxn(metadata.getWriterIndex(i));
+            final long offsetsSize = SymbolMapWriter.keyToOffset(symbolCount) + Long.BYTES;
+            offsetFileName(masterPath.trimTo(masterRootLen), columnName, columnNameTxn);
+            offsetFileName(followerPath.trimTo(followerRootLen), columnName, columnNameTxn);
+            final long charsSize = readLongAtOffset(ff, masterPath, tempMem8b, SymbolMapWriter.keyToOffset(symbolCount));
+            copyRange(masterPath, followerPath, 0, offsetsSize);
+            copyRange(
+                    charFileName(masterPath.trimTo(masterRootLen), columnName, columnNameTxn),
+                    charFileName(followerPath.trimTo(followerRootLen), columnName, columnNameTxn),
+                    0,
+                    charsSize
+            );
+            copyBitmapIndex(masterRootLen, followerRootLen, columnName, columnNameTxn);
+        }
+    }
+
+    private void copyWholeFile(Path from, Path to) {
+        copyRange(from, to, 0, ff.length(from));
+    }
+
+    private TableSyncModel createSyncModel(TxReader masterTxReader) {
+        // same diff as TableWriter.replCreateTableSyncModel(), made against master reader's transaction
+        final TableSyncModel model = syncModel;
+        model.clear();
+        final boolean truncated = followerTxReader.getDataVersion() != masterTxReader.getDataVersion();
+        model.setTableAction(truncated ? TableSyncModel.TABLE_ACTION_TRUNCATE : TableSyncModel.TABLE_ACTION_KEEP);
+        model.setDataVersion(masterTxReader.getDataVersion());
+        model.setMaxTimestamp(masterTxReader.getMaxTimestamp());
+
+        for (int i = 0, n = masterTxReader.getPartitionCount(); i < n; i++) {
+            final long timestamp = masterTxReader.getPartitionTimestamp(i);
+            final long nameTxn = masterTxReader.getPartitionNameTxn(i);
+            final long ourSize = masterTxReader.getPartitionSize(i);
+            final int theirIndex = truncated ? -1 : followerTxReader.findAttachedPartitionIndexByLoTimestamp(timestamp);
+            final long theirSize;
+            if (theirIndex > -1 && followerTxReader.getPartitionNameTxnByIndex(theirIndex) == nameTxn) {
+                theirSize = followerTxReader.getPartitionSizeByIndex(theirIndex);
+                if (theirSize > ourSize) {
+                    LOG.error().$("follower partition is larger than that on master [table=").$(masterPath)
+                            .$(", ts=").$ts(timestamp)
+                            .I$();
+                }
+            } else {
+                // new partition or partition mutated by O3
+                theirSize = 0;
+            }
+
+            if (theirSize < ourSize) {
+                model.addPartitionAction(
+                        theirSize == 0 ? TableSyncModel.PARTITION_ACTION_WHOLE : TableSyncModel.PARTITION_ACTION_APPEND,
+                        timestamp,
+                        theirSize,
+                        ourSize - theirSize,
+                        nameTxn,
+                        masterTxReader.getPartitionColumnVersion(i)
+                );
+            }
+        }
+        return model;
+    }
+
+    private void publishMeta(TableReader reader) {
+        followerPath.trimTo(followerRootLen).concat(META_SWAP_FILE_NAME).$();
+        metaMem.smallFile(ff, followerPath, MemoryTag.MMAP_DEFAULT);
+        reader.getMetadata().dumpTo(metaMem);
+        metaMem.close(false);
+        // master path is done with, reuse it for the rename target
+        masterPath.of(followerPath).trimTo(followerRootLen).concat(META_FILE_NAME).$();
+        if (!ff.rename(followerPath, masterPath)) {
+            throw CairoException.instance(ff.errno()).put("could not rename [from=").put(followerPath).put(", to=").put(masterPath).put(']');
+        }
+    }
+
+    private void publishTxn(TxReader masterTxReader) {
+        // Serialize master reader's transaction, lay the record next to the current follower record,
+        // then flip the A/B header slot and bump the version. Follower readers either see the old
+        // record or the new one, same as when TxWriter commits.
+        txnSnapshotMem.jumpTo(0);
+        masterTxReader.dumpTo(txnSnapshotMem);
+        final long version = masterTxReader.getVersion();
+        final boolean masterIsA = (version & 1L) == 0L;
+        final int symbolsSize = txnSnapshotMem.getInt(masterIsA ? TX_BASE_OFFSET_SYMBOLS_SIZE_A_32 : TX_BASE_OFFSET_SYMBOLS_SIZE_B_32);
+        final int partitionsSize = txnSnapshotMem.getInt(masterIsA ? TX_BASE_OFFSET_PARTITIONS_SIZE_A_32 : TX_BASE_OFFSET_PARTITIONS_SIZE_B_32);
+        final int recordSize = TxReader.calculateTxRecordSize(symbolsSize, partitionsSize);
+
+        final int followerOffset = followerTxReader.getBaseOffset();
+        final int writeOffset = TX_BASE_HEADER_SIZE + recordSize <= followerOffset ?
+                TX_BASE_HEADER_SIZE :
+                followerOffset + (int) followerTxReader.getRecordSize();
+
+        followerPath.trimTo(followerRootLen).concat(TXN_FILE_NAME).$();
+        final MemoryCMARW mem = Vm.getCMARWInstance(ff, followerPath, ff.getPageSize(), ff.length(followerPath), MemoryTag.MMAP_DEFAULT, fileOpenOpts);
+        try {
+            mem.extend(writeOffset + recordSize);
+            Vect.memcpy(mem.addressOf(writeOffset), txnSnapshotMem.addressOf(TX_BASE_HEADER_SIZE), recordSize);
+            mem.putInt(masterIsA ? TX_BASE_OFFSET_A_32 : TX_BASE_OFFSET_B_32, writeOffset);
+            mem.putInt(masterIsA ? TX_BASE_OFFSET_SYMBOLS_SIZE_A_32 : TX_BASE_OFFSET_SYMBOLS_SIZE_B_32, symbolsSize);
+            mem.putInt(masterIsA ? TX_BASE_OFFSET_PARTITIONS_SIZE_A_32 : TX_BASE_OFFSET_PARTITIONS_SIZE_B_32, partitionsSize);
+            Unsafe.getUnsafe().storeFence();
+            mem.putLong(TX_BASE_OFFSET_VERSION_64, version);
+        } finally {
+            mem.close(false);
+        }
+    }
+
+    private void setPartitionPaths(int partitionBy, long partitionTimestamp, long partitionNameTxn) {
+        setPathForPartition(masterPath.trimTo(masterRootLen), partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(masterPath, partitionNameTxn);
+        setPathForPartition(followerPath.trimTo(followerRootLen), partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(followerPath, partitionNameTxn);
+        masterPartitionLen = masterPath.length();
+        followerPartitionLen = followerPath.length();
+    }
+
+    private void syncIncrementally(TableReader reader) {
+        final TxReader masterTxReader = reader.getTxFile();
+        final TableSyncModel model = createSyncModel(masterTxReader);
+        final int partitionBy = reader.getPartitionedBy();
+        final boolean truncated = model.getTableAction() == TableSyncModel.TABLE_ACTION_TRUNCATE;
+        final boolean structureChanged = followerTxReader.getStructureVersion() != masterTxReader.getStructureVersion();
+        final boolean columnVersionChanged = followerTxReader.getColumnVersion() != masterTxReader.getColumnVersion();
+        boolean partitionsRewritten = false;
+
+        for (int i = 0, n = model.getPartitionCount(); i < n; i++) {
+            final long timestamp = model.getPartitionTimestamp(i);
+            setPartitionPaths(partitionBy, timestamp, model.getPartitionNameTxn(i));
+            if (model.getPartitionAction(i) == TableSyncModel.PARTITION_ACTION_WHOLE) {
+                partitionsRewritten |= followerTxReader.attachedPartitionsContains(timestamp);
+                copyPartition(false);
+                copyPartitionIndexes(reader, timestamp);
+            } else {
+                final long rowLo = model.getPartitionStartRow(i);
+                copyRows(reader, timestamp, rowLo, rowLo + model.getPartitionRowCount(i));
+            }
+        }
+
+        if (structureChanged || columnVersionChanged) {
+            // added columns and column versions rewritten by UPDATE land in partitions
+            // that did not receive new rows
+            for (int i = 0, n = masterTxReader.getPartitionCount(); i < n; i++) {
+                setPartitionPaths(partitionBy, masterTxReader.getPartitionTimestamp(i), masterTxReader.getPartitionNameTxn(i));
+                copyPartition(true);
+                if (i == n - 1) {
+                    // indexes of the last partition can be mid-update
+                    copyPartitionIndexes(reader, masterTxReader.getPartitionTimestamp(i));
+                }
+            }
+        }
+
+        copySymbols(reader, truncated || structureChanged);
+        if (structureChanged) {
+            publishMeta(reader);
+        }
+
+        followerPath.trimTo(followerRootLen).concat(COLUMN_VERSION_FILE_NAME).$();
+        try (ColumnVersionWriter columnVersionWriter = new ColumnVersionWriter(ff, followerPath, ff.length(followerPath))) {
+            final ColumnVersionReader masterColumnVersions = reader.getColumnVersionReader();
+            columnVersionWriter.replicate(masterColumnVersions.getCachedList(), masterColumnVersions.getVersion());
+        }
+
+        publishTxn(masterTxReader);
+
+        if (partitionsRewritten || truncated) {
+            schedulePurgeO3Partitions(followerEngine.getMessageBus(), reader.getTableName(), partitionBy);
+        }
+        LOG.info().$("replicated [table=").$(reader.getTableName())
+                .$(", fromTxn=").$(followerTxReader.getTxn())
+                .$(", toTxn=").$(reader.getTxn())
+                .$(", partitions=").$(model.getPartitionCount())
+                .I$();
+    }
+
+    /**
+     * @param keyFile copy of bitmap index key file
+     * @return size of value file the key file refers to or -1 when key file copy is not consistent
+     */
+    private long validateKeyFile(Path keyFile) {
+        final long fd = openRO(ff, keyFile, LOG);
+        try {
+            final long size = ff.length(fd);
+            if (size < BitmapIndexUtils.KEY_FILE_RESERVED) {
+                return -1;
+            }
+            final long address = mapRO(ff, fd, size, MemoryTag.MMAP_DEFAULT);
+            try {
+                final long sequence = Unsafe.getUnsafe().getLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_SEQUENCE);
+                if (sequence != Unsafe.getUnsafe().getLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_SEQUENCE_CHECK)) {
+                    return -1;
+                }
+                final int keyCount = Unsafe.getUnsafe().getInt(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_KEY_COUNT);
+                if (BitmapIndexUtils.getKeyEntryOffset(keyCount) > size) {
+                    return -1;
+                }
+                for (int key = 0; key < keyCount; key++) {
+                    final long entry = address + BitmapIndexUtils.getKeyEntryOffset(key);
+                    if (Unsafe.getUnsafe().getLong(entry + BitmapIndexUtils.KEY_ENTRY_OFFSET_VALUE_COUNT)
+                            != Unsafe.getUnsafe().getLong(entry + BitmapIndexUtils.KEY_ENTRY_OFFSET_COUNT_CHECK)) {
+                        return -1;
+                    }
+                }
+                return Unsafe.getUnsafe().getLong(address + BitmapIndexUtils.KEY_RESERVED_OFFSET_VALUE_MEM_SIZE);
+            } finally {
+                ff.munmap(address, size, MemoryTag.MMAP_DEFAULT);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+}
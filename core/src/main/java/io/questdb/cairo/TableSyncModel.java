@@ -208,10 +208,34 @@ public class TableSyncModel implements Mutable, Sinkable {
         }
     }
 
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public int getPartitionAction(int partitionIndex) {
+        return (int) partitions.getQuick(partitionIndex * SLOTS_PER_PARTITION);
+    }
+
     public int getPartitionCount() {
         return partitions.size() / SLOTS_PER_PARTITION;
     }
 
+    public long getPartitionNameTxn(int partitionIndex) {
+        return partitions.getQuick(partitionIndex * SLOTS_PER_PARTITION + 4);
+    }
+
+    public long getPartitionRowCount(int partitionIndex) {
+        return partitions.getQuick(partitionIndex * SLOTS_PER_PARTITION + 3);
+    }
+
+    public long getPartitionStartRow(int partitionIndex) {
+        return partitions.getQuick(partitionIndex * SLOTS_PER_PARTITION + 2);
+    }
+
+    public long getPartitionTimestamp(int partitionIndex) {
+        return partitions.getQuick(partitionIndex * SLOTS_PER_PARTITION + 1);
+    }
+
     public int getTableAction() {
         return tableAction;
     }
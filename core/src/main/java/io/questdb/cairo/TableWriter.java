@@ -47,6 +47,7 @@ import io.questdb.mp.*;
 import io.questdb.std.*;
 import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.DirectCharSequence;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
@@ -87,6 +88,7 @@ public class TableWriter implements Closeable {
     private final Path other;
     private final LongList rowValueIsNotNull = new LongList();
     private final Row regularRow = new RowImpl();
+    private final DirectCharSequence batchCharSequence = new DirectCharSequence();
     private final int rootLen;
     private final MemoryMR metaMem;
     private final int partitionBy;
@@ -103,6 +105,18 @@ public class TableWriter implements Closeable {
     private final FragileCode RECOVER_FROM_META_RENAME_FAILURE = this::recoverFromMetaRenameFailure;
     private final SOCountDownLatch indexLatch = new SOCountDownLatch();
     private final LongList indexSequences = new LongList();
+    // sorted indexes of non-symbol columns are built for partitions that are no longer appended to
+    private final IntList sortedIndexColumns = new IntList();
+    private final LongList sortedIndexPartitions = new LongList();
+    private final ObjList<SortedColumnIndexer> sortedIndexers = new ObjList<>();
+    private long sortedIndexLastPartitionTimestamp = Numbers.LONG_NaN;
+    // latest row of every key of symbol columns, updated on every commit
+    private final IntList latestRowsColumns = new IntList();
+    private final ObjList<LatestRowsWriter> latestRowsWriters = new ObjList<>();
+    // partitions from this one onwards have to be rescanned, Long.MAX_VALUE when only new rows have to be scanned
+    private long latestRowsRescanTimestamp = Long.MAX_VALUE;
+    private boolean latestRowsOldestPartitionRemoved;
+    private boolean latestRowsRebuild;
     private final TxReader slaveTxReader;
     // This is the same message bus. When TableWriter instance created via CairoEngine, message bus is shared
     // and is owned by the engine. Since TableWriter would not have ownership of the bus it must not free it up.
@@ -148,6 +162,8 @@ public class TableWriter implements Closeable {
     // Latest command sequence per command source.
     // Publisher source is identified by a long value
     private final LongLongHashMap cmdSequences = new LongLongHashMap();
+    // indexes of non-timestamp columns that together with designated timestamp form deduplication key
+    private final IntList dedupKeyColumns = new IntList();
     private final AlterOperation alterTableStatement = new AlterOperation();
     private final ColumnVersionWriter columnVersionWriter;
     private final Metrics metrics;
@@ -178,6 +194,7 @@ public class TableWriter implements Closeable {
     private boolean performRecovery;
     private boolean distressed = false;
     private LifecycleManager lifecycleManager;
+    private CommitListener commitListener;
     private String designatedTimestampColumnName;
     private long o3RowCount;
     private final O3ColumnUpdateMethod o3MoveUncommittedRef = this::o3MoveUncommitted0;
@@ -193,6 +210,8 @@ public class TableWriter implements Closeable {
     private long commitIntervalDefault;
     private long commitInterval;
     private UpdateOperator updateOperator;
+    private boolean dedupEnabled;
+    private O3Dedup.Keys dedupKeys;
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName, Metrics metrics) {
         this(configuration, tableName, null, new MessageBusImpl(configuration), true, DefaultLifecycleManager.INSTANCE, configuration.getRoot(), metrics);
@@ -292,6 +311,9 @@ public class TableWriter implements Closeable {
             if (metadata.getTimestampIndex() > -1) {
                 this.designatedTimestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
             }
+            readDedupKeys();
+            readSortedIndexColumns();
+            readLatestRowsColumns();
             this.rowValueIsNotNull.extendAndSet(columnCount, 0);
             this.columns = new ObjList<>(columnCount * 2);
             this.o3Columns = new ObjList<>(columnCount * 2);
@@ -319,6 +341,7 @@ public class TableWriter implements Closeable {
             configureAppendPosition();
             purgeUnusedPartitions();
             clearTodoLog();
+            openLatestRows(txWriter.getTxn());
             this.slaveTxReader = new TxReader(ff);
             commandQueue = new RingQueue<>(
                     TableWriterTask::new,
@@ -481,6 +504,45 @@ public class TableWriter implements Closeable {
         LOG.info().$("ADDED column '").utf8(name).$('[').$(ColumnType.nameOf(type)).$("], name txn ").$(columnNameTxn).$(" to ").$(path).$();
     }
 
+    /**
+     * Starts maintaining latest row of every key of the symbol column. Latest rows are kept in a file, which
+     * is updated on every commit, LATEST BY the column reads the rows from the file instead of scanning
+     * the table.
+     *
+     * @param columnName name of symbol column
+     */
+    public void addLatestRows(CharSequence columnName) {
+        checkDistressed();
+
+        final int columnIndex = getColumnIndexQuiet(metaMem, columnName, columnCount);
+
+        if (columnIndex == -1) {
+            throw CairoException.instance(0).put("column '").put(columnName).put("' does not exist");
+        }
+
+        if (!PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.instance(0).put("latest rows require partitioned table [table=").put(tableName).put(']');
+        }
+
+        final int existingType = getColumnType(metaMem, columnIndex);
+        if (!ColumnType.isSymbol(existingType)) {
+            throw CairoException.instance(0).put("latest rows require symbol column [column=").put(columnName)
+                    .put(", type=").put(ColumnType.nameOf(existingType)).put(']');
+        }
+
+        commit();
+
+        if (hasLatestRows(metaMem, columnIndex)) {
+            throw CairoException.instance(0).put("latest rows already exist [column=").put(columnName).put(']');
+        }
+
+        setColumnFlag(columnIndex, META_FLAG_BIT_LATEST_ROWS);
+        // files of other columns are in sync, the new one is built from scratch
+        openLatestRows(txWriter.getTxn());
+
+        LOG.info().$("ADDED latest rows to '").utf8(columnName).$("' to ").$(path).$();
+    }
+
     public void addIndex(CharSequence columnName, int indexValueBlockSize) {
         assert indexValueBlockSize == Numbers.ceilPow2(indexValueBlockSize) : "power of 2 expected";
 
@@ -494,13 +556,19 @@ public class TableWriter implements Closeable {
 
         commit();
 
-        if (isColumnIndexed(metaMem, columnIndex)) {
+        if (isColumnIndexed(metaMem, columnIndex) || isSortedIndexed(metaMem, columnIndex)) {
             throw CairoException.instance(0).put("already indexed [column=").put(columnName).put(']');
         }
 
         final int existingType = getColumnType(metaMem, columnIndex);
         LOG.info().$("adding index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
 
+        if (SortedIndexUtils.isSupportedType(existingType) && columnIndex != metadata.getTimestampIndex()) {
+            addSortedIndex(columnIndex);
+            LOG.info().$("ADDED sorted index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$("]' to ").$(path).$();
+            return;
+        }
+
         if (!ColumnType.isSymbol(existingType)) {
             LOG.error().$("cannot create index for [column='").utf8(columnName).$(", type=").$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
             throw CairoException.instance(0).put("cannot create index for [column='").put(columnName).put(", type=").put(ColumnType.nameOf(existingType)).put(", path=").put(path).put(']');
@@ -589,6 +657,78 @@ public class TableWriter implements Closeable {
         metrics.tableWriter().addPhysicallyWrittenRows(rows);
     }
 
+    /**
+     * Appends rows supplied column by column. Runs of rows that are in timestamp order and
+     * belong to the current partition are copied into column memory with a single memcpy per
+     * column. Rows that are out of order, or have to go through O3 for any other reason,
+     * are appended one by one via {@link Row} and are handled by O3 commit as usual.
+     * Pending row, if any, is cancelled. Indexes are updated when partition is switched or
+     * on commit, as with row by row appends.
+     *
+     * @param batch rows to append, designated timestamp column must be present
+     */
+    public void appendBatch(ColumnBatch batch) {
+        final long rowCount = batch.getRowCount();
+        if (rowCount < 1) {
+            return;
+        }
+        if ((masterRef & 1) != 0) {
+            rowCancel();
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex < 0) {
+            appendBatchBlock(batch, 0, rowCount);
+            return;
+        }
+
+        final long timestampAddr = batch.getDataAddress(timestampIndex);
+        if (timestampAddr == 0) {
+            throw CairoException.instance(0).put("designated timestamp column is missing in batch [table=").put(tableName).put(']');
+        }
+        final boolean partitioned = PartitionBy.isPartitioned(partitionBy);
+        long lo = 0;
+        while (lo < rowCount) {
+            long timestamp = Unsafe.getUnsafe().getLong(timestampAddr + lo * Long.BYTES);
+            if (rowAction == ROW_ACTION_OPEN_PARTITION && timestamp >= Timestamps.O3_MIN_TS) {
+                if (txWriter.getMaxTimestamp() == Long.MIN_VALUE) {
+                    txWriter.setMinTimestamp(timestamp);
+                    openFirstPartition(timestamp);
+                }
+                rowAction = ROW_ACTION_SWITCH_PARTITION;
+            }
+
+            long maxTimestamp = txWriter.getMaxTimestamp();
+            if (
+                    rowAction == ROW_ACTION_OPEN_PARTITION
+                            || rowAction == ROW_ACTION_O3
+                            || timestamp < maxTimestamp
+                            || (dedupEnabled && timestamp == maxTimestamp)
+            ) {
+                appendBatchRow(batch, lo++, timestamp);
+                continue;
+            }
+
+            if (partitioned && timestamp > partitionTimestampHi) {
+                switchPartition(timestamp);
+            }
+
+            long hi = lo + 1;
+            maxTimestamp = timestamp;
+            while (hi < rowCount) {
+                timestamp = Unsafe.getUnsafe().getLong(timestampAddr + hi * Long.BYTES);
+                if (timestamp < maxTimestamp || (dedupEnabled && timestamp == maxTimestamp) || (partitioned && timestamp > partitionTimestampHi)) {
+                    break;
+                }
+                maxTimestamp = timestamp;
+                hi++;
+            }
+            appendBatchBlock(batch, lo, hi);
+            updateMaxTimestamp(maxTimestamp);
+            lo = hi;
+        }
+    }
+
     public int attachPartition(long timestamp) {
         // Partitioned table must have a timestamp
         // SQL compiler will check that table is partitioned
@@ -643,6 +783,7 @@ public class TableWriter implements Closeable {
                     txWriter.finishPartitionSizeUpdate(nextMinTimestamp, nextMaxTimestamp);
                     txWriter.bumpTruncateVersion();
                     txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+                    notifyCommit();
                     if (appendPartitionAttached) {
                         freeColumns(true);
                         configureAppendPosition();
@@ -650,6 +791,9 @@ public class TableWriter implements Closeable {
 
                     LOG.info().$("partition attached [path=").$(path).$(']').$();
                     rollbackRename = false;
+
+                    latestRowsRebuild = true;
+                    updateLatestRows(defaultCommitMode);
                 } else {
                     LOG.error().$("cannot detect partition size [path=").$(path).$(",timestampColumn=").$(timestampCol).$(']').$();
                     return PARTITION_EMPTY;
@@ -736,6 +880,41 @@ public class TableWriter implements Closeable {
         commit(commitMode, metadata.getCommitLag());
     }
 
+    /**
+     * Turns off deduplication of O3 rows. Key column flags are removed from table metadata.
+     */
+    public void disableDeduplication() {
+        setDedupKeys(null);
+        LOG.info().$("disabled deduplication [table=").utf8(tableName).I$();
+    }
+
+    /**
+     * Turns on deduplication of committed rows. Rows are duplicates of each other when they have the same
+     * designated timestamp and the same values in all the key columns. When duplicate is committed, it replaces
+     * existing row, e.g. the row written last wins. Designated timestamp is always part of the key and does not
+     * need to be listed.
+     *
+     * @param keyColumns indexes of key columns, other than designated timestamp
+     */
+    public void enableDeduplicationWithUpsertKeys(IntList keyColumns) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex < 0 || !PartitionBy.isPartitioned(partitionBy)) {
+            throw CairoException.instance(0).put("deduplication is only supported for partitioned tables with designated timestamp [table=").put(tableName).put(']');
+        }
+        for (int i = 0, n = keyColumns.size(); i < n; i++) {
+            final int columnIndex = keyColumns.getQuick(i);
+            final int columnType = metadata.getColumnType(columnIndex);
+            if (columnIndex != timestampIndex && !O3Dedup.isKeyColumnTypeSupported(columnType)) {
+                throw CairoException.instance(0).put("unsupported deduplication key column type [table=").put(tableName)
+                        .put(", column=").put(metadata.getColumnName(columnIndex))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+        }
+        setDedupKeys(keyColumns);
+        LOG.info().$("enabled deduplication [table=").utf8(tableName).$(", keys=").$(dedupKeyColumns).I$();
+    }
+
     public int getColumnIndex(CharSequence name) {
         int index = metadata.getColumnIndexQuiet(name);
         if (index > -1) {
@@ -874,6 +1053,10 @@ public class TableWriter implements Closeable {
         return txWriter != null && (txWriter.inTransaction() || hasO3() || columnVersionWriter.hasChanges());
     }
 
+    public boolean isDedupEnabled() {
+        return dedupEnabled;
+    }
+
     public boolean isOpen() {
         return tempMem16b != 0;
     }
@@ -897,8 +1080,12 @@ public class TableWriter implements Closeable {
 
             default: // switch partition
                 bumpMasterRef();
-                if (timestamp > partitionTimestampHi || timestamp < txWriter.getMaxTimestamp()) {
-                    if (timestamp < txWriter.getMaxTimestamp()) {
+                final long maxTimestamp = txWriter.getMaxTimestamp();
+                // with deduplication enabled, row with the same timestamp as the last one can be a duplicate,
+                // it has to go through O3 commit to be checked against existing rows
+                final boolean o3 = timestamp < maxTimestamp || (dedupEnabled && timestamp == maxTimestamp);
+                if (timestamp > partitionTimestampHi || o3) {
+                    if (o3) {
                         return newRowO3(timestamp);
                     }
 
@@ -1006,6 +1193,8 @@ public class TableWriter implements Closeable {
         }
 
         commit();
+        final long latestRowsTxn = txWriter.getTxn();
+        Misc.freeObjListAndClear(latestRowsWriters);
 
         final CharSequence timestampColumnName = timestampIndex != -1 ? metadata.getColumnName(timestampIndex) : null;
 
@@ -1060,6 +1249,10 @@ public class TableWriter implements Closeable {
             metadata.setTimestampIndex(timestampIndex2);
             o3TimestampMem = o3Columns.getQuick(getPrimaryColumnIndex(timestampIndex2));
         }
+        readDedupKeys();
+        readSortedIndexColumns();
+        readLatestRowsColumns();
+        openLatestRows(latestRowsTxn);
 
         LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
     }
@@ -1102,6 +1295,9 @@ public class TableWriter implements Closeable {
             long nextMinTimestamp = minTimestamp;
             if (timestamp == txWriter.getPartitionTimestamp(0)) {
                 nextMinTimestamp = readMinTimestamp(txWriter.getPartitionTimestamp(1));
+                latestRowsOldestPartitionRemoved = true;
+            } else {
+                latestRowsRebuild = true;
             }
             long partitionNameTxn = txWriter.getPartitionNameTxnByPartitionTimestamp(timestamp);
             txWriter.beginPartitionSizeUpdate();
@@ -1110,6 +1306,8 @@ public class TableWriter implements Closeable {
             txWriter.finishPartitionSizeUpdate(nextMinTimestamp, txWriter.getMaxTimestamp());
             txWriter.bumpTruncateVersion();
             txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+            notifyCommit();
+            updateLatestRows(defaultCommitMode);
 
             // Call O3 methods to remove check TxnScoreboard and remove partition directly
             o3PartitionRemoveCandidates.clear();
@@ -1133,6 +1331,8 @@ public class TableWriter implements Closeable {
         LOG.info().$("renaming column '").utf8(currentName).$("' to '").utf8(newName).$("' from ").$(path).$();
 
         commit();
+        final long latestRowsTxn = txWriter.getTxn();
+        Misc.freeObjListAndClear(latestRowsWriters);
 
         this.metaSwapIndex = renameColumnFromMeta(index, newName);
 
@@ -1169,6 +1369,7 @@ public class TableWriter implements Closeable {
         if (index == metadata.getTimestampIndex()) {
             designatedTimestampColumnName = Chars.toString(newName);
         }
+        openLatestRows(latestRowsTxn);
 
         LOG.info().$("RENAMED column '").utf8(currentName).$("' to '").utf8(newName).$("' from ").$(path).$();
     }
@@ -1310,6 +1511,14 @@ public class TableWriter implements Closeable {
         return model;
     }
 
+    /**
+     * Resolves symbol value to its key, adding value to the symbol table if it is new.
+     * Keys are used to populate symbol columns of {@link ColumnBatch}.
+     */
+    public int resolveSymbol(int columnIndex, CharSequence value) {
+        return symbolMapWriters.getQuick(columnIndex).put(value);
+    }
+
     public void rollback() {
         checkDistressed();
         if (o3InError || inTransaction()) {
@@ -1346,6 +1555,10 @@ public class TableWriter implements Closeable {
         txWriter.setExtensionListener(listener);
     }
 
+    public void setCommitListener(CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
@@ -1484,6 +1697,8 @@ public class TableWriter implements Closeable {
         txWriter.resetTimestamp();
         columnVersionWriter.truncate();
         txWriter.truncate(columnVersionWriter.getVersion());
+        latestRowsRebuild = true;
+        updateLatestRows(defaultCommitMode);
         row = regularRow;
         try {
             clearTodoLog();
@@ -1503,6 +1718,13 @@ public class TableWriter implements Closeable {
     public void upsertColumnVersion(long partitionTimestamp, int columnIndex, long columnTop) {
         columnVersionWriter.upsert(partitionTimestamp, columnIndex, txWriter.txn, columnTop);
         txWriter.updatePartitionColumnVersion(partitionTimestamp);
+        if (sortedIndexColumns.indexOf(columnIndex, 0, sortedIndexColumns.size()) > -1) {
+            // index of previous column version does not apply to the new one
+            queueSortedIndexPartition(partitionTimestamp);
+        }
+        if (latestRowsColumns.indexOf(columnIndex, 0, latestRowsColumns.size()) > -1) {
+            latestRowsRescanTimestamp = Math.min(latestRowsRescanTimestamp, partitionTimestamp);
+        }
     }
 
     /**
@@ -1551,6 +1773,14 @@ public class TableWriter implements Closeable {
         }
     }
 
+    static void sortedIndexAndCountDown(SortedColumnIndexer indexer, SOCountDownLatch latch) {
+        try {
+            indexer.index();
+        } finally {
+            latch.countDown();
+        }
+    }
+
     private static void removeOrException(FilesFacade ff, LPSZ path) {
         if (ff.exists(path) && !ff.remove(path)) {
             throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
@@ -1701,6 +1931,131 @@ public class TableWriter implements Closeable {
         return index;
     }
 
+    private void appendBatchBlock(ColumnBatch batch, long lo, long hi) {
+        final long rowCount = hi - lo;
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (columnType < 0) {
+                continue;
+            }
+            final long dataAddr = batch.getDataAddress(i);
+            final MemoryMA primary = getPrimaryColumn(i);
+            if (dataAddr == 0) {
+                final Runnable nullSetter = nullSetters.getQuick(i);
+                for (long r = 0; r < rowCount; r++) {
+                    nullSetter.run();
+                }
+            } else if (ColumnType.isVariableLength(columnType)) {
+                final long offsetsAddr = batch.getOffsetsAddress(i);
+                final long varLo = Unsafe.getUnsafe().getLong(offsetsAddr + lo * Long.BYTES);
+                final long varHi = Unsafe.getUnsafe().getLong(offsetsAddr + hi * Long.BYTES);
+                // offsets in the batch are relative to the batch data block
+                final long shift = varLo - primary.getAppendOffset();
+                primary.putBlockOfBytes(dataAddr + varLo, varHi - varLo);
+                final MemoryMA secondary = getSecondaryColumn(i);
+                for (long r = lo + 1; r <= hi; r++) {
+                    secondary.putLong(Unsafe.getUnsafe().getLong(offsetsAddr + r * Long.BYTES) - shift);
+                }
+            } else {
+                final int shl = ColumnType.pow2SizeOf(columnType);
+                primary.putBlockOfBytes(dataAddr + (lo << shl), rowCount << shl);
+            }
+        }
+        masterRef += 2 * rowCount;
+        txWriter.append(rowCount);
+    }
+
+    private void appendBatchRow(ColumnBatch batch, long r, long timestamp) {
+        final Row row = newRow(timestamp);
+        final int timestampIndex = metadata.getTimestampIndex();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            final long dataAddr = batch.getDataAddress(i);
+            if (columnType < 0 || dataAddr == 0 || i == timestampIndex) {
+                continue;
+            }
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BOOLEAN:
+                    row.putBool(i, Unsafe.getUnsafe().getByte(dataAddr + r) != 0);
+                    break;
+                case ColumnType.BYTE:
+                    row.putByte(i, Unsafe.getUnsafe().getByte(dataAddr + r));
+                    break;
+                case ColumnType.SHORT:
+                    row.putShort(i, Unsafe.getUnsafe().getShort(dataAddr + r * Short.BYTES));
+                    break;
+                case ColumnType.CHAR:
+                    row.putChar(i, Unsafe.getUnsafe().getChar(dataAddr + r * Character.BYTES));
+                    break;
+                case ColumnType.INT:
+                    row.putInt(i, Unsafe.getUnsafe().getInt(dataAddr + r * Integer.BYTES));
+                    break;
+                case ColumnType.SYMBOL:
+                    row.putSymIndex(i, Unsafe.getUnsafe().getInt(dataAddr + r * Integer.BYTES));
+                    break;
+                case ColumnType.FLOAT:
+                    row.putFloat(i, Unsafe.getUnsafe().getFloat(dataAddr + r * Float.BYTES));
+                    break;
+                case ColumnType.LONG:
+                    row.putLong(i, Unsafe.getUnsafe().getLong(dataAddr + r * Long.BYTES));
+                    break;
+                case ColumnType.DATE:
+                    row.putDate(i, Unsafe.getUnsafe().getLong(dataAddr + r * Long.BYTES));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    row.putTimestamp(i, Unsafe.getUnsafe().getLong(dataAddr + r * Long.BYTES));
+                    break;
+                case ColumnType.DOUBLE:
+                    row.putDouble(i, Unsafe.getUnsafe().getDouble(dataAddr + r * Double.BYTES));
+                    break;
+                case ColumnType.LONG256:
+                    final long p = dataAddr + r * Long256.BYTES;
+                    row.putLong256(
+                            i,
+                            Unsafe.getUnsafe().getLong(p),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES * 2),
+                            Unsafe.getUnsafe().getLong(p + Long.BYTES * 3)
+                    );
+                    break;
+                case ColumnType.GEOBYTE:
+                    row.putGeoHash(i, Unsafe.getUnsafe().getByte(dataAddr + r));
+                    break;
+                case ColumnType.GEOSHORT:
+                    row.putGeoHash(i, Unsafe.getUnsafe().getShort(dataAddr + r * Short.BYTES));
+                    break;
+                case ColumnType.GEOINT:
+                    row.putGeoHash(i, Unsafe.getUnsafe().getInt(dataAddr + r * Integer.BYTES));
+                    break;
+                case ColumnType.GEOLONG:
+                    row.putGeoHash(i, Unsafe.getUnsafe().getLong(dataAddr + r * Long.BYTES));
+                    break;
+                case ColumnType.STRING:
+                    final long strAddr = dataAddr + Unsafe.getUnsafe().getLong(batch.getOffsetsAddress(i) + r * Long.BYTES);
+                    final int strLen = Unsafe.getUnsafe().getInt(strAddr);
+                    if (strLen == TableUtils.NULL_LEN) {
+                        row.putStr(i, (CharSequence) null);
+                    } else {
+                        final long charsAddr = strAddr + Integer.BYTES;
+                        row.putStr(i, batchCharSequence.of(charsAddr, charsAddr + (long) strLen * Character.BYTES));
+                    }
+                    break;
+                case ColumnType.BINARY:
+                    final long binAddr = dataAddr + Unsafe.getUnsafe().getLong(batch.getOffsetsAddress(i) + r * Long.BYTES);
+                    final long binLen = Unsafe.getUnsafe().getLong(binAddr);
+                    if (binLen == TableUtils.NULL_LEN) {
+                        row.putBin(i, (BinarySequence) null);
+                    } else {
+                        row.putBin(i, binAddr + Long.BYTES, binLen);
+                    }
+                    break;
+                default:
+                    throw CairoException.instance(0).put("unsupported column type in batch [type=").put(ColumnType.nameOf(columnType)).put(']');
+            }
+        }
+        row.append();
+    }
+
     private void attachPartitionCheckFilesMatchFixedColumn(FilesFacade ff, Path path, int columnType, long partitionSize, String columnName, long columnNameTxn) {
         TableUtils.dFile(path, columnName, columnNameTxn);
         if (ff.exists(path.$())) {
@@ -1904,6 +2259,8 @@ public class TableWriter implements Closeable {
         txWriter.setColumnVersion(columnVersionWriter.getVersion());
         txWriter.bumpStructureVersion(this.denseSymbolMapWriters);
         assert txWriter.getStructureVersion() == metadata.getStructureVersion();
+        // data is the same, latest rows are marked as consistent with the new txn
+        updateLatestRows(CommitMode.NOSYNC);
     }
 
     private long calculateCommitInterval() {
@@ -2020,10 +2377,13 @@ public class TableWriter implements Closeable {
             columnVersionWriter.commit();
             txWriter.setColumnVersion(columnVersionWriter.getVersion());
             txWriter.commit(commitMode, this.denseSymbolMapWriters);
+            notifyCommit();
 
             // Bookmark masterRef to track how many rows is in uncommitted state
             this.committedMasterRef = masterRef;
             o3ProcessPartitionRemoveCandidates();
+            buildSortedIndexes(sortedIndexColumns);
+            updateLatestRows(commitMode);
 
             metrics.tableWriter().incrementCommits();
             metrics.tableWriter().addCommittedRows(rowsAdded);
@@ -2163,6 +2523,9 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.putLong(getColumnHash(metaMem, i));
@@ -2283,6 +2646,8 @@ public class TableWriter implements Closeable {
         boolean tx = inTransaction();
         freeSymbolMapWriters();
         freeIndexers();
+        Misc.freeObjList(sortedIndexers);
+        Misc.freeObjList(latestRowsWriters);
         Misc.free(txWriter);
         Misc.free(metaMem);
         Misc.free(ddlMem);
@@ -2354,6 +2719,262 @@ public class TableWriter implements Closeable {
         Misc.freeObjListAndKeepObjects(o3Columns2);
     }
 
+    private void addSortedIndex(int columnIndex) {
+        setColumnFlag(columnIndex, META_FLAG_BIT_SORTED_INDEX);
+        // last partition is indexed when it stops being the last
+        sortedIndexLastPartitionTimestamp = txWriter.getLastPartitionTimestamp();
+        for (int i = 0, n = txWriter.getPartitionCount() - 1; i < n; i++) {
+            queueSortedIndexPartition(txWriter.getPartitionTimestamp(i));
+        }
+        final IntList columns = new IntList(1);
+        columns.add(columnIndex);
+        buildSortedIndexes(columns);
+    }
+
+    /**
+     * Builds sorted indexes for partitions that were closed or modified by the transaction. Indexes
+     * are rebuilt from scratch, one task per partition and column, and the tasks are published to
+     * {@link ColumnIndexerJob}. Last partition is not indexed while it is appended to.
+     */
+    private void buildSortedIndexes(IntList columns) {
+        final long lastPartitionTimestamp = txWriter.getLastPartitionTimestamp();
+        if (lastPartitionTimestamp != sortedIndexLastPartitionTimestamp) {
+            if (sortedIndexLastPartitionTimestamp != Numbers.LONG_NaN) {
+                queueSortedIndexPartition(sortedIndexLastPartitionTimestamp);
+            }
+            sortedIndexLastPartitionTimestamp = lastPartitionTimestamp;
+        }
+
+        if (sortedIndexPartitions.size() == 0) {
+            return;
+        }
+
+        int count = 0;
+        if (columns.size() > 0 && PartitionBy.isPartitioned(partitionBy)) {
+            try {
+                for (int i = 0, n = sortedIndexPartitions.size(); i < n; i++) {
+                    final long partitionTimestamp = sortedIndexPartitions.getQuick(i);
+                    final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+                    if (partitionTimestamp == lastPartitionTimestamp || partitionIndex < 0) {
+                        continue;
+                    }
+                    final long partitionSize = txWriter.getPartitionSizeByIndex(partitionIndex);
+                    other.trimTo(rootLen);
+                    setStateForTimestamp(other, partitionTimestamp, false);
+                    for (int j = 0, m = columns.size(); j < m; j++) {
+                        final int columnIndex = columns.getQuick(j);
+                        SortedColumnIndexer indexer = sortedIndexers.getQuiet(count);
+                        if (indexer == null) {
+                            indexer = new SortedColumnIndexer();
+                            sortedIndexers.add(indexer);
+                        }
+                        indexer.of(
+                                ff,
+                                other,
+                                metadata.getColumnName(columnIndex),
+                                columnVersionWriter.getColumnNameTxn(partitionTimestamp, columnIndex),
+                                metadata.getColumnType(columnIndex),
+                                columnVersionWriter.getColumnTop(partitionTimestamp, columnIndex),
+                                partitionSize
+                        );
+                        count++;
+                    }
+                }
+            } finally {
+                other.trimTo(rootLen);
+            }
+        }
+        sortedIndexPartitions.clear();
+
+        if (count > 0) {
+            sortedIndexParallel(count);
+        }
+    }
+
+    private void sortedIndexParallel(int count) {
+        indexSequences.clear();
+        indexLatch.setCount(count);
+        final Sequence indexPubSequence = this.messageBus.getIndexerPubSequence();
+        final RingQueue<ColumnIndexerTask> indexerQueue = this.messageBus.getIndexerQueue();
+
+        LOG.info().$("building sorted indexes [table=").$(tableName).$(", count=").$(count).I$();
+        int serialIndexCount = 0;
+
+        // same as indexParallel(), last index is built in this thread while others are on the queue
+        for (int i = 0, n = count - 1; i < n; i++) {
+            final SortedColumnIndexer indexer = sortedIndexers.getQuick(i);
+            long cursor;
+            do {
+                cursor = indexPubSequence.next();
+            } while (cursor == -2);
+
+            if (cursor == -1) {
+                // queue is full, build index in the current thread
+                sortedIndexAndCountDown(indexer, indexLatch);
+                indexSequences.add(-1);
+                serialIndexCount++;
+                continue;
+            }
+
+            final ColumnIndexerTask queueItem = indexerQueue.get(cursor);
+            final long sequence = indexer.getSequence();
+            queueItem.indexer = null;
+            queueItem.sortedIndexer = indexer;
+            queueItem.lo = 0;
+            queueItem.hi = 0;
+            queueItem.countDownLatch = indexLatch;
+            queueItem.sequence = sequence;
+            indexSequences.add(sequence);
+            indexPubSequence.done(cursor);
+        }
+
+        sortedIndexAndCountDown(sortedIndexers.getQuick(count - 1), indexLatch);
+        serialIndexCount++;
+
+        if (!indexLatch.await(configuration.getWorkStealTimeoutNanos())) {
+            for (int i = 0, n = count - 1; i < n; i++) {
+                final SortedColumnIndexer indexer = sortedIndexers.getQuick(i);
+                if (indexer.tryLock(indexSequences.getQuick(i))) {
+                    sortedIndexAndCountDown(indexer, indexLatch);
+                    serialIndexCount++;
+                }
+            }
+            indexLatch.await();
+        }
+
+        LOG.info().$("sorted indexes built [serialCount=").$(serialIndexCount).$(']').$();
+    }
+
+    private void endLatestRowsUpdate(LatestRowsWriter writer, int commitMode) {
+        final int partitionCount = txWriter.getPartitionCount();
+        if (partitionCount > 0) {
+            writer.endUpdate(txWriter.getTxn(), txWriter.getPartitionTimestamp(partitionCount - 1), txWriter.getTransientRowCount());
+        } else {
+            writer.endUpdate(txWriter.getTxn(), Numbers.LONG_NaN, 0);
+        }
+        writer.sync(commitMode);
+    }
+
+    /**
+     * Opens latest rows files of symbol columns. Files that are not consistent with the given txn
+     * are rebuilt from scratch.
+     *
+     * @param txn transaction the files were last updated for, when data has not changed since
+     */
+    private void openLatestRows(long txn) {
+        Misc.freeObjListAndClear(latestRowsWriters);
+        for (int i = 0, n = latestRowsColumns.size(); i < n; i++) {
+            final int columnIndex = latestRowsColumns.getQuick(i);
+            final LatestRowsWriter writer = new LatestRowsWriter();
+            latestRowsWriters.add(writer);
+            try {
+                writer.of(
+                        ff,
+                        TableUtils.lrFile(path.trimTo(rootLen), metadata.getColumnName(columnIndex), columnVersionWriter.getDefaultColumnNameTxn(columnIndex)),
+                        columnIndex
+                );
+            } finally {
+                path.trimTo(rootLen);
+            }
+
+            final boolean consistent = writer.isConsistent() && writer.getTxn() == txn;
+            final long scannedPartitionTimestamp = writer.getScannedPartitionTimestamp();
+            final long scannedRowCount = writer.getScannedRowCount();
+            writer.beginUpdate();
+            writer.setKeyCount(symbolMapWriters.getQuick(columnIndex).getSymbolCount() + 1L);
+            if (!consistent) {
+                LOG.info().$("building latest rows [table=").utf8(tableName).$(", column=").utf8(metadata.getColumnName(columnIndex)).I$();
+                writer.clear();
+                scanLatestRows(writer, Long.MIN_VALUE, Numbers.LONG_NaN, 0);
+                endLatestRowsUpdate(writer, defaultCommitMode);
+            } else {
+                writer.endUpdate(txWriter.getTxn(), scannedPartitionTimestamp, scannedRowCount);
+            }
+        }
+    }
+
+    /**
+     * Records rows of the partitions in the latest rows file. Partitions newer than the scanned one and partitions
+     * from the rescan timestamp onwards are scanned from the first row, the scanned partition is scanned from
+     * the row count that was scanned before.
+     */
+    private void scanLatestRows(LatestRowsWriter writer, long rescanTimestamp, long scannedPartitionTimestamp, long scannedRowCount) {
+        final int columnIndex = writer.getColumnIndex();
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        try {
+            for (int i = 0, n = txWriter.getPartitionCount(); i < n; i++) {
+                final long partitionTimestamp = txWriter.getPartitionTimestamp(i);
+                final long lo;
+                if (partitionTimestamp >= rescanTimestamp || partitionTimestamp > scannedPartitionTimestamp) {
+                    lo = 0;
+                } else if (partitionTimestamp == scannedPartitionTimestamp) {
+                    lo = scannedRowCount;
+                } else {
+                    continue;
+                }
+                final long partitionSize = i < n - 1 ? txWriter.getPartitionSize(i) : txWriter.getTransientRowCount();
+                if (lo < partitionSize) {
+                    other.trimTo(rootLen);
+                    setStateForTimestamp(other, partitionTimestamp, false);
+                    writer.scan(
+                            ff,
+                            other,
+                            columnName,
+                            columnVersionWriter.getColumnNameTxn(partitionTimestamp, columnIndex),
+                            // column that is not in the partition has null in all rows
+                            getColumnTop(partitionTimestamp, columnIndex, partitionSize),
+                            partitionTimestamp,
+                            lo,
+                            partitionSize
+                    );
+                }
+            }
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Brings latest rows files in line with committed data. New rows are scanned on every commit. Partitions
+     * that O3 merged or UPDATE rewrote are rescanned, keys that were in such partitions before and are not
+     * there anymore trigger a rebuild, as does removal of a partition that is not the oldest one.
+     */
+    private void updateLatestRows(int commitMode) {
+        if (latestRowsWriters.size() > 0) {
+            final long rescanTimestamp = latestRowsRebuild ? Long.MIN_VALUE : latestRowsRescanTimestamp;
+            for (int i = 0, n = latestRowsWriters.size(); i < n; i++) {
+                final LatestRowsWriter writer = latestRowsWriters.getQuick(i);
+                final long scannedPartitionTimestamp = writer.getScannedPartitionTimestamp();
+                final long scannedRowCount = writer.getScannedRowCount();
+                writer.beginUpdate();
+                writer.setKeyCount(symbolMapWriters.getQuick(writer.getColumnIndex()).getSymbolCount() + 1L);
+                if (latestRowsRebuild) {
+                    writer.clear();
+                } else {
+                    if (latestRowsOldestPartitionRemoved) {
+                        writer.removeBefore(txWriter.getPartitionCount() > 0 ? txWriter.getPartitionTimestamp(0) : Long.MAX_VALUE);
+                    }
+                    if (rescanTimestamp != Long.MAX_VALUE) {
+                        writer.reset(rescanTimestamp);
+                    }
+                }
+                scanLatestRows(writer, rescanTimestamp, scannedPartitionTimestamp, scannedRowCount);
+                if (!latestRowsRebuild && rescanTimestamp != Long.MAX_VALUE && writer.hasLostKeys()) {
+                    LOG.info().$("rebuilding latest rows [table=").utf8(tableName)
+                            .$(", column=").utf8(metadata.getColumnName(writer.getColumnIndex()))
+                            .$(", rescanTimestamp=").$ts(rescanTimestamp)
+                            .I$();
+                    writer.clear();
+                    scanLatestRows(writer, Long.MIN_VALUE, Numbers.LONG_NaN, 0);
+                }
+                endLatestRowsUpdate(writer, commitMode);
+            }
+        }
+        latestRowsRescanTimestamp = Long.MAX_VALUE;
+        latestRowsOldestPartitionRemoved = false;
+        latestRowsRebuild = false;
+    }
+
     private void freeIndexers() {
         if (indexers != null) {
             // Don't change items of indexers, they are re-used
@@ -2428,6 +3049,25 @@ public class TableWriter implements Closeable {
         return o3PartitionUpdateQueue;
     }
 
+    IntList getDedupKeyColumns() {
+        return dedupKeyColumns;
+    }
+
+    private long getO3ColumnTopSinkStride() {
+        // partition timestamp, column tops and number of rows removed by deduplication
+        return metadata.getColumnCount() + 2L;
+    }
+
+    private long getO3DedupRowCount(long partitionTimestamp) {
+        final long stride = getO3ColumnTopSinkStride();
+        for (long i = 0, n = o3ColumnTopSink.size(); i < n; i += stride) {
+            if (o3ColumnTopSink.get(i) == partitionTimestamp) {
+                return Math.max(0, o3ColumnTopSink.get(i + stride - 1));
+            }
+        }
+        return 0;
+    }
+
     private long getO3RowCount0() {
         return (masterRef - o3MasterRef + 1) / 2;
     }
@@ -2585,7 +3225,9 @@ public class TableWriter implements Closeable {
         // will have to switch partition internally
         long partitionTimestampHiLimit = partitionCeilMethod.ceil(partitionTimestampHi) - 1;
         try {
-            o3RowCount += o3MoveUncommitted(timestampIndex);
+            final long o3RowCountBeforeMove = o3RowCount;
+            final long movedRowCount = o3MoveUncommitted(timestampIndex);
+            o3RowCount += movedRowCount;
             final long transientRowCount = txWriter.transientRowCount;
 
             // we may need to re-use file descriptors when this partition is the "current" one
@@ -2673,10 +3315,26 @@ public class TableWriter implements Closeable {
                 srcOooMax = o3RowCount;
             }
 
+            if (dedupEnabled && srcOooMax > 0 && srcOooMax < o3RowCount) {
+                // rows with the same timestamp have to be committed together, duplicates
+                // must not end up on both sides of the lag boundary
+                final long boundaryTimestamp = getTimestampIndexValue(sortedTimestampsAddr, srcOooMax);
+                while (srcOooMax > 0 && getTimestampIndexValue(sortedTimestampsAddr, srcOooMax - 1) == boundaryTimestamp) {
+                    srcOooMax--;
+                }
+                o3LagRowCount = o3RowCount - srcOooMax;
+            }
+
             if (srcOooMax == 0) {
                 return true;
             }
 
+            if (dedupEnabled) {
+                final long o3LagDedupRowCount = o3LagRowCount;
+                srcOooMax = o3DedupSortedIndex(sortedTimestampsAddr, srcOooMax, o3RowCountBeforeMove, movedRowCount);
+                o3LagRowCount = o3LagDedupRowCount > 0 ? o3RowCount - srcOooMax : 0;
+            }
+
             // we could have moved the "srcOooMax" and hence we re-read the max timestamp
             o3TimestampMax = getTimestampIndexValue(sortedTimestampsAddr, srcOooMax - 1);
             // move uncommitted is liable to change max timestamp
@@ -2750,7 +3408,9 @@ public class TableWriter implements Closeable {
                         }
 
                         // We're appending onto the last partition.
-                        final boolean append = last && (srcDataMax == 0 || o3Timestamp >= maxTimestamp);
+                        // when deduplication is enabled, O3 rows with the same timestamp as the last row
+                        // have to be merged to find out if they are duplicates
+                        final boolean append = last && (srcDataMax == 0 || o3Timestamp > maxTimestamp || (!dedupEnabled && o3Timestamp == maxTimestamp));
 
                         // Number of rows to insert from the O3 segment into this partition.
                         final long srcOooBatchRowSize = srcOooHi - srcOooLo + 1;
@@ -2892,12 +3552,13 @@ public class TableWriter implements Closeable {
                             }
 
                             // To collect column top values from o3 partition tasks add them to pre-allocated array of longs
-                            // use o3ColumnTopSink LongList and allocate columns + 1 longs per partition
-                            // then set first value to partition timestamp
-                            long colTopSinkIndex = (long) (pCount - 1) * (metadata.getColumnCount() + 1);
+                            // use o3ColumnTopSink LongList and allocate columns + 2 longs per partition
+                            // then set first value to partition timestamp, the last value is number of rows
+                            // removed from the partition by deduplication
+                            long colTopSinkIndex = (long) (pCount - 1) * getO3ColumnTopSinkStride();
                             long columnTopSinkAddress = colTopSinkIndex * Long.BYTES;
                             long columnTopPartitionSinkAddr = o3ColumnTopSink.getAddress() + columnTopSinkAddress;
-                            assert columnTopPartitionSinkAddr + (columnCount + 1L) * Long.BYTES <= o3ColumnTopSink.getAddress() + o3ColumnTopSink.size() * Long.BYTES;
+                            assert columnTopPartitionSinkAddr + getO3ColumnTopSinkStride() * Long.BYTES <= o3ColumnTopSink.getAddress() + o3ColumnTopSink.size() * Long.BYTES;
 
                             o3ColumnTopSink.set(colTopSinkIndex, partitionTimestamp);
                             o3CommitPartitionAsync(
@@ -2950,6 +3611,10 @@ public class TableWriter implements Closeable {
                 }
             }
 
+            if (dedupEnabled) {
+                o3DedupUpdateRowCounts();
+            }
+
             if (o3LagRowCount > 0) {
                 o3ShiftLagRowsUp(timestampIndex, o3LagRowCount, srcOooMax);
             }
@@ -2998,6 +3663,44 @@ public class TableWriter implements Closeable {
         return false;
     }
 
+    private long o3DedupSortedIndex(long sortedTimestampsAddr, long srcOooMax, long movedRowsLo, long movedRowCount) {
+        for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+            final int columnIndex = dedupKeyColumns.getQuick(i);
+            final long o3Address = o3Columns.getQuick(getPrimaryColumnIndex(columnIndex)).addressOf(0);
+            dedupKeys.of(i, metadata.getColumnType(columnIndex), o3Address, 0, 0);
+        }
+        // committed rows and lag are deduplicated separately, they cannot have rows with the same timestamp
+        final long committedRowCount = O3Dedup.dedupSortedIndex(sortedTimestampsAddr, 0, srcOooMax, 0, dedupKeys, movedRowsLo, movedRowCount);
+        final long rowCount = O3Dedup.dedupSortedIndex(sortedTimestampsAddr, srcOooMax, o3RowCount, committedRowCount, dedupKeys, movedRowsLo, movedRowCount);
+        if (rowCount < o3RowCount) {
+            LOG.info().$("o3 duplicates removed [table=").utf8(tableName)
+                    .$(", o3RowCount=").$(o3RowCount)
+                    .$(", duplicates=").$(o3RowCount - rowCount)
+                    .I$();
+            o3RowCount = rowCount;
+            o3TimestampMem.jumpTo(rowCount * TIMESTAMP_MERGE_ENTRY_BYTES);
+        }
+        return committedRowCount;
+    }
+
+    private void o3DedupUpdateRowCounts() {
+        // partition jobs removed rows of existing partitions that were replaced by O3 rows,
+        // table row count has been calculated before the partitions were merged
+        final long lastTimestamp = partitionFloorMethod.floor(txWriter.getMaxTimestamp());
+        final long stride = getO3ColumnTopSinkStride();
+        for (long i = 0, n = o3ColumnTopSink.size(); i < n; i += stride) {
+            final long partitionTimestamp = o3ColumnTopSink.get(i);
+            final long dedupRowCount = o3ColumnTopSink.get(i + stride - 1);
+            if (partitionTimestamp > -1 && dedupRowCount > 0) {
+                if (partitionTimestamp == lastTimestamp) {
+                    txWriter.transientRowCount -= dedupRowCount;
+                } else {
+                    txWriter.fixedRowCount -= dedupRowCount;
+                }
+            }
+        }
+    }
+
     private void o3CommitPartitionAsync(
             AtomicInteger columnCounter,
             long maxTimestamp,
@@ -3429,7 +4132,10 @@ public class TableWriter implements Closeable {
             boolean partitionMutates
     ) {
         this.txWriter.minTimestamp = Math.min(timestampMin, this.txWriter.minTimestamp);
-        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1;
+        long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1;
+        if (dedupEnabled) {
+            partitionSize -= getO3DedupRowCount(partitionTimestamp);
+        }
         final long rowDelta = srcOooPartitionHi - srcOooMax;
         final int partitionIndex = txWriter.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
         if (partitionTimestamp == lastPartitionTimestamp) {
@@ -3455,6 +4161,15 @@ public class TableWriter implements Closeable {
                 .$(", partitionSize=").$(partitionSize)
                 .I$();
 
+        if (partitionTimestamp != lastPartitionTimestamp) {
+            queueSortedIndexPartition(partitionTimestamp);
+        }
+
+        if (partitionTimestamp != lastPartitionTimestamp || partitionMutates) {
+            // rows of the partition have moved or the partition is new
+            latestRowsRescanTimestamp = Math.min(latestRowsRescanTimestamp, partitionTimestamp);
+        }
+
         if (partitionMutates) {
             final long srcDataTxn = txWriter.getPartitionNameTxnByIndex(partitionIndex);
             LOG.info()
@@ -3495,6 +4210,12 @@ public class TableWriter implements Closeable {
         );
     }
 
+    private void notifyCommit() {
+        if (commitListener != null) {
+            commitListener.onCommit(tableName, txWriter.getTxn());
+        }
+    }
+
     private void o3ProcessPartitionRemoveCandidates() {
         try {
             final int n = o3PartitionRemoveCandidates.size();
@@ -3837,7 +4558,8 @@ public class TableWriter implements Closeable {
         indexMem2.replacePage(srcIndxAddr, srcIndxSize);
         dataMem.jumpTo(offset);
         indexMem.jumpTo(valueCount * Long.BYTES);
-        indexMem.putLong(dataSize);
+        // offset is less than data size when deduplication removed rows from the index
+        indexMem.putLong(offset);
     }
 
     private void o3TimestampSetter(long timestamp) {
@@ -4209,6 +4931,40 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void readDedupKeys() {
+        dedupKeyColumns.clear();
+        final int timestampIndex = metadata.getTimestampIndex();
+        dedupEnabled = timestampIndex > -1 && isDedupKey(metaMem, timestampIndex);
+        if (dedupEnabled) {
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (i != timestampIndex && metadata.getColumnType(i) > 0 && isDedupKey(metaMem, i)) {
+                    dedupKeyColumns.add(i);
+                }
+            }
+            if (dedupKeys == null || dedupKeys.getKeyCount() != dedupKeyColumns.size()) {
+                dedupKeys = new O3Dedup.Keys(dedupKeyColumns.size());
+            }
+        }
+    }
+
+    private void readSortedIndexColumns() {
+        sortedIndexColumns.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.getColumnType(i) > 0 && isSortedIndexed(metaMem, i)) {
+                sortedIndexColumns.add(i);
+            }
+        }
+    }
+
+    private void readLatestRowsColumns() {
+        latestRowsColumns.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (metadata.getColumnType(i) > 0 && hasLatestRows(metaMem, i)) {
+                latestRowsColumns.add(i);
+            }
+        }
+    }
+
     private void recoverFromMetaRenameFailure(CharSequence columnName) {
         openMetaFile(ff, path, rootLen, metaMem);
     }
@@ -4285,6 +5041,7 @@ public class TableWriter implements Closeable {
                 removeFileAndOrLog(ff, charFileName(path.trimTo(rootLen), columnName, columnNameTxn));
                 removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(rootLen), columnName, columnNameTxn));
                 removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(rootLen), columnName, columnNameTxn));
+                removeFileAndOrLog(ff, TableUtils.lrFile(path.trimTo(rootLen), columnName, columnNameTxn));
             }
         } finally {
             path.trimTo(rootLen);
@@ -4300,6 +5057,7 @@ public class TableWriter implements Closeable {
         removeFileAndOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn));
+        removeFileAndOrLog(ff, siFile(path.trimTo(plen), columnName, columnNameTxn));
         path.trimTo(rootLen);
     }
 
@@ -4522,6 +5280,7 @@ public class TableWriter implements Closeable {
                 renameFileOrLog(ff, charFileName(path.trimTo(rootLen), columnName, columnNameTxn), charFileName(other.trimTo(rootLen), newName, columnNameTxn));
                 renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(rootLen), columnName, columnNameTxn), BitmapIndexUtils.keyFileName(other.trimTo(rootLen), newName, columnNameTxn));
                 renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(rootLen), columnName, columnNameTxn), BitmapIndexUtils.valueFileName(other.trimTo(rootLen), newName, columnNameTxn));
+                renameFileOrLog(ff, TableUtils.lrFile(path.trimTo(rootLen), columnName, columnNameTxn), TableUtils.lrFile(other.trimTo(rootLen), newName, columnNameTxn));
             }
         } finally {
             path.trimTo(rootLen);
@@ -4540,6 +5299,7 @@ public class TableWriter implements Closeable {
         renameFileOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName, columnNameTxn), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName, columnNameTxn));
+        renameFileOrLog(ff, siFile(path.trimTo(plen), columnName, columnNameTxn), siFile(other.trimTo(plen), newName, columnNameTxn));
         path.trimTo(rootLen);
         other.trimTo(rootLen);
     }
@@ -4736,7 +5496,7 @@ public class TableWriter implements Closeable {
 
     private void resizeColumnTopSink(long srcOoo, long srcOooMax) {
         long maxPartitionsAffected = (srcOooMax - srcOoo) / PartitionBy.getPartitionTimeIntervalFloor(partitionBy) + 2;
-        long size = maxPartitionsAffected * (metadata.getColumnCount() + 1);
+        long size = maxPartitionsAffected * getO3ColumnTopSinkStride();
         if (o3ColumnTopSink == null) {
             o3ColumnTopSink = new DirectLongList(size, MemoryTag.NATIVE_O3);
         }
@@ -4952,6 +5712,58 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void setDedupKeys(@Nullable IntList keyColumns) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                final int timestampIndex = metadata.getTimestampIndex();
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    final boolean key = keyColumns != null && (i == timestampIndex || keyColumns.indexOf(i, 0, keyColumns.size()) > -1);
+                    long flags = getColumnFlags(metaMem, i);
+                    if (key) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    } else {
+                        flags &= ~META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES + (long) i * META_COLUMN_DATA_SIZE + 4);
+                    ddlMem.putLong(flags);
+                }
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            readDedupKeys();
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
+    private void setColumnFlag(int columnIndex, int flag) {
+        try {
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES + (long) columnIndex * META_COLUMN_DATA_SIZE + 4);
+                ddlMem.putLong(getColumnFlags(metaMem, columnIndex) | flag);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            readSortedIndexColumns();
+            readLatestRowsColumns();
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
     private void setRowValueNotNull(int columnIndex) {
         assert rowValueIsNotNull.getQuick(columnIndex) != masterRef;
         rowValueIsNotNull.setQuick(columnIndex, masterRef);
@@ -5017,6 +5829,10 @@ public class TableWriter implements Closeable {
     }
 
     private void updateIndexesParallel(long lo, long hi) {
+        indexParallel(denseIndexers, indexCount, lo, hi);
+    }
+
+    private void indexParallel(ObjList<ColumnIndexer> indexers, int indexCount, long lo, long hi) {
         indexSequences.clear();
         indexLatch.setCount(indexCount);
         final int nParallelIndexes = indexCount - 1;
@@ -5036,7 +5852,9 @@ public class TableWriter implements Closeable {
             long cursor = indexPubSequence.next();
             if (cursor == -1) {
                 // queue is full, process index in the current thread
-                indexAndCountDown(denseIndexers.getQuick(i), lo, hi, indexLatch);
+                indexAndCountDown(indexers.getQuick(i), lo, hi, indexLatch);
+                // keep sequences aligned with indexers, sequence that cannot be locked
+                indexSequences.add(-1);
                 serialIndexCount++;
                 continue;
             }
@@ -5046,7 +5864,8 @@ public class TableWriter implements Closeable {
                 do {
                     cursor = indexPubSequence.next();
                     if (cursor == -1) {
-                        indexAndCountDown(denseIndexers.getQuick(i), lo, hi, indexLatch);
+                        indexAndCountDown(indexers.getQuick(i), lo, hi, indexLatch);
+                        indexSequences.add(-1);
                         serialIndexCount++;
                         continue OUT;
                     }
@@ -5055,9 +5874,10 @@ public class TableWriter implements Closeable {
             }
 
             final ColumnIndexerTask queueItem = indexerQueue.get(cursor);
-            final ColumnIndexer indexer = denseIndexers.getQuick(i);
+            final ColumnIndexer indexer = indexers.getQuick(i);
             final long sequence = indexer.getSequence();
             queueItem.indexer = indexer;
+            queueItem.sortedIndexer = null;
             queueItem.lo = lo;
             queueItem.hi = hi;
             queueItem.countDownLatch = indexLatch;
@@ -5067,7 +5887,7 @@ public class TableWriter implements Closeable {
         }
 
         // index last column while other columns are brewing on the queue
-        indexAndCountDown(denseIndexers.getQuick(indexCount - 1), lo, hi, indexLatch);
+        indexAndCountDown(indexers.getQuick(indexCount - 1), lo, hi, indexLatch);
         serialIndexCount++;
 
         // At this point we have re-indexed our column and if things are flowing nicely
@@ -5076,7 +5896,7 @@ public class TableWriter implements Closeable {
         if (!indexLatch.await(configuration.getWorkStealTimeoutNanos())) {
             // other columns are still in-flight, we must attempt to steal work from other threads
             for (int i = 0; i < nParallelIndexes; i++) {
-                ColumnIndexer indexer = denseIndexers.getQuick(i);
+                ColumnIndexer indexer = indexers.getQuick(i);
                 if (indexer.tryLock(indexSequences.getQuick(i))) {
                     indexAndCountDown(indexer, lo, hi, indexLatch);
                     serialIndexCount++;
@@ -5089,7 +5909,7 @@ public class TableWriter implements Closeable {
         // reset lock on completed indexers
         boolean distressed = false;
         for (int i = 0; i < indexCount; i++) {
-            ColumnIndexer indexer = denseIndexers.getQuick(i);
+            ColumnIndexer indexer = indexers.getQuick(i);
             distressed = distressed | indexer.isDistressed();
         }
 
@@ -5144,7 +5964,7 @@ public class TableWriter implements Closeable {
 
     private void updateO3ColumnTops() {
         int columnCount = metadata.getColumnCount();
-        int increment = columnCount + 1;
+        int increment = (int) getO3ColumnTopSinkStride();
 
         for (int partitionOffset = 0, n = (int) o3ColumnTopSink.size(); partitionOffset < n; partitionOffset += increment) {
             long partitionTimestamp = o3ColumnTopSink.get(partitionOffset);
@@ -5196,12 +6016,30 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (!markDeleted && isDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
+
+        if (!markDeleted && isSortedIndexed(metaMem, i)) {
+            flags |= META_FLAG_BIT_SORTED_INDEX;
+        }
+
+        if (!markDeleted && hasLatestRows(metaMem, i)) {
+            flags |= META_FLAG_BIT_LATEST_ROWS;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.putLong(getColumnHash(metaMem, i));
         ddlMem.skip(8);
     }
 
+    private void queueSortedIndexPartition(long partitionTimestamp) {
+        if (sortedIndexColumns.size() > 0 && sortedIndexPartitions.indexOf(partitionTimestamp) < 0) {
+            sortedIndexPartitions.add(partitionTimestamp);
+        }
+    }
+
     private void writeRestoreMetaTodo(CharSequence columnName) {
         try {
             writeRestoreMetaTodo();
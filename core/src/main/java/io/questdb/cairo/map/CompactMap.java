@@ -188,6 +188,11 @@ public class CompactMap implements Map {
         return cursor;
     }
 
+    @Override
+    public long getMemUsed() {
+        return currentEntryOffset + currentEntrySize + ((mask + 1) << 3);
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -414,6 +419,11 @@ public class CompactMap implements Map {
             }
         }
 
+        @Override
+        public long hash() {
+            return hashFunction.hash(currentEntryOffset + entryKeyOffset, currentEntrySize - entryKeyOffset);
+        }
+
         @Override
         public void put(Record record, RecordSink sink) {
             sink.copy(record, key);
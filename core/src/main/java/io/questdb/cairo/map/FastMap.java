@@ -33,10 +33,13 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
+import java.io.Closeable;
+
 public class FastMap implements Map {
 
     private static final HashFunction DEFAULT_HASH = Hash::hashMem;
     private static final int MIN_INITIAL_CAPACITY = 128;
+    private static final int MIN_LOOKUP_KEY_SIZE = 256;
     private final double loadFactor;
     private final Key key = new Key();
     private final FastMapValue value;
@@ -51,6 +54,7 @@ public class FastMap implements Map {
     private final int maxResizes;
     private final int initialKeyCapacity;
     private final int initialPageSize;
+    private final int[] valueOffsets;
     private long capacity;
     private DirectLongList offsets;
     private long kStart;
@@ -153,6 +157,7 @@ public class FastMap implements Map {
                         throw CairoException.instance(0).put("value type is not supported: ").put(ColumnType.nameOf(columnType));
                 }
             }
+            this.valueOffsets = valueOffsets;
             this.value = new FastMapValue(valueOffsets);
             this.value2 = new FastMapValue(valueOffsets);
             this.value3 = new FastMapValue(valueOffsets);
@@ -161,6 +166,7 @@ public class FastMap implements Map {
             this.record = new FastMapRecord(valueOffsets, columnSplit, keyDataOffset, keyBlockOffset, value, keyTypes);
         } else {
             this.valueColumnCount = 0;
+            this.valueOffsets = null;
             this.value = new FastMapValue(null);
             this.value2 = new FastMapValue(null);
             this.value3 = new FastMapValue(null);
@@ -214,6 +220,24 @@ public class FastMap implements Map {
         return key.init();
     }
 
+    /**
+     * Searches the map with a key that has been written to its own memory. Search does not change
+     * the map, several threads can search it concurrently, each with own key, as long as nobody
+     * writes to the map. Key must be created by a map with the same key and value types.
+     *
+     * @param key  key created by {@link #newLookupKey()}
+     * @param hash hash of the key as returned by {@link LookupKey#hash()}
+     * @return value that belongs to the key or null when map does not have the key
+     */
+    public MapValue findValue(LookupKey key, long hash) {
+        assert key.keyDataOffset() == keyDataOffset;
+        return findValue(key, hash & mask, key.value);
+    }
+
+    public LookupKey newLookupKey() {
+        return new LookupKey();
+    }
+
     public void restoreInitialCapacity() {
         this.kStart = kPos = Unsafe.realloc(this.kStart, this.kLimit - this.kStart, this.capacity = initialPageSize, MemoryTag.NATIVE_FAST_MAP);
         this.kLimit = kStart + this.initialPageSize;
@@ -231,6 +255,11 @@ public class FastMap implements Map {
         return kLimit - kStart;
     }
 
+    @Override
+    public long getMemUsed() {
+        return kPos - kStart + ((long) keyCapacity << 3);
+    }
+
     public int getKeyCapacity() {
         return keyCapacity;
     }
@@ -284,7 +313,7 @@ public class FastMap implements Map {
         return valueOf(keyWriter.startAddress, true, value);
     }
 
-    private boolean eq(Key keyWriter, long offset) {
+    private boolean eq(BaseKey keyWriter, long offset) {
         long a = kStart + offset;
         long b = keyWriter.startAddress;
 
@@ -319,6 +348,18 @@ public class FastMap implements Map {
         return valueColumnCount;
     }
 
+    private FastMapValue findValue(BaseKey keyWriter, long index, FastMapValue value) {
+        long offset = offsets.get(index);
+
+        if (offset == -1) {
+            return null;
+        } else if (eq(keyWriter, offset)) {
+            return valueOf(kStart + offset, false, value);
+        } else {
+            return probeReadOnly(keyWriter, index, value);
+        }
+    }
+
     private long keyIndex() {
         return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset) & mask;
     }
@@ -333,7 +374,7 @@ public class FastMap implements Map {
         return asNew(keyWriter, index, value);
     }
 
-    private FastMapValue probeReadOnly(Key keyWriter, long index, FastMapValue value) {
+    private FastMapValue probeReadOnly(BaseKey keyWriter, long index, FastMapValue value) {
         long offset;
         while ((offset = offsets.get(index = (++index & mask))) != -1) {
             if (eq(keyWriter, offset)) {
@@ -406,52 +447,16 @@ public class FastMap implements Map {
         long hash(long address, long len);
     }
 
-    public class Key implements MapKey {
-        private long startAddress;
-        private long appendAddress;
-        private int len;
-        private long nextColOffset;
-
-        @Override
-        public MapValue createValue() {
-            return createValue(value);
-        }
+    // key layout and writing, shared by map key and lookup key
+    abstract class BaseKey implements RecordSinkSPI {
+        long startAddress;
+        long appendAddress;
+        int len;
+        long nextColOffset;
 
-        @Override
-        public MapValue createValue2() {
-            return createValue(value2);
-        }
-
-        @Override
-        public MapValue createValue3() {
-            return createValue(value3);
-        }
-
-        @Override
-        public MapValue findValue() {
-            return findValue(value);
-        }
-
-        @Override
-        public MapValue findValue2() {
-            return findValue(value2);
-        }
-
-        @Override
-        public MapValue findValue3() {
-            return findValue(value3);
-        }
-
-        @Override
-        public void put(Record record, RecordSink sink) {
-            sink.copy(record, this);
-        }
-
-        public Key init() {
-            startAddress = kPos;
-            appendAddress = kPos + keyDataOffset;
-            nextColOffset = kPos + keyBlockOffset;
-            return this;
+        public long hash() {
+            commit();
+            return hashFunction.hash(startAddress + keyDataOffset, len - keyDataOffset);
         }
 
         @Override
@@ -633,14 +638,77 @@ public class FastMap implements Map {
             writeOffset();
         }
 
-        private void checkSize(int size) {
-            if (appendAddress + size > kLimit) {
-                resize(size);
+        abstract void checkSize(int size);
+
+        void commit() {
+            Unsafe.getUnsafe().putInt(startAddress, len = (int) (appendAddress - startAddress));
+        }
+
+        void putNull() {
+            checkSize(4);
+            Unsafe.getUnsafe().putInt(appendAddress, TableUtils.NULL_LEN);
+            appendAddress += 4;
+            writeOffset();
+        }
+
+        private void writeOffset() {
+            long len = appendAddress - startAddress;
+            if (len > Integer.MAX_VALUE) {
+                throw CairoException.instance(0).put("row data is too large");
             }
+            Unsafe.getUnsafe().putInt(nextColOffset, (int) len);
+            nextColOffset += 4;
         }
+    }
 
-        private void commit() {
-            Unsafe.getUnsafe().putInt(startAddress, len = (int) (appendAddress - startAddress));
+    public class Key extends BaseKey implements MapKey {
+        @Override
+        public MapValue createValue() {
+            return createValue(value);
+        }
+
+        @Override
+        public MapValue createValue2() {
+            return createValue(value2);
+        }
+
+        @Override
+        public MapValue createValue3() {
+            return createValue(value3);
+        }
+
+        @Override
+        public MapValue findValue() {
+            return findValue(value);
+        }
+
+        @Override
+        public MapValue findValue2() {
+            return findValue(value2);
+        }
+
+        @Override
+        public MapValue findValue3() {
+            return findValue(value3);
+        }
+
+        @Override
+        public void put(Record record, RecordSink sink) {
+            sink.copy(record, this);
+        }
+
+        public Key init() {
+            startAddress = kPos;
+            appendAddress = kPos + keyDataOffset;
+            nextColOffset = kPos + keyBlockOffset;
+            return this;
+        }
+
+        @Override
+        void checkSize(int size) {
+            if (appendAddress + size > kLimit) {
+                resize(size);
+            }
         }
 
         private MapValue createValue(FastMapValue value) {
@@ -661,32 +729,64 @@ public class FastMap implements Map {
 
         private MapValue findValue(FastMapValue value) {
             commit();
-            long index = keyIndex();
-            long offset = offsets.get(index);
+            return FastMap.this.findValue(this, keyIndex(), value);
+        }
+    }
 
-            if (offset == -1) {
-                return null;
-            } else if (eq(this, offset)) {
-                return valueOf(kStart + offset, false, value);
-            } else {
-                return probeReadOnly(this, index, value);
+    /**
+     * Key that is written to its own memory rather than to the map. It is read-only with respect to
+     * the map and can only be used to search it, see {@link FastMap#findValue(LookupKey, long)}.
+     */
+    public class LookupKey extends BaseKey implements Closeable {
+        private final FastMapValue value = new FastMapValue(valueOffsets);
+        private long lo;
+        private long hi;
+
+        private LookupKey() {
+            final long size = Math.max(keyDataOffset + 64, MIN_LOOKUP_KEY_SIZE);
+            this.lo = Unsafe.malloc(size, MemoryTag.NATIVE_FAST_MAP);
+            this.hi = lo + size;
+        }
+
+        @Override
+        public void close() {
+            if (lo != 0) {
+                Unsafe.free(lo, hi - lo, MemoryTag.NATIVE_FAST_MAP);
+                lo = hi = 0;
             }
         }
 
-        private void putNull() {
-            checkSize(4);
-            Unsafe.getUnsafe().putInt(appendAddress, TableUtils.NULL_LEN);
-            appendAddress += 4;
-            writeOffset();
+        public MapValue findValue() {
+            return FastMap.this.findValue(this, hash());
         }
 
-        private void writeOffset() {
-            long len = appendAddress - startAddress;
-            if (len > Integer.MAX_VALUE) {
-                throw CairoException.instance(0).put("row data is too large");
+        public void put(Record record, RecordSink sink) {
+            sink.copy(record, this);
+        }
+
+        public LookupKey init() {
+            startAddress = lo;
+            appendAddress = lo + keyDataOffset;
+            nextColOffset = lo + keyBlockOffset;
+            return this;
+        }
+
+        @Override
+        void checkSize(int size) {
+            if (appendAddress + size > hi) {
+                final long capacity = Numbers.ceilPow2(appendAddress + size - lo);
+                final long address = Unsafe.realloc(lo, hi - lo, capacity, MemoryTag.NATIVE_FAST_MAP);
+                final long d = address - lo;
+                startAddress += d;
+                appendAddress += d;
+                nextColOffset += d;
+                lo = address;
+                hi = address + capacity;
             }
-            Unsafe.getUnsafe().putInt(nextColOffset, (int) len);
-            nextColOffset += 4;
+        }
+
+        private int keyDataOffset() {
+            return keyDataOffset;
         }
     }
-}
\ No newline at end of file
+}
@@ -35,6 +35,11 @@ public interface Map extends Mutable, Closeable {
 
     RecordCursor getCursor();
 
+    /**
+     * @return bytes of native memory taken by keys, values and hash slots of the map
+     */
+    long getMemUsed();
+
     MapRecord getRecord();
 
     long size();
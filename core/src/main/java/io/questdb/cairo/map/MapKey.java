@@ -46,6 +46,14 @@ public interface MapKey extends RecordSinkSPI {
 
     MapValue findValue();
 
+    /**
+     * Hash of the key that has been put so far. Same keys produce same hash for as long as the map
+     * they belong to is not re-created, which lets callers partition keys consistently.
+     *
+     * @return hash code of the key
+     */
+    long hash();
+
     default MapValue findValue2() {
         throw new UnsupportedOperationException();
     }
@@ -27,19 +27,25 @@ package io.questdb.cairo.pool;
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CommitListener;
 import io.questdb.cairo.EntryUnavailableException;
+import io.questdb.cairo.SymbolValueCachePool;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
+import io.questdb.cairo.vm.ColumnMappingCache;
 import io.questdb.cairo.pool.ex.PoolClosedException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceIntHashMap;
+import io.questdb.std.Chars;
 import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.ObjList;
 import io.questdb.std.Unsafe;
 
 import java.util.Arrays;
 import java.util.Map;
 
-public class ReaderPool extends AbstractPool implements ResourcePool<TableReader> {
+public class ReaderPool extends AbstractPool implements ResourcePool<TableReader>, CommitListener {
 
     private static final Log LOG = LogFactory.getLog(ReaderPool.class);
     private static final long UNLOCKED = -1L;
@@ -53,12 +59,25 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final int maxSegments;
     private final MessageBus messageBus;
     private final int maxEntries;
+    private final SymbolValueCachePool symbolValueCachePool;
+    private final ColumnMappingCache columnMappingCache;
+    // immutable after construction, looked up on writer commit without locking
+    private final ConcurrentHashMap<PinnedTable> pinnedTables = new ConcurrentHashMap<>();
 
     public ReaderPool(CairoConfiguration configuration, MessageBus messageBus) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.messageBus = messageBus;
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.symbolValueCachePool = configuration.isSymbolCacheShared() ? new SymbolValueCachePool() : null;
+        this.columnMappingCache = configuration.isColumnMappingShared() ? new ColumnMappingCache() : null;
+        final CharSequenceIntHashMap pinned = configuration.getReaderPoolPinnedTables();
+        final ObjList<CharSequence> names = pinned.keys();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            final CharSequence name = names.getQuick(i);
+            final String tableName = Chars.toString(name);
+            pinnedTables.put(tableName, new PinnedTable(tableName, Math.min(pinned.get(name), ENTRY_SIZE)));
+        }
     }
 
     @Override
@@ -120,7 +139,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
             // all allocated, create next entry if possible
             if (Unsafe.getUnsafe().compareAndSwapInt(e, NEXT_STATUS, NEXT_OPEN, NEXT_ALLOCATED)) {
                 LOG.debug().$("Thread ").$(thread).$(" allocated entry ").$(e.index + 1).$();
-                e.next = new Entry(e.index + 1, clock.getTicks());
+                e.next = new Entry(e.index + 1, clock.getTicks(), 0);
             }
             e = e.next;
         } while (e != null && e.index < maxSegments);
@@ -151,6 +170,37 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         return maxEntries;
     }
 
+    @Override
+    public void onCommit(CharSequence tableName, long txn) {
+        final PinnedTable pinned = pinnedTables.get(tableName);
+        if (pinned != null) {
+            pinned.notifiedTxn = txn;
+        }
+    }
+
+    /**
+     * Opens pinned readers that are not open yet and reloads them to the latest transaction.
+     * Tables are only visited on first call and after their writer commits, so that queries
+     * get readers that are neither opened nor reloaded on the query path.
+     *
+     * @return true when any of pinned tables was refreshed
+     */
+    public boolean refreshPinnedReaders() {
+        if (pinnedTables.size() == 0 || isClosed()) {
+            return false;
+        }
+        boolean useful = false;
+        for (PinnedTable pinned : pinnedTables.values()) {
+            final long txn = pinned.notifiedTxn;
+            if (txn != pinned.refreshedTxn) {
+                pinned.refreshedTxn = txn;
+                refreshPinnedReaders(pinned);
+                useful = true;
+            }
+        }
+        return useful;
+    }
+
     public boolean lock(CharSequence name) {
         Entry e = getEntry(name);
         final long thread = Thread.currentThread().getId();
@@ -235,7 +285,8 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
         for (Entry e : entries.values()) {
             do {
-                for (int i = 0; i < ENTRY_SIZE; i++) {
+                // pinned readers do not expire
+                for (int i = closeReason == PoolConstants.CR_IDLE ? e.pinnedCount : 0; i < ENTRY_SIZE; i++) {
                     R r;
                     if (deadline > Unsafe.arrayGetVolatile(e.releaseTimes, i) && (r = e.readers[i]) != null) {
                         if (Unsafe.cas(e.allocations, i, UNALLOCATED, thread)) {
@@ -287,7 +338,8 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
         Entry e = entries.get(name);
         if (e == null) {
-            e = new Entry(0, clock.getTicks());
+            final PinnedTable pinned = pinnedTables.get(name);
+            e = new Entry(0, clock.getTicks(), pinned != null ? pinned.readerCount : 0);
             Entry other = entries.putIfAbsent(name, e);
             if (other != null) {
                 e = other;
@@ -303,6 +355,53 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         }
     }
 
+    private void refreshPinnedReaders(PinnedTable pinned) {
+        final Entry e = getEntry(pinned.tableName);
+        if (e.lockOwner != UNLOCKED) {
+            return;
+        }
+        final long thread = Thread.currentThread().getId();
+        for (int i = 0; i < pinned.readerCount; i++) {
+            // readers that are busy will be reloaded by their next user
+            if (Unsafe.cas(e.allocations, i, UNALLOCATED, thread)) {
+                R r = e.readers[i];
+                try {
+                    if (r == null) {
+                        LOG.info()
+                                .$("open pinned '").utf8(pinned.tableName)
+                                .$("' [at=").$(e.index).$(':').$(i)
+                                .$(']').$();
+                        r = new R(this, e, i, pinned.tableName, messageBus);
+                        e.readers[i] = r;
+                        notifyListener(thread, pinned.tableName, PoolListener.EV_CREATE, e.index, i);
+                    } else {
+                        r.reload();
+                    }
+                    // do not hold on to the txn in scoreboard while reader is idle
+                    r.goPassive();
+                } catch (CairoException ex) {
+                    LOG.error()
+                            .$("could not refresh pinned reader [table=`").utf8(pinned.tableName)
+                            .$("`, at=").$(e.index).$(':').$(i)
+                            .$(", ex=").$(ex.getFlyweightMessage())
+                            .$(", errno=").$(ex.getErrno())
+                            .I$();
+                    closeReader(thread, e, i, PoolListener.EV_EXPIRE, PoolConstants.CR_REOPEN);
+                    Unsafe.arrayPutOrdered(e.allocations, i, UNALLOCATED);
+                    return;
+                }
+
+                if (isClosed()) {
+                    closeReader(thread, e, i, PoolListener.EV_EXPIRE, PoolConstants.CR_POOL_CLOSE);
+                    Unsafe.arrayPutOrdered(e.allocations, i, UNALLOCATED);
+                    return;
+                }
+                e.releaseTimes[i] = clock.getTicks();
+                Unsafe.arrayPutOrdered(e.allocations, i, UNALLOCATED);
+            }
+        }
+    }
+
     private boolean returnToPool(R reader) {
         CharSequence name = reader.getTableName();
 
@@ -338,25 +437,39 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         final long[] releaseTimes = new long[ENTRY_SIZE];
         final R[] readers = new R[ENTRY_SIZE];
         final int index;
+        final int pinnedCount;
         volatile long lockOwner = -1L;
         @SuppressWarnings("unused")
         int nextStatus = 0;
         volatile Entry next;
 
-        public Entry(int index, long currentMicros) {
+        public Entry(int index, long currentMicros, int pinnedCount) {
             this.index = index;
+            this.pinnedCount = pinnedCount;
             Arrays.fill(allocations, UNALLOCATED);
             Arrays.fill(releaseTimes, currentMicros);
         }
     }
 
+    private static class PinnedTable {
+        final String tableName;
+        final int readerCount;
+        volatile long notifiedTxn = 0;
+        long refreshedTxn = -1;
+
+        private PinnedTable(String tableName, int readerCount) {
+            this.tableName = tableName;
+            this.readerCount = readerCount;
+        }
+    }
+
     public static class R extends TableReader {
         private final int index;
         private ReaderPool pool;
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name, MessageBus messageBus) {
-            super(pool.getConfiguration(), name, messageBus);
+            super(pool.getConfiguration(), name, messageBus, pool.symbolValueCachePool, pool.columnMappingCache);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
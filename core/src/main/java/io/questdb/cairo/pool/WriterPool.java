@@ -81,6 +81,7 @@ public class WriterPool extends AbstractPool {
     private final MessageBus messageBus;
     @NotNull
     private final Metrics metrics;
+    private CommitListener commitListener;
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
@@ -208,6 +209,13 @@ public class WriterPool extends AbstractPool {
         return reinterpretOwnershipReason(e.ownershipReason);
     }
 
+    /**
+     * Sets listener to be notified of commits by writers this pool opens from now on.
+     */
+    public void setCommitListener(CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
     public int size() {
         return entries.size();
     }
@@ -244,6 +252,7 @@ public class WriterPool extends AbstractPool {
                 assert writer == null && e.lockFd != -1;
                 LOG.info().$("created [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
                 writer = new TableWriter(configuration, name, messageBus, null, false, e, root, metrics);
+                writer.setCommitListener(commitListener);
             }
 
             if (writer == null) {
@@ -418,6 +427,7 @@ public class WriterPool extends AbstractPool {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
             e.writer = new TableWriter(configuration, name, messageBus, null, true, e, root, metrics);
+            e.writer.setCommitListener(commitListener);
             e.ownershipReason = lockReason;
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
@@ -26,4 +26,8 @@ package io.questdb.cairo.sql;
 
 public interface AnalyticSPI {
     long getAddress(long recordAddress, int columnIndex);
+
+    Record getRecordB();
+
+    void recordAt(Record record, long recordAddress);
 }
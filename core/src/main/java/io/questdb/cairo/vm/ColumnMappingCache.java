@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+/**
+ * Read-only column file mappings shared by table readers. Mappings are reference-counted and looked
+ * up by a key that identifies the file version, e.g. table, partition, column and column name txn.
+ * <p>
+ * Address of a mapping that is held by more than one reader never changes. Mapping with a single
+ * holder is grown in place with mremap, otherwise larger mapping of the same file is created and
+ * replaces the smaller one in the cache, while the smaller one stays valid until its holders let go.
+ */
+public class ColumnMappingCache {
+    private static final Log LOG = LogFactory.getLog(ColumnMappingCache.class);
+    private final CharSequenceObjHashMap<Mapping> mappings = new CharSequenceObjHashMap<>();
+    private int mappingCount;
+
+    public synchronized Mapping acquire(FilesFacade ff, CharSequence key, LPSZ name, long size, int memoryTag) {
+        final int index = mappings.keyIndex(key);
+        if (index < 0) {
+            final Mapping mapping = mappings.valueAtQuick(index);
+            if (mapping.size >= size) {
+                mapping.refCount++;
+                return mapping;
+            }
+        }
+        final Mapping mapping = open(ff, Chars.toString(key), Chars.toString(name), name, size, memoryTag);
+        mappings.put(mapping.key, mapping);
+        return mapping;
+    }
+
+    /**
+     * Returns mapping of at least newSize bytes of the same file. The given mapping is released
+     * when a different mapping is returned.
+     */
+    public synchronized Mapping extend(Mapping mapping, long newSize) {
+        if (newSize <= mapping.size) {
+            return mapping;
+        }
+        final Mapping current = mappings.get(mapping.key);
+        if (current != null && current != mapping && current.size >= newSize) {
+            // another reader has already mapped enough of the file
+            current.refCount++;
+            release(mapping);
+            return current;
+        }
+
+        if (mapping.refCount == 1 && (current == mapping || current == null)) {
+            // nobody else holds the address, grow in place
+            if (mapping.size > 0) {
+                mapping.address = TableUtils.mremap(mapping.ff, mapping.fd, mapping.address, mapping.size, newSize, Files.MAP_RO, mapping.memoryTag);
+            } else {
+                mapping.address = TableUtils.mapRO(mapping.ff, mapping.fd, newSize, mapping.memoryTag);
+            }
+            mapping.size = newSize;
+            return mapping;
+        }
+
+        final Mapping result;
+        try (Path path = new Path()) {
+            result = open(mapping.ff, mapping.key, mapping.name, path.of(mapping.name).$(), newSize, mapping.memoryTag);
+        }
+        mappings.put(result.key, result);
+        release(mapping);
+        return result;
+    }
+
+    public synchronized int getMappingCount() {
+        return mappingCount;
+    }
+
+    public synchronized void release(Mapping mapping) {
+        assert mapping.refCount > 0;
+        if (--mapping.refCount == 0) {
+            if (mappings.get(mapping.key) == mapping) {
+                mappings.remove(mapping.key);
+            }
+            if (mapping.address != 0) {
+                mapping.ff.munmap(mapping.address, mapping.size, mapping.memoryTag);
+            }
+            mapping.ff.close(mapping.fd);
+            mappingCount--;
+            LOG.debug().$("unmapped [key=").$(mapping.key).$(", fd=").$(mapping.fd).$(']').$();
+        }
+    }
+
+    private Mapping open(FilesFacade ff, String key, String name, LPSZ lpsz, long size, int memoryTag) {
+        final long fd = TableUtils.openRO(ff, lpsz, LOG);
+        try {
+            if (size < 0) {
+                size = ff.length(fd);
+            }
+            final long address = size > 0 ? TableUtils.mapRO(ff, fd, size, memoryTag) : 0;
+            mappingCount++;
+            LOG.debug().$("mapped [key=").$(key).$(", fd=").$(fd).$(", size=").$(size).$(']').$();
+            return new Mapping(ff, key, name, fd, address, size, memoryTag);
+        } catch (Throwable e) {
+            ff.close(fd);
+            throw e;
+        }
+    }
+
+    public static class Mapping {
+        private final FilesFacade ff;
+        private final String key;
+        private final String name;
+        private final long fd;
+        private final int memoryTag;
+        private long address;
+        private long size;
+        private int refCount = 1;
+
+        private Mapping(FilesFacade ff, String key, String name, long fd, long address, long size, int memoryTag) {
+            this.ff = ff;
+            this.key = key;
+            this.name = name;
+            this.fd = fd;
+            this.address = address;
+            this.size = size;
+            this.memoryTag = memoryTag;
+        }
+
+        public long getAddress() {
+            return address;
+        }
+
+        public long getFd() {
+            return fd;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
@@ -38,6 +38,7 @@ import io.questdb.std.str.LPSZ;
 public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
     private static final Log LOG = LogFactory.getLog(MemoryCMRImpl.class);
     private int memoryTag = MemoryTag.MMAP_DEFAULT;
+    private int advice = Files.POSIX_MADV_NORMAL;
 
     public MemoryCMRImpl(FilesFacade ff, LPSZ name, long size, int memoryTag) {
         of(ff, name, 0, size, memoryTag);
@@ -46,8 +47,17 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
     public MemoryCMRImpl() {
     }
 
+    @Override
+    public void advise(int advice) {
+        this.advice = advice;
+        if (pageAddress != 0) {
+            ff.madvise(pageAddress, size, advice);
+        }
+    }
+
     @Override
     public void close() {
+        advice = Files.POSIX_MADV_NORMAL;
         if (pageAddress != 0) {
             ff.munmap(pageAddress, size, memoryTag);
             this.size = 0;
@@ -120,6 +130,9 @@ public class MemoryCMRImpl extends AbstractMemoryCR implements MemoryCMR {
                 pageAddress = TableUtils.mapRO(ff, fd, newSize, memoryTag);
             }
             size = newSize;
+            if (advice != Files.POSIX_MADV_NORMAL) {
+                ff.madvise(pageAddress, size, advice);
+            }
         } catch (Throwable e) {
             close();
             throw e;
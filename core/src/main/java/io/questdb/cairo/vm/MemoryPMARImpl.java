@@ -30,6 +30,7 @@ import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.vm.api.MemoryMAR;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.str.LPSZ;
 
@@ -40,6 +41,7 @@ public class MemoryPMARImpl extends MemoryPARWImpl implements MemoryMAR {
     private long fd = -1;
     private long pageAddress = 0;
     private int mappedPage;
+    private int advice = Files.POSIX_MADV_NORMAL;
 
     public MemoryPMARImpl(FilesFacade ff, LPSZ name, long pageSize, int memoryTag, long opts) {
         of(ff, name, pageSize, memoryTag, opts);
@@ -48,8 +50,17 @@ public class MemoryPMARImpl extends MemoryPARWImpl implements MemoryMAR {
     public MemoryPMARImpl() {
     }
 
+    @Override
+    public void advise(int advice) {
+        this.advice = advice;
+        if (pageAddress != 0) {
+            ff.madvise(pageAddress, getExtendSegmentSize(), advice);
+        }
+    }
+
     @Override
     public final void close(boolean truncate) {
+        advice = Files.POSIX_MADV_NORMAL;
         long sz = getAppendOffset();
         releaseCurrentPage();
         super.close();
@@ -141,6 +152,9 @@ public class MemoryPMARImpl extends MemoryPARWImpl implements MemoryMAR {
         // set page to "not mapped" in case mapping fails
         final long address = TableUtils.mapRW(ff, fd, getExtendSegmentSize(), pageOffset(page), memoryTag);
         mappedPage = page;
+        if (advice != Files.POSIX_MADV_NORMAL) {
+            ff.madvise(address, getExtendSegmentSize(), advice);
+        }
         return address;
     }
 
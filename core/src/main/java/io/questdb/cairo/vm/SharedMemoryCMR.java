@@ -0,0 +1,107 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Contiguous read-only memory backed by a mapping from {@link ColumnMappingCache}. Memory is keyed
+ * by the given prefix followed by the file name, prefix has to identify version of the file.
+ */
+public class SharedMemoryCMR extends AbstractMemoryCR implements MemoryCMR {
+    private final ColumnMappingCache cache;
+    private final StringSink keyPrefix = new StringSink();
+    private final StringSink key = new StringSink();
+    private ColumnMappingCache.Mapping mapping;
+    private int advice = Files.POSIX_MADV_NORMAL;
+
+    public SharedMemoryCMR(ColumnMappingCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void advise(int advice) {
+        this.advice = advice;
+        if (pageAddress != 0) {
+            ff.madvise(pageAddress, size, advice);
+        }
+    }
+
+    @Override
+    public void close() {
+        advice = Files.POSIX_MADV_NORMAL;
+        if (mapping != null) {
+            cache.release(mapping);
+            mapping = null;
+        }
+        pageAddress = 0;
+        size = 0;
+        fd = -1;
+        grownLength = 0;
+    }
+
+    @Override
+    public void extend(long newSize) {
+        grownLength = Math.max(newSize, grownLength);
+        if (newSize > size) {
+            try {
+                mapping = cache.extend(mapping, newSize);
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+            refresh();
+            if (advice != Files.POSIX_MADV_NORMAL) {
+                ff.madvise(pageAddress, size, advice);
+            }
+        }
+    }
+
+    public void of(CharSequence keyPrefix, FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        this.keyPrefix.clear();
+        this.keyPrefix.put(keyPrefix);
+        of(ff, name, 0, size, memoryTag, 0);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag, long opts) {
+        close();
+        this.ff = ff;
+        key.clear();
+        key.put(keyPrefix).put(name);
+        mapping = cache.acquire(ff, key, name, size, memoryTag);
+        refresh();
+    }
+
+    private void refresh() {
+        pageAddress = mapping.getAddress();
+        size = mapping.getSize();
+        fd = mapping.getFd();
+    }
+}
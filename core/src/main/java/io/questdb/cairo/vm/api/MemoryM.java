@@ -36,6 +36,15 @@ public interface MemoryM extends Closeable {
 
     long addressOf(long offset);
 
+    /**
+     * Advises OS on the access pattern of mapped pages. Implementations that remap memory should retain
+     * the advice and apply it to the new mapping.
+     *
+     * @param advice one of Files.POSIX_MADV_* constants
+     */
+    default void advise(int advice) {
+    }
+
     default void allocate(long size) {
         TableUtils.allocateDiskSpace(getFilesFacade(), getFd(), size);
     }
@@ -117,6 +117,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         this.queryExecutors.extendAndSet(CompiledQuery.CREATE_TABLE_AS_SELECT, sendConfirmation);
         this.queryExecutors.extendAndSet(CompiledQuery.SNAPSHOT_DB_PREPARE, sendConfirmation);
         this.queryExecutors.extendAndSet(CompiledQuery.SNAPSHOT_DB_COMPLETE, sendConfirmation);
+        this.queryExecutors.extendAndSet(CompiledQuery.EXPORT_TABLE, sendConfirmation);
+        this.queryExecutors.extendAndSet(CompiledQuery.CLONE_TABLE, sendConfirmation);
         this.sqlExecutionContext = sqlExecutionContext;
         this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
         this.circuitBreaker = new NetworkSqlExecutionCircuitBreaker(engine.getConfiguration().getCircuitBreakerConfiguration(), MemoryTag.NATIVE_CB3);
@@ -130,6 +132,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         Misc.free(compiler);
         Misc.free(path);
         Misc.free(circuitBreaker);
+        Misc.free(sqlExecutionContext);
     }
 
     public void execute0(JsonQueryProcessorState state) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
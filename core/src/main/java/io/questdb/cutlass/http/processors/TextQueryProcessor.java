@@ -97,6 +97,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     public void close() {
         Misc.free(compiler);
         Misc.free(circuitBreaker);
+        Misc.free(sqlExecutionContext);
     }
 
     private static boolean isExpUrl(CharSequence tok) {
@@ -0,0 +1,516 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+import static io.questdb.cutlass.parquet.ParquetFormat.*;
+import static io.questdb.cutlass.parquet.ThriftCompactWriter.TYPE_STOP;
+
+/**
+ * Maps Parquet file and decodes its footer: flat schema, row groups and column chunk
+ * statistics. Supports the layout written by {@link ParquetPartitionWriter}, i.e. column
+ * chunks made of a single uncompressed PLAIN data page. Files that use other codecs,
+ * encodings or nested schema are rejected when the affected page is accessed.
+ */
+public class ParquetFileReader implements Closeable {
+    // chunk layout: page offset, codec, min, max, has min/max
+    private static final int CHUNK_SIZE = 5;
+    private final FilesFacade ff;
+    private final MemoryCMR mem = Vm.getCMRInstance();
+    private final ThriftCompactReader thrift = new ThriftCompactReader();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final IntList physicalTypes = new IntList();
+    private final IntList convertedTypes = new IntList();
+    private final IntList repetitions = new IntList();
+    private final LongList rowGroupRowCounts = new LongList();
+    private final LongList chunks = new LongList();
+    private final StringSink nameSink = new StringSink();
+    private long fileAddress;
+    private long fileSize;
+    private long rowCount;
+    private int timestampIndex;
+    // last decoded page
+    private long pageValueCount;
+    private long pageValuesLo;
+    private long pageValuesHi;
+    private long pageLevelsLo;
+    private long pageLevelsHi;
+
+    public ParquetFileReader(FilesFacade ff) {
+        this.ff = ff;
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        fileAddress = 0;
+        fileSize = 0;
+        columnNames.clear();
+        columnTypes.clear();
+        physicalTypes.clear();
+        convertedTypes.clear();
+        repetitions.clear();
+        rowGroupRowCounts.clear();
+        chunks.clear();
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public String getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    /**
+     * @return QuestDB type for the column or -1 when there is no suitable type
+     */
+    public int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public int getPhysicalType(int columnIndex) {
+        return physicalTypes.getQuick(columnIndex);
+    }
+
+    public int getConvertedType(int columnIndex) {
+        return convertedTypes.getQuick(columnIndex);
+    }
+
+    /**
+     * @return address of the first definition level byte or 0 when page column is REQUIRED
+     */
+    public long getPageLevelsLo() {
+        return pageLevelsLo;
+    }
+
+    public long getPageLevelsHi() {
+        return pageLevelsHi;
+    }
+
+    public long getPageValueCount() {
+        return pageValueCount;
+    }
+
+    public long getPageValuesHi() {
+        return pageValuesHi;
+    }
+
+    public long getPageValuesLo() {
+        return pageValuesLo;
+    }
+
+    public int getRowGroupCount() {
+        return rowGroupRowCounts.size();
+    }
+
+    public long getRowGroupMax(int rowGroup, int columnIndex) {
+        return chunks.getQuick(chunkOffset(rowGroup, columnIndex) + 3);
+    }
+
+    public long getRowGroupMin(int rowGroup, int columnIndex) {
+        return chunks.getQuick(chunkOffset(rowGroup, columnIndex) + 2);
+    }
+
+    public long getRowGroupRowCount(int rowGroup) {
+        return rowGroupRowCounts.getQuick(rowGroup);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return index of the column, which row groups are sorted by in ascending order and which
+     * can be used as designated timestamp or -1
+     */
+    public int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    public boolean hasRowGroupMinMax(int rowGroup, int columnIndex) {
+        return chunks.getQuick(chunkOffset(rowGroup, columnIndex) + 4) != 0;
+    }
+
+    public boolean isRequired(int columnIndex) {
+        return repetitions.getQuick(columnIndex) == REPETITION_REQUIRED;
+    }
+
+    public void of(LPSZ path) {
+        close();
+        final long len = ff.length(path);
+        if (len < MAGIC_LEN + FOOTER_TAIL_LEN) {
+            throw CairoException.instance(ff.errno()).put("not a parquet file [path=").put(path).put(']');
+        }
+        mem.of(ff, path, ff.getMapPageSize(), len, MemoryTag.MMAP_DEFAULT);
+        try {
+            fileAddress = mem.addressOf(0);
+            fileSize = len;
+            if (Unsafe.getUnsafe().getInt(fileAddress) != MAGIC || Unsafe.getUnsafe().getInt(fileAddress + len - MAGIC_LEN) != MAGIC) {
+                throw CairoException.instance(0).put("not a parquet file [path=").put(path).put(']');
+            }
+            final int footerLen = Unsafe.getUnsafe().getInt(fileAddress + len - FOOTER_TAIL_LEN);
+            final long footerHi = fileAddress + len - FOOTER_TAIL_LEN;
+            final long footerLo = footerHi - footerLen;
+            if (footerLen <= 0 || footerLo < fileAddress + MAGIC_LEN) {
+                throw CairoException.instance(0).put("corrupt parquet footer [path=").put(path).put(']');
+            }
+            readFileMetadata(footerLo, footerHi);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Locates and validates data page of the column chunk. Results are available via
+     * getPageXXX() methods.
+     */
+    public void openPage(int rowGroup, int columnIndex) {
+        final int chunk = chunkOffset(rowGroup, columnIndex);
+        final long pageOffset = chunks.getQuick(chunk);
+        if (chunks.getQuick(chunk + 1) != CODEC_UNCOMPRESSED) {
+            throw unsupported(columnIndex, "compression codec");
+        }
+        if (pageOffset < MAGIC_LEN || pageOffset >= fileSize) {
+            throw CairoException.instance(0).put("corrupt parquet column chunk [column=").put(columnNames.getQuick(columnIndex)).put(']');
+        }
+
+        int pageType = -1;
+        int compressedSize = -1;
+        int encoding = -1;
+        pageValueCount = -1;
+        thrift.of(fileAddress + pageOffset, fileAddress + fileSize);
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.readFieldHeader()) != TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 1:
+                    pageType = thrift.readI32();
+                    break;
+                case 3:
+                    compressedSize = thrift.readI32();
+                    break;
+                case 5:
+                    thrift.structBegin();
+                    int t;
+                    while ((t = thrift.readFieldHeader()) != TYPE_STOP) {
+                        switch (thrift.getFieldId()) {
+                            case 1:
+                                pageValueCount = thrift.readI32();
+                                break;
+                            case 2:
+                                encoding = thrift.readI32();
+                                break;
+                            default:
+                                thrift.skip(t);
+                                break;
+                        }
+                    }
+                    thrift.structEnd();
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        thrift.structEnd();
+
+        if (pageType != PAGE_TYPE_DATA) {
+            throw unsupported(columnIndex, "page type");
+        }
+        if (encoding != ENCODING_PLAIN) {
+            throw unsupported(columnIndex, "encoding");
+        }
+        if (pageValueCount != rowGroupRowCounts.getQuick(rowGroup)) {
+            throw unsupported(columnIndex, "multi-page column chunk");
+        }
+
+        long lo = thrift.getPosition();
+        final long hi = lo + compressedSize;
+        if (compressedSize < 0 || hi > fileAddress + fileSize) {
+            throw CairoException.instance(0).put("corrupt parquet page [column=").put(columnNames.getQuick(columnIndex)).put(']');
+        }
+        if (isRequired(columnIndex)) {
+            pageLevelsLo = pageLevelsHi = 0;
+        } else {
+            final int levelsLen = Unsafe.getUnsafe().getInt(lo);
+            pageLevelsLo = lo + Integer.BYTES;
+            pageLevelsHi = pageLevelsLo + levelsLen;
+            lo = pageLevelsHi;
+            if (levelsLen < 0 || lo > hi) {
+                throw CairoException.instance(0).put("corrupt parquet page [column=").put(columnNames.getQuick(columnIndex)).put(']');
+            }
+        }
+        pageValuesLo = lo;
+        pageValuesHi = hi;
+    }
+
+    private int chunkOffset(int rowGroup, int columnIndex) {
+        return (rowGroup * columnNames.size() + columnIndex) * CHUNK_SIZE;
+    }
+
+    private String readString() {
+        thrift.readBinary();
+        nameSink.clear();
+        Chars.utf8Decode(thrift.getBinaryAddress(), thrift.getBinaryAddress() + thrift.getBinaryLength(), nameSink);
+        return nameSink.toString();
+    }
+
+    private void readColumnChunk(int columnIndex) {
+        long pageOffset = -1;
+        long dictionaryPageOffset = -1;
+        long codec = -1;
+        long min = 0;
+        long max = 0;
+        boolean hasMin = false;
+        boolean hasMax = false;
+
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.readFieldHeader()) != TYPE_STOP) {
+            if (thrift.getFieldId() == 3) {
+                // ColumnMetaData
+                thrift.structBegin();
+                int t;
+                while ((t = thrift.readFieldHeader()) != TYPE_STOP) {
+                    switch (thrift.getFieldId()) {
+                        case 4:
+                            codec = thrift.readI32();
+                            break;
+                        case 9:
+                            pageOffset = thrift.readI64();
+                            break;
+                        case 11:
+                            dictionaryPageOffset = thrift.readI64();
+                            break;
+                        case 12:
+                            // Statistics, prefer min_value/max_value over deprecated min/max
+                            final boolean integer = physicalTypes.getQuick(columnIndex) == TYPE_INT32 || physicalTypes.getQuick(columnIndex) == TYPE_INT64;
+                            thrift.structBegin();
+                            int s;
+                            while ((s = thrift.readFieldHeader()) != TYPE_STOP) {
+                                final int id = thrift.getFieldId();
+                                if (integer && (id == 5 || (id == 1 && !hasMax))) {
+                                    max = thrift.readBinaryAsLong();
+                                    hasMax = true;
+                                } else if (integer && (id == 6 || (id == 2 && !hasMin))) {
+                                    min = thrift.readBinaryAsLong();
+                                    hasMin = true;
+                                } else {
+                                    thrift.skip(s);
+                                }
+                            }
+                            thrift.structEnd();
+                            break;
+                        default:
+                            thrift.skip(t);
+                            break;
+                    }
+                }
+                thrift.structEnd();
+            } else {
+                thrift.skip(type);
+            }
+        }
+        thrift.structEnd();
+
+        chunks.add(dictionaryPageOffset > -1 ? dictionaryPageOffset : pageOffset);
+        chunks.add(codec);
+        chunks.add(min);
+        chunks.add(max);
+        chunks.add(hasMin && hasMax ? 1 : 0);
+    }
+
+    private void readFileMetadata(long lo, long hi) {
+        thrift.of(lo, hi);
+        thrift.structBegin();
+        int type;
+        while ((type = thrift.readFieldHeader()) != TYPE_STOP) {
+            switch (thrift.getFieldId()) {
+                case 2:
+                    readSchema();
+                    break;
+                case 3:
+                    rowCount = thrift.readI64();
+                    break;
+                case 4:
+                    readRowGroups();
+                    break;
+                default:
+                    thrift.skip(type);
+                    break;
+            }
+        }
+        thrift.structEnd();
+    }
+
+    private void readRowGroups() {
+        final int rowGroupCount = thrift.readListHeader();
+        timestampIndex = -1;
+        boolean sortedByTimestamp = rowGroupCount > 0;
+        for (int g = 0; g < rowGroupCount; g++) {
+            int sortColumn = -1;
+            boolean descending = true;
+            long rows = 0;
+            thrift.structBegin();
+            int type;
+            while ((type = thrift.readFieldHeader()) != TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        final int columnCount = thrift.readListHeader();
+                        if (columnCount != columnNames.size()) {
+                            throw CairoException.instance(0).put("corrupt parquet row group [columns=").put(columnCount).put(']');
+                        }
+                        for (int i = 0; i < columnCount; i++) {
+                            readColumnChunk(i);
+                        }
+                        break;
+                    case 3:
+                        rows = thrift.readI64();
+                        break;
+                    case 4:
+                        final int sortingColumnCount = thrift.readListHeader();
+                        for (int i = 0; i < sortingColumnCount; i++) {
+                            thrift.structBegin();
+                            int t;
+                            while ((t = thrift.readFieldHeader()) != TYPE_STOP) {
+                                if (i == 0 && thrift.getFieldId() == 1) {
+                                    sortColumn = thrift.readI32();
+                                } else if (i == 0 && thrift.getFieldId() == 2) {
+                                    descending = t == ThriftCompactWriter.TYPE_BOOLEAN_TRUE;
+                                } else {
+                                    thrift.skip(t);
+                                }
+                            }
+                            thrift.structEnd();
+                        }
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.structEnd();
+            rowGroupRowCounts.add(rows);
+
+            if (g == 0) {
+                timestampIndex = sortColumn;
+            }
+            sortedByTimestamp &= !descending && sortColumn > -1 && sortColumn == timestampIndex;
+        }
+
+        // designated timestamp has to be non-null 64-bit column sorted across the whole file
+        if (sortedByTimestamp
+                && timestampIndex < columnNames.size()
+                && columnTypes.getQuick(timestampIndex) == ColumnType.TIMESTAMP
+                && isRequired(timestampIndex)) {
+            // min/max of every row group, including the first one, are needed to prune row groups by interval
+            for (int g = 0; g < rowGroupCount; g++) {
+                if (!hasRowGroupMinMax(g, timestampIndex)
+                        || (g > 0 && getRowGroupMax(g - 1, timestampIndex) > getRowGroupMin(g, timestampIndex))) {
+                    timestampIndex = -1;
+                    break;
+                }
+            }
+        } else {
+            timestampIndex = -1;
+        }
+    }
+
+    private void readSchema() {
+        final int elementCount = thrift.readListHeader();
+        for (int e = 0; e < elementCount; e++) {
+            int physicalType = -1;
+            int convertedType = CONVERTED_NONE;
+            int repetition = REPETITION_REQUIRED;
+            int childCount = 0;
+            String name = null;
+            thrift.structBegin();
+            int type;
+            while ((type = thrift.readFieldHeader()) != TYPE_STOP) {
+                switch (thrift.getFieldId()) {
+                    case 1:
+                        physicalType = thrift.readI32();
+                        break;
+                    case 3:
+                        repetition = thrift.readI32();
+                        break;
+                    case 4:
+                        name = readString();
+                        break;
+                    case 5:
+                        childCount = thrift.readI32();
+                        break;
+                    case 6:
+                        convertedType = thrift.readI32();
+                        break;
+                    default:
+                        thrift.skip(type);
+                        break;
+                }
+            }
+            thrift.structEnd();
+
+            if (e == 0) {
+                // root
+                if (childCount != elementCount - 1) {
+                    throw CairoException.instance(0).put("nested parquet schema is not supported");
+                }
+                continue;
+            }
+            if (childCount > 0 || repetition > REPETITION_OPTIONAL) {
+                throw CairoException.instance(0).put("nested parquet schema is not supported [column=").put(name).put(']');
+            }
+            columnNames.add(name);
+            physicalTypes.add(physicalType);
+            convertedTypes.add(convertedType);
+            repetitions.add(repetition);
+            columnTypes.add(toColumnType(physicalType, convertedType));
+        }
+    }
+
+    private CairoException unsupported(int columnIndex, String what) {
+        return CairoException.instance(0)
+                .put("unsupported parquet ").put(what)
+                .put(" [column=").put(columnNames.getQuick(columnIndex))
+                .put(']');
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.ColumnType;
+
+/**
+ * Subset of Apache Parquet format constants. Only the layouts produced by
+ * {@link ParquetPartitionWriter} are described here: uncompressed, PLAIN encoded,
+ * single data page per column chunk.
+ */
+public final class ParquetFormat {
+    public static final int MAGIC = 0x31524150; // "PAR1" little-endian
+    public static final int MAGIC_LEN = 4;
+    public static final int FOOTER_TAIL_LEN = 8; // footer length + magic
+
+    // physical types
+    public static final int TYPE_BOOLEAN = 0;
+    public static final int TYPE_INT32 = 1;
+    public static final int TYPE_INT64 = 2;
+    public static final int TYPE_FLOAT = 4;
+    public static final int TYPE_DOUBLE = 5;
+    public static final int TYPE_BYTE_ARRAY = 6;
+
+    // converted types
+    public static final int CONVERTED_NONE = -1;
+    public static final int CONVERTED_UTF8 = 0;
+    public static final int CONVERTED_DATE = 6;
+    public static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    public static final int CONVERTED_TIMESTAMP_MICROS = 10;
+    public static final int CONVERTED_UINT_16 = 12;
+    public static final int CONVERTED_INT_8 = 15;
+    public static final int CONVERTED_INT_16 = 16;
+    public static final int CONVERTED_INT_32 = 17;
+    public static final int CONVERTED_INT_64 = 18;
+
+    // field repetition
+    public static final int REPETITION_REQUIRED = 0;
+    public static final int REPETITION_OPTIONAL = 1;
+
+    public static final int ENCODING_PLAIN = 0;
+    public static final int ENCODING_RLE = 3;
+    public static final int CODEC_UNCOMPRESSED = 0;
+    public static final int PAGE_TYPE_DATA = 0;
+
+    private ParquetFormat() {
+    }
+
+    /**
+     * @param columnType QuestDB column type
+     * @return Parquet converted type used to annotate column of given type or {@link #CONVERTED_NONE}
+     */
+    public static int toConvertedType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                return CONVERTED_INT_8;
+            case ColumnType.SHORT:
+                return CONVERTED_INT_16;
+            case ColumnType.CHAR:
+                return CONVERTED_UINT_16;
+            case ColumnType.DATE:
+                return CONVERTED_TIMESTAMP_MILLIS;
+            case ColumnType.TIMESTAMP:
+                return CONVERTED_TIMESTAMP_MICROS;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return CONVERTED_UTF8;
+            default:
+                return CONVERTED_NONE;
+        }
+    }
+
+    /**
+     * @param columnType QuestDB column type
+     * @return Parquet physical type for given column type or -1 when column type cannot be exported
+     */
+    public static int toPhysicalType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return TYPE_BOOLEAN;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+                return TYPE_INT32;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return TYPE_INT64;
+            case ColumnType.FLOAT:
+                return TYPE_FLOAT;
+            case ColumnType.DOUBLE:
+                return TYPE_DOUBLE;
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return TYPE_BYTE_ARRAY;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Maps Parquet column schema back to QuestDB column type.
+     *
+     * @return QuestDB column type or -1 when schema element cannot be represented
+     */
+    public static int toColumnType(int physicalType, int convertedType) {
+        switch (physicalType) {
+            case TYPE_BOOLEAN:
+                return ColumnType.BOOLEAN;
+            case TYPE_INT32:
+                switch (convertedType) {
+                    case CONVERTED_INT_8:
+                        return ColumnType.BYTE;
+                    case CONVERTED_INT_16:
+                        return ColumnType.SHORT;
+                    case CONVERTED_UINT_16:
+                        return ColumnType.CHAR;
+                    case CONVERTED_DATE:
+                        return ColumnType.DATE;
+                    case CONVERTED_NONE:
+                    case CONVERTED_INT_32:
+                        return ColumnType.INT;
+                    default:
+                        return -1;
+                }
+            case TYPE_INT64:
+                switch (convertedType) {
+                    case CONVERTED_TIMESTAMP_MICROS:
+                        return ColumnType.TIMESTAMP;
+                    case CONVERTED_TIMESTAMP_MILLIS:
+                        return ColumnType.DATE;
+                    case CONVERTED_NONE:
+                    case CONVERTED_INT_64:
+                        return ColumnType.LONG;
+                    default:
+                        return -1;
+                }
+            case TYPE_FLOAT:
+                return ColumnType.FLOAT;
+            case TYPE_DOUBLE:
+                return ColumnType.DOUBLE;
+            case TYPE_BYTE_ARRAY:
+                return convertedType == CONVERTED_UTF8 || convertedType == CONVERTED_NONE ? ColumnType.STRING : -1;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cutlass.parquet.ParquetFormat.*;
+
+/**
+ * Read-only page frame cursor over Parquet file. Every row group is treated as a partition.
+ * REQUIRED 32 and 64-bit columns are presented to the consumers straight from the mapped file,
+ * other columns are decoded to QuestDB column layout on the first access to the row group and
+ * are retained until the cursor is closed, so that all returned frames stay valid at the same time.
+ * <p>
+ * When timestamp intervals are supplied, row groups are pruned using designated timestamp
+ * min/max statistics of the column chunks and the remaining row groups are trimmed to the
+ * exact row ranges via binary search.
+ */
+public class ParquetPageFrameCursor implements PageFrameCursor {
+    // frame layout: row group, row lo, row hi
+    private static final int FRAME_SIZE = 3;
+    private final ParquetFileReader reader;
+    private final int pageFrameMaxRows;
+    private final ParquetPageFrame frame = new ParquetPageFrame();
+    private final LongList frames = new LongList();
+    private final LongList columnPageAddress = new LongList();
+    private final LongList pageSizes = new LongList();
+    // value address of zero-copy column chunks, -1 when not resolved yet
+    private final LongList chunkValueAddresses = new LongList();
+    private final ObjList<MemoryCARW> dataBuffers = new ObjList<>();
+    private final ObjList<MemoryCARW> indexBuffers = new ObjList<>();
+    private final StringSink utf8Sink = new StringSink();
+    private MemoryCARW levelBuffer;
+    private int columnCount;
+    private int frameIndex;
+    private long size;
+
+    public ParquetPageFrameCursor(FilesFacade ff, int pageFrameMaxRows) {
+        this.reader = new ParquetFileReader(ff);
+        this.pageFrameMaxRows = pageFrameMaxRows;
+    }
+
+    public static boolean isZeroCopy(ParquetFileReader reader, int columnIndex) {
+        if (!reader.isRequired(columnIndex)) {
+            return false;
+        }
+        switch (reader.getPhysicalType(columnIndex)) {
+            case TYPE_INT32:
+                return reader.getColumnType(columnIndex) == ColumnType.INT;
+            case TYPE_INT64:
+            case TYPE_FLOAT:
+            case TYPE_DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(dataBuffers);
+        Misc.freeObjListAndClear(indexBuffers);
+        levelBuffer = Misc.free(levelBuffer);
+        reader.close();
+        frames.clear();
+        chunkValueAddresses.clear();
+    }
+
+    public ParquetFileReader getReader() {
+        return reader;
+    }
+
+    @Override
+    public StaticSymbolTable getSymbolTable(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public long getUpdateRowId(long rowIndex) {
+        return Rows.toRowID(frame.rowGroup, frame.rowLo + rowIndex);
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return null;
+    }
+
+    @Override
+    public @Nullable PageFrame next() {
+        if (frameIndex * FRAME_SIZE < frames.size()) {
+            final int offset = frameIndex++ * FRAME_SIZE;
+            final int rowGroup = (int) frames.getQuick(offset);
+            final long lo = frames.getQuick(offset + 1);
+            final long hi = frames.getQuick(offset + 2);
+            for (int i = 0; i < columnCount; i++) {
+                final int columnType = reader.getColumnType(i);
+                if (ColumnType.isVariableLength(columnType)) {
+                    final int chunk = decodeChunk(rowGroup, i);
+                    final MemoryCARW data = dataBuffers.getQuick(chunk);
+                    final MemoryCARW index = indexBuffers.getQuick(chunk);
+                    columnPageAddress.setQuick(i * 2, data.getAddress());
+                    columnPageAddress.setQuick(i * 2 + 1, index.getAddress() + lo * Long.BYTES);
+                    pageSizes.setQuick(i * 2, data.getAppendOffset());
+                    pageSizes.setQuick(i * 2 + 1, (hi - lo) * Long.BYTES);
+                } else {
+                    final int shift = ColumnType.pow2SizeOf(columnType);
+                    final long address;
+                    if (isZeroCopy(reader, i)) {
+                        address = chunkValueAddress(rowGroup, i);
+                    } else {
+                        address = dataBuffers.getQuick(decodeChunk(rowGroup, i)).getAddress();
+                    }
+                    columnPageAddress.setQuick(i * 2, address + (lo << shift));
+                    columnPageAddress.setQuick(i * 2 + 1, 0);
+                    pageSizes.setQuick(i * 2, (hi - lo) << shift);
+                    pageSizes.setQuick(i * 2 + 1, 0);
+                }
+            }
+            frame.rowGroup = rowGroup;
+            frame.rowLo = lo;
+            frame.rowHi = hi;
+            return frame;
+        }
+        return null;
+    }
+
+    /**
+     * Opens Parquet file and computes page frames.
+     *
+     * @param path      file path
+     * @param intervals sorted timestamp intervals as lo/hi pairs, inclusive, or null to read all rows
+     */
+    public ParquetPageFrameCursor of(LPSZ path, @Nullable LongList intervals) {
+        close();
+        reader.of(path);
+        columnCount = reader.getColumnCount();
+        columnPageAddress.setAll(columnCount * 2, 0);
+        pageSizes.setAll(columnCount * 2, 0);
+        final int chunkCount = reader.getRowGroupCount() * columnCount;
+        chunkValueAddresses.setAll(chunkCount, -1);
+        dataBuffers.setPos(chunkCount);
+        indexBuffers.setPos(chunkCount);
+
+        final int timestampIndex = reader.getTimestampIndex();
+        size = 0;
+        for (int g = 0, n = reader.getRowGroupCount(); g < n; g++) {
+            final long rowCount = reader.getRowGroupRowCount(g);
+            if (rowCount == 0) {
+                continue;
+            }
+            if (intervals == null || timestampIndex < 0) {
+                addFrames(g, 0, rowCount);
+                continue;
+            }
+
+            final long min = reader.getRowGroupMin(g, timestampIndex);
+            final long max = reader.getRowGroupMax(g, timestampIndex);
+            final long timestamps = chunkValueAddress(g, timestampIndex);
+            for (int i = 0, m = intervals.size(); i < m; i += 2) {
+                final long intervalLo = intervals.getQuick(i);
+                final long intervalHi = intervals.getQuick(i + 1);
+                if (intervalHi < min) {
+                    break;
+                }
+                if (intervalLo > max) {
+                    continue;
+                }
+                final long lo = intervalLo <= min ? 0 : lowerBound(timestamps, rowCount, intervalLo);
+                final long hi = intervalHi >= max ? rowCount : lowerBound(timestamps, rowCount, intervalHi + 1);
+                addFrames(g, lo, hi);
+            }
+        }
+        toTop();
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void toTop() {
+        frameIndex = 0;
+    }
+
+    private static long lowerBound(long address, long count, long value) {
+        long lo = 0;
+        long hi = count;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (Unsafe.getUnsafe().getLong(address + (mid << 3)) < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void addFrames(int rowGroup, long lo, long hi) {
+        size += hi - lo;
+        while (lo < hi) {
+            final long frameHi = Math.min(hi, lo + pageFrameMaxRows);
+            frames.add(rowGroup);
+            frames.add(lo);
+            frames.add(frameHi);
+            lo = frameHi;
+        }
+    }
+
+    private long chunkValueAddress(int rowGroup, int columnIndex) {
+        final int chunk = rowGroup * columnCount + columnIndex;
+        long address = chunkValueAddresses.getQuick(chunk);
+        if (address == -1) {
+            reader.openPage(rowGroup, columnIndex);
+            final long expected = reader.getPageValueCount() << ColumnType.pow2SizeOf(reader.getColumnType(columnIndex));
+            if (reader.getPageValuesHi() - reader.getPageValuesLo() < expected) {
+                throw corruptPage(columnIndex);
+            }
+            address = reader.getPageValuesLo();
+            chunkValueAddresses.setQuick(chunk, address);
+        }
+        return address;
+    }
+
+    private CairoException corruptPage(int columnIndex) {
+        return CairoException.instance(0).put("corrupt parquet page [column=").put(reader.getColumnName(columnIndex)).put(']');
+    }
+
+    private int decodeChunk(int rowGroup, int columnIndex) {
+        final int chunk = rowGroup * columnCount + columnIndex;
+        if (dataBuffers.getQuick(chunk) != null) {
+            return chunk;
+        }
+
+        reader.openPage(rowGroup, columnIndex);
+        final long rowCount = reader.getPageValueCount();
+        final int columnType = reader.getColumnType(columnIndex);
+        final long levels = decodeLevels(rowCount);
+
+        final MemoryCARW data = Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        dataBuffers.setQuick(chunk, data);
+        long p = reader.getPageValuesLo();
+        final long lim = reader.getPageValuesHi();
+
+        if (ColumnType.isVariableLength(columnType)) {
+            final MemoryCARW index = Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+            indexBuffers.setQuick(chunk, index);
+            index.extend((rowCount + 1) * Long.BYTES);
+            for (long r = 0; r < rowCount; r++) {
+                index.putLong(data.getAppendOffset());
+                if (levels != 0 && Unsafe.getUnsafe().getByte(levels + r) == 0) {
+                    data.putNullStr();
+                    continue;
+                }
+                if (p + Integer.BYTES > lim) {
+                    throw corruptPage(columnIndex);
+                }
+                final int len = Unsafe.getUnsafe().getInt(p);
+                p += Integer.BYTES;
+                if (len < 0 || p + len > lim) {
+                    throw corruptPage(columnIndex);
+                }
+                utf8Sink.clear();
+                Chars.utf8Decode(p, p + len, utf8Sink);
+                data.putStr(utf8Sink);
+                p += len;
+            }
+            index.putLong(data.getAppendOffset());
+            return chunk;
+        }
+
+        final int physicalType = reader.getPhysicalType(columnIndex);
+        final int valueSize = physicalType == TYPE_INT64 || physicalType == TYPE_DOUBLE ? 8 : 4;
+        data.extend(rowCount << ColumnType.pow2SizeOf(columnType));
+        long valueIndex = 0;
+        for (long r = 0; r < rowCount; r++) {
+            final boolean isNull = levels != 0 && Unsafe.getUnsafe().getByte(levels + r) == 0;
+            if (physicalType == TYPE_BOOLEAN) {
+                boolean value = false;
+                if (!isNull) {
+                    final long address = p + (valueIndex >>> 3);
+                    if (address >= lim) {
+                        throw corruptPage(columnIndex);
+                    }
+                    value = (Unsafe.getUnsafe().getByte(address) & (1 << (valueIndex & 7))) != 0;
+                    valueIndex++;
+                }
+                data.putBool(value);
+                continue;
+            }
+
+            long value = 0;
+            if (!isNull) {
+                if (p + valueSize > lim) {
+                    throw corruptPage(columnIndex);
+                }
+                value = valueSize == 8 ? Unsafe.getUnsafe().getLong(p) : Unsafe.getUnsafe().getInt(p);
+                p += valueSize;
+            }
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.BYTE:
+                    data.putByte((byte) value);
+                    break;
+                case ColumnType.SHORT:
+                    data.putShort((short) value);
+                    break;
+                case ColumnType.CHAR:
+                    data.putChar((char) value);
+                    break;
+                case ColumnType.INT:
+                    data.putInt(isNull ? Numbers.INT_NaN : (int) value);
+                    break;
+                case ColumnType.FLOAT:
+                    data.putFloat(isNull ? Float.NaN : Float.intBitsToFloat((int) value));
+                    break;
+                case ColumnType.DOUBLE:
+                    data.putDouble(isNull ? Double.NaN : Double.longBitsToDouble(value));
+                    break;
+                case ColumnType.DATE:
+                    if (physicalType == TYPE_INT32) {
+                        // days since epoch
+                        data.putLong(isNull ? Numbers.LONG_NaN : value * Timestamps.DAY_MICROS / 1000);
+                    } else {
+                        data.putLong(isNull ? Numbers.LONG_NaN : value);
+                    }
+                    break;
+                default:
+                    data.putLong(isNull ? Numbers.LONG_NaN : value);
+                    break;
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Expands definition levels of the current page into one byte per value.
+     *
+     * @return address of the levels or 0 when column is REQUIRED
+     */
+    private long decodeLevels(long rowCount) {
+        long p = reader.getPageLevelsLo();
+        if (p == 0) {
+            return 0;
+        }
+        final long lim = reader.getPageLevelsHi();
+        if (levelBuffer == null) {
+            levelBuffer = Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        }
+        levelBuffer.jumpTo(0);
+        levelBuffer.extend(rowCount);
+        long r = 0;
+        // RLE/bit-packed hybrid with bit width of 1
+        while (r < rowCount && p < lim) {
+            long header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = Unsafe.getUnsafe().getByte(p++);
+                header |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && p < lim);
+
+            if ((header & 1) != 0) {
+                final long groups = header >>> 1;
+                for (long i = 0; i < groups && p < lim; i++) {
+                    final int bits = Unsafe.getUnsafe().getByte(p++);
+                    for (int bit = 0; bit < 8 && r < rowCount; bit++, r++) {
+                        levelBuffer.putByte((byte) ((bits >>> bit) & 1));
+                    }
+                }
+            } else {
+                final long runLength = header >>> 1;
+                final byte value = p < lim ? Unsafe.getUnsafe().getByte(p++) : 0;
+                for (long i = 0; i < runLength && r < rowCount; i++, r++) {
+                    levelBuffer.putByte(value);
+                }
+            }
+        }
+        // levels missing from the page are treated as nulls
+        for (; r < rowCount; r++) {
+            levelBuffer.putByte((byte) 0);
+        }
+        return levelBuffer.getAddress();
+    }
+
+    private class ParquetPageFrame implements PageFrame {
+        private int rowGroup;
+        private long rowLo;
+        private long rowHi;
+
+        @Override
+        public void copyColumnAddressesTo(LongList destColumnAddresses) {
+            destColumnAddresses.add(columnPageAddress);
+        }
+
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward) {
+            return null;
+        }
+
+        @Override
+        public int getColumnShiftBits(int columnIndex) {
+            final int columnType = reader.getColumnType(columnIndex);
+            return ColumnType.isVariableLength(columnType) ? -1 : ColumnType.pow2SizeOf(columnType);
+        }
+
+        @Override
+        public long getIndexPageAddress(int columnIndex) {
+            return columnPageAddress.getQuick(columnIndex * 2 + 1);
+        }
+
+        @Override
+        public long getPageAddress(int columnIndex) {
+            return columnPageAddress.getQuick(columnIndex * 2);
+        }
+
+        @Override
+        public long getPageSize(int columnIndex) {
+            return pageSizes.getQuick(columnIndex * 2);
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return rowGroup;
+        }
+
+        @Override
+        public long getPartitionHi() {
+            return rowHi;
+        }
+
+        @Override
+        public long getPartitionLo() {
+            return rowLo;
+        }
+    }
+}
@@ -0,0 +1,537 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.NullMemoryMR;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+import static io.questdb.cutlass.parquet.ParquetFormat.*;
+
+/**
+ * Writes table partitions as Parquet files. Each partition becomes a single file, which
+ * is split into row groups of configurable size. Column chunks consist of one uncompressed
+ * PLAIN encoded data page. Fixed-width 32 and 64-bit columns are written to the file
+ * straight from the mapped column memory, their NULL values are kept as QuestDB sentinels
+ * and columns are declared REQUIRED. STRING and SYMBOL columns are written as OPTIONAL UTF8
+ * byte arrays.
+ */
+public class ParquetPartitionWriter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ParquetPartitionWriter.class);
+    // chunk info layout: offset, size, min, max, stats kind, null count
+    private static final int CHUNK_INFO_SIZE = 6;
+    private static final int STATS_NONE = 0;
+    private static final int STATS_MIN_MAX_32 = 1;
+    private static final int STATS_MIN_MAX_64 = 2;
+    private static final long FLUSH_THRESHOLD = 1024 * 1024;
+    private final FilesFacade ff;
+    private final long rowGroupSize;
+    private final MemoryCARW buf = Vm.getCARWInstance(64 * 1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+    private final ThriftCompactWriter thrift = new ThriftCompactWriter();
+    private final LongList chunkInfo = new LongList();
+    private final LongList rowGroupInfo = new LongList();
+    private final IntList symbolUtf8Lengths = new IntList();
+    private final long fileOpts;
+    private long fd = -1;
+    private long fileOffset;
+
+    public ParquetPartitionWriter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.rowGroupSize = configuration.getSqlExportRowGroupSize();
+        this.fileOpts = configuration.getWriterFileOpenOpts();
+    }
+
+    public static void validate(TableReaderMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (toPhysicalType(columnType) == -1) {
+                throw CairoException.instance(0)
+                        .put("unsupported column type [column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+        buf.close();
+    }
+
+    /**
+     * Writes partition to Parquet file. Reader has to be positioned at the transaction
+     * that is being exported, caller is responsible for validating column types via
+     * {@link #validate(TableReaderMetadata)}.
+     *
+     * @param reader         table reader
+     * @param partitionIndex index of the partition in the reader
+     * @param path           file to be created or overwritten
+     * @return number of rows written
+     */
+    public long write(TableReader reader, int partitionIndex, LPSZ path) {
+        final long partitionRowCount = reader.openPartition(partitionIndex);
+        final TableReaderMetadata metadata = reader.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+
+        fd = ff.openRW(path, fileOpts);
+        if (fd < 0) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+        }
+        try {
+            if (!ff.truncate(fd, 0)) {
+                throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(path).put(']');
+            }
+            fileOffset = 0;
+            chunkInfo.clear();
+            rowGroupInfo.clear();
+            buf.jumpTo(0);
+            buf.putInt(MAGIC);
+
+            final int base = reader.getColumnBase(partitionIndex);
+            for (long lo = 0; lo < partitionRowCount; lo += rowGroupSize) {
+                final long hi = Math.min(partitionRowCount, lo + rowGroupSize);
+                final long rowGroupOffset = fileOffset + buf.getAppendOffset();
+                for (int i = 0; i < columnCount; i++) {
+                    writeColumnChunk(reader, base, i, metadata.getColumnType(i), lo, hi, partitionRowCount);
+                }
+                rowGroupInfo.add(hi - lo);
+                rowGroupInfo.add(rowGroupOffset);
+                rowGroupInfo.add(fileOffset + buf.getAppendOffset() - rowGroupOffset);
+            }
+
+            final long footerOffset = fileOffset + buf.getAppendOffset();
+            writeFileMetadata(metadata, partitionRowCount);
+            buf.putInt((int) (fileOffset + buf.getAppendOffset() - footerOffset));
+            buf.putInt(MAGIC);
+            flush();
+            LOG.info().$("exported [path=").$(path)
+                    .$(", rows=").$(partitionRowCount)
+                    .$(", rowGroups=").$(rowGroupInfo.size() / 3)
+                    .$(", size=").$(fileOffset)
+                    .I$();
+            return partitionRowCount;
+        } finally {
+            closeFile();
+        }
+    }
+
+    private static long nullOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+                return Numbers.INT_NaN;
+            case ColumnType.FLOAT:
+                return Float.floatToRawIntBits(Float.NaN);
+            case ColumnType.DOUBLE:
+                return Double.doubleToRawLongBits(Double.NaN);
+            default:
+                return Numbers.LONG_NaN;
+        }
+    }
+
+    private void addChunkInfo(long chunkOffset, int statsKind, long min, long max, long nullCount) {
+        chunkInfo.add(chunkOffset);
+        chunkInfo.add(fileOffset + buf.getAppendOffset() - chunkOffset);
+        chunkInfo.add(min);
+        chunkInfo.add(max);
+        chunkInfo.add(statsKind);
+        chunkInfo.add(nullCount);
+    }
+
+    private void closeFile() {
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    private void flush() {
+        final long len = buf.getAppendOffset();
+        if (len > 0) {
+            writeFully(buf.getAddress(), len);
+            buf.jumpTo(0);
+        }
+    }
+
+    private void maybeFlush() {
+        if (buf.getAppendOffset() > FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private int symbolUtf8Length(SymbolTable symbolTable, int key) {
+        int len = symbolUtf8Lengths.getQuick(key);
+        if (len == -1) {
+            len = ThriftCompactWriter.utf8Length(symbolTable.valueOf(key));
+            symbolUtf8Lengths.setQuick(key, len);
+        }
+        return len;
+    }
+
+    private void writeBooleanChunk(MemoryR col, long top, long lo, long hi) {
+        final long count = hi - lo;
+        writePageHeader(count, (count + 7) >>> 3);
+        int bits = 0;
+        int bitCount = 0;
+        for (long r = lo; r < hi; r++) {
+            if (r >= top && col.getByte(r - top) != 0) {
+                bits |= 1 << bitCount;
+            }
+            if (++bitCount == 8) {
+                buf.putByte((byte) bits);
+                bits = 0;
+                bitCount = 0;
+                maybeFlush();
+            }
+        }
+        if (bitCount > 0) {
+            buf.putByte((byte) bits);
+        }
+    }
+
+    private void writeColumnChunk(TableReader reader, int base, int columnIndex, int columnType, long lo, long hi, long partitionRowCount) {
+        final int primaryIndex = TableReader.getPrimaryColumnIndex(base, columnIndex);
+        final MemoryR col = reader.getColumn(primaryIndex);
+        final long top = col instanceof NullMemoryMR ? partitionRowCount : reader.getColumnTop(base, columnIndex);
+        final long chunkOffset = fileOffset + buf.getAppendOffset();
+
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                writeBooleanChunk(col, top, lo, hi);
+                addChunkInfo(chunkOffset, STATS_NONE, 0, 0, 0);
+                break;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                writeWideningChunk(col, columnType, top, lo, hi, chunkOffset);
+                break;
+            case ColumnType.INT:
+            case ColumnType.FLOAT:
+                writeDirectChunk(col, columnType, 2, top, lo, hi, chunkOffset);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+                writeDirectChunk(col, columnType, 3, top, lo, hi, chunkOffset);
+                break;
+            case ColumnType.STRING:
+                writeStringChunk(col, reader.getColumn(primaryIndex + 1), null, top, lo, hi, chunkOffset);
+                break;
+            case ColumnType.SYMBOL:
+                final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(columnIndex);
+                symbolUtf8Lengths.setAll(symbolMapReader.getSymbolCount(), -1);
+                writeStringChunk(col, null, symbolMapReader, top, lo, hi, chunkOffset);
+                break;
+            default:
+                throw CairoException.instance(0).put("unsupported column type [type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+    }
+
+    private void writeDirectChunk(MemoryR col, int columnType, int shift, long top, long lo, long hi, long chunkOffset) {
+        writePageHeader(hi - lo, (hi - lo) << shift);
+
+        final boolean integer = columnType != ColumnType.FLOAT && columnType != ColumnType.DOUBLE;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        // implicit nulls above column top
+        final long nullHi = Math.min(hi, top);
+        if (lo < nullHi) {
+            final long nullValue = nullOf(columnType);
+            for (long r = lo; r < nullHi; r++) {
+                if (shift == 2) {
+                    buf.putInt((int) nullValue);
+                } else {
+                    buf.putLong(nullValue);
+                }
+                maybeFlush();
+            }
+            min = max = nullValue;
+        }
+        flush();
+
+        final long dataLo = Math.max(lo, top);
+        if (dataLo < hi) {
+            final long address = col.getPageAddress(0) + ((dataLo - top) << shift);
+            final long len = (hi - dataLo) << shift;
+            if (integer) {
+                for (long p = address, lim = address + len; p < lim; p += 1L << shift) {
+                    final long v = shift == 2 ? Unsafe.getUnsafe().getInt(p) : Unsafe.getUnsafe().getLong(p);
+                    if (v < min) {
+                        min = v;
+                    }
+                    if (v > max) {
+                        max = v;
+                    }
+                }
+            }
+            writeFully(address, len);
+        }
+
+        if (integer && lo < hi) {
+            addChunkInfo(chunkOffset, shift == 2 ? STATS_MIN_MAX_32 : STATS_MIN_MAX_64, min, max, -1);
+        } else {
+            addChunkInfo(chunkOffset, STATS_NONE, 0, 0, -1);
+        }
+    }
+
+    private void writeFileMetadata(TableReaderMetadata metadata, long rowCount) {
+        final int columnCount = metadata.getColumnCount();
+        final int timestampIndex = metadata.getTimestampIndex();
+        final int rowGroupCount = rowGroupInfo.size() / 3;
+
+        thrift.of(buf);
+        thrift.structBegin();
+        thrift.fieldI32(1, 1);
+        thrift.fieldList(2, ThriftCompactWriter.TYPE_STRUCT, columnCount + 1);
+        thrift.structBegin();
+        thrift.fieldString(4, "schema");
+        thrift.fieldI32(5, columnCount);
+        thrift.structEnd();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            final int convertedType = toConvertedType(columnType);
+            thrift.structBegin();
+            thrift.fieldI32(1, toPhysicalType(columnType));
+            thrift.fieldI32(3, ColumnType.isSymbolOrString(columnType) ? REPETITION_OPTIONAL : REPETITION_REQUIRED);
+            thrift.fieldString(4, metadata.getColumnName(i));
+            if (convertedType != CONVERTED_NONE) {
+                thrift.fieldI32(6, convertedType);
+            }
+            thrift.structEnd();
+        }
+        thrift.fieldI64(3, rowCount);
+        thrift.fieldList(4, ThriftCompactWriter.TYPE_STRUCT, rowGroupCount);
+        for (int g = 0; g < rowGroupCount; g++) {
+            final long rowGroupRows = rowGroupInfo.getQuick(g * 3);
+            final long rowGroupBytes = rowGroupInfo.getQuick(g * 3 + 2);
+            thrift.structBegin();
+            thrift.fieldList(1, ThriftCompactWriter.TYPE_STRUCT, columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final int info = (g * columnCount + i) * CHUNK_INFO_SIZE;
+                final long chunkOffset = chunkInfo.getQuick(info);
+                final long chunkSize = chunkInfo.getQuick(info + 1);
+                final int statsKind = (int) chunkInfo.getQuick(info + 4);
+                final long nullCount = chunkInfo.getQuick(info + 5);
+
+                thrift.structBegin();
+                thrift.fieldI64(2, chunkOffset);
+                thrift.fieldStructBegin(3);
+                thrift.fieldI32(1, toPhysicalType(metadata.getColumnType(i)));
+                thrift.fieldList(2, ThriftCompactWriter.TYPE_I32, 2);
+                thrift.i32(ENCODING_PLAIN);
+                thrift.i32(ENCODING_RLE);
+                thrift.fieldList(3, ThriftCompactWriter.TYPE_BINARY, 1);
+                thrift.string(metadata.getColumnName(i));
+                thrift.fieldI32(4, CODEC_UNCOMPRESSED);
+                thrift.fieldI64(5, rowGroupRows);
+                thrift.fieldI64(6, chunkSize);
+                thrift.fieldI64(7, chunkSize);
+                thrift.fieldI64(9, chunkOffset);
+                if (statsKind != STATS_NONE || nullCount > -1) {
+                    thrift.fieldStructBegin(12);
+                    if (nullCount > -1) {
+                        thrift.fieldI64(3, nullCount);
+                    }
+                    if (statsKind != STATS_NONE) {
+                        final int size = statsKind == STATS_MIN_MAX_32 ? Integer.BYTES : Long.BYTES;
+                        thrift.fieldBinary(5, chunkInfo.getQuick(info + 3), size);
+                        thrift.fieldBinary(6, chunkInfo.getQuick(info + 2), size);
+                    }
+                    thrift.structEnd();
+                }
+                thrift.structEnd();
+                thrift.structEnd();
+            }
+            thrift.fieldI64(2, rowGroupBytes);
+            thrift.fieldI64(3, rowGroupRows);
+            if (timestampIndex > -1) {
+                thrift.fieldList(4, ThriftCompactWriter.TYPE_STRUCT, 1);
+                thrift.structBegin();
+                thrift.fieldI32(1, timestampIndex);
+                thrift.fieldBool(2, false);
+                thrift.fieldBool(3, false);
+                thrift.structEnd();
+            }
+            thrift.fieldI64(5, rowGroupInfo.getQuick(g * 3 + 1));
+            thrift.fieldI64(6, rowGroupBytes);
+            thrift.structEnd();
+        }
+        thrift.fieldString(6, "QuestDB");
+        thrift.structEnd();
+        thrift.clear();
+    }
+
+    private void writeFully(long address, long len) {
+        while (len > 0) {
+            final long written = ff.write(fd, address, len, fileOffset);
+            if (written <= 0) {
+                throw CairoException.instance(ff.errno()).put("could not write parquet file [fd=").put(fd)
+                        .put(", offset=").put(fileOffset)
+                        .put(", len=").put(len)
+                        .put(']');
+            }
+            fileOffset += written;
+            address += written;
+            len -= written;
+        }
+    }
+
+    private void writePageHeader(long valueCount, long pageSize) {
+        if (pageSize > Integer.MAX_VALUE) {
+            throw CairoException.instance(0).put("parquet page is too large, reduce row group size [size=").put(pageSize).put(']');
+        }
+        thrift.of(buf);
+        thrift.structBegin();
+        thrift.fieldI32(1, PAGE_TYPE_DATA);
+        thrift.fieldI32(2, (int) pageSize);
+        thrift.fieldI32(3, (int) pageSize);
+        thrift.fieldStructBegin(5);
+        thrift.fieldI32(1, (int) valueCount);
+        thrift.fieldI32(2, ENCODING_PLAIN);
+        thrift.fieldI32(3, ENCODING_RLE);
+        thrift.fieldI32(4, ENCODING_RLE);
+        thrift.structEnd();
+        thrift.structEnd();
+        thrift.clear();
+    }
+
+    private void writeStringChunk(MemoryR col, MemoryR indexCol, SymbolTable symbolTable, long top, long lo, long hi, long chunkOffset) {
+        // first pass sizes the page, page header precedes the data
+        long valueBytes = 0;
+        long nullCount = 0;
+        for (long r = lo; r < hi; r++) {
+            if (r < top) {
+                nullCount++;
+            } else if (symbolTable != null) {
+                final int key = col.getInt((r - top) * Integer.BYTES);
+                if (key == SymbolTable.VALUE_IS_NULL) {
+                    nullCount++;
+                } else {
+                    valueBytes += Integer.BYTES + symbolUtf8Length(symbolTable, key);
+                }
+            } else {
+                final CharSequence value = col.getStr(indexCol.getLong((r - top) * Long.BYTES));
+                if (value == null) {
+                    nullCount++;
+                } else {
+                    valueBytes += Integer.BYTES + ThriftCompactWriter.utf8Length(value);
+                }
+            }
+        }
+
+        // definition levels are bit-packed with bit width of 1, single run
+        final long count = hi - lo;
+        final long groupCount = (count + 7) >>> 3;
+        final long runHeader = (groupCount << 1) | 1;
+        final int runHeaderSize = (64 - Long.numberOfLeadingZeros(runHeader) + 6) / 7;
+        final long levelsSize = runHeaderSize + groupCount;
+        writePageHeader(count, Integer.BYTES + levelsSize + valueBytes);
+
+        buf.putInt((int) levelsSize);
+        ThriftCompactWriter.putVarint(buf, runHeader);
+        int bits = 0;
+        int bitCount = 0;
+        for (long r = lo; r < hi; r++) {
+            if (r >= top) {
+                final boolean notNull = symbolTable != null
+                        ? col.getInt((r - top) * Integer.BYTES) != SymbolTable.VALUE_IS_NULL
+                        : col.getStrLen(indexCol.getLong((r - top) * Long.BYTES)) != TableUtils.NULL_LEN;
+                if (notNull) {
+                    bits |= 1 << bitCount;
+                }
+            }
+            if (++bitCount == 8) {
+                buf.putByte((byte) bits);
+                bits = 0;
+                bitCount = 0;
+            }
+        }
+        if (bitCount > 0) {
+            buf.putByte((byte) bits);
+        }
+
+        for (long r = Math.max(lo, top); r < hi; r++) {
+            final CharSequence value;
+            final int len;
+            if (symbolTable != null) {
+                final int key = col.getInt((r - top) * Integer.BYTES);
+                if (key == SymbolTable.VALUE_IS_NULL) {
+                    continue;
+                }
+                value = symbolTable.valueOf(key);
+                len = symbolUtf8Length(symbolTable, key);
+            } else {
+                value = col.getStr(indexCol.getLong((r - top) * Long.BYTES));
+                if (value == null) {
+                    continue;
+                }
+                len = ThriftCompactWriter.utf8Length(value);
+            }
+            buf.putInt(len);
+            ThriftCompactWriter.putUtf8(buf, value);
+            maybeFlush();
+        }
+        addChunkInfo(chunkOffset, STATS_NONE, 0, 0, nullCount);
+    }
+
+    private void writeWideningChunk(MemoryR col, int columnType, long top, long lo, long hi, long chunkOffset) {
+        writePageHeader(hi - lo, (hi - lo) << 2);
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (long r = lo; r < hi; r++) {
+            int v = 0;
+            if (r >= top) {
+                switch (ColumnType.tagOf(columnType)) {
+                    case ColumnType.BYTE:
+                        v = col.getByte(r - top);
+                        break;
+                    case ColumnType.SHORT:
+                        v = col.getShort((r - top) * Short.BYTES);
+                        break;
+                    default:
+                        v = col.getChar((r - top) * Character.BYTES);
+                        break;
+                }
+            }
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            buf.putInt(v);
+            maybeFlush();
+        }
+        addChunkInfo(chunkOffset, lo < hi ? STATS_MIN_MAX_32 : STATS_NONE, min, max, -1);
+    }
+}
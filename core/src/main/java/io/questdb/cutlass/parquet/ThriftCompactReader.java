@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.IntList;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+import static io.questdb.cutlass.parquet.ThriftCompactWriter.*;
+
+/**
+ * Reader counterpart of {@link ThriftCompactWriter}. Reads Thrift compact protocol
+ * directly from native memory, which is typically mapped Parquet file.
+ */
+public class ThriftCompactReader implements Mutable {
+    private final IntList fieldIdStack = new IntList();
+    private long base;
+    private long position;
+    private long limit;
+    private int lastFieldId;
+    private int fieldId;
+    private int listElementType;
+    // binary value location
+    private long binaryAddress;
+    private int binaryLength;
+
+    @Override
+    public void clear() {
+        fieldIdStack.clear();
+        lastFieldId = 0;
+        position = limit = 0;
+    }
+
+    public long getBinaryAddress() {
+        return binaryAddress;
+    }
+
+    public int getBinaryLength() {
+        return binaryLength;
+    }
+
+    public int getFieldId() {
+        return fieldId;
+    }
+
+    public int getListElementType() {
+        return listElementType;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public ThriftCompactReader of(long lo, long hi) {
+        clear();
+        this.base = lo;
+        this.position = lo;
+        this.limit = hi;
+        return this;
+    }
+
+    /**
+     * Reads binary value, its address and length are available via
+     * {@link #getBinaryAddress()} and {@link #getBinaryLength()}
+     */
+    public void readBinary() {
+        binaryLength = (int) readVarint();
+        if (binaryLength < 0 || position + binaryLength > limit) {
+            throw corrupt();
+        }
+        binaryAddress = position;
+        position += binaryLength;
+    }
+
+    /**
+     * Reads binary value as little-endian integer of up to 8 bytes, which is how
+     * Parquet statistics encode INT32 and INT64 values.
+     */
+    public long readBinaryAsLong() {
+        readBinary();
+        long value = 0;
+        for (int i = 0, n = Math.min(binaryLength, 8); i < n; i++) {
+            value |= (Unsafe.getUnsafe().getByte(binaryAddress + i) & 0xffL) << (i << 3);
+        }
+        if (binaryLength == 4) {
+            value = (int) value;
+        }
+        return value;
+    }
+
+    /**
+     * Reads next field header of current struct.
+     *
+     * @return field type, {@link ThriftCompactWriter#TYPE_STOP} means end of struct
+     */
+    public int readFieldHeader() {
+        final int b = readByte() & 0xff;
+        final int type = b & 0x0f;
+        if (type == TYPE_STOP) {
+            return TYPE_STOP;
+        }
+        final int delta = b >>> 4;
+        if (delta == 0) {
+            fieldId = (short) unzigzag(readVarint());
+        } else {
+            fieldId = lastFieldId + delta;
+        }
+        lastFieldId = fieldId;
+        return type;
+    }
+
+    public int readI32() {
+        return (int) unzigzag(readVarint());
+    }
+
+    public long readI64() {
+        return unzigzag(readVarint());
+    }
+
+    /**
+     * @return list size, element type is available via {@link #getListElementType()}
+     */
+    public int readListHeader() {
+        final int b = readByte() & 0xff;
+        listElementType = b & 0x0f;
+        int size = b >>> 4;
+        if (size == 15) {
+            size = (int) readVarint();
+        }
+        if (size < 0) {
+            throw corrupt();
+        }
+        return size;
+    }
+
+    public void skip(int type) {
+        switch (type) {
+            case TYPE_BOOLEAN_TRUE:
+            case TYPE_BOOLEAN_FALSE:
+                break;
+            case TYPE_BYTE:
+                readByte();
+                break;
+            case TYPE_I16:
+            case TYPE_I32:
+            case TYPE_I64:
+                readVarint();
+                break;
+            case TYPE_DOUBLE:
+                skipBytes(8);
+                break;
+            case TYPE_BINARY:
+                readBinary();
+                break;
+            case TYPE_LIST:
+            case TYPE_SET: {
+                final int size = readListHeader();
+                final int elementType = listElementType;
+                for (int i = 0; i < size; i++) {
+                    // booleans in collections occupy one byte each
+                    if (elementType == TYPE_BOOLEAN_TRUE || elementType == TYPE_BOOLEAN_FALSE) {
+                        readByte();
+                    } else {
+                        skip(elementType);
+                    }
+                }
+                break;
+            }
+            case TYPE_MAP: {
+                final int size = (int) readVarint();
+                if (size > 0) {
+                    final int types = readByte() & 0xff;
+                    for (int i = 0; i < size; i++) {
+                        skip(types >>> 4);
+                        skip(types & 0x0f);
+                    }
+                }
+                break;
+            }
+            case TYPE_STRUCT:
+                structBegin();
+                int t;
+                while ((t = readFieldHeader()) != TYPE_STOP) {
+                    skip(t);
+                }
+                structEnd();
+                break;
+            default:
+                throw corrupt();
+        }
+    }
+
+    public void structBegin() {
+        fieldIdStack.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    public void structEnd() {
+        final int top = fieldIdStack.size() - 1;
+        lastFieldId = fieldIdStack.getQuick(top);
+        fieldIdStack.setPos(top);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private CairoException corrupt() {
+        return CairoException.instance(0).put("corrupt parquet metadata [offset=").put(position - base).put(']');
+    }
+
+    private byte readByte() {
+        if (position >= limit) {
+            throw corrupt();
+        }
+        return Unsafe.getUnsafe().getByte(position++);
+    }
+
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 63) {
+                throw corrupt();
+            }
+        }
+    }
+
+    private void skipBytes(int count) {
+        if (position + count > limit) {
+            throw corrupt();
+        }
+        position += count;
+    }
+}
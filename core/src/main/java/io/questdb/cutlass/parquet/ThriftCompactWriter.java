@@ -0,0 +1,206 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.parquet;
+
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.std.IntList;
+import io.questdb.std.Mutable;
+
+/**
+ * Minimal writer of Apache Thrift "compact" protocol, which is the encoding of
+ * Parquet file and page metadata. Values are appended to the supplied memory.
+ */
+public class ThriftCompactWriter implements Mutable {
+    static final int TYPE_STOP = 0;
+    static final int TYPE_BOOLEAN_TRUE = 1;
+    static final int TYPE_BOOLEAN_FALSE = 2;
+    static final int TYPE_BYTE = 3;
+    static final int TYPE_I16 = 4;
+    static final int TYPE_I32 = 5;
+    static final int TYPE_I64 = 6;
+    static final int TYPE_DOUBLE = 7;
+    static final int TYPE_BINARY = 8;
+    static final int TYPE_LIST = 9;
+    static final int TYPE_SET = 10;
+    static final int TYPE_MAP = 11;
+    static final int TYPE_STRUCT = 12;
+
+    private final IntList fieldIdStack = new IntList();
+    private MemoryA mem;
+    private int lastFieldId;
+
+    public static int utf8Length(CharSequence value) {
+        int len = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                len++;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isSurrogate(c)) {
+                // well-formed pair takes 4 bytes, lone surrogate is replaced by '?'
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    len += 4;
+                    i++;
+                } else {
+                    len++;
+                }
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    public static void putUtf8(MemoryA mem, CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                mem.putByte((byte) c);
+            } else if (c < 0x800) {
+                mem.putByte((byte) (0xc0 | (c >> 6)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, value.charAt(++i));
+                    mem.putByte((byte) (0xf0 | (cp >> 18)));
+                    mem.putByte((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                    mem.putByte((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                    mem.putByte((byte) (0x80 | (cp & 0x3f)));
+                } else {
+                    mem.putByte((byte) '?');
+                }
+            } else {
+                mem.putByte((byte) (0xe0 | (c >> 12)));
+                mem.putByte((byte) (0x80 | ((c >> 6) & 0x3f)));
+                mem.putByte((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    public static void putVarint(MemoryA mem, long value) {
+        while ((value & ~0x7fL) != 0) {
+            mem.putByte((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        mem.putByte((byte) value);
+    }
+
+    @Override
+    public void clear() {
+        fieldIdStack.clear();
+        lastFieldId = 0;
+        mem = null;
+    }
+
+    public void fieldBinary(int fieldId, long value, int size) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        putVarint(mem, size);
+        for (int i = 0; i < size; i++) {
+            mem.putByte((byte) (value >>> (i << 3)));
+        }
+    }
+
+    public void fieldBool(int fieldId, boolean value) {
+        fieldHeader(fieldId, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+    }
+
+    public void fieldI32(int fieldId, int value) {
+        fieldHeader(fieldId, TYPE_I32);
+        putVarint(mem, zigzag(value));
+    }
+
+    public void fieldI64(int fieldId, long value) {
+        fieldHeader(fieldId, TYPE_I64);
+        putVarint(mem, zigzag(value));
+    }
+
+    public void fieldList(int fieldId, int elementType, int size) {
+        fieldHeader(fieldId, TYPE_LIST);
+        if (size < 15) {
+            mem.putByte((byte) ((size << 4) | elementType));
+        } else {
+            mem.putByte((byte) (0xf0 | elementType));
+            putVarint(mem, size);
+        }
+    }
+
+    public void fieldString(int fieldId, CharSequence value) {
+        fieldHeader(fieldId, TYPE_BINARY);
+        string(value);
+    }
+
+    public void fieldStructBegin(int fieldId) {
+        fieldHeader(fieldId, TYPE_STRUCT);
+        structBegin();
+    }
+
+    public void i32(int value) {
+        putVarint(mem, zigzag(value));
+    }
+
+    public ThriftCompactWriter of(MemoryA mem) {
+        clear();
+        this.mem = mem;
+        return this;
+    }
+
+    public void string(CharSequence value) {
+        putVarint(mem, utf8Length(value));
+        putUtf8(mem, value);
+    }
+
+    public void structBegin() {
+        fieldIdStack.add(lastFieldId);
+        lastFieldId = 0;
+    }
+
+    public void structEnd() {
+        mem.putByte((byte) TYPE_STOP);
+        final int top = fieldIdStack.size() - 1;
+        lastFieldId = fieldIdStack.getQuick(top);
+        fieldIdStack.setPos(top);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xffffffffL;
+    }
+
+    private void fieldHeader(int fieldId, int type) {
+        final int delta = fieldId - lastFieldId;
+        if (delta > 0 && delta < 16) {
+            mem.putByte((byte) ((delta << 4) | type));
+        } else {
+            mem.putByte((byte) type);
+            putVarint(mem, zigzag(fieldId));
+        }
+        lastFieldId = fieldId;
+    }
+}
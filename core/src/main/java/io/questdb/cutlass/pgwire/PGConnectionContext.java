@@ -339,6 +339,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             Misc.free(path);
             Misc.free(utf8Sink);
             Misc.free(circuitBreaker);
+            Misc.free(sqlExecutionContext);
         }
     }
 
@@ -59,6 +59,8 @@ public interface CompiledQuery {
     short CREATE_TABLE_AS_SELECT = 21;
     short SNAPSHOT_DB_PREPARE = 22;
     short SNAPSHOT_DB_COMPLETE = 23;
+    short EXPORT_TABLE = 24;
+    short CLONE_TABLE = 25;
 
     RecordCursorFactory getRecordCursorFactory();
 
@@ -249,4 +249,12 @@ public class CompiledQueryImpl implements CompiledQuery {
     CompiledQuery ofSnapshotComplete() {
         return of(SNAPSHOT_DB_COMPLETE);
     }
+
+    CompiledQuery ofExportTable() {
+        return of(EXPORT_TABLE);
+    }
+
+    CompiledQuery ofCloneTable() {
+        return of(CLONE_TABLE);
+    }
 }
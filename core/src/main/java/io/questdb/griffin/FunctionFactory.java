@@ -70,6 +70,14 @@ public interface FunctionFactory {
         return false;
     }
 
+    /**
+     * @return true if the factory creates {@link io.questdb.griffin.engine.analytic.AnalyticFunction}, such factories
+     * are only looked up for columns with OVER clause and may share names with group-by functions
+     */
+    default boolean isAnalytic() {
+        return false;
+    }
+
     default boolean isCursor() {
         return false;
     }
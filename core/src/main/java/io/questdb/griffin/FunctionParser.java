@@ -71,6 +71,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     private final IntList undefinedVariables = new IntList();
     private final Long256Impl long256Sink = new Long256Impl();
     private RecordMetadata metadata;
+    // top node of analytic column, it is resolved against analytic function factories
+    private ExpressionNode analyticNode;
     private SqlCodeGenerator sqlCodeGenerator;
     private SqlExecutionContext sqlExecutionContext;
 
@@ -205,6 +207,23 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return functionFactoryCache;
     }
 
+    /**
+     * Creates analytic function of an OVER clause column. Top node of the expression is resolved against analytic
+     * function factories, its arguments are parsed as regular functions.
+     */
+    public Function parseAnalyticFunction(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        analyticNode = node;
+        try {
+            return parseFunction(node, metadata, executionContext);
+        } finally {
+            analyticNode = null;
+        }
+    }
+
     /**
      * Creates function instance. When node type is {@link ExpressionNode#LITERAL} a column or parameter
      * function is returned. We will be using the supplied {@link #metadata} to resolve type of column. When node token
@@ -523,7 +542,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
             @Transient ObjList<Function> args,
             @Transient IntList argPositions
     ) throws SqlException {
-        final ObjList<FunctionFactoryDescriptor> overload = functionFactoryCache.getOverloadList(node.token);
+        final ObjList<FunctionFactoryDescriptor> overload = node == analyticNode
+                ? functionFactoryCache.getAnalyticOverloadList(node.token)
+                : functionFactoryCache.getOverloadList(node.token);
         if (overload == null) {
             throw invalidFunction(node, args);
         }
@@ -37,9 +37,12 @@ import io.questdb.griffin.engine.LimitOverflowException;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.StreamAnalyticFunction;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.cast.*;
@@ -49,6 +52,7 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.AsyncSortedRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
@@ -121,6 +125,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final IntList recordFunctionPositions = new IntList();
     private final IntList groupByFunctionPositions = new IntList();
     private final LongList prefixes = new LongList();
+    private final ObjList<ExpressionNode> sortedIndexConjuncts = new ObjList<>();
+    private final LongList sortedIndexKeys = new LongList();
     private final ObjectPool<ExpressionNode> expressionNodePool;
     private final WeakClosableObjectPool<PageFrameReduceTask> reduceTaskPool;
     private boolean enableJitNullChecks = true;
@@ -212,6 +218,47 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
+
+    private static void collectConjuncts(ExpressionNode node, ObjList<ExpressionNode> sink) {
+        if (node.type == ExpressionNode.OPERATION && isAndKeyword(node.token)) {
+            collectConjuncts(node.lhs, sink);
+            collectConjuncts(node.rhs, sink);
+        } else {
+            sink.add(node);
+        }
+    }
+
+    private static int getSortedIndexColumn(ExpressionNode node, TableReaderMetadata metadata) {
+        if (node != null && node.type == LITERAL) {
+            final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+            if (columnIndex > -1 && metadata.isColumnSortedIndexed(columnIndex)) {
+                return columnIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isConstantExpression(ExpressionNode node) {
+        if (node == null) {
+            return false;
+        }
+        switch (node.type) {
+            case ExpressionNode.CONSTANT:
+                return true;
+            case ExpressionNode.OPERATION:
+                // e.g. unary minus
+                return node.paramCount <= 2
+                        && (node.lhs == null || isConstantExpression(node.lhs))
+                        && (node.rhs == null || isConstantExpression(node.rhs));
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isSortedIndexRangeType(int columnType) {
+        // string keys are hashes and have no order
+        return !ColumnType.isString(columnType);
+    }
     private static boolean allGroupsFirstLastWithSingleSymbolFilter(QueryModel model, RecordMetadata metadata) {
         final ObjList<QueryColumn> columns = model.getColumns();
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -384,6 +431,25 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    private RecordCursorFactory createAsOfPageFrameJoin(
+            RecordMetadata metadata,
+            RecordCursorFactory master,
+            RecordCursorFactory slave,
+            boolean inclusive,
+            int columnSplit
+    ) {
+        return new AsOfJoinPageFrameRecordCursorFactory(
+                configuration,
+                metadata,
+                master,
+                slave,
+                listColumnFilterB.size() > 0 ? listColumnFilterB.getColumnIndexFactored(0) : -1,
+                listColumnFilterA.size() > 0 ? listColumnFilterA.getColumnIndexFactored(0) : -1,
+                inclusive,
+                columnSplit
+        );
+    }
+
     @NotNull
     private RecordCursorFactory createFullFatJoin(
             RecordCursorFactory master,
@@ -563,7 +629,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -596,6 +663,50 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
+        if (
+                joinType == JOIN_INNER
+                        && !fullFatJoins
+                        && configuration.isSqlParallelHashJoinEnabled()
+                        && master.supportPageFrameCursor()
+                        && slave.supportPageFrameCursor()
+                        && !master.hasDescendingOrder()
+        ) {
+            // takes over when hash table does not fit memory budget of the query, it owns master and slave factories
+            entityColumnFilter.of(slaveMetadata.getColumnCount());
+            final RecordCursorFactory fallbackFactory = new HashJoinRecordCursorFactory(
+                    configuration,
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    RecordSinkFactory.getInstance(
+                            asm,
+                            slaveMetadata,
+                            entityColumnFilter,
+                            false
+                    ),
+                    masterMetadata.getColumnCount()
+            );
+            return new AsyncHashJoinRecordCursorFactory(
+                    configuration,
+                    executionContext.getMessageBus(),
+                    metadata,
+                    master,
+                    slave,
+                    keyTypes,
+                    valueTypes,
+                    masterKeySink,
+                    slaveKeySink,
+                    masterMetadata.getColumnCount(),
+                    reduceTaskPool,
+                    executionContext.getWorkerCount(),
+                    fallbackFactory
+            );
+        }
+
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
@@ -1239,7 +1350,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                             case JOIN_ASOF:
                                 validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
-                                if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+                                if (isPageFrameAsOfJoinSupported(master, masterMetadata, slave, slaveMetadata)) {
+                                    master = createAsOfPageFrameJoin(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            slave,
+                                            true,
+                                            masterMetadata.getColumnCount()
+                                    );
+                                } else if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                     if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                         master = createAsOfJoin(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -1287,7 +1406,16 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                             case JOIN_LT:
                                 validateBothTimestamps(slaveModel, masterMetadata, slaveMetadata);
                                 processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
-                                if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
+                                // keyless LT join keeps matching the previous slave row on equal timestamps
+                                if (listColumnFilterA.size() > 0 && isPageFrameAsOfJoinSupported(master, masterMetadata, slave, slaveMetadata)) {
+                                    master = createAsOfPageFrameJoin(
+                                            createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                            master,
+                                            slave,
+                                            false,
+                                            masterMetadata.getColumnCount()
+                                    );
+                                } else if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
                                     if (listColumnFilterA.size() > 0 && listColumnFilterB.size() > 0) {
                                         master = createLtJoin(
                                                 createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
@@ -1368,7 +1496,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                         master,
                                         slave,
-                                        joinType
+                                        joinType,
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -1480,6 +1609,48 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    @NotNull
+    private RecordCursorFactory generateParallelLatestBy(
+            RecordMetadata metadata,
+            DataFrameCursorFactory dataFrameCursorFactory,
+            @NotNull IntList columnIndexes,
+            @NotNull IntList columnSizes,
+            SqlExecutionContext executionContext
+    ) {
+        // listColumnFilterA = latest by column indexes, keyTypes = their types
+        IntList symbolKeyColumns = new IntList(listColumnFilterA.getColumnCount());
+        for (int i = 0, n = listColumnFilterA.getColumnCount(); i < n; i++) {
+            final int columnIndex = listColumnFilterA.getColumnIndexFactored(i);
+            if (!ColumnType.isSymbol(metadata.getColumnType(columnIndex)) || !metadata.isSymbolTableStatic(columnIndex)) {
+                symbolKeyColumns = null;
+                break;
+            }
+            symbolKeyColumns.add(columnIndex);
+        }
+        return new AsyncLatestByRecordCursorFactory(
+                configuration,
+                executionContext.getMessageBus(),
+                metadata,
+                new DataFrameRecordCursorFactory(
+                        configuration,
+                        metadata,
+                        dataFrameCursorFactory,
+                        new BwdDataFrameRowCursorFactory(),
+                        false,
+                        null,
+                        true,
+                        columnIndexes,
+                        columnSizes,
+                        true
+                ),
+                RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false),
+                keyTypes,
+                symbolKeyColumns,
+                executionContext.getWorkerCount(),
+                reduceTaskPool
+        );
+    }
+
     @NotNull
     private RecordCursorFactory generateLatestByTableQuery(
             QueryModel model,
@@ -1515,6 +1686,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         // if there are > 1 columns in the latest by statement we cannot use indexes
         if (latestBy.size() > 1 || !ColumnType.isSymbol(metadata.getColumnType(latestByIndex))) {
+            if (filter == null && configuration.isSqlParallelLatestByEnabled()) {
+                return generateParallelLatestBy(metadata, dataFrameCursorFactory, columnIndexes, columnSizes, executionContext);
+            }
             return new LatestByAllFilteredRecordCursorFactory(
                     metadata,
                     configuration,
@@ -1811,7 +1985,44 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 final Function hiFunc = getHiFunction(model, executionContext);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
-                    if (canBeOptimized(model, executionContext, loFunc, hiFunc)) {
+                    final boolean limited = canBeOptimized(model, executionContext, loFunc, hiFunc);
+                    if (isParallelSortSupported(recordCursorFactory, metadata)) {
+                        // parallel sort keeps top (bottom) N of every frame when limit allows it
+                        if (limited) {
+                            model.setLimitImplemented(true);
+                        }
+                        final int sortColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
+                        // takes over when sorted frames do not fit memory budget of the query, it owns the base factory
+                        entityColumnFilter.of(orderedMetadata.getColumnCount());
+                        RecordCursorFactory fallbackFactory = new SortedRecordCursorFactory(
+                                configuration,
+                                orderedMetadata,
+                                recordCursorFactory,
+                                RecordSinkFactory.getInstance(
+                                        asm,
+                                        orderedMetadata,
+                                        entityColumnFilter,
+                                        false
+                                ),
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                        );
+                        if (limited) {
+                            fallbackFactory = new LimitRecordCursorFactory(fallbackFactory, loFunc, hiFunc);
+                        }
+                        return new AsyncSortedRecordCursorFactory(
+                                configuration,
+                                executionContext.getMessageBus(),
+                                orderedMetadata,
+                                recordCursorFactory,
+                                sortColumnIndex,
+                                listColumnFilterA.getQuick(0) < 0,
+                                limited ? loFunc : null,
+                                limited ? hiFunc : null,
+                                reduceTaskPool,
+                                executionContext.getWorkerCount(),
+                                fallbackFactory
+                        );
+                    } else if (limited) {
                         model.setLimitImplemented(true);
                         return new LimitedSizeSortedLightRecordCursorFactory(
                                 configuration,
@@ -2324,32 +2535,49 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         // todo: these ar transient list, we can cache and reuse
         final ObjList<TableColumnMetadata> deferredAnalyticMetadata = new ObjList<>();
-
-        for (int i = 0; i < columnCount; i++) {
-            final QueryColumn qc = columns.getQuick(i);
-            if (qc instanceof AnalyticColumn) {
-                final AnalyticColumn ac = (AnalyticColumn) qc;
-                final ExpressionNode ast = qc.getAst();
-                if (ast.paramCount > 1) {
-                    throw SqlException.$(ast.position, "Too many arguments");
+        // analytic functions at indexes of their columns
+        final ObjList<AnalyticFunction> columnFunctions = new ObjList<>();
+        // comparators of ORDER BY clauses, there is one for every distinct clause
+        final ObjObjHashMap<IntList, RecordComparator> orderComparators = new ObjObjHashMap<>();
+
+        // functions can be computed as rows come from the base cursor when the base is in the order
+        // of every analytic clause, that is when ORDER BY is either absent or the designated timestamp
+        // the base is ordered by
+        int chainTimestampIndex = -1;
+        if (baseMetadata.getTimestampIndex() != -1 && !base.hasDescendingOrder()) {
+            for (int i = 0, n = listColumnFilterB.size(); i < n; i++) {
+                // slots of analytic columns are not assigned yet
+                if ((i >= columnCount || !(columns.getQuick(i) instanceof AnalyticColumn))
+                        && listColumnFilterB.getQuick(i) == baseMetadata.getTimestampIndex()) {
+                    chainTimestampIndex = i;
+                    break;
                 }
+            }
+        }
+        boolean streaming = true;
+        // some function needs rows of the peer group of the current row
+        boolean peerDependent = false;
 
-                ObjList<Function> partitionBy = null;
-                int psz = ac.getPartitionBy().size();
-                if (psz > 0) {
-                    partitionBy = new ObjList<>(psz);
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn qc = columns.getQuick(i);
+                if (qc instanceof AnalyticColumn) {
+                    final AnalyticColumn ac = (AnalyticColumn) qc;
+                    final ExpressionNode ast = qc.getAst();
+
+                    // rows belong to the same partition when there is no PARTITION BY clause
+                    final int psz = ac.getPartitionBy().size();
+                    final ObjList<Function> partitionBy = new ObjList<>(Math.max(psz, 1));
                     for (int j = 0; j < psz; j++) {
                         partitionBy.add(
                                 functionParser.parseFunction(ac.getPartitionBy().getQuick(j), chainMetadata, executionContext)
                         );
                     }
-                }
-
-                final VirtualRecord partitionByRecord;
-                final RecordSink partitionBySink;
+                    if (psz == 0) {
+                        partitionBy.add(new IntConstant(0));
+                    }
 
-                if (partitionBy != null) {
-                    partitionByRecord = new VirtualRecord(partitionBy);
+                    final VirtualRecord partitionByRecord = new VirtualRecord(partitionBy);
                     keyTypes.clear();
                     final int partitionByCount = partitionBy.size();
 
@@ -2358,114 +2586,168 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
                     entityColumnFilter.of(partitionByCount);
                     // create sink
-                    partitionBySink = RecordSinkFactory.getInstance(
+                    final RecordSink partitionBySink = RecordSinkFactory.getInstance(
                             asm,
                             keyTypes,
                             entityColumnFilter,
                             false
                     );
-                } else {
-                    partitionByRecord = null;
-                    partitionBySink = null;
-                }
 
+                    final int osz = ac.getOrderBy().size();
+                    final IntList order;
+                    RecordComparator comparator = null;
+                    // index of the timestamp column when rows are ordered by it in ascending order
+                    int timestampIndex = -1;
+                    if (osz > 0) {
+                        order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
+                        comparator = orderComparators.get(order);
+                        if (comparator == null) {
+                            comparator = recordComparatorCompiler.compile(chainTypes, order);
+                            orderComparators.put(order, comparator);
+                        }
+                        if (osz == 1 && order.getQuick(0) > 0 && ColumnType.isTimestamp(chainMetadata.getColumnType(order.getQuick(0) - 1))) {
+                            timestampIndex = order.getQuick(0) - 1;
+                        }
+                    } else {
+                        order = null;
+                    }
 
-                final int osz = ac.getOrderBy().size();
-                executionContext.configureAnalyticContext(
-                        partitionByRecord,
-                        partitionBySink,
-                        keyTypes,
-                        osz > 0,
-                        base.recordCursorSupportsRandomAccess()
-                );
+                    if (
+                            ac.getFramingMode() == AnalyticColumn.FRAMING_RANGE
+                                    && ac.getRowsLo() != Long.MIN_VALUE
+                                    && ac.getRowsLo() != 0
+                                    && timestampIndex == -1
+                    ) {
+                        throw SqlException.$(ac.getFramePosition(), "RANGE frame with offset requires ORDER BY timestamp column in ascending order");
+                    }
 
-                final Function f = functionParser.parseFunction(ac.getAst(), baseMetadata, executionContext);
-                // todo: throw an error when non-analytic function is called in analytic context
-                assert f instanceof AnalyticFunction;
-                AnalyticFunction analyticFunction = (AnalyticFunction) f;
-
-                // analyze order by clause on the current model and optimise out
-                // order by on analytic function if it matches the one on the model
-                final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
-                boolean dismissOrder;
-                if (osz > 0 && orderHash.size() > 0) {
-                    dismissOrder = true;
-                    for (int j = 0; j < osz; j++) {
-                        ExpressionNode node = ac.getOrderBy().getQuick(j);
-                        int direction = ac.getOrderByDirection().getQuick(j);
-                        if (orderHash.get(node.token) != direction) {
-                            dismissOrder = false;
-                            break;
+                    executionContext.configureAnalyticContext(
+                            partitionByRecord,
+                            partitionBySink,
+                            keyTypes,
+                            osz > 0,
+                            base.recordCursorSupportsRandomAccess(),
+                            comparator,
+                            timestampIndex,
+                            ac.getFramingMode(),
+                            ac.getRowsLo()
+                    );
+
+                    final Function f = functionParser.parseAnalyticFunction(ast, chainMetadata, executionContext);
+                    if (!(f instanceof AnalyticFunction)) {
+                        Misc.free(f);
+                        throw SqlException.$(ast.position, "analytic function expected");
+                    }
+                    AnalyticFunction analyticFunction = (AnalyticFunction) f;
+                    columnFunctions.extendAndSet(i, analyticFunction);
+
+                    streaming &= analyticFunction instanceof StreamAnalyticFunction
+                            && analyticFunction.getPassCount() == AnalyticFunction.STREAM
+                            && (osz == 0 || (timestampIndex != -1 && timestampIndex == chainTimestampIndex));
+                    peerDependent |= analyticFunction instanceof StreamAnalyticFunction
+                            && ((StreamAnalyticFunction) analyticFunction).isPeerDependent();
+
+                    // analyze order by clause on the current model and optimise out
+                    // order by on analytic function if it matches the one on the model
+                    final LowerCaseCharSequenceIntHashMap orderHash = model.getOrderHash();
+                    boolean dismissOrder;
+                    if (osz > 0 && orderHash.size() > 0) {
+                        dismissOrder = true;
+                        for (int j = 0; j < osz; j++) {
+                            ExpressionNode node = ac.getOrderBy().getQuick(j);
+                            int direction = ac.getOrderByDirection().getQuick(j);
+                            if (orderHash.get(node.token) != direction) {
+                                dismissOrder = false;
+                                break;
+                            }
                         }
+                    } else {
+                        dismissOrder = false;
                     }
-                } else {
-                    dismissOrder = false;
-                }
 
-                if (osz > 0 && !dismissOrder) {
-                    IntList order = toOrderIndices(chainMetadata, ac.getOrderBy(), ac.getOrderByDirection());
-                    ObjList<AnalyticFunction> funcs = groupedAnalytic.get(order);
-                    if (funcs == null) {
-                        groupedAnalytic.put(order, funcs = new ObjList<>());
-                    }
-                    funcs.add(analyticFunction);
-                } else {
-                    if (naturalOrderFunctions == null) {
-                        naturalOrderFunctions = new ObjList<>();
+                    if (osz > 0 && !dismissOrder) {
+                        ObjList<AnalyticFunction> funcs = groupedAnalytic.get(order);
+                        if (funcs == null) {
+                            groupedAnalytic.put(order, funcs = new ObjList<>());
+                        }
+                        funcs.add(analyticFunction);
+                    } else {
+                        if (naturalOrderFunctions == null) {
+                            naturalOrderFunctions = new ObjList<>();
+                        }
+                        naturalOrderFunctions.add(analyticFunction);
                     }
-                    naturalOrderFunctions.add(analyticFunction);
-                }
 
-                analyticFunction.setColumnIndex(i);
+                    analyticFunction.setColumnIndex(i);
 
-                deferredAnalyticMetadata.extendAndSet(i, new TableColumnMetadata(
-                        Chars.toString(qc.getAlias()),
-                        0, // transient column hash is 0
-                        analyticFunction.getType(),
-                        false,
-                        0,
-                        false,
-                        null
-                ));
+                    deferredAnalyticMetadata.extendAndSet(i, new TableColumnMetadata(
+                            Chars.toString(qc.getAlias()),
+                            0, // transient column hash is 0
+                            analyticFunction.getType(),
+                            false,
+                            0,
+                            false,
+                            null
+                    ));
 
-                listColumnFilterA.extendAndSet(i, -i - 1);
+                    listColumnFilterA.extendAndSet(i, -i - 1);
+                }
             }
-        }
 
-        // after all columns are processed we can re-insert deferred metadata
-        for (int i = 0, n = deferredAnalyticMetadata.size(); i < n; i++) {
-            TableColumnMetadata m = deferredAnalyticMetadata.getQuick(i);
-            if (m != null) {
-                chainTypes.add(i, m.getType());
-                factoryMetadata.add(i, m);
+            // after all columns are processed we can re-insert deferred metadata
+            for (int i = 0, n = deferredAnalyticMetadata.size(); i < n; i++) {
+                TableColumnMetadata m = deferredAnalyticMetadata.getQuick(i);
+                if (m != null) {
+                    chainTypes.add(i, m.getType());
+                    factoryMetadata.add(i, m);
+                }
             }
-        }
 
-        final ObjList<RecordComparator> analyticComparators = new ObjList<>(groupedAnalytic.size());
-        final ObjList<ObjList<AnalyticFunction>> functionGroups = new ObjList<>(groupedAnalytic.size());
-        for (ObjObjHashMap.Entry<IntList, ObjList<AnalyticFunction>> e : groupedAnalytic) {
-            analyticComparators.add(recordComparatorCompiler.compile(chainTypes, e.key));
-            functionGroups.add(e.value);
-        }
+            // base column of every chain column, analytic columns have none
+            final IntList columnCrossIndex = new IntList(listColumnFilterA.size());
+            for (int i = 0, n = listColumnFilterA.size(); i < n; i++) {
+                columnCrossIndex.add(listColumnFilterA.getQuick(i) > 0 ? listColumnFilterB.getQuick(i) : -1);
+            }
 
-        final RecordSink recordSink = RecordSinkFactory.getInstance(
-                asm,
-                chainTypes,
-                listColumnFilterA,
-                false,
-                listColumnFilterB
-        );
+            if (streaming && !peerDependent) {
+                return new AnalyticRecordCursorFactory(configuration, base, factoryMetadata, chainTypes, null, columnCrossIndex, columnFunctions);
+            }
 
-        return new CachedAnalyticRecordCursorFactory(
-                configuration,
-                base,
-                recordSink,
-                factoryMetadata,
-                chainTypes,
-                analyticComparators,
-                functionGroups,
-                naturalOrderFunctions
-        );
+            final RecordSink recordSink = RecordSinkFactory.getInstance(
+                    asm,
+                    chainTypes,
+                    listColumnFilterA,
+                    false,
+                    listColumnFilterB
+            );
+
+            if (streaming) {
+                return new AnalyticRecordCursorFactory(configuration, base, factoryMetadata, chainTypes, recordSink, columnCrossIndex, columnFunctions);
+            }
+
+            final ObjList<RecordComparator> analyticComparators = new ObjList<>(groupedAnalytic.size());
+            final ObjList<ObjList<AnalyticFunction>> functionGroups = new ObjList<>(groupedAnalytic.size());
+            for (ObjObjHashMap.Entry<IntList, ObjList<AnalyticFunction>> e : groupedAnalytic) {
+                analyticComparators.add(orderComparators.get(e.key));
+                functionGroups.add(e.value);
+            }
+
+            return new CachedAnalyticRecordCursorFactory(
+                    configuration,
+                    base,
+                    recordSink,
+                    factoryMetadata,
+                    chainTypes,
+                    columnCrossIndex,
+                    analyticComparators,
+                    functionGroups,
+                    naturalOrderFunctions
+            );
+        } catch (Throwable e) {
+            Misc.freeObjList(columnFunctions);
+            Misc.free(base);
+            throw e;
+        }
     }
 
     private RecordCursorFactory generateSelectChoose(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
@@ -2886,6 +3168,19 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 throw e;
             }
 
+            if (configuration.isSqlVectorizedGroupByEnabled() && factory.supportPageFrameCursor() && !factory.hasDescendingOrder()) {
+                final RecordCursorFactory vectorizedFactory = generateVectorizedGroupBy(
+                        executionContext,
+                        factory,
+                        groupByMetadata,
+                        groupByFunctions,
+                        recordFunctions
+                );
+                if (vectorizedFactory != null) {
+                    return vectorizedFactory;
+                }
+            }
+
             if (keyTypes.getColumnCount() == 0) {
                 return new GroupByNotKeyedRecordCursorFactory(
                         factory,
@@ -2914,13 +3209,83 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    @Nullable
+    private RecordCursorFactory generateVectorizedGroupBy(
+            SqlExecutionContext executionContext,
+            RecordCursorFactory factory,
+            RecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions
+    ) {
+        // no keys or a single symbol key
+        int keyColumnIndex = -1;
+        if (keyTypes.getColumnCount() > 1) {
+            return null;
+        }
+        if (keyTypes.getColumnCount() == 1) {
+            keyColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
+            if (!ColumnType.isSymbol(keyTypes.getColumnType(0)) || !factory.getMetadata().isSymbolTableStatic(keyColumnIndex)) {
+                return null;
+            }
+        }
+        for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+            if (recordFunctions.getQuick(i) == null) {
+                return null;
+            }
+        }
+
+        final IntList aggregateKinds = new IntList(groupByFunctions.size());
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            final GroupByFunction function = groupByFunctions.getQuick(i);
+            final int kind = AsyncVectorizedGroupByRecordCursorFactory.aggregateKindOf(function);
+            if (kind == -1) {
+                return null;
+            }
+            // arguments are compiled once per worker, here we only check that they can be
+            if (kind != AsyncVectorizedGroupByRecordCursorFactory.AGG_COUNT
+                    && VectorizedProjection.compile(((UnaryFunction) function).getArg(), true) == null) {
+                return null;
+            }
+            aggregateKinds.add(kind);
+        }
+
+        // takes over when symbol key has too many values for partial results, it owns base factory and record functions
+        RecordCursorFactory fallbackFactory = null;
+        if (keyColumnIndex > -1) {
+            fallbackFactory = new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
+                    configuration,
+                    factory,
+                    listColumnFilterA,
+                    asm,
+                    keyTypes,
+                    valueTypes,
+                    groupByMetadata,
+                    groupByFunctions,
+                    recordFunctions
+            );
+        }
+        return new AsyncVectorizedGroupByRecordCursorFactory(
+                configuration,
+                executionContext.getMessageBus(),
+                groupByMetadata,
+                factory,
+                groupByFunctions,
+                recordFunctions,
+                aggregateKinds,
+                keyColumnIndex,
+                executionContext.getWorkerCount(),
+                reduceTaskPool,
+                fallbackFactory
+        );
+    }
+
     private RecordCursorFactory generateSelectVirtual(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final RecordCursorFactory factory = generateSubQuery(model, executionContext);
         return generateSelectVirtualWithSubquery(model, executionContext, factory);
     }
 
     @NotNull
-    private VirtualRecordCursorFactory generateSelectVirtualWithSubquery(QueryModel model, SqlExecutionContext executionContext, RecordCursorFactory factory) throws SqlException {
+    private RecordCursorFactory generateSelectVirtualWithSubquery(QueryModel model, SqlExecutionContext executionContext, RecordCursorFactory factory) throws SqlException {
         try {
             final ObjList<QueryColumn> columns = model.getColumns();
             final int columnCount = columns.size();
@@ -3059,6 +3424,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
                 }
             }
+
+            if (configuration.isSqlVectorizedProjectionEnabled()
+                    && factory.supportPageFrameCursor()
+                    && !factory.hasDescendingOrder()) {
+                final ObjList<VectorizedProjection> projections = VectorizedVirtualRecordCursorFactory.compile(functions);
+                if (projections != null) {
+                    return new VectorizedVirtualRecordCursorFactory(configuration, virtualMetadata, functions, projections, factory);
+                }
+            }
             return new VirtualRecordCursorFactory(virtualMetadata, functions, factory);
         } catch (SqlException | CairoException e) {
             factory.close();
@@ -3565,6 +3939,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 if (isOrderByTimestampDesc && !intrinsicModel.hasIntervalFilters()) {
                     dfcFactory = new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion());
                     rowFactory = new BwdDataFrameRowCursorFactory();
+                } else if (intrinsicModel.filter != null
+                        && (rowFactory = generateSortedIndexRowCursorFactory(intrinsicModel.filter, reader.getMetadata(), executionContext)) != null) {
+                    // filter is still applied to the rows found via sorted index, page frames would bypass the index
+                    framingSupported = false;
                 } else {
                     rowFactory = new DataFrameRowCursorFactory();
                 }
@@ -3617,44 +3995,249 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             // 'latest by' clause takes over the latest by nodes, so that the later generateLatestBy() is no-op
             model.getLatestBy().clear();
 
-            // listColumnFilterA = latest by column indexes
             if (latestByColumnCount == 1) {
-                int latestByColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
-                if (myMeta.isColumnIndexed(latestByColumnIndex)) {
-                    return new LatestByAllIndexedRecordCursorFactory(
+                final int latestByColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
+                if (reader.getMetadata().hasLatestRows(columnIndexes.getQuick(latestByColumnIndex))) {
+                    return new LatestByStoredRecordCursorFactory(
                             myMeta,
                             configuration,
-                            new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
-                            listColumnFilterA.getColumnIndexFactored(0),
+                            new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
+                            latestByColumnIndex,
                             columnIndexes,
-                            prefixes
+                            generateLatestByAllTableQuery(model, myMeta, tableName, latestByColumnCount, columnIndexes, columnSizes, executionContext)
                     );
                 }
+            }
 
-                if (ColumnType.isSymbol(myMeta.getColumnType(latestByColumnIndex))
-                        && myMeta.isSymbolTableStatic(latestByColumnIndex)) {
-                    // we have "latest by" symbol column values, but no index
-                    return new LatestByDeferredListValuesFilteredRecordCursorFactory(
-                            configuration,
-                            myMeta,
-                            new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
-                            latestByColumnIndex,
-                            null,
-                            columnIndexes
-                    );
-                }
+            return generateLatestByAllTableQuery(model, myMeta, tableName, latestByColumnCount, columnIndexes, columnSizes, executionContext);
+        }
+    }
+
+    private RecordCursorFactory generateLatestByAllTableQuery(
+            QueryModel model,
+            GenericRecordMetadata myMeta,
+            String tableName,
+            int latestByColumnCount,
+            IntList columnIndexes,
+            IntList columnSizes,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        // listColumnFilterA = latest by column indexes
+        if (latestByColumnCount == 1) {
+            int latestByColumnIndex = listColumnFilterA.getColumnIndexFactored(0);
+            if (myMeta.isColumnIndexed(latestByColumnIndex)) {
+                return new LatestByAllIndexedRecordCursorFactory(
+                        myMeta,
+                        configuration,
+                        new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
+                        listColumnFilterA.getColumnIndexFactored(0),
+                        columnIndexes,
+                        prefixes
+                );
             }
 
-            return new LatestByAllFilteredRecordCursorFactory(
+            if (ColumnType.isSymbol(myMeta.getColumnType(latestByColumnIndex))
+                    && myMeta.isSymbolTableStatic(latestByColumnIndex)) {
+                // we have "latest by" symbol column values, but no index
+                return new LatestByDeferredListValuesFilteredRecordCursorFactory(
+                        configuration,
+                        myMeta,
+                        new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
+                        latestByColumnIndex,
+                        null,
+                        columnIndexes
+                );
+            }
+        }
+
+        if (configuration.isSqlParallelLatestByEnabled()) {
+            return generateParallelLatestBy(
                     myMeta,
-                    configuration,
                     new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
-                    RecordSinkFactory.getInstance(asm, myMeta, listColumnFilterA, false),
-                    keyTypes,
-                    null,
-                    columnIndexes
+                    columnIndexes,
+                    columnSizes,
+                    executionContext
             );
         }
+
+        return new LatestByAllFilteredRecordCursorFactory(
+                myMeta,
+                configuration,
+                new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion()),
+                RecordSinkFactory.getInstance(asm, myMeta, listColumnFilterA, false),
+                keyTypes,
+                null,
+                columnIndexes
+        );
+    }
+
+    private boolean addSortedIndexKey(
+            ExpressionNode node,
+            int columnType,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (!isConstantExpression(node)) {
+            return false;
+        }
+        final Function function = functionParser.parseFunction(node, metadata, executionContext);
+        try {
+            if (!function.isConstant()) {
+                return false;
+            }
+            final int valueTag = ColumnType.tagOf(function.getType());
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.STRING:
+                    final CharSequence str = valueTag == ColumnType.STRING ? function.getStr(null) : null;
+                    if (str == null) {
+                        // null is not looked up via index
+                        return false;
+                    }
+                    sortedIndexKeys.add(SortedIndexUtils.hash(str));
+                    return true;
+                case ColumnType.CHAR:
+                    if (valueTag != ColumnType.CHAR) {
+                        return false;
+                    }
+                    sortedIndexKeys.add(function.getChar(null));
+                    return true;
+                default:
+                    switch (valueTag) {
+                        case ColumnType.BYTE:
+                        case ColumnType.SHORT:
+                        case ColumnType.INT:
+                        case ColumnType.LONG:
+                            break;
+                        case ColumnType.DATE:
+                        case ColumnType.TIMESTAMP:
+                            // dates and timestamps are compared after conversion
+                            if (valueTag != ColumnType.tagOf(columnType)) {
+                                return false;
+                            }
+                            break;
+                        default:
+                            return false;
+                    }
+                    final long value = function.getLong(null);
+                    if (value == Numbers.LONG_NaN) {
+                        return false;
+                    }
+                    sortedIndexKeys.add(value);
+                    return true;
+            }
+        } finally {
+            Misc.free(function);
+        }
+    }
+
+    /**
+     * Looks for equality, IN and range predicates on columns with sorted index among the top-level
+     * AND conjuncts of the filter. Index lookup keys must be constant. Filter is not consumed, index is
+     * only used to narrow down rows the filter is evaluated against.
+     *
+     * @return row cursor factory or null when filter has no predicates that can use sorted index
+     */
+    @Nullable
+    private RowCursorFactory generateSortedIndexRowCursorFactory(
+            ExpressionNode filter,
+            TableReaderMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        sortedIndexConjuncts.clear();
+        collectConjuncts(filter, sortedIndexConjuncts);
+
+        int rangeColumnIndex = -1;
+        long rangeLo = Long.MIN_VALUE;
+        long rangeHi = Long.MAX_VALUE;
+        for (int i = 0, n = sortedIndexConjuncts.size(); i < n; i++) {
+            final ExpressionNode node = sortedIndexConjuncts.getQuick(i);
+            final CharSequence token = node.token;
+            sortedIndexKeys.clear();
+
+            if (Chars.equals(token, '=') && node.paramCount == 2) {
+                int columnIndex = getSortedIndexColumn(node.lhs, metadata);
+                ExpressionNode value = node.rhs;
+                if (columnIndex == -1) {
+                    columnIndex = getSortedIndexColumn(node.rhs, metadata);
+                    value = node.lhs;
+                }
+                if (columnIndex > -1 && addSortedIndexKey(value, metadata.getColumnType(columnIndex), metadata, executionContext)) {
+                    final long key = sortedIndexKeys.getQuick(0);
+                    final LongList keyRanges = new LongList(2);
+                    keyRanges.add(key, key);
+                    return new SortedIndexRowCursorFactory(columnIndex, keyRanges);
+                }
+            } else if (isInKeyword(token) && node.paramCount > 1) {
+                final int columnIndex = getSortedIndexColumn(node.paramCount < 3 ? node.lhs : node.args.getLast(), metadata);
+                if (columnIndex > -1) {
+                    final int columnType = metadata.getColumnType(columnIndex);
+                    boolean constantKeys = true;
+                    if (node.paramCount < 3) {
+                        constantKeys = addSortedIndexKey(node.rhs, columnType, metadata, executionContext);
+                    } else {
+                        for (int j = 0, m = node.paramCount - 1; j < m && constantKeys; j++) {
+                            constantKeys = addSortedIndexKey(node.args.getQuick(j), columnType, metadata, executionContext);
+                        }
+                    }
+                    if (constantKeys) {
+                        sortedIndexKeys.sort();
+                        final LongList keyRanges = new LongList(sortedIndexKeys.size() * 2);
+                        for (int j = 0, m = sortedIndexKeys.size(); j < m; j++) {
+                            final long key = sortedIndexKeys.getQuick(j);
+                            if (j == 0 || key != sortedIndexKeys.getQuick(j - 1)) {
+                                keyRanges.add(key, key);
+                            }
+                        }
+                        return new SortedIndexRowCursorFactory(columnIndex, keyRanges);
+                    }
+                }
+            } else if (isBetweenKeyword(token) && node.paramCount == 3) {
+                final int columnIndex = getSortedIndexColumn(node.args.getLast(), metadata);
+                if (columnIndex > -1
+                        && (rangeColumnIndex == -1 || rangeColumnIndex == columnIndex)
+                        && isSortedIndexRangeType(metadata.getColumnType(columnIndex))
+                        && addSortedIndexKey(node.args.getQuick(0), metadata.getColumnType(columnIndex), metadata, executionContext)
+                        && addSortedIndexKey(node.args.getQuick(1), metadata.getColumnType(columnIndex), metadata, executionContext)) {
+                    // bounds of between can be in any order
+                    rangeColumnIndex = columnIndex;
+                    rangeLo = Math.max(rangeLo, Math.min(sortedIndexKeys.getQuick(0), sortedIndexKeys.getQuick(1)));
+                    rangeHi = Math.min(rangeHi, Math.max(sortedIndexKeys.getQuick(0), sortedIndexKeys.getQuick(1)));
+                }
+            } else if (node.paramCount == 2 && token.length() > 0 && (token.charAt(0) == '<' || token.charAt(0) == '>')) {
+                final boolean inclusive = token.length() == 2 && token.charAt(1) == '=';
+                if (token.length() > 1 && !inclusive) {
+                    // '<>' is not a range
+                    continue;
+                }
+                boolean greater = token.charAt(0) == '>';
+                int columnIndex = getSortedIndexColumn(node.lhs, metadata);
+                ExpressionNode value = node.rhs;
+                if (columnIndex == -1) {
+                    columnIndex = getSortedIndexColumn(node.rhs, metadata);
+                    value = node.lhs;
+                    greater = !greater;
+                }
+                if (columnIndex > -1
+                        && (rangeColumnIndex == -1 || rangeColumnIndex == columnIndex)
+                        && isSortedIndexRangeType(metadata.getColumnType(columnIndex))
+                        && addSortedIndexKey(value, metadata.getColumnType(columnIndex), metadata, executionContext)) {
+                    final long bound = sortedIndexKeys.getQuick(0);
+                    rangeColumnIndex = columnIndex;
+                    if (greater) {
+                        rangeLo = Math.max(rangeLo, inclusive || bound == Long.MAX_VALUE ? bound : bound + 1);
+                    } else {
+                        rangeHi = Math.min(rangeHi, inclusive || bound == Long.MIN_VALUE ? bound : bound - 1);
+                    }
+                }
+            }
+        }
+
+        if (rangeColumnIndex > -1) {
+            final LongList keyRanges = new LongList(2);
+            keyRanges.add(rangeLo, rangeHi);
+            return new SortedIndexRowCursorFactory(rangeColumnIndex, keyRanges);
+        }
+        return null;
     }
 
     private RecordCursorFactory generateUnionAllFactory(
@@ -3752,6 +4335,41 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return metadata.getTimestampIndex();
     }
 
+    private boolean isParallelSortSupported(RecordCursorFactory factory, RecordMetadata metadata) {
+        // frames of descending cursor would have to be merged in reverse to keep order of equal keys
+        return configuration.isSqlParallelSortEnabled()
+                && listColumnFilterA.size() == 1
+                && factory.supportPageFrameCursor()
+                && !factory.hasDescendingOrder()
+                && AsyncSortedRecordCursorFactory.isSupportedKeyType(metadata.getColumnType(listColumnFilterA.getColumnIndexFactored(0)));
+    }
+
+    private boolean isPageFrameAsOfJoinSupported(
+            RecordCursorFactory master,
+            RecordMetadata masterMetadata,
+            RecordCursorFactory slave,
+            RecordMetadata slaveMetadata
+    ) {
+        if (
+                fullFatJoins
+                        || !master.supportPageFrameCursor()
+                        || !slave.supportPageFrameCursor()
+                        || master.hasDescendingOrder()
+                        || slave.hasDescendingOrder()
+        ) {
+            return false;
+        }
+        // merge over column memory handles joins without a key or with a single symbol key
+        final int keyCount = listColumnFilterA.size();
+        if (keyCount == 0) {
+            return listColumnFilterB.size() == 0;
+        }
+        return keyCount == 1
+                && listColumnFilterB.size() == 1
+                && ColumnType.isSymbol(masterMetadata.getColumnType(listColumnFilterB.getColumnIndexFactored(0)))
+                && ColumnType.isSymbol(slaveMetadata.getColumnType(listColumnFilterA.getColumnIndexFactored(0)));
+    }
+
     private boolean isOrderDescendingByDesignatedTimestampOnly(QueryModel model) {
         return model.getOrderByAdvice().size() == 1 && model.getTimestamp() != null &&
                 Chars.equalsIgnoreCase(model.getOrderByAdvice().getQuick(0).token, model.getTimestamp().token) &&
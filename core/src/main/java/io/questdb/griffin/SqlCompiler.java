@@ -32,6 +32,7 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cutlass.parquet.ParquetPartitionWriter;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
@@ -108,6 +109,8 @@ public class SqlCompiler implements Closeable {
     private final TimestampValueRecord partitionFunctionRec = new TimestampValueRecord();
     private final IndexBuilder rebuildIndex = new IndexBuilder();
     private final VacuumColumnVersions vacuumColumnVersions;
+    private final IntList exportPartitions = new IntList();
+    private final TableCloner tableCloner;
     //determines how compiler parses query text
     //true - compiler treats whole input as single query and doesn't stop on ';'. Default mode.
     //false - compiler treats input as list of statements and stops processing statement on ';'. Used in batch processing.
@@ -143,6 +146,7 @@ public class SqlCompiler implements Closeable {
         );
         this.codeGenerator = new SqlCodeGenerator(engine, configuration, functionParser, sqlNodePool);
         this.vacuumColumnVersions = new VacuumColumnVersions(engine);
+        this.tableCloner = new TableCloner(engine);
 
         // we have cyclical dependency here
         functionParser.setSqlCodeGenerator(codeGenerator);
@@ -165,6 +169,8 @@ public class SqlCompiler implements Closeable {
         final KeywordBasedExecutor sqlShow = this::sqlShow;
         final KeywordBasedExecutor vacuumTable = this::vacuum;
         final KeywordBasedExecutor snapshotDatabase = this::snapshotDatabase;
+        final KeywordBasedExecutor exportTable = this::exportTable;
+        final KeywordBasedExecutor cloneTable = this::cloneTable;
 
         keywordBasedExecutors.put("truncate", truncateTables);
         keywordBasedExecutors.put("TRUNCATE", truncateTables);
@@ -200,6 +206,10 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("VACUUM", vacuumTable);
         keywordBasedExecutors.put("snapshot", snapshotDatabase);
         keywordBasedExecutors.put("SNAPSHOT", snapshotDatabase);
+        keywordBasedExecutors.put("export", exportTable);
+        keywordBasedExecutors.put("EXPORT", exportTable);
+        keywordBasedExecutors.put("clone", cloneTable);
+        keywordBasedExecutors.put("CLONE", cloneTable);
 
         configureLexer(lexer);
 
@@ -860,6 +870,7 @@ public class SqlCompiler implements Closeable {
         backupAgent.close();
         codeGenerator.close();
         vacuumColumnVersions.close();
+        Misc.free(tableCloner);
         Misc.free(path);
         Misc.free(renamePath);
         Misc.free(textLoader);
@@ -1114,7 +1125,13 @@ public class SqlCompiler implements Closeable {
                         final CharSequence columnName = GenericLexer.immutableOf(tok);
                         tok = expectToken(lexer, "'add index' or 'cache' or 'nocache'");
                         if (SqlKeywords.isAddKeyword(tok)) {
-                            expectKeyword(lexer, "index");
+                            tok = expectToken(lexer, "'index' or 'latest'");
+                            if (SqlKeywords.isLatestKeyword(tok)) {
+                                return alterTableColumnAddLatestRows(tableNamePosition, tableName, columnNameNamePosition, columnName, tableMetadata);
+                            }
+                            if (!SqlKeywords.isIndexKeyword(tok)) {
+                                throw SqlException.$(lexer.lastTokenPosition(), "'index' or 'latest' expected");
+                            }
                             tok = SqlUtil.fetchNext(lexer);
                             int indexValueCapacity = -1;
 
@@ -1164,6 +1181,8 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'param' expected");
                     }
+                } else if (SqlKeywords.isDedupKeyword(tok)) {
+                    return alterTableDedup(tableNamePosition, tableName, tableMetadata);
                 } else {
                     throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'set' or 'rename' expected");
                 }
@@ -1395,6 +1414,30 @@ public class SqlCompiler implements Closeable {
         );
     }
 
+    private CompiledQuery alterTableColumnAddLatestRows(
+            int tableNamePosition,
+            String tableName,
+            int columnNamePosition,
+            CharSequence columnName,
+            TableReaderMetadata metadata
+    ) throws SqlException {
+        final int columnIndex = metadata.getColumnIndexQuiet(columnName);
+        if (columnIndex == -1) {
+            throw SqlException.invalidColumn(columnNamePosition, columnName);
+        }
+        if (!ColumnType.isSymbol(metadata.getColumnType(columnIndex))) {
+            throw SqlException.$(columnNamePosition, "Invalid column type - Column should be of type symbol");
+        }
+        if (!PartitionBy.isPartitioned(metadata.getPartitionBy())) {
+            throw SqlException.$(tableNamePosition, "latest rows require partitioned table");
+        }
+        return compiledQuery.ofAlter(
+                alterOperationBuilder
+                        .ofAddLatestRows(tableNamePosition, tableName, metadata.getId(), columnName)
+                        .build()
+        );
+    }
+
     private CompiledQuery alterTableColumnCacheFlag(
             int tableNamePosition,
             String tableName,
@@ -1420,6 +1463,53 @@ public class SqlCompiler implements Closeable {
         );
     }
 
+    private CompiledQuery alterTableDedup(int tableNamePosition, String tableName, TableReaderMetadata metadata) throws SqlException {
+        CharSequence tok = expectToken(lexer, "'enable' or 'disable'");
+        if (SqlKeywords.isDisableKeyword(tok)) {
+            tok = SqlUtil.fetchNext(lexer);
+            if (tok != null && !isSemicolon(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "unexpected token [").put(tok).put(']');
+            }
+            return compiledQuery.ofAlter(alterOperationBuilder.ofDedupDisable(tableNamePosition, tableName, metadata.getId()).build());
+        }
+        if (!SqlKeywords.isEnableKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'enable' or 'disable' expected");
+        }
+        expectKeyword(lexer, "upsert");
+        expectKeyword(lexer, "keys");
+        tok = expectToken(lexer, "'('");
+        if (!Chars.equals(tok, '(')) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'(' expected");
+        }
+
+        final AlterOperationBuilder dedupStatement = alterOperationBuilder.ofDedupEnable(tableNamePosition, tableName, metadata.getId());
+        boolean timestampKey = false;
+        do {
+            tok = GenericLexer.unquote(expectToken(lexer, "column name"));
+            final int columnIndex = metadata.getColumnIndexQuiet(tok);
+            if (columnIndex == -1) {
+                throw SqlException.invalidColumn(lexer.lastTokenPosition(), tok);
+            }
+            if (columnIndex == metadata.getTimestampIndex()) {
+                timestampKey = true;
+            }
+            dedupStatement.ofDedupKey(metadata.getColumnName(columnIndex));
+
+            tok = expectToken(lexer, "',' or ')'");
+            if (Chars.equals(tok, ')')) {
+                break;
+            }
+            if (!Chars.equals(tok, ',')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' or ')' expected");
+            }
+        } while (true);
+
+        if (!timestampKey) {
+            throw SqlException.$(lexer.lastTokenPosition(), "deduplicate key list must include designated timestamp column");
+        }
+        return compiledQuery.ofAlter(alterOperationBuilder.build());
+    }
+
     private CompiledQuery alterTableDropColumn(int tableNamePosition, String tableName, TableReaderMetadata metadata) throws SqlException {
         AlterOperationBuilder dropColumnStatement = alterOperationBuilder.ofDropColumn(tableNamePosition, tableName, metadata.getId());
         int semicolonPos = -1;
@@ -1631,6 +1721,44 @@ public class SqlCompiler implements Closeable {
         functionParser.clear();
     }
 
+    private CompiledQuery cloneTable(SqlExecutionContext executionContext) throws SqlException {
+        executionContext.getCairoSecurityContext().checkWritePermission();
+        CharSequence tok = expectToken(lexer, "'table'");
+        if (!isTableKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'table' expected");
+        }
+        tok = expectToken(lexer, "table name");
+        final int srcTableNamePosition = lexer.lastTokenPosition();
+        final CharSequence srcTableName = GenericLexer.immutableOf(
+                GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tok), srcTableNamePosition)
+        );
+        tableExistsOrFail(srcTableNamePosition, srcTableName, executionContext);
+
+        tok = expectToken(lexer, "'to'");
+        if (!isToKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'to' expected");
+        }
+        tok = expectToken(lexer, "table name");
+        final int dstTableNamePosition = lexer.lastTokenPosition();
+        final CharSequence dstTableName = GenericLexer.immutableOf(
+                GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tok), dstTableNamePosition)
+        );
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && !isSemicolon(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "end of line or ';' expected");
+        }
+
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, dstTableName) != TableUtils.TABLE_DOES_NOT_EXIST) {
+            throw SqlException.$(dstTableNamePosition, "table already exists");
+        }
+        try {
+            tableCloner.clone(executionContext.getCairoSecurityContext(), srcTableName, dstTableName);
+        } catch (EntryUnavailableException e) {
+            throw SqlException.$(dstTableNamePosition, "cannot acquire table lock [lockedReason=").put(e.getFlyweightMessage()).put(']');
+        }
+        return compiledQuery.ofCloneTable();
+    }
+
     private CompiledQuery compileBegin(SqlExecutionContext executionContext) {
         return compiledQuery.ofBegin();
     }
@@ -2093,6 +2221,108 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofCopyLocal();
     }
 
+    private CompiledQuery exportTable(SqlExecutionContext executionContext) throws SqlException {
+        executionContext.getCairoSecurityContext().checkWritePermission();
+        final CharSequence exportRoot = configuration.getSqlExportRoot();
+        if (exportRoot == null) {
+            throw CairoException.instance(0).put("Export is disabled, no export root directory is configured in the server configuration ['cairo.sql.export.root' property]");
+        }
+
+        CharSequence tok = expectToken(lexer, "'table'");
+        if (!isTableKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'table' expected");
+        }
+        tok = expectToken(lexer, "table name");
+        final CharSequence tableName = GenericLexer.immutableOf(
+                GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tok), lexer.lastTokenPosition())
+        );
+        tableExistsOrFail(lexer.lastTokenPosition(), tableName, executionContext);
+
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableName)) {
+            final int partitionBy = reader.getPartitionedBy();
+            exportPartitions.clear();
+            tok = expectToken(lexer, "'partition' or 'to'");
+            if (isPartitionKeyword(tok)) {
+                tok = expectToken(lexer, "'list'");
+                if (!isListKeyword(tok)) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "'list' expected");
+                }
+                if (!PartitionBy.isPartitioned(partitionBy)) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "table '").put(tableName).put("' is not partitioned");
+                }
+                do {
+                    tok = expectToken(lexer, "partition name");
+                    if (Chars.equals(tok, ',')) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "partition name missing");
+                    }
+                    final long timestamp;
+                    try {
+                        timestamp = PartitionBy.parsePartitionDirName(GenericLexer.unquote(tok), partitionBy);
+                    } catch (CairoException e) {
+                        throw SqlException.$(lexer.lastTokenPosition(), e.getFlyweightMessage())
+                                .put("[errno=").put(e.getErrno()).put(']');
+                    }
+                    final int partitionIndex = reader.getPartitionIndexByTimestamp(timestamp);
+                    if (partitionIndex < 0 || reader.getPartitionTimestampByIndex(partitionIndex) != timestamp) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "partition '").put(GenericLexer.unquote(tok)).put("' does not exist");
+                    }
+                    exportPartitions.add(partitionIndex);
+                    tok = expectToken(lexer, "',' or 'to'");
+                } while (Chars.equals(tok, ','));
+            }
+
+            if (!isToKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'to' expected");
+            }
+            tok = expectToken(lexer, "'parquet'");
+            if (!isParquetKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'parquet' expected");
+            }
+            tok = SqlUtil.fetchNext(lexer);
+            if (tok != null && !isSemicolon(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "end of line or ';' expected");
+            }
+
+            ParquetPartitionWriter.validate(reader.getMetadata());
+            if (exportPartitions.size() == 0) {
+                for (int i = 0, n = reader.getPartitionCount(); i < n; i++) {
+                    exportPartitions.add(i);
+                }
+            }
+
+            path.of(exportRoot).concat(tableName).slash$();
+            if (!ff.exists(path) && ff.mkdirs(path, configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create export directory [path=").put(path).put(']');
+            }
+            final int tableDirLen = path.length();
+            try (ParquetPartitionWriter parquetWriter = new ParquetPartitionWriter(configuration)) {
+                for (int i = 0, n = exportPartitions.size(); i < n; i++) {
+                    final int partitionIndex = exportPartitions.getQuick(i);
+                    if (reader.openPartition(partitionIndex) < 1) {
+                        continue;
+                    }
+                    path.trimTo(tableDirLen);
+                    PartitionBy.setSinkForPartition(path, partitionBy, reader.getPartitionTimestampByIndex(partitionIndex), false);
+                    path.put(".parquet");
+                    renamePath.of(path).$();
+                    path.put(".tmp").$();
+                    final long rows = parquetWriter.write(reader, partitionIndex, path);
+                    if (ff.exists(renamePath) && !ff.remove(renamePath)) {
+                        throw CairoException.instance(ff.errno()).put("could not remove previous export [path=").put(renamePath).put(']');
+                    }
+                    if (!ff.rename(path, renamePath)) {
+                        throw CairoException.instance(ff.errno()).put("could not rename [from=").put(path).put(", to=").put(renamePath).put(']');
+                    }
+                    LOG.info().$("exported partition [table=").$(tableName)
+                            .$(", path=").$(renamePath)
+                            .$(", rows=").$(rows)
+                            .I$();
+                }
+            }
+        }
+        return compiledQuery.ofExportTable();
+    }
+
     private CompiledQuery executeWithRetries(
             ExecutableMethod method,
             ExecutionModel executionModel,
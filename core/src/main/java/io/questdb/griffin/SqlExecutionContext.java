@@ -32,8 +32,10 @@ import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.NativeArena;
 import io.questdb.std.Rnd;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.NotNull;
@@ -84,7 +86,11 @@ public interface SqlExecutionContext extends Closeable {
             @Nullable RecordSink partitionBySink,
             @Transient @Nullable ColumnTypes keyTypes,
             boolean isOrdered,
-            boolean baseSupportsRandomAccess
+            boolean baseSupportsRandomAccess,
+            @Nullable RecordComparator orderByComparator,
+            int timestampIndex,
+            int framingMode,
+            long rowsLo
     );
 
     void initNow();
@@ -102,4 +108,12 @@ public interface SqlExecutionContext extends Closeable {
     void setCloneSymbolTables(boolean cloneSymbolTables);
 
     boolean getCloneSymbolTables();
+
+    /**
+     * Native memory arena of the query being executed. Cursors that hold the arena release it on close,
+     * the arena frees its memory in bulk when the last holder lets go.
+     *
+     * @return query arena
+     */
+    NativeArena getArena();
 }
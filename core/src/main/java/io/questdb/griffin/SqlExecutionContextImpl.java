@@ -29,6 +29,7 @@ import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.griffin.engine.analytic.AnalyticContextImpl;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
@@ -36,6 +37,9 @@ import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.std.IntStack;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.NativeArena;
 import io.questdb.std.Rnd;
 import io.questdb.std.Transient;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
@@ -51,6 +55,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private final MicrosecondClock clock;
     private final AnalyticContextImpl analyticContext = new AnalyticContextImpl();
     private final RingQueue<TelemetryTask> telemetryQueue;
+    private final NativeArena arena;
     private Sequence telemetryPubSeq;
     private TelemetryTask.TelemetryMethod telemetryMethod = this::storeTelemetryNoop;
     private BindVariableService bindVariableService;
@@ -70,6 +75,12 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         this.clock = cairoConfiguration.getMicrosecondClock();
         this.cairoSecurityContext = AllowAllCairoSecurityContext.INSTANCE;
         this.jitMode = cairoConfiguration.getSqlJitMode();
+        this.arena = new NativeArena(
+                cairoConfiguration.getSqlQueryArenaChunkSize(),
+                cairoConfiguration.getSqlQueryMemoryLimit(),
+                MemoryTag.NATIVE_QUERY_ARENA,
+                cairoEngine.getQueryMemoryBudget()
+        );
 
         this.telemetryQueue = cairoEngine.getTelemetryQueue();
         if (telemetryQueue != null) {
@@ -155,14 +166,22 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
             @Nullable RecordSink partitionBySink,
             @Transient @Nullable ColumnTypes partitionByKeyTypes,
             boolean ordered,
-            boolean baseSupportsRandomAccess
+            boolean baseSupportsRandomAccess,
+            @Nullable RecordComparator orderByComparator,
+            int timestampIndex,
+            int framingMode,
+            long rowsLo
     ) {
         analyticContext.of(
                 partitionByRecord,
                 partitionBySink,
                 partitionByKeyTypes,
                 ordered,
-                baseSupportsRandomAccess
+                baseSupportsRandomAccess,
+                orderByComparator,
+                timestampIndex,
+                framingMode,
+                rowsLo
         );
     }
 
@@ -235,4 +254,14 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     public boolean getCloneSymbolTables() {
         return cloneSymbolTables;
     }
+
+    @Override
+    public NativeArena getArena() {
+        return arena;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(arena);
+    }
 }
@@ -1058,13 +1058,13 @@ class SqlOptimiser {
                 // when alias is not the same as token, e.g. column aliases as "token" is already on the list
                 // we have to create a new expression node that uses this alias
                 if (alias != n.token) {
-                    return nextLiteral(alias);
+                    return nextLiteral(alias, node.position);
                 } else {
                     return n;
                 }
             } else {
                 // column is already referenced
-                return nextLiteral(map.valueAt(index));
+                return nextLiteral(map.valueAt(index), node.position);
             }
         }
         return doReplaceLiteral0(node, translatingModel, innerModel, validatingModel);
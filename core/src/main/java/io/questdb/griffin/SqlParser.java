@@ -30,6 +30,7 @@ import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -1569,6 +1570,27 @@ public final class SqlParser {
                         }
                     } while (Chars.equals(tok, ','));
                 }
+
+                if (isRowsKeyword(tok) || isRangeKeyword(tok)) {
+                    final int framingMode = isRowsKeyword(tok) ? AnalyticColumn.FRAMING_ROWS : AnalyticColumn.FRAMING_RANGE;
+                    final int framePosition = lexer.lastTokenPosition();
+                    final long rowsLo;
+                    tok = tok(lexer, "'between', 'unbounded', 'current' or integer");
+                    if (isBetweenKeyword(tok)) {
+                        rowsLo = parseFrameStart(lexer, framingMode);
+                        expectTok(lexer, "and");
+                        // frames that end before or after the current row are not supported
+                        if (!isCurrentKeyword(tok(lexer, "'current'"))) {
+                            throw SqlException.$(lexer.lastTokenPosition(), "'current row' expected");
+                        }
+                        expectTok(lexer, "row");
+                    } else {
+                        lexer.unparseLast();
+                        rowsLo = parseFrameStart(lexer, framingMode);
+                    }
+                    ((AnalyticColumn) col).setFrame(framingMode, rowsLo, framePosition);
+                    tok = tokIncludingLocalBrace(lexer, "')'");
+                }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
                 tok = optTok(lexer);
 
@@ -1618,6 +1640,61 @@ public final class SqlParser {
         }
     }
 
+    private long parseFrameStart(GenericLexer lexer, int framingMode) throws SqlException {
+        CharSequence tok = tok(lexer, "'unbounded', 'current' or integer");
+        if (isUnboundedKeyword(tok)) {
+            expectTok(lexer, "preceding");
+            return Long.MIN_VALUE;
+        }
+
+        if (isCurrentKeyword(tok)) {
+            expectTok(lexer, "row");
+            return 0;
+        }
+
+        final int position = lexer.lastTokenPosition();
+        long value;
+        try {
+            value = Numbers.parseLong(tok);
+        } catch (NumericException e) {
+            throw SqlException.$(position, "'unbounded', 'current' or integer expected");
+        }
+
+        tok = tok(lexer, "'preceding'");
+        if (framingMode == AnalyticColumn.FRAMING_RANGE) {
+            // range of designated timestamp is in microseconds unless time unit is given
+            long unit = 1;
+            if (isMillisecondsKeyword(tok)) {
+                unit = Timestamps.MILLI_MICROS;
+            } else if (isSecondKeyword(tok)) {
+                unit = Timestamps.SECOND_MICROS;
+            } else if (isMinuteKeyword(tok)) {
+                unit = Timestamps.MINUTE_MICROS;
+            } else if (isHourKeyword(tok)) {
+                unit = Timestamps.HOUR_MICROS;
+            } else if (isDayKeyword(tok)) {
+                unit = Timestamps.DAY_MICROS;
+            } else if (isWeekKeyword(tok)) {
+                unit = Timestamps.WEEK_MICROS;
+            }
+            if (unit > 1) {
+                if (value > Long.MAX_VALUE / unit) {
+                    throw SqlException.$(position, "frame range is too large");
+                }
+                value *= unit;
+                tok = tok(lexer, "'preceding'");
+            }
+        }
+
+        if (isFollowingKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "frames that end after the current row are not supported");
+        }
+        if (!isPrecedingKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'preceding' expected");
+        }
+        return -value;
+    }
+
     private void parseSelectFrom(GenericLexer lexer, QueryModel model, LowerCaseCharSequenceObjHashMap<WithClauseModel> masterModel) throws SqlException {
         final ExpressionNode expr = expr(lexer, model);
         if (expr == null) {
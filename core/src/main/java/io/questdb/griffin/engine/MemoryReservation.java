@@ -0,0 +1,78 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Mutable;
+import io.questdb.std.NativeArena;
+
+/**
+ * Accounts for memory an operator keeps in its own data structures against memory budget of
+ * the query, see {@link NativeArena#tryReserve(long)}. Operator reports its footprint as it
+ * grows and spills its state to disk once the reservation is refused.
+ */
+public class MemoryReservation implements Mutable {
+    // reserve in larger steps to avoid touching shared budget on every row
+    private static final long MIN_GROWTH = 64 * 1024;
+    private NativeArena arena;
+    private long reserved;
+
+    @Override
+    public void clear() {
+        if (reserved > 0) {
+            arena.unreserve(reserved);
+            reserved = 0;
+        }
+    }
+
+    public CairoException limitExceeded(long memUsed) {
+        return arena.limitExceeded(memUsed - reserved);
+    }
+
+    public void of(NativeArena arena) {
+        clear();
+        this.arena = arena;
+    }
+
+    /**
+     * @param memUsed current footprint of the operator in bytes
+     * @return false when footprint does not fit memory budget of the query
+     */
+    public boolean tryGrow(long memUsed) {
+        if (memUsed <= reserved || arena == null) {
+            return true;
+        }
+        final long delta = memUsed - reserved;
+        if (delta < MIN_GROWTH && arena.tryReserve(MIN_GROWTH)) {
+            reserved += MIN_GROWTH;
+            return true;
+        }
+        if (arena.tryReserve(delta)) {
+            reserved += delta;
+            return true;
+        }
+        return false;
+    }
+}
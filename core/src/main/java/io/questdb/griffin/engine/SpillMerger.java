@@ -0,0 +1,141 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.IntList;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+
+/**
+ * Streams records of several chains, each already ordered by the comparator, as a single ordered
+ * sequence. Equal records are returned in the order of the chains they come from, which keeps
+ * merge of sorted runs stable.
+ */
+public class SpillMerger implements Mutable {
+    // min-heap of chain indexes
+    private final IntList heap = new IntList();
+    private ObjList<? extends RecordChain> chains;
+    private RecordComparator comparator;
+    private int current = -1;
+
+    @Override
+    public void clear() {
+        heap.clear();
+        chains = null;
+        comparator = null;
+        current = -1;
+    }
+
+    /**
+     * @return index of the chain current record belongs to
+     */
+    public int getCurrentIndex() {
+        return current;
+    }
+
+    public Record getRecord() {
+        return chains.getQuick(current).getRecord();
+    }
+
+    public boolean hasNext() {
+        if (current != -1 && chains.getQuick(current).hasNext()) {
+            push(current);
+        }
+        if (heap.size() == 0) {
+            current = -1;
+            return false;
+        }
+        current = pop();
+        return true;
+    }
+
+    public void of(ObjList<? extends RecordChain> chains, RecordComparator comparator) {
+        this.chains = chains;
+        this.comparator = comparator;
+        toTop();
+    }
+
+    public void toTop() {
+        heap.clear();
+        current = -1;
+        for (int i = 0, n = chains.size(); i < n; i++) {
+            final RecordChain chain = chains.getQuick(i);
+            chain.toTop();
+            if (chain.hasNext()) {
+                push(i);
+            }
+        }
+    }
+
+    private boolean less(int a, int b) {
+        comparator.setLeft(chains.getQuick(a).getRecord());
+        final int cmp = comparator.compare(chains.getQuick(b).getRecord());
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    private int pop() {
+        final int top = heap.getQuick(0);
+        final int last = heap.size() - 1;
+        heap.setQuick(0, heap.getQuick(last));
+        heap.setPos(last);
+
+        int i = 0;
+        while (true) {
+            final int l = 2 * i + 1;
+            if (l >= last) {
+                break;
+            }
+            final int r = l + 1;
+            int min = r < last && less(heap.getQuick(r), heap.getQuick(l)) ? r : l;
+            if (!less(heap.getQuick(min), heap.getQuick(i))) {
+                break;
+            }
+            swap(i, min);
+            i = min;
+        }
+        return top;
+    }
+
+    private void push(int chainIndex) {
+        heap.add(chainIndex);
+        int i = heap.size() - 1;
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (!less(heap.getQuick(i), heap.getQuick(parent))) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int t = heap.getQuick(i);
+        heap.setQuick(i, heap.getQuick(j));
+        heap.setQuick(j, t);
+    }
+}
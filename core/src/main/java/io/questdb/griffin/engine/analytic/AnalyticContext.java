@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.analytic;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.engine.RecordComparator;
 
 public interface AnalyticContext {
     VirtualRecord getPartitionByRecord();
@@ -38,4 +39,21 @@ public interface AnalyticContext {
     boolean isOrdered();
 
     boolean baseSupportsRandomAccess();
+
+    /**
+     * @return comparator of ORDER BY columns of the analytic clause or null when rows are not ordered
+     */
+    RecordComparator getOrderByComparator();
+
+    /**
+     * @return index of designated timestamp column when rows are ordered by it in ascending order, otherwise -1
+     */
+    int getTimestampIndex();
+
+    int getFramingMode();
+
+    /**
+     * @return start of the frame, see {@link io.questdb.griffin.model.AnalyticColumn#getRowsLo()}
+     */
+    long getRowsLo();
 }
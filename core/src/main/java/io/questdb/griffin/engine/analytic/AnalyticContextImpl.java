@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.analytic;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.std.Transient;
 import org.jetbrains.annotations.Nullable;
 
@@ -36,6 +37,10 @@ public class AnalyticContextImpl implements AnalyticContext {
     private ColumnTypes partitionByKeyTypes;
     private boolean ordered;
     private boolean baseSupportsRandomAccess;
+    private RecordComparator orderByComparator;
+    private int timestampIndex;
+    private int framingMode;
+    private long rowsLo;
 
     @Override
     public VirtualRecord getPartitionByRecord() {
@@ -62,17 +67,45 @@ public class AnalyticContextImpl implements AnalyticContext {
         return baseSupportsRandomAccess;
     }
 
+    @Override
+    public RecordComparator getOrderByComparator() {
+        return orderByComparator;
+    }
+
+    @Override
+    public int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    @Override
+    public int getFramingMode() {
+        return framingMode;
+    }
+
+    @Override
+    public long getRowsLo() {
+        return rowsLo;
+    }
+
     public void of(
             VirtualRecord partitionByRecord,
             @Nullable RecordSink partitionBySink,
             @Transient @Nullable ColumnTypes partitionByKeyTypes,
             boolean ordered,
-            boolean baseSupportsRandomAccess
+            boolean baseSupportsRandomAccess,
+            @Nullable RecordComparator orderByComparator,
+            int timestampIndex,
+            int framingMode,
+            long rowsLo
     ) {
         this.partitionByRecord = partitionByRecord;
         this.partitionBySink = partitionBySink;
         this.partitionByKeyTypes = partitionByKeyTypes;
         this.ordered = ordered;
         this.baseSupportsRandomAccess = baseSupportsRandomAccess;
+        this.orderByComparator = orderByComparator;
+        this.timestampIndex = timestampIndex;
+        this.framingMode = framingMode;
+        this.rowsLo = rowsLo;
     }
 }
@@ -34,11 +34,24 @@ public interface AnalyticFunction extends Function {
     int TWO_PASS = 2;
     int THREE_PASS = 3;
 
+    /**
+     * @return {@link #STREAM} when value of the current row depends only on the rows seen so far and on its
+     * peers with the same timestamp, such function is a {@link StreamAnalyticFunction}, or {@link #TWO_PASS}
+     * when function needs the rows that follow the current one, such function is computed over cached rows
+     * and its pass2() is called once pass1() has seen all rows.
+     */
+    default int getPassCount() {
+        return STREAM;
+    }
+
     void pass1(Record record, long recordOffset, AnalyticSPI spi);
 
+    /**
+     * Called once pass1() has seen all rows, before pass2() of two-pass functions.
+     */
     void preparePass2(RecordCursor cursor);
 
-    void pass2(Record record);
+    void pass2(Record record, long recordOffset, AnalyticSPI spi);
 
     void reset();
 
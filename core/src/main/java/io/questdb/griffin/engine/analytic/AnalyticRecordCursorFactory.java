@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Computes analytic functions in a single pass over the base cursor. This is possible when the base cursor already
+ * returns rows in the order of every analytic clause, e.g. ordered by designated timestamp, and none of the functions
+ * needs rows that follow the current one. Functions keep only the state of their partitions instead of the whole
+ * result set.
+ * <p>
+ * Values of some functions depend on peers of the row, rows with the same timestamp, that follow it. Rows of the
+ * current peer group are then kept in the record chain. Functions see them through pass1() as they come and values
+ * of all of them are written by preparePass2() once the group ends, after that the group is returned.
+ */
+public class AnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<StreamAnalyticFunction> functions;
+    // rows of the current peer group, null when no function depends on peers of the row
+    @Nullable
+    private final RecordChain peerChain;
+    private final AnalyticRecordCursor cursor;
+
+    /**
+     * @param chainTypes       column types of the record chain layout
+     * @param peerSink         copies base record to the record chain layout, null when no function depends on peers
+     * @param columnCrossIndex index of base column for every column of the record chain layout, -1 for analytic columns
+     * @param columnFunctions  analytic functions at indexes of their columns, null elsewhere
+     */
+    public AnalyticRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            GenericRecordMetadata metadata,
+            @Transient ColumnTypes chainTypes,
+            @Nullable RecordSink peerSink,
+            IntList columnCrossIndex,
+            ObjList<AnalyticFunction> columnFunctions
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = new ObjList<>();
+        for (int i = 0, n = columnFunctions.size(); i < n; i++) {
+            final AnalyticFunction function = columnFunctions.getQuick(i);
+            if (function != null) {
+                functions.add((StreamAnalyticFunction) function);
+            }
+        }
+        this.cursor = new AnalyticRecordCursor(columnCrossIndex, columnFunctions);
+        if (peerSink != null) {
+            this.peerChain = new RecordChain(
+                    chainTypes,
+                    peerSink,
+                    configuration.getSqlAnalyticStorePageSize(),
+                    configuration.getSqlAnalyticStoreMaxPages()
+            );
+            peerChain.setSymbolTableResolver(cursor);
+        } else {
+            this.peerChain = null;
+        }
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(peerChain);
+        Misc.freeObjList(functions);
+    }
+
+    private void resetFunctions() {
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            functions.getQuick(i).reset();
+        }
+    }
+
+    private class AnalyticRecordCursor implements RecordCursor {
+        private final AnalyticRecord record;
+        private final IntList columnCrossIndex;
+        private final int timestampIndex;
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+        // base cursor is at the first row of the next peer group
+        private boolean hasNextGroup;
+
+        private AnalyticRecordCursor(IntList columnCrossIndex, ObjList<AnalyticFunction> columnFunctions) {
+            this.record = new AnalyticRecord(columnCrossIndex, columnFunctions);
+            this.columnCrossIndex = columnCrossIndex;
+            this.timestampIndex = base.getMetadata().getTimestampIndex();
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+            if (peerChain != null) {
+                peerChain.clear();
+            }
+            resetFunctions();
+        }
+
+        @Override
+        public Record getRecord() {
+            return peerChain != null ? peerChain.getRecord() : record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnCrossIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (peerChain != null) {
+                return peerChain.hasNext() || (nextPeerGroup() && peerChain.hasNext());
+            }
+            if (baseCursor.hasNext()) {
+                for (int i = 0, n = functions.size(); i < n; i++) {
+                    functions.getQuick(i).computeNext(record);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnCrossIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long size() {
+            return baseCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            if (peerChain != null) {
+                peerChain.clear();
+                hasNextGroup = baseCursor.hasNext();
+            }
+            resetFunctions();
+        }
+
+        private boolean nextPeerGroup() {
+            assert peerChain != null;
+            if (!hasNextGroup) {
+                return false;
+            }
+            peerChain.truncate();
+            final Record chainRecord = peerChain.getRecord();
+            final long timestamp = baseRecord.getTimestamp(timestampIndex);
+            long offset = -1;
+            do {
+                offset = peerChain.put(baseRecord, offset);
+                peerChain.recordAt(chainRecord, offset);
+                for (int i = 0, n = functions.size(); i < n; i++) {
+                    functions.getQuick(i).pass1(chainRecord, offset, peerChain);
+                }
+                hasNextGroup = baseCursor.hasNext();
+            } while (hasNextGroup && baseRecord.getTimestamp(timestampIndex) == timestamp);
+
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                functions.getQuick(i).preparePass2(peerChain);
+            }
+            peerChain.toTop();
+            return true;
+        }
+
+        private void of(RecordCursor baseCursor, SqlExecutionContext executionContext) throws SqlException {
+            this.baseCursor = baseCursor;
+            this.baseRecord = baseCursor.getRecord();
+            record.of(baseRecord);
+            resetFunctions();
+            Function.init(functions, this, executionContext);
+            if (peerChain != null) {
+                peerChain.clear();
+                hasNextGroup = baseCursor.hasNext();
+            }
+        }
+    }
+}
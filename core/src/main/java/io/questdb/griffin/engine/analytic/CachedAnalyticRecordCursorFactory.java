@@ -26,13 +26,13 @@ package io.questdb.griffin.engine.analytic;
 
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.Record;
-import io.questdb.cairo.sql.RecordCursor;
-import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.orderby.LongTreeChain;
+import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.Transient;
@@ -47,7 +47,10 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
     @Nullable private final ObjList<AnalyticFunction> unorderedFunctions;
     private final ObjList<AnalyticFunction> allFunctions;
     private final ObjList<RecordComparator> comparators;
+    // functions that need to see all rows of the partition, they are revisited in natural order after pass1
+    private final ObjList<AnalyticFunction> twoPassFunctions;
     private final Record recordChainRecord;
+    private final CachedAnalyticRecordCursor cursor;
     private boolean closed = false;
 
     public CachedAnalyticRecordCursorFactory(
@@ -56,6 +59,7 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
             RecordSink recordSink,
             GenericRecordMetadata metadata,
             @Transient ColumnTypes chainMetadata,
+            IntList columnCrossIndex,
             ObjList<RecordComparator> comparators,
             ObjList<ObjList<AnalyticFunction>> orderedFunctions,
             @Nullable ObjList<AnalyticFunction> unorderedFunctions
@@ -94,8 +98,18 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
             allFunctions.addAll(unorderedFunctions);
         }
 
+        this.twoPassFunctions = new ObjList<>();
+        for (int i = 0, n = allFunctions.size(); i < n; i++) {
+            final AnalyticFunction function = allFunctions.getQuick(i);
+            if (function.getPassCount() > AnalyticFunction.STREAM) {
+                twoPassFunctions.add(function);
+            }
+        }
+
         this.recordChainRecord = recordChain.getRecord();
         this.unorderedFunctions = unorderedFunctions;
+        this.cursor = new CachedAnalyticRecordCursor(columnCrossIndex);
+        recordChain.setSymbolTableResolver(cursor);
     }
 
     @Override
@@ -117,7 +131,19 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
         resetFunctions();
 
         final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor);
+            Function.init(allFunctions, cursor, executionContext);
+            buildChain(baseCursor);
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+        recordChain.toTop();
+        return cursor;
+    }
 
+    private void buildChain(RecordCursor baseCursor) {
         // step #1: store source cursor in record list
         // - add record list' row ids to all trees, which will put these row ids in necessary order
         // for this we will be using out comparator, which helps tree compare long values
@@ -144,10 +170,10 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
                 final LongTreeChain tree = orderedSources.getQuick(i);
                 final ObjList<AnalyticFunction> functions = orderedFunctions.getQuick(i);
                 // step #2: populate all analytic functions with records in order of respective tree
-                final LongTreeChain.TreeCursor cursor = tree.getCursor();
+                final LongTreeChain.TreeCursor treeCursor = tree.getCursor();
                 final int functionCount = functions.size();
-                while (cursor.hasNext()) {
-                    offset = cursor.next();
+                while (treeCursor.hasNext()) {
+                    offset = treeCursor.next();
                     recordChain.recordAt(recordChainRecord, offset);
                     for (int j = 0; j < functionCount; j++) {
                         functions.getQuick(j).pass1(recordChainRecord, offset, recordChain);
@@ -167,8 +193,19 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
             }
         }
 
-        recordChain.toTop();
-        return recordChain;
+        // all functions have seen all rows by now, e.g. the last peer group is complete
+        for (int j = 0, n = allFunctions.size(); j < n; j++) {
+            allFunctions.getQuick(j).preparePass2(recordChain);
+        }
+
+        // run pass2 for functions that need the whole partition
+        for (int j = 0, n = twoPassFunctions.size(); j < n; j++) {
+            final AnalyticFunction f = twoPassFunctions.getQuick(j);
+            recordChain.toTop();
+            while (recordChain.hasNext()) {
+                f.pass2(recordChainRecord, recordChainRecord.getRowId(), recordChain);
+            }
+        }
     }
 
     private void resetFunctions() {
@@ -192,4 +229,62 @@ public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFacto
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
     }
+
+    private class CachedAnalyticRecordCursor implements RecordCursor {
+        private final IntList columnCrossIndex;
+        private RecordCursor baseCursor;
+
+        private CachedAnalyticRecordCursor(IntList columnCrossIndex) {
+            this.columnCrossIndex = columnCrossIndex;
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordChainRecord;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnCrossIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return recordChain.hasNext();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return baseCursor.newSymbolTable(columnCrossIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordChain.getRecordB();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            recordChain.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return recordChain.size();
+        }
+
+        @Override
+        public void toTop() {
+            recordChain.toTop();
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+        }
+    }
 }
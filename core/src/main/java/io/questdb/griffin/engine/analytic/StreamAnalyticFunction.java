@@ -0,0 +1,49 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.sql.Record;
+
+/**
+ * Analytic function that can be computed straight from the base cursor when rows come in the order of the analytic
+ * clause, see {@link AnalyticRecordCursorFactory}. It is computed that way when its pass count is {@link #STREAM}.
+ */
+public interface StreamAnalyticFunction extends AnalyticFunction {
+
+    /**
+     * Computes value of the current row when rows come in the order of the analytic clause straight from
+     * the base cursor. Value is available from the getter of the function until the next call.
+     */
+    void computeNext(Record record);
+
+    /**
+     * @return true when value of the row changes once rows that follow it in its peer group, rows with the same
+     * timestamp, are seen. Such function is given rows of the peer group through pass1() and then preparePass2()
+     * is called to write values of all rows of the group.
+     */
+    default boolean isPeerDependent() {
+        return false;
+    }
+}
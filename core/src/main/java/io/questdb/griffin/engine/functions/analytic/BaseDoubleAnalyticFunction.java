@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Base of analytic functions of a double argument. State of every partition is a map value, it starts with
+ * the number of rows the partition has seen so far and the state of the queue of rows of the partition. Values
+ * of the function follow, their types are given by the factory.
+ */
+abstract class BaseDoubleAnalyticFunction extends DoubleFunction implements AnalyticFunction, UnaryFunction, Closeable {
+    static final int ROW_NUMBER_INDEX = 0;
+    static final int DEQUE_INDEX = 1;
+    static final int VALUE_INDEX = DEQUE_INDEX + FrameDeques.STATE_SIZE;
+    protected final Map map;
+    protected final VirtualRecord partitionByRecord;
+    protected final RecordSink partitionBySink;
+    protected final Function arg;
+    @Nullable
+    protected final FrameDeques deques;
+    protected int columnIndex;
+    protected double value;
+
+    BaseDoubleAnalyticFunction(Map map, AnalyticContext analyticContext, Function arg, @Nullable FrameDeques deques) {
+        this.map = map;
+        this.partitionByRecord = analyticContext.getPartitionByRecord();
+        this.partitionBySink = analyticContext.getPartitionBySink();
+        this.arg = arg;
+        this.deques = deques;
+    }
+
+    /**
+     * Creates map of partitions, its values start with the state of the frame followed by values of given types.
+     */
+    static Map newPartitionMap(CairoConfiguration configuration, AnalyticContext analyticContext, int... valueTypes) {
+        final ArrayColumnTypes types = new ArrayColumnTypes();
+        types.add(ColumnType.LONG);
+        for (int i = 0; i < FrameDeques.STATE_SIZE; i++) {
+            types.add(ColumnType.LONG);
+        }
+        for (int i = 0; i < valueTypes.length; i++) {
+            types.add(valueTypes[i]);
+        }
+        return MapFactory.createMap(configuration, analyticContext.getPartitionByKeyTypes(), types);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(deques);
+        Misc.freeObjList(partitionByRecord.getFunctions());
+        Misc.free(arg);
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        arg.init(symbolTableSource, executionContext);
+        Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public boolean isRuntimeConstant() {
+        return false;
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+    }
+
+    @Override
+    public void reset() {
+        map.clear();
+        if (deques != null) {
+            deques.clear();
+        }
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    protected MapValue findPartition(Record record) {
+        partitionByRecord.of(record);
+        final MapKey key = map.withKey();
+        key.put(partitionByRecord, partitionBySink);
+        final MapValue value = key.createValue();
+        if (value.isNew()) {
+            value.putLong(ROW_NUMBER_INDEX, 0);
+            if (deques != null) {
+                deques.init(value, DEQUE_INDEX);
+            }
+        }
+        return value;
+    }
+}
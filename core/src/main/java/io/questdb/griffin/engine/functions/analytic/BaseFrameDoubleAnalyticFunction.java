@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.StreamAnalyticFunction;
+import io.questdb.griffin.model.AnalyticColumn;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Base of analytic functions of a double argument over the frame of the row, the queue of the partition keeps
+ * rows of the frame.
+ * <p>
+ * Frame of RANGE mode over ordered rows includes peers of the current row, that is rows with the same values of
+ * ORDER BY columns. Rows that follow the current one can change its value, so offsets of the rows of the current
+ * peer group are kept until the group ends and then all of them get the value of the frame of their partition.
+ * Peers are rows with the same timestamp when rows are ordered by timestamp, the streaming cursor keeps such
+ * group and ends it by preparePass2(). Other rows are computed over cached rows.
+ */
+abstract class BaseFrameDoubleAnalyticFunction extends BaseDoubleAnalyticFunction implements StreamAnalyticFunction {
+    // frame is the whole partition, that is the case of RANGE frame without ORDER BY where all rows are peers
+    static final int FRAME_PARTITION = 0;
+    // frame starts at the first row of the partition and ends at the current row
+    static final int FRAME_UNBOUNDED = 1;
+    static final int FRAME_CURRENT_ROW = 2;
+    // frame starts a number of rows or a time interval before the current row, RANGE frame that starts
+    // at the current row is the bounded frame of its peers
+    static final int FRAME_BOUNDED = 3;
+    protected final int frame;
+    // RANGE frame over ordered rows, it spans peers of the current row
+    protected final boolean peers;
+    private final int framingMode;
+    private final long frameSize;
+    private final int timestampIndex;
+    @Nullable
+    private final RecordComparator orderByComparator;
+    // offsets of cached rows of the current peer group, null when value of the row does not depend on its peers
+    @Nullable
+    private final DirectLongList peerOffsets;
+    // peer groups are needed to defer values of the rows or as keys of the frame
+    private final boolean trackPeers;
+    // number of the current peer group, it is the key of RANGE frame when rows are not ordered by timestamp
+    private long peerGroup;
+    private long lastOffset = -1;
+    private long lastTimestamp;
+    private AnalyticSPI spi;
+
+    BaseFrameDoubleAnalyticFunction(Map map, AnalyticContext analyticContext, Function arg, @Nullable FrameDeques deques) {
+        this(map, analyticContext, arg, deques, true);
+    }
+
+    /**
+     * @param dependsOnPeers false when value of the row does not change once rows that follow it in its peer group
+     *                       are seen, e.g. first value of the frame
+     */
+    BaseFrameDoubleAnalyticFunction(
+            Map map,
+            AnalyticContext analyticContext,
+            Function arg,
+            @Nullable FrameDeques deques,
+            boolean dependsOnPeers
+    ) {
+        super(map, analyticContext, arg, deques);
+        this.framingMode = analyticContext.getFramingMode();
+        this.frame = frameOf(analyticContext);
+        this.frameSize = -analyticContext.getRowsLo();
+        this.timestampIndex = analyticContext.getTimestampIndex();
+        this.peers = frame != FRAME_PARTITION && framingMode == AnalyticColumn.FRAMING_RANGE;
+        this.orderByComparator = analyticContext.getOrderByComparator();
+        this.peerOffsets = peers && dependsOnPeers ? new DirectLongList(16, MemoryTag.NATIVE_ANALYTIC) : null;
+        this.trackPeers = peerOffsets != null || (peers && frame == FRAME_BOUNDED && timestampIndex == -1);
+    }
+
+    static int frameOf(AnalyticContext analyticContext) {
+        final boolean range = analyticContext.getFramingMode() == AnalyticColumn.FRAMING_RANGE;
+        if (range && !analyticContext.isOrdered()) {
+            return FRAME_PARTITION;
+        }
+        final long rowsLo = analyticContext.getRowsLo();
+        if (rowsLo == Long.MIN_VALUE) {
+            return FRAME_UNBOUNDED;
+        }
+        return rowsLo == 0 && !range ? FRAME_CURRENT_ROW : FRAME_BOUNDED;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        Misc.free(peerOffsets);
+    }
+
+    @Override
+    public int getPassCount() {
+        // rows with the same timestamp are next to each other, streaming cursor collects them
+        return frame == FRAME_PARTITION || (peerOffsets != null && timestampIndex == -1) ? TWO_PASS : STREAM;
+    }
+
+    @Override
+    public boolean isPeerDependent() {
+        return peerOffsets != null;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (trackPeers) {
+            if (lastOffset != -1 && !isPeer(record, spi)) {
+                // frames of the rows of the previous peer group are complete
+                if (peerOffsets != null) {
+                    putPeerValues(spi);
+                }
+                peerGroup++;
+            }
+            lastOffset = recordOffset;
+            if (timestampIndex != -1) {
+                lastTimestamp = record.getTimestamp(timestampIndex);
+            }
+            computeNext(record);
+            if (peerOffsets != null) {
+                peerOffsets.add(recordOffset);
+                this.spi = spi;
+                return;
+            }
+        } else {
+            computeNext(record);
+        }
+        Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+        if (frame == FRAME_PARTITION) {
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), getPartitionValue(findPartition(record)));
+        }
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+        if (peerOffsets != null && peerOffsets.size() > 0) {
+            putPeerValues(spi);
+        }
+        // group has ended, the next row starts a new one
+        lastOffset = -1;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (peerOffsets != null) {
+            peerOffsets.clear();
+        }
+        peerGroup = 0;
+        lastOffset = -1;
+        spi = null;
+    }
+
+    /**
+     * Removes rows that are out of the frame of the row with given key from the head of the queue.
+     */
+    protected void evict(MapValue partition, long key) {
+        assert deques != null;
+        while (deques.size(partition, DEQUE_INDEX) > 0 && key - deques.frontKey(partition, DEQUE_INDEX) > frameSize) {
+            evicted(partition, deques.frontValue(partition, DEQUE_INDEX));
+            deques.popFront(partition, DEQUE_INDEX);
+        }
+    }
+
+    protected void evicted(MapValue partition, double value) {
+    }
+
+    /**
+     * @return key of the row in the frame, it is the number of the row in the partition for ROWS frames
+     * and the timestamp of the row for RANGE frames, or the number of its peer group when rows are not
+     * ordered by timestamp
+     */
+    protected long frameKey(Record record, MapValue partition) {
+        if (framingMode == AnalyticColumn.FRAMING_ROWS) {
+            final long rowNumber = partition.getLong(ROW_NUMBER_INDEX);
+            partition.putLong(ROW_NUMBER_INDEX, rowNumber + 1);
+            return rowNumber;
+        }
+        return timestampIndex != -1 ? record.getTimestamp(timestampIndex) : peerGroup;
+    }
+
+    /**
+     * @return value of the function over the frame of the last row the partition has seen, it is the whole
+     * partition once all rows have been seen
+     */
+    protected abstract double getPartitionValue(MapValue partition);
+
+    private boolean isPeer(Record record, AnalyticSPI spi) {
+        if (timestampIndex != -1) {
+            return record.getTimestamp(timestampIndex) == lastTimestamp;
+        }
+        final Record peer = spi.getRecordB();
+        spi.recordAt(peer, lastOffset);
+        assert orderByComparator != null;
+        orderByComparator.setLeft(record);
+        return orderByComparator.compare(peer) == 0;
+    }
+
+    private void putPeerValues(AnalyticSPI spi) {
+        assert peerOffsets != null;
+        final Record peer = spi.getRecordB();
+        for (long i = 0, n = peerOffsets.size(); i < n; i++) {
+            final long offset = peerOffsets.get(i);
+            spi.recordAt(peer, offset);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(offset, columnIndex), getPartitionValue(findPartition(peer)));
+        }
+        peerOffsets.clear();
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+public class FirstValueDoubleFunctionFactory implements FunctionFactory {
+    @Override
+    public String getSignature() {
+        return "first_value(D)";
+    }
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) {
+        return new FirstValueFunction(configuration, sqlExecutionContext.getAnalyticContext(), args.getQuick(0));
+    }
+
+    private static class FirstValueFunction extends BaseFrameDoubleAnalyticFunction {
+
+        public FirstValueFunction(CairoConfiguration configuration, AnalyticContext analyticContext, Function arg) {
+            super(
+                    newPartitionMap(configuration, analyticContext, ColumnType.DOUBLE),
+                    analyticContext,
+                    arg,
+                    frameOf(analyticContext) == FRAME_BOUNDED ? new FrameDeques(configuration) : null,
+                    // rows that follow the current one never become the first row of its frame
+                    false
+            );
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            final MapValue partition = findPartition(record);
+            final double d = arg.getDouble(record);
+            switch (frame) {
+                case FRAME_CURRENT_ROW:
+                    partition.putDouble(VALUE_INDEX, d);
+                    value = d;
+                    break;
+                case FRAME_BOUNDED: {
+                    assert deques != null;
+                    final long key = frameKey(record, partition);
+                    evict(partition, key);
+                    deques.add(partition, DEQUE_INDEX, key, d);
+                    value = deques.frontValue(partition, DEQUE_INDEX);
+                    break;
+                }
+                default:
+                    // first row of the partition is the first row of the frame
+                    if (partition.isNew()) {
+                        partition.putDouble(VALUE_INDEX, d);
+                    }
+                    value = partition.getDouble(VALUE_INDEX);
+                    break;
+            }
+        }
+
+        @Override
+        public int getPassCount() {
+            // first row of the partition is known before the rest of it
+            return STREAM;
+        }
+
+        @Override
+        protected double getPartitionValue(MapValue partition) {
+            if (frame == FRAME_BOUNDED) {
+                assert deques != null;
+                return deques.frontValue(partition, DEQUE_INDEX);
+            }
+            return partition.getDouble(VALUE_INDEX);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Double-ended queues of (key, value) pairs, one queue per partition, in a single block of native memory. Analytic
+ * functions use them to hold rows of the frame, key is either row number or timestamp of the row. State of the queue
+ * is kept in {@link #STATE_SIZE} consecutive longs of the partition map value: offset of the queue in memory,
+ * capacity, position of the head and size. Full queue is copied to a new block of twice the capacity, memory of the
+ * old block is reclaimed when queues are cleared.
+ */
+final class FrameDeques implements Closeable, Mutable {
+    static final int STATE_SIZE = 4;
+    private static final int PAIR_SIZE = 16;
+    private static final long INITIAL_CAPACITY = 8;
+    private final MemoryCARW mem;
+
+    FrameDeques(CairoConfiguration configuration) {
+        this.mem = Vm.getCARWInstance(
+                configuration.getSqlAnalyticStorePageSize(),
+                configuration.getSqlAnalyticStoreMaxPages(),
+                MemoryTag.NATIVE_ANALYTIC
+        );
+    }
+
+    @Override
+    public void clear() {
+        mem.jumpTo(0);
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+    }
+
+    void add(MapValue value, int index, long key, double val) {
+        final long size = size(value, index);
+        if (size == value.getLong(index + 1)) {
+            grow(value, index, size);
+        }
+        final long address = addressOf(value, index, size);
+        Unsafe.getUnsafe().putLong(address, key);
+        Unsafe.getUnsafe().putDouble(address + Long.BYTES, val);
+        value.putLong(index + 3, size + 1);
+    }
+
+    double backValue(MapValue value, int index) {
+        return Unsafe.getUnsafe().getDouble(addressOf(value, index, size(value, index) - 1) + Long.BYTES);
+    }
+
+    long frontKey(MapValue value, int index) {
+        return Unsafe.getUnsafe().getLong(addressOf(value, index, 0));
+    }
+
+    double frontValue(MapValue value, int index) {
+        return Unsafe.getUnsafe().getDouble(addressOf(value, index, 0) + Long.BYTES);
+    }
+
+    void init(MapValue value, int index) {
+        value.putLong(index, 0);
+        value.putLong(index + 1, 0);
+        value.putLong(index + 2, 0);
+        value.putLong(index + 3, 0);
+    }
+
+    void popBack(MapValue value, int index) {
+        value.putLong(index + 3, size(value, index) - 1);
+    }
+
+    void popFront(MapValue value, int index) {
+        value.putLong(index + 2, (value.getLong(index + 2) + 1) & (value.getLong(index + 1) - 1));
+        value.putLong(index + 3, size(value, index) - 1);
+    }
+
+    long size(MapValue value, int index) {
+        return value.getLong(index + 3);
+    }
+
+    private long addressOf(MapValue value, int index, long position) {
+        final long mask = value.getLong(index + 1) - 1;
+        return mem.addressOf(value.getLong(index) + ((value.getLong(index + 2) + position) & mask) * PAIR_SIZE);
+    }
+
+    private void grow(MapValue value, int index, long size) {
+        final long capacity = value.getLong(index + 1);
+        final long newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity * 2;
+        final long newOffset = mem.getAppendOffset();
+        // memory can move, addresses are taken after the block is allocated
+        mem.appendAddressFor(newCapacity * PAIR_SIZE);
+        for (long i = 0; i < size; i++) {
+            final long src = addressOf(value, index, i);
+            final long dst = mem.addressOf(newOffset + i * PAIR_SIZE);
+            Unsafe.getUnsafe().putLong(dst, Unsafe.getUnsafe().getLong(src));
+            Unsafe.getUnsafe().putLong(dst + Long.BYTES, Unsafe.getUnsafe().getLong(src + Long.BYTES));
+        }
+        value.putLong(index, newOffset);
+        value.putLong(index + 1, newCapacity);
+        value.putLong(index + 2, 0);
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.StreamAnalyticFunction;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+public class LagDoubleFunctionFactory implements FunctionFactory {
+    @Override
+    public String getSignature() {
+        return "lag(DV)";
+    }
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        return new LagFunction(
+                configuration,
+                sqlExecutionContext.getAnalyticContext(),
+                args.getQuick(0),
+                getOffset(args, argPositions),
+                getDefaultValue(args, argPositions)
+        );
+    }
+
+    static double getDefaultValue(ObjList<Function> args, IntList argPositions) throws SqlException {
+        if (args.size() < 3) {
+            return Double.NaN;
+        }
+        final Function arg = args.getQuick(2);
+        if (arg.isConstant()) {
+            switch (ColumnType.tagOf(arg.getType())) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                case ColumnType.NULL:
+                    return arg.getDouble(null);
+                default:
+                    break;
+            }
+        }
+        throw SqlException.$(argPositions.getQuick(2), "numeric constant expected");
+    }
+
+    static long getOffset(ObjList<Function> args, IntList argPositions) throws SqlException {
+        final int argCount = args.size();
+        if (argCount > 3) {
+            throw SqlException.$(argPositions.getQuick(3), "too many arguments");
+        }
+        if (argCount < 2) {
+            return 1;
+        }
+        final Function arg = args.getQuick(1);
+        if (arg.isConstant()) {
+            switch (ColumnType.tagOf(arg.getType())) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                    final long offset = arg.getLong(null);
+                    if (offset > -1) {
+                        return offset;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        throw SqlException.$(argPositions.getQuick(1), "non-negative integer constant expected");
+    }
+
+    /**
+     * Value of the row that is the given number of rows before the current one, values of preceding rows
+     * are kept in the queue of the partition.
+     */
+    private static class LagFunction extends BaseDoubleAnalyticFunction implements StreamAnalyticFunction {
+        private final long offset;
+        private final double defaultValue;
+
+        public LagFunction(CairoConfiguration configuration, AnalyticContext analyticContext, Function arg, long offset, double defaultValue) {
+            // offset is given in rows whatever the frame is
+            super(newPartitionMap(configuration, analyticContext), analyticContext, arg, new FrameDeques(configuration));
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public void computeNext(Record record) {
+            final double d = arg.getDouble(record);
+            if (offset == 0) {
+                value = d;
+                return;
+            }
+            final MapValue partition = findPartition(record);
+            assert deques != null;
+            if (deques.size(partition, DEQUE_INDEX) == offset) {
+                value = deques.frontValue(partition, DEQUE_INDEX);
+                deques.popFront(partition, DEQUE_INDEX);
+            } else {
+                value = defaultValue;
+            }
+            deques.add(partition, DEQUE_INDEX, 0, d);
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            computeNext(record);
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), value);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.AnalyticSPI;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+public class LeadDoubleFunctionFactory implements FunctionFactory {
+    @Override
+    public String getSignature() {
+        return "lead(DV)";
+    }
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        return new LeadFunction(
+                configuration,
+                sqlExecutionContext.getAnalyticContext(),
+                args.getQuick(0),
+                LagDoubleFunctionFactory.getOffset(args, argPositions),
+                LagDoubleFunctionFactory.getDefaultValue(args, argPositions)
+        );
+    }
+
+    /**
+     * Value of the row that is the given number of rows after the current one. Every row starts with the default
+     * value, offsets of the rows that wait for their value are kept in the queue of the partition and the value of
+     * the current row is written to the oldest of them.
+     */
+    private static class LeadFunction extends BaseDoubleAnalyticFunction {
+        private final long offset;
+        private final double defaultValue;
+
+        public LeadFunction(CairoConfiguration configuration, AnalyticContext analyticContext, Function arg, long offset, double defaultValue) {
+            // offset is given in rows whatever the frame is
+            super(newPartitionMap(configuration, analyticContext), analyticContext, arg, new FrameDeques(configuration));
+            this.offset = offset;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public int getPassCount() {
+            return TWO_PASS;
+        }
+
+        @Override
+        public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+            final double d = arg.getDouble(record);
+            if (offset == 0) {
+                Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), d);
+                return;
+            }
+            Unsafe.getUnsafe().putDouble(spi.getAddress(recordOffset, columnIndex), defaultValue);
+            final MapValue partition = findPartition(record);
+            assert deques != null;
+            if (deques.size(partition, DEQUE_INDEX) == offset) {
+                Unsafe.getUnsafe().putDouble(spi.getAddress(deques.frontKey(partition, DEQUE_INDEX), columnIndex), d);
+                deques.popFront(partition, DEQUE_INDEX);
+            }
+            deques.add(partition, DEQUE_INDEX, recordOffset, Double.NaN);
+        }
+    }
+}
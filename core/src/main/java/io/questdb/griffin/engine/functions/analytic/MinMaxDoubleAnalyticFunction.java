@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+
+/**
+ * Running minimum or maximum over the frame. Bounded frame keeps queue of candidate rows with monotonic values,
+ * the head of the queue is the result and rows that can never become the result are dropped from the tail.
+ */
+class MinMaxDoubleAnalyticFunction extends BaseFrameDoubleAnalyticFunction {
+    private final boolean max;
+
+    MinMaxDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            boolean max
+    ) {
+        super(
+                newPartitionMap(configuration, analyticContext, ColumnType.DOUBLE),
+                analyticContext,
+                arg,
+                frameOf(analyticContext) == FRAME_BOUNDED ? new FrameDeques(configuration) : null
+        );
+        this.max = max;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final MapValue partition = findPartition(record);
+        final double d = arg.getDouble(record);
+        switch (frame) {
+            case FRAME_CURRENT_ROW:
+                value = d;
+                break;
+            case FRAME_BOUNDED: {
+                assert deques != null;
+                final long key = frameKey(record, partition);
+                evict(partition, key);
+                if (!Double.isNaN(d)) {
+                    // rows that are not better than the current one will leave the frame before it
+                    while (deques.size(partition, DEQUE_INDEX) > 0 && !isBetter(deques.backValue(partition, DEQUE_INDEX), d)) {
+                        deques.popBack(partition, DEQUE_INDEX);
+                    }
+                    deques.add(partition, DEQUE_INDEX, key, d);
+                }
+                value = getPartitionValue(partition);
+                break;
+            }
+            default:
+                double m = partition.isNew() ? Double.NaN : partition.getDouble(VALUE_INDEX);
+                if (!Double.isNaN(d) && (Double.isNaN(m) || isBetter(d, m))) {
+                    m = d;
+                }
+                partition.putDouble(VALUE_INDEX, m);
+                value = m;
+                break;
+        }
+    }
+
+    @Override
+    protected double getPartitionValue(MapValue partition) {
+        if (frame == FRAME_BOUNDED) {
+            assert deques != null;
+            return deques.size(partition, DEQUE_INDEX) > 0 ? deques.frontValue(partition, DEQUE_INDEX) : Double.NaN;
+        }
+        return partition.getDouble(VALUE_INDEX);
+    }
+
+    private boolean isBetter(double a, double b) {
+        return max ? a > b : a < b;
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.analytic.StreamAnalyticFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.std.Misc;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Rank of the row within its partition, rows that are equal in ORDER BY columns (peers) get the same rank. Plain
+ * rank skips positions after peers, dense rank does not. Rows are peers when they are equal according to the
+ * comparator of the analytic clause or, when rows stream in timestamp order, when they have the same timestamp.
+ * All rows are peers without ORDER BY.
+ */
+class RankFunction extends LongFunction implements StreamAnalyticFunction, Closeable {
+    private static final int COUNT_INDEX = 0;
+    private static final int RANK_INDEX = 1;
+    private static final int DENSE_RANK_INDEX = 2;
+    // timestamp of the last row when rows come in timestamp order and its offset in the record chain otherwise
+    private static final int LAST_INDEX = 3;
+    private final Map map;
+    private final VirtualRecord partitionByRecord;
+    private final RecordSink partitionBySink;
+    private final RecordComparator comparator;
+    private final boolean ordered;
+    private final int timestampIndex;
+    private final boolean dense;
+    private int columnIndex;
+    private long value;
+
+    RankFunction(CairoConfiguration configuration, AnalyticContext analyticContext, boolean dense) {
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        valueTypes.add(ColumnType.LONG);
+        valueTypes.add(ColumnType.LONG);
+        valueTypes.add(ColumnType.LONG);
+        valueTypes.add(ColumnType.LONG);
+        this.map = MapFactory.createMap(configuration, analyticContext.getPartitionByKeyTypes(), valueTypes);
+        this.partitionByRecord = analyticContext.getPartitionByRecord();
+        this.partitionBySink = analyticContext.getPartitionBySink();
+        this.comparator = analyticContext.getOrderByComparator();
+        this.ordered = analyticContext.isOrdered();
+        this.timestampIndex = analyticContext.getTimestampIndex();
+        this.dense = dense;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.freeObjList(partitionByRecord.getFunctions());
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final MapValue partition = findPartition(record);
+        if (ordered) {
+            final long timestamp = record.getTimestamp(timestampIndex);
+            next(partition, partition.isNew() || timestamp != partition.getLong(LAST_INDEX));
+            partition.putLong(LAST_INDEX, timestamp);
+        } else {
+            value = 1;
+        }
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        Function.init(partitionByRecord.getFunctions(), symbolTableSource, executionContext);
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public void pass1(Record record, long recordOffset, AnalyticSPI spi) {
+        if (timestampIndex != -1) {
+            // rows come in timestamp order, as they do when streaming
+            computeNext(record);
+            Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
+            return;
+        }
+        final MapValue partition = findPartition(record);
+        if (ordered) {
+            boolean newPeers = partition.isNew();
+            if (!newPeers) {
+                final Record last = spi.getRecordB();
+                spi.recordAt(last, partition.getLong(LAST_INDEX));
+                comparator.setLeft(record);
+                newPeers = comparator.compare(last) != 0;
+            }
+            next(partition, newPeers);
+            partition.putLong(LAST_INDEX, recordOffset);
+        } else {
+            value = 1;
+        }
+        Unsafe.getUnsafe().putLong(spi.getAddress(recordOffset, columnIndex), value);
+    }
+
+    @Override
+    public void pass2(Record record, long recordOffset, AnalyticSPI spi) {
+    }
+
+    @Override
+    public void preparePass2(RecordCursor cursor) {
+    }
+
+    @Override
+    public void reset() {
+        map.clear();
+    }
+
+    @Override
+    public void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    private MapValue findPartition(Record record) {
+        partitionByRecord.of(record);
+        final MapKey key = map.withKey();
+        key.put(partitionByRecord, partitionBySink);
+        return key.createValue();
+    }
+
+    private void next(MapValue partition, boolean newPeers) {
+        if (partition.isNew()) {
+            partition.putLong(COUNT_INDEX, 1);
+            partition.putLong(RANK_INDEX, 1);
+            partition.putLong(DENSE_RANK_INDEX, 1);
+        } else {
+            final long count = partition.getLong(COUNT_INDEX) + 1;
+            partition.putLong(COUNT_INDEX, count);
+            if (newPeers) {
+                partition.putLong(RANK_INDEX, count);
+                partition.addLong(DENSE_RANK_INDEX, 1);
+            }
+        }
+        value = partition.getLong(dense ? DENSE_RANK_INDEX : RANK_INDEX);
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.analytic.AnalyticContext;
+
+/**
+ * Running sum or average over the frame. Sum and count of non-null values in the frame are kept per partition,
+ * values of rows that leave bounded frame are subtracted.
+ */
+class SumDoubleAnalyticFunction extends BaseFrameDoubleAnalyticFunction {
+    private static final int SUM_INDEX = VALUE_INDEX;
+    private static final int COUNT_INDEX = VALUE_INDEX + 1;
+    private final boolean avg;
+
+    SumDoubleAnalyticFunction(
+            CairoConfiguration configuration,
+            AnalyticContext analyticContext,
+            Function arg,
+            boolean avg
+    ) {
+        super(
+                newPartitionMap(configuration, analyticContext, ColumnType.DOUBLE, ColumnType.LONG),
+                analyticContext,
+                arg,
+                frameOf(analyticContext) == FRAME_BOUNDED ? new FrameDeques(configuration) : null
+        );
+        this.avg = avg;
+    }
+
+    @Override
+    public void computeNext(Record record) {
+        final MapValue partition = findPartition(record);
+        final double d = arg.getDouble(record);
+        if (frame == FRAME_CURRENT_ROW) {
+            value = d;
+            return;
+        }
+        if (partition.isNew()) {
+            partition.putDouble(SUM_INDEX, 0);
+            partition.putLong(COUNT_INDEX, 0);
+        }
+        if (frame == FRAME_BOUNDED) {
+            assert deques != null;
+            final long key = frameKey(record, partition);
+            evict(partition, key);
+            deques.add(partition, DEQUE_INDEX, key, d);
+        }
+        if (!Double.isNaN(d)) {
+            partition.addDouble(SUM_INDEX, d);
+            partition.addLong(COUNT_INDEX, 1);
+        }
+        value = getPartitionValue(partition);
+    }
+
+    @Override
+    protected void evicted(MapValue partition, double value) {
+        if (!Double.isNaN(value)) {
+            partition.addDouble(SUM_INDEX, -value);
+            partition.addLong(COUNT_INDEX, -1);
+        }
+    }
+
+    @Override
+    protected double getPartitionValue(MapValue partition) {
+        final long count = partition.getLong(COUNT_INDEX);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final double sum = partition.getDouble(SUM_INDEX);
+        return avg ? sum / count : sum;
+    }
+}
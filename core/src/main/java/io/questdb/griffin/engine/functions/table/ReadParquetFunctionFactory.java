@@ -0,0 +1,117 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cutlass.parquet.ParquetFileReader;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.CursorFunction;
+import io.questdb.griffin.engine.table.ParquetRecordCursorFactory;
+import io.questdb.griffin.model.IntervalOperation;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+/**
+ * Reads Parquet file from export root. Optional second argument is an interval
+ * on the designated timestamp, e.g. read_parquet('trades/2022-06.parquet', '2022-06-01;1d').
+ * Row groups outside the interval are not read.
+ */
+public class ReadParquetFunctionFactory implements FunctionFactory {
+
+    @Override
+    public String getSignature() {
+        return "read_parquet(sV)";
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        final CharSequence root = configuration.getSqlExportRoot();
+        if (root == null) {
+            throw SqlException.$(position, "export root is not configured");
+        }
+        if (args.size() > 2) {
+            throw SqlException.$(argPositions.getQuick(2), "too many arguments");
+        }
+        for (int i = 0, n = args.size(); i < n; i++) {
+            final Function arg = args.getQuick(i);
+            if (!arg.isConstant() || ColumnType.tagOf(arg.getType()) != ColumnType.STRING) {
+                throw SqlException.$(argPositions.getQuick(i), "string constant expected");
+            }
+        }
+
+        final CharSequence fileName = args.getQuick(0).getStr(null);
+        if (fileName == null || fileName.length() == 0 || Chars.contains(fileName, "..")) {
+            throw SqlException.$(argPositions.getQuick(0), "invalid file name");
+        }
+
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        final String path;
+        try (
+                Path p = new Path();
+                ParquetFileReader reader = new ParquetFileReader(configuration.getFilesFacade())
+        ) {
+            p.of(root).concat(fileName).$();
+            path = p.toString();
+            reader.of(p);
+            for (int i = 0, n = reader.getColumnCount(); i < n; i++) {
+                final int columnType = reader.getColumnType(i);
+                if (columnType < 0) {
+                    throw SqlException.position(argPositions.getQuick(0))
+                            .put("unsupported parquet column type [column=").put(reader.getColumnName(i))
+                            .put(", physicalType=").put(reader.getPhysicalType(i))
+                            .put(']');
+                }
+                metadata.add(new TableColumnMetadata(reader.getColumnName(i), -1, columnType));
+            }
+            metadata.setTimestampIndex(reader.getTimestampIndex());
+        } catch (CairoException e) {
+            throw SqlException.position(argPositions.getQuick(0)).put(e.getFlyweightMessage());
+        }
+
+        LongList intervals = null;
+        if (args.size() > 1) {
+            if (metadata.getTimestampIndex() == -1) {
+                throw SqlException.$(argPositions.getQuick(1), "parquet file has no designated timestamp");
+            }
+            final CharSequence interval = args.getQuick(1).getStr(null);
+            if (interval == null) {
+                throw SqlException.$(argPositions.getQuick(1), "interval expected");
+            }
+            intervals = new LongList();
+            IntervalUtils.parseIntervalEx(interval, 0, interval.length(), argPositions.getQuick(1), intervals, IntervalOperation.INTERSECT);
+            IntervalUtils.applyLastEncodedIntervalEx(intervals);
+        }
+        return new CursorFunction(new ParquetRecordCursorFactory(configuration, metadata, path, intervals));
+    }
+}
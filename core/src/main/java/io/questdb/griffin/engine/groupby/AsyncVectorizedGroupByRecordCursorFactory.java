@@ -0,0 +1,748 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.groupby.*;
+import io.questdb.griffin.engine.table.VectorizedProjection;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * GROUP BY over page frames of the base factory, either without keys or keyed by a single symbol column.
+ * Arguments of aggregates are compiled into {@link VectorizedProjection}, workers evaluate
+ * them for a batch of frame rows at a time and fold values into partial results of their own, one slot per
+ * symbol key. Query owner merges partial results once all frames are aggregated. Partial results are kept in
+ * native memory, symbol keys with more values than {@link CairoConfiguration#getSqlVectorizedGroupByMaxSymbolCount()}
+ * are aggregated by the fallback factory instead.
+ * <p>
+ * Aggregates mirror semantics of the group-by functions they replace: sum(), avg(), min() and max() skip
+ * null values and count() counts all rows. Order of double additions depends on how frames are distributed
+ * between workers.
+ */
+public class AsyncVectorizedGroupByRecordCursorFactory extends AbstractRecordCursorFactory {
+    public static final int AGG_COUNT = 0;
+    public static final int AGG_SUM_LONG = 1;
+    public static final int AGG_SUM_DOUBLE = 2;
+    public static final int AGG_AVG = 3;
+    public static final int AGG_MIN_LONG = 4;
+    public static final int AGG_MAX_LONG = 5;
+    public static final int AGG_MIN_DOUBLE = 6;
+    public static final int AGG_MAX_DOUBLE = 7;
+    private static final PageFrameReducer REDUCER = AsyncVectorizedGroupByRecordCursorFactory::aggregate;
+    private final RecordCursorFactory base;
+    private final ObjList<Function> recordFunctions;
+    private final GroupByAtom atom;
+    private final PageFrameSequence<GroupByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final GroupByRecordCursor cursor;
+    private final RecordCursorFactory fallbackFactory;
+
+    /**
+     * @param groupByFunctions group-by functions, arguments of all but count() have to compile into {@link VectorizedProjection}
+     * @param recordFunctions  group-by functions and key columns in the order of output columns
+     * @param aggregateKinds   kind of aggregate for every group-by function
+     * @param keyColumnIndex   index of the symbol key column in the base metadata or -1 when there are no keys
+     * @param fallbackFactory  hash map GROUP BY over the same base factory, required when there is a key,
+     *                         it owns base factory and record functions
+     */
+    public AsyncVectorizedGroupByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions,
+            IntList aggregateKinds,
+            int keyColumnIndex,
+            int workerCount,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            @Nullable RecordCursorFactory fallbackFactory
+    ) {
+        super(metadata);
+        this.base = base;
+        this.recordFunctions = recordFunctions;
+        final ObjList<Partial> partials = new ObjList<>(workerCount + 1);
+        for (int i = 0; i <= workerCount; i++) {
+            final ObjList<VectorizedProjection> projections = new ObjList<>(aggregateKinds.size());
+            for (int j = 0, n = aggregateKinds.size(); j < n; j++) {
+                projections.add(
+                        aggregateKinds.getQuick(j) != AGG_COUNT
+                                ? VectorizedProjection.compile(((UnaryFunction) groupByFunctions.getQuick(j)).getArg(), true)
+                                : null
+                );
+            }
+            partials.add(new Partial(aggregateKinds, projections));
+        }
+        this.atom = new GroupByAtom(keyColumnIndex, partials, workerCount, configuration.getSqlVectorizedGroupByMaxSymbolCount());
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+
+        // map output columns to aggregates, keys are -1
+        final IntList columnAggregates = new IntList(recordFunctions.size());
+        for (int i = 0, k = 0, n = recordFunctions.size(); i < n; i++) {
+            columnAggregates.add(recordFunctions.getQuick(i) instanceof GroupByFunction ? k++ : -1);
+        }
+        this.cursor = new GroupByRecordCursor(atom, aggregateKinds, columnAggregates);
+        this.fallbackFactory = fallbackFactory;
+    }
+
+    /**
+     * @return kind of aggregate that replaces the function or -1 when function is not supported
+     */
+    public static int aggregateKindOf(GroupByFunction function) {
+        if (function instanceof CountGroupByFunction) {
+            return AGG_COUNT;
+        }
+        if (function instanceof SumIntGroupByFunction || function instanceof SumLongGroupByFunction) {
+            return AGG_SUM_LONG;
+        }
+        if (function instanceof SumDoubleGroupByFunction) {
+            return AGG_SUM_DOUBLE;
+        }
+        if (function instanceof AvgDoubleGroupByFunction) {
+            return AGG_AVG;
+        }
+        if (function instanceof MinIntGroupByFunction || function instanceof MinLongGroupByFunction) {
+            return AGG_MIN_LONG;
+        }
+        if (function instanceof MaxIntGroupByFunction || function instanceof MaxLongGroupByFunction) {
+            return AGG_MAX_LONG;
+        }
+        if (function instanceof MinDoubleGroupByFunction) {
+            return AGG_MIN_DOUBLE;
+        }
+        if (function instanceof MaxDoubleGroupByFunction) {
+            return AGG_MAX_DOUBLE;
+        }
+        return -1;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        frameSequence.of(base, executionContext, collectSubSeq, atom, DataFrameCursorFactory.ORDER_ANY);
+        if (atom.symbolCountExceeded()) {
+            // nothing is dispatched yet
+            frameSequence.clear();
+            return fallbackFactory.getCursor(executionContext);
+        }
+        try {
+            cursor.of(frameSequence, executionContext.getCircuitBreaker());
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    protected void _close() {
+        if (fallbackFactory != null) {
+            Misc.free(fallbackFactory);
+        } else {
+            Misc.freeObjList(recordFunctions);
+            Misc.free(base);
+        }
+        Misc.free(frameSequence);
+        Misc.free(atom);
+    }
+
+    private static void aggregate(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final int frameIndex = task.getFrameIndex();
+        final PageFrameSequence<GroupByAtom> frameSequence = task.getFrameSequence(GroupByAtom.class);
+        final GroupByAtom atom = frameSequence.getAtom();
+        final PageAddressCache pageAddressCache = frameSequence.getPageAddressCache();
+        final Partial partial = atom.acquirePartial(workerId);
+        try {
+            // column top has no symbol keys, it reads as null
+            final long keyAddress = atom.keyColumnIndex > -1 ? pageAddressCache.getPageAddress(frameIndex, atom.keyColumnIndex) : 0;
+            for (long rowLo = 0; rowLo < frameRowCount; rowLo += VectorizedProjection.BATCH_SIZE) {
+                final int count = (int) Math.min(VectorizedProjection.BATCH_SIZE, frameRowCount - rowLo);
+                if (keyAddress != 0) {
+                    partial.readKeys(keyAddress + (rowLo << 2), count, atom.nullSlot);
+                } else {
+                    partial.fillKeys(count, atom.nullSlot);
+                }
+                partial.aggregate(pageAddressCache, frameIndex, rowLo, count);
+            }
+        } finally {
+            atom.releasePartial(workerId);
+        }
+    }
+
+    private static class GroupByAtom implements StatefulAtom, Closeable {
+        private final int keyColumnIndex;
+        private final int maxSymbolCount;
+        // partial result of threads that are not part of the pool, such as the query owner thread, comes first,
+        // these threads share it under a lock; it is followed by partial results of the pool workers
+        private final ObjList<Partial> partials;
+        private final AtomicIntegerArray sharedPartialLock = new AtomicIntegerArray(1);
+        private final int workerCount;
+        private int nullSlot;
+
+        private GroupByAtom(int keyColumnIndex, ObjList<Partial> partials, int workerCount, int maxSymbolCount) {
+            this.keyColumnIndex = keyColumnIndex;
+            this.partials = partials;
+            this.workerCount = workerCount;
+            this.maxSymbolCount = maxSymbolCount;
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjList(partials);
+        }
+
+        @Override
+        public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+            // symbol keys are slot indexes, null key takes the slot after the last symbol
+            nullSlot = keyColumnIndex > -1 ? ((StaticSymbolTable) symbolTableSource.getSymbolTable(keyColumnIndex)).getSymbolCount() : 0;
+            if (!symbolCountExceeded()) {
+                for (int i = 0, n = partials.size(); i < n; i++) {
+                    partials.getQuick(i).of(nullSlot + 1);
+                }
+            }
+        }
+
+        private void clear() {
+            for (int i = 0, n = partials.size(); i < n; i++) {
+                partials.getQuick(i).close();
+            }
+        }
+
+        private Partial acquirePartial(int workerId) {
+            if (workerId > -1 && workerId < workerCount) {
+                return partials.getQuick(workerId + 1);
+            }
+            // query owner and threads that steal work from the queue
+            while (!sharedPartialLock.compareAndSet(0, 0, 1)) {
+                Os.pause();
+            }
+            return partials.getQuick(0);
+        }
+
+        private boolean symbolCountExceeded() {
+            return nullSlot > maxSymbolCount;
+        }
+
+        private void releasePartial(int workerId) {
+            if (workerId < 0 || workerId >= workerCount) {
+                sharedPartialLock.set(0, 0);
+            }
+        }
+
+        private void merge() {
+            final Partial result = partials.getQuick(0);
+            for (int i = 1, n = partials.size(); i < n; i++) {
+                result.merge(partials.getQuick(i));
+            }
+        }
+    }
+
+    private static class Partial implements Closeable {
+        private final IntList kinds;
+        private final ObjList<VectorizedProjection> projections;
+        private final int[] keys = new int[VectorizedProjection.BATCH_SIZE];
+        // addresses of slot arrays carved out of a single native block, per aggregate, sums and
+        // min/max values go to values, counts of values to counts
+        private final LongList values = new LongList();
+        private final LongList counts = new LongList();
+        private long rowCounts;
+        private long memAddress;
+        private long memSize;
+        private int slotCount;
+
+        private Partial(IntList kinds, ObjList<VectorizedProjection> projections) {
+            this.kinds = kinds;
+            this.projections = projections;
+            values.setAll(kinds.size(), 0);
+            counts.setAll(kinds.size(), 0);
+        }
+
+        private static boolean isNull(long value, int type) {
+            return type == ColumnType.INT ? value == Numbers.INT_NaN : value == Numbers.LONG_NaN;
+        }
+
+        private static long slotAddress(long address, int slot) {
+            return address + ((long) slot << 3);
+        }
+
+        private static void mergeSums(long sums, long otherSums, int slotCount) {
+            for (int s = 0; s < slotCount; s++) {
+                final long address = slotAddress(sums, s);
+                Unsafe.getUnsafe().putLong(address, Unsafe.getUnsafe().getLong(address) + Unsafe.getUnsafe().getLong(slotAddress(otherSums, s)));
+            }
+        }
+
+        @Override
+        public void close() {
+            if (memAddress != 0) {
+                Unsafe.free(memAddress, memSize, MemoryTag.NATIVE_GROUP_BY);
+                memAddress = 0;
+                memSize = 0;
+            }
+        }
+
+        private void aggregate(PageAddressCache pageAddressCache, int frameIndex, long rowLo, int count) {
+            final int[] keys = this.keys;
+            for (int r = 0; r < count; r++) {
+                final long address = slotAddress(rowCounts, keys[r]);
+                Unsafe.getUnsafe().putLong(address, Unsafe.getUnsafe().getLong(address) + 1);
+            }
+
+            for (int i = 0, n = kinds.size(); i < n; i++) {
+                final VectorizedProjection projection = projections.getQuick(i);
+                if (projection == null) {
+                    // count() is row count
+                    continue;
+                }
+                projection.evaluate(pageAddressCache, frameIndex, rowLo, count);
+                final int type = projection.getType();
+                switch (kinds.getQuick(i)) {
+                    case AGG_SUM_LONG:
+                        aggregateSumLong(projection, type, values.getQuick(i), counts.getQuick(i), count);
+                        break;
+                    case AGG_SUM_DOUBLE:
+                    case AGG_AVG:
+                        aggregateSumDouble(projection, type, values.getQuick(i), counts.getQuick(i), count);
+                        break;
+                    case AGG_MIN_LONG:
+                        aggregateMinLong(projection, type, values.getQuick(i), count);
+                        break;
+                    case AGG_MAX_LONG:
+                        aggregateMaxLong(projection, type, values.getQuick(i), count);
+                        break;
+                    case AGG_MIN_DOUBLE:
+                        aggregateMinDouble(projection, type, values.getQuick(i), count);
+                        break;
+                    default:
+                        aggregateMaxDouble(projection, type, values.getQuick(i), count);
+                        break;
+                }
+            }
+        }
+
+        private void aggregateMaxDouble(VectorizedProjection projection, int type, long values, int count) {
+            for (int r = 0; r < count; r++) {
+                final double value = getDouble(projection, type, r);
+                final long address = slotAddress(values, keys[r]);
+                final double current = Unsafe.getUnsafe().getDouble(address);
+                if (value > current || (Double.isNaN(current) && !Double.isNaN(value))) {
+                    Unsafe.getUnsafe().putDouble(address, value);
+                }
+            }
+        }
+
+        private void aggregateMaxLong(VectorizedProjection projection, int type, long values, int count) {
+            for (int r = 0; r < count; r++) {
+                final long value = projection.getLong(r);
+                final long address = slotAddress(values, keys[r]);
+                final long current = Unsafe.getUnsafe().getLong(address);
+                if (!isNull(value, type) && (value > current || current == Numbers.LONG_NaN)) {
+                    Unsafe.getUnsafe().putLong(address, value);
+                }
+            }
+        }
+
+        private void aggregateMinDouble(VectorizedProjection projection, int type, long values, int count) {
+            for (int r = 0; r < count; r++) {
+                final double value = getDouble(projection, type, r);
+                final long address = slotAddress(values, keys[r]);
+                final double current = Unsafe.getUnsafe().getDouble(address);
+                if (value < current || (Double.isNaN(current) && !Double.isNaN(value))) {
+                    Unsafe.getUnsafe().putDouble(address, value);
+                }
+            }
+        }
+
+        private void aggregateMinLong(VectorizedProjection projection, int type, long values, int count) {
+            for (int r = 0; r < count; r++) {
+                final long value = projection.getLong(r);
+                final long address = slotAddress(values, keys[r]);
+                final long current = Unsafe.getUnsafe().getLong(address);
+                if (!isNull(value, type) && (value < current || current == Numbers.LONG_NaN)) {
+                    Unsafe.getUnsafe().putLong(address, value);
+                }
+            }
+        }
+
+        private void aggregateSumDouble(VectorizedProjection projection, int type, long sums, long counts, int count) {
+            for (int r = 0; r < count; r++) {
+                final double value = getDouble(projection, type, r);
+                if (Numbers.isFinite(value)) {
+                    final int slot = keys[r];
+                    final long sumAddress = slotAddress(sums, slot);
+                    final long countAddress = slotAddress(counts, slot);
+                    Unsafe.getUnsafe().putDouble(sumAddress, Unsafe.getUnsafe().getDouble(sumAddress) + value);
+                    Unsafe.getUnsafe().putLong(countAddress, Unsafe.getUnsafe().getLong(countAddress) + 1);
+                }
+            }
+        }
+
+        private void aggregateSumLong(VectorizedProjection projection, int type, long sums, long counts, int count) {
+            for (int r = 0; r < count; r++) {
+                final long value = projection.getLong(r);
+                if (!isNull(value, type)) {
+                    final int slot = keys[r];
+                    final long sumAddress = slotAddress(sums, slot);
+                    final long countAddress = slotAddress(counts, slot);
+                    Unsafe.getUnsafe().putLong(sumAddress, Unsafe.getUnsafe().getLong(sumAddress) + value);
+                    Unsafe.getUnsafe().putLong(countAddress, Unsafe.getUnsafe().getLong(countAddress) + 1);
+                }
+            }
+        }
+
+        private void fillKeys(int count, int nullSlot) {
+            Arrays.fill(keys, 0, count, nullSlot);
+        }
+
+        private double getDouble(int aggregate, int slot) {
+            return Unsafe.getUnsafe().getDouble(slotAddress(values.getQuick(aggregate), slot));
+        }
+
+        private double getDouble(VectorizedProjection projection, int type, int batchRow) {
+            if (type == ColumnType.DOUBLE) {
+                return projection.getDouble(batchRow);
+            }
+            final long value = projection.getLong(batchRow);
+            return isNull(value, type) ? Double.NaN : value;
+        }
+
+        private long getLong(int aggregate, int slot) {
+            return Unsafe.getUnsafe().getLong(slotAddress(values.getQuick(aggregate), slot));
+        }
+
+        private long getRowCount(int slot) {
+            return Unsafe.getUnsafe().getLong(slotAddress(rowCounts, slot));
+        }
+
+        private long getValueCount(int aggregate, int slot) {
+            return Unsafe.getUnsafe().getLong(slotAddress(counts.getQuick(aggregate), slot));
+        }
+
+        private void merge(Partial other) {
+            mergeSums(rowCounts, other.rowCounts, slotCount);
+            for (int i = 0, n = kinds.size(); i < n; i++) {
+                switch (kinds.getQuick(i)) {
+                    case AGG_SUM_LONG:
+                        mergeSums(values.getQuick(i), other.values.getQuick(i), slotCount);
+                        mergeSums(counts.getQuick(i), other.counts.getQuick(i), slotCount);
+                        break;
+                    case AGG_SUM_DOUBLE:
+                    case AGG_AVG:
+                        for (int s = 0; s < slotCount; s++) {
+                            final long address = slotAddress(values.getQuick(i), s);
+                            Unsafe.getUnsafe().putDouble(address, Unsafe.getUnsafe().getDouble(address) + other.getDouble(i, s));
+                        }
+                        mergeSums(counts.getQuick(i), other.counts.getQuick(i), slotCount);
+                        break;
+                    case AGG_MIN_LONG:
+                    case AGG_MAX_LONG:
+                        final boolean min = kinds.getQuick(i) == AGG_MIN_LONG;
+                        for (int s = 0; s < slotCount; s++) {
+                            final long value = other.getLong(i, s);
+                            final long current = getLong(i, s);
+                            if (value != Numbers.LONG_NaN && (current == Numbers.LONG_NaN || (min ? value < current : value > current))) {
+                                Unsafe.getUnsafe().putLong(slotAddress(values.getQuick(i), s), value);
+                            }
+                        }
+                        break;
+                    case AGG_MIN_DOUBLE:
+                    case AGG_MAX_DOUBLE:
+                        final boolean minDouble = kinds.getQuick(i) == AGG_MIN_DOUBLE;
+                        for (int s = 0; s < slotCount; s++) {
+                            final double value = other.getDouble(i, s);
+                            final double current = getDouble(i, s);
+                            if (!Double.isNaN(value) && (Double.isNaN(current) || (minDouble ? value < current : value > current))) {
+                                Unsafe.getUnsafe().putDouble(slotAddress(values.getQuick(i), s), value);
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void of(int slotCount) {
+            this.slotCount = slotCount;
+            // row counts followed by values and counts of every aggregate that needs them
+            int arrayCount = 1;
+            for (int i = 0, n = kinds.size(); i < n; i++) {
+                switch (kinds.getQuick(i)) {
+                    case AGG_SUM_LONG:
+                    case AGG_SUM_DOUBLE:
+                    case AGG_AVG:
+                        arrayCount += 2;
+                        break;
+                    case AGG_COUNT:
+                        break;
+                    default:
+                        arrayCount++;
+                        break;
+                }
+            }
+            final long arraySize = (long) slotCount << 3;
+            final long size = arrayCount * arraySize;
+            if (memSize != size) {
+                memAddress = Unsafe.realloc(memAddress, memSize, size, MemoryTag.NATIVE_GROUP_BY);
+                memSize = size;
+            }
+
+            long address = memAddress;
+            rowCounts = address;
+            Vect.setMemoryLong(address, 0, slotCount);
+            address += arraySize;
+            for (int i = 0, n = kinds.size(); i < n; i++) {
+                switch (kinds.getQuick(i)) {
+                    case AGG_SUM_LONG:
+                        values.setQuick(i, address);
+                        Vect.setMemoryLong(address, 0, slotCount);
+                        address += arraySize;
+                        counts.setQuick(i, address);
+                        Vect.setMemoryLong(address, 0, slotCount);
+                        address += arraySize;
+                        break;
+                    case AGG_SUM_DOUBLE:
+                    case AGG_AVG:
+                        values.setQuick(i, address);
+                        Vect.setMemoryDouble(address, 0, slotCount);
+                        address += arraySize;
+                        counts.setQuick(i, address);
+                        Vect.setMemoryLong(address, 0, slotCount);
+                        address += arraySize;
+                        break;
+                    case AGG_MIN_LONG:
+                    case AGG_MAX_LONG:
+                        values.setQuick(i, address);
+                        Vect.setMemoryLong(address, Numbers.LONG_NaN, slotCount);
+                        address += arraySize;
+                        break;
+                    case AGG_MIN_DOUBLE:
+                    case AGG_MAX_DOUBLE:
+                        values.setQuick(i, address);
+                        Vect.setMemoryDouble(address, Double.NaN, slotCount);
+                        address += arraySize;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void readKeys(long address, int count, int nullSlot) {
+            for (int r = 0; r < count; r++) {
+                final int key = Unsafe.getUnsafe().getInt(address + ((long) r << 2));
+                keys[r] = key != SymbolTable.VALUE_IS_NULL ? key : nullSlot;
+            }
+        }
+    }
+
+    private static class GroupByRecordCursor implements RecordCursor {
+        private final GroupByAtom atom;
+        private final IntList kinds;
+        private final IntList columnAggregates;
+        private final IntList slots = new IntList();
+        private final GroupByRecord record = new GroupByRecord();
+        private PageFrameSequence<?> frameSequence;
+        private Partial result;
+        private int index;
+
+        private GroupByRecordCursor(GroupByAtom atom, IntList kinds, IntList columnAggregates) {
+            this.atom = atom;
+            this.kinds = kinds;
+            this.columnAggregates = columnAggregates;
+        }
+
+        @Override
+        public void close() {
+            if (frameSequence != null) {
+                if (frameSequence.getFrameCount() > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                frameSequence = null;
+            }
+            atom.clear();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(atom.keyColumnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < slots.size()) {
+                record.slot = slots.getQuick(index++);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(atom.keyColumnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long size() {
+            return slots.size();
+        }
+
+        @Override
+        public void toTop() {
+            index = 0;
+        }
+
+        private void collect(SqlExecutionCircuitBreaker circuitBreaker) {
+            // frames are aggregated by workers, partial results are complete once all frames are collected
+            for (int i = 0, n = frameSequence.getFrameCount(); i < n; ) {
+                final long cursor = frameSequence.next();
+                if (cursor > -1) {
+                    frameSequence.collect(cursor, false);
+                    i++;
+                } else {
+                    Os.pause();
+                }
+            }
+
+            if (!frameSequence.isActive()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                throw CairoException.instance(0).put("could not aggregate page frames");
+            }
+        }
+
+        private void of(PageFrameSequence<?> frameSequence, SqlExecutionCircuitBreaker circuitBreaker) {
+            this.frameSequence = frameSequence;
+            if (frameSequence.getFrameCount() > 0) {
+                collect(circuitBreaker);
+            }
+            atom.merge();
+            result = atom.partials.getQuick(0);
+
+            slots.clear();
+            if (atom.keyColumnIndex > -1) {
+                for (int s = 0; s <= atom.nullSlot; s++) {
+                    if (result.getRowCount(s) > 0) {
+                        slots.add(s);
+                    }
+                }
+            } else {
+                // there is always a row without keys, even when there are no rows to aggregate
+                slots.add(0);
+            }
+            toTop();
+        }
+
+        private class GroupByRecord implements Record {
+            private int slot;
+
+            @Override
+            public double getDouble(int col) {
+                final int aggregate = columnAggregates.getQuick(col);
+                switch (kinds.getQuick(aggregate)) {
+                    case AGG_SUM_DOUBLE:
+                        return result.getValueCount(aggregate, slot) > 0 ? result.getDouble(aggregate, slot) : Double.NaN;
+                    case AGG_AVG:
+                        return result.getDouble(aggregate, slot) / result.getValueCount(aggregate, slot);
+                    default:
+                        return result.getDouble(aggregate, slot);
+                }
+            }
+
+            @Override
+            public int getInt(int col) {
+                final int aggregate = columnAggregates.getQuick(col);
+                if (aggregate == -1) {
+                    return slot != atom.nullSlot ? slot : SymbolTable.VALUE_IS_NULL;
+                }
+                final long value = getLong(col);
+                return value != Numbers.LONG_NaN ? (int) value : Numbers.INT_NaN;
+            }
+
+            @Override
+            public long getLong(int col) {
+                final int aggregate = columnAggregates.getQuick(col);
+                switch (kinds.getQuick(aggregate)) {
+                    case AGG_COUNT:
+                        return result.getRowCount(slot);
+                    case AGG_SUM_LONG:
+                        return result.getValueCount(aggregate, slot) > 0 ? result.getLong(aggregate, slot) : Numbers.LONG_NaN;
+                    default:
+                        return result.getLong(aggregate, slot);
+                }
+            }
+
+            @Override
+            public CharSequence getSym(int col) {
+                return frameSequence.getSymbolTableSource().getSymbolTable(atom.keyColumnIndex).valueOf(getInt(col));
+            }
+
+            @Override
+            public CharSequence getSymB(int col) {
+                return frameSequence.getSymbolTableSource().getSymbolTable(atom.keyColumnIndex).valueBOf(getInt(col));
+            }
+        }
+    }
+}
@@ -33,22 +33,38 @@ import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.MemoryReservation;
 import io.questdb.griffin.engine.functions.GroupByFunction;
-import io.questdb.std.BytecodeAssembler;
-import io.questdb.std.Misc;
-import io.questdb.std.ObjList;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Keyed aggregation. When the map outgrows memory budget of the query, keys already in the map
+ * keep aggregating in place while records of new keys are spilled to disk, partitioned by key hash.
+ * Aggregated map is then moved to disk and spilled partitions are aggregated one by one, partitioning
+ * further with a different hash when partition itself does not fit the budget.
+ */
 public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
+    // partitions deeper than this are aggregated regardless of memory budget
+    private static final int MAX_SPILL_LEVEL = 4;
     protected final RecordCursorFactory base;
+    private final CairoConfiguration configuration;
     private final Map dataMap;
-    private final VirtualFunctionSkewedSymbolRecordCursor cursor;
+    private final GroupByRecordCursor cursor;
     private final ObjList<Function> recordFunctions;
     private final ObjList<GroupByFunction> groupByFunctions;
     // this sink is used to copy recordKeyMap keys to dataMap
     private final RecordSink mapSink;
+    private final RecordSink spillSink;
+    private final ArrayColumnTypes outputTypes = new ArrayColumnTypes();
+    private final RecordSink outputSink;
+    private final MemoryReservation reservation = new MemoryReservation();
+    private final ObjList<SpillRecordChain> partitions = new ObjList<>();
+    private final IntList partitionLevels = new IntList();
+    private final LongList lastOffsets = new LongList();
+    private SpillRecordChain output;
+    private long outputOffset;
 
     public GroupByRecordCursorFactory(
             CairoConfiguration configuration,
@@ -64,12 +80,22 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         super(groupByMetadata);
         // sink will be storing record columns to map key
         try {
+            this.configuration = configuration;
             this.dataMap = MapFactory.createMap(configuration, keyTypes, valueTypes);
             this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            this.spillSink = new EntityRecordSink(base.getMetadata());
+            // map records have value columns followed by key columns
+            for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+                outputTypes.add(valueTypes.getColumnType(i));
+            }
+            for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+                outputTypes.add(keyTypes.getColumnType(i));
+            }
+            this.outputSink = new EntityRecordSink(outputTypes);
             this.base = base;
             this.groupByFunctions = groupByFunctions;
             this.recordFunctions = recordFunctions;
-            this.cursor = new VirtualFunctionSkewedSymbolRecordCursor(recordFunctions);
+            this.cursor = new GroupByRecordCursor(recordFunctions);
         } catch (Throwable e) {
             Misc.freeObjList(recordFunctions);
             throw e;
@@ -81,6 +107,7 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
         Misc.freeObjList(recordFunctions);
         Misc.free(dataMap);
         Misc.free(base);
+        freeSpill();
     }
 
     @Override
@@ -91,19 +118,30 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
 
         try {
             Function.init(recordFunctions, baseCursor, executionContext);
-            final Record baseRecord = baseCursor.getRecord();
-            final int n = groupByFunctions.size();
-            while (baseCursor.hasNext()) {
-                circuitBreaker.statefulThrowExceptionIfTripped();
-                final MapKey key = dataMap.withKey();
-                mapSink.copy(baseRecord, key);
-                MapValue value = key.createValue();
-                GroupByUtils.updateFunctions(groupByFunctions, n, value, baseRecord);
+            reservation.of(executionContext.getArena());
+            aggregate(baseCursor, baseCursor, 0, circuitBreaker);
+            if (partitions.size() == 0) {
+                cursor.of(baseCursor, dataMap.getCursor());
+                return cursor;
             }
-            cursor.of(baseCursor, dataMap.getCursor());
-            // init all record function for this cursor, in case functions require metadata and/or symbol tables
+
+            output = new SpillRecordChain(configuration, outputTypes, outputSink);
+            outputOffset = -1;
+            moveMapToOutput();
+            // aggregation of a partition may add more partitions to the end of the list
+            for (int i = 0; i < partitions.size(); i++) {
+                final SpillRecordChain partition = partitions.getQuick(i);
+                partition.toTop();
+                aggregate(partition, baseCursor, partitionLevels.getQuick(i), circuitBreaker);
+                partitions.setQuick(i, Misc.free(partition));
+                moveMapToOutput();
+            }
+            output.toTop();
+            cursor.of(baseCursor, output);
             return cursor;
         } catch (Throwable e) {
+            freeSpill();
+            reservation.clear();
             baseCursor.close();
             throw e;
         }
@@ -118,4 +156,82 @@ public class GroupByRecordCursorFactory extends AbstractRecordCursorFactory {
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
     }
+
+    private void aggregate(RecordCursor source, RecordCursor baseCursor, int level, SqlExecutionCircuitBreaker circuitBreaker) {
+        // memory of the empty map is not accounted for, it is allocated regardless of the spill
+        final long memUsedBase = dataMap.getMemUsed();
+        final Record record = source.getRecord();
+        final int n = groupByFunctions.size();
+        final int partitionCount = configuration.getSqlSpillPartitionCount();
+        int partitionLo = -1;
+        while (source.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final MapKey key = dataMap.withKey();
+            mapSink.copy(record, key);
+            if (partitionLo == -1) {
+                MapValue value = key.createValue();
+                GroupByUtils.updateFunctions(groupByFunctions, n, value, record);
+                final long memUsed = dataMap.getMemUsed() - memUsedBase;
+                if (!reservation.tryGrow(memUsed)) {
+                    if (!configuration.isSqlSpillEnabled()) {
+                        throw reservation.limitExceeded(memUsed);
+                    }
+                    if (level < MAX_SPILL_LEVEL) {
+                        partitionLo = openPartitions(baseCursor, level + 1, partitionCount);
+                    }
+                }
+            } else {
+                MapValue value = key.findValue();
+                if (value != null) {
+                    GroupByUtils.updateFunctions(groupByFunctions, n, value, record);
+                } else {
+                    final int p = partitionLo + Hash.partitionOf(key.hash(), level, partitionCount);
+                    lastOffsets.setQuick(p, partitions.getQuick(p).put(record, lastOffsets.getQuick(p)));
+                }
+            }
+        }
+    }
+
+    private void freeSpill() {
+        output = Misc.free(output);
+        Misc.freeObjListAndClear(partitions);
+        partitionLevels.clear();
+        lastOffsets.clear();
+    }
+
+    private void moveMapToOutput() {
+        final RecordCursor mapCursor = dataMap.getCursor();
+        final Record mapRecord = mapCursor.getRecord();
+        while (mapCursor.hasNext()) {
+            outputOffset = output.put(mapRecord, outputOffset);
+        }
+        dataMap.clear();
+        dataMap.restoreInitialCapacity();
+    }
+
+    private int openPartitions(RecordCursor baseCursor, int level, int partitionCount) {
+        final int partitionLo = partitions.size();
+        for (int i = 0; i < partitionCount; i++) {
+            final SpillRecordChain partition = new SpillRecordChain(configuration, base.getMetadata(), spillSink);
+            partitions.add(partition);
+            partition.setSymbolTableResolver(baseCursor);
+            partitionLevels.add(level);
+            lastOffsets.add(-1);
+        }
+        return partitionLo;
+    }
+
+    private class GroupByRecordCursor extends VirtualFunctionSkewedSymbolRecordCursor {
+
+        public GroupByRecordCursor(ObjList<Function> functions) {
+            super(functions);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            freeSpill();
+            reservation.clear();
+        }
+    }
 }
@@ -0,0 +1,380 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+
+/**
+ * ASOF and LT join of two page frame cursors on their designated timestamps. Timestamp columns
+ * of both sides are merged straight from column memory in batches of master rows. For every slave
+ * symbol key the merge keeps row id of the latest slave row in a flat table indexed by the key, so
+ * that matching a master row is an array lookup. Joined columns are read only when the resulting
+ * record is accessed.
+ */
+public class AsOfJoinPageFrameRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final int BATCH_SIZE = 4096;
+    private static final int KEY_UNKNOWN = -3;
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final DirectLongList matches;
+    private final AsOfJoinPageFrameRecordCursor cursor;
+
+    /**
+     * @param masterKeyIndex index of master symbol join column or -1 when join has no key
+     * @param slaveKeyIndex  index of slave symbol join column or -1 when join has no key
+     * @param inclusive      true for ASOF join, which accepts slave rows with timestamp equal to master timestamp,
+     *                       false for LT join
+     */
+    public AsOfJoinPageFrameRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            int masterKeyIndex,
+            int slaveKeyIndex,
+            boolean inclusive,
+            int columnSplit
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.matches = new DirectLongList(BATCH_SIZE, MemoryTag.NATIVE_LONG_LIST);
+        this.cursor = new AsOfJoinPageFrameRecordCursor(
+                configuration,
+                matches,
+                columnSplit,
+                NullRecordFactory.getInstance(slaveFactory.getMetadata()),
+                masterFactory.getMetadata().getTimestampIndex(),
+                slaveFactory.getMetadata().getTimestampIndex(),
+                masterKeyIndex,
+                slaveKeyIndex,
+                inclusive
+        );
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        PageFrameCursor masterFrameCursor = masterFactory.getPageFrameCursor(executionContext, DataFrameCursorFactory.ORDER_ASC);
+        PageFrameCursor slaveFrameCursor = null;
+        try {
+            slaveFrameCursor = slaveFactory.getPageFrameCursor(executionContext, DataFrameCursorFactory.ORDER_ASC);
+            cursor.of(masterFrameCursor, slaveFrameCursor, masterFactory.getMetadata(), slaveFactory.getMetadata());
+        } catch (Throwable ex) {
+            Misc.free(masterFrameCursor);
+            Misc.free(slaveFrameCursor);
+            throw ex;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return false;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    protected void _close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(cursor);
+        Misc.free(matches);
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    private static int slotOf(int key) {
+        // null symbol takes the first slot
+        return key == SymbolTable.VALUE_IS_NULL ? 0 : key + 1;
+    }
+
+    private static class AsOfJoinPageFrameRecordCursor implements NoRandomAccessRecordCursor {
+        private final int columnSplit;
+        private final OuterJoinRecord record;
+        private final PageAddressCacheRecord masterRecord = new PageAddressCacheRecord();
+        private final PageAddressCacheRecord slaveRecord = new PageAddressCacheRecord();
+        private final PageAddressCache masterAddressCache;
+        private final PageAddressCache slaveAddressCache;
+        private final int masterTimestampIndex;
+        private final int slaveTimestampIndex;
+        private final int masterKeyIndex;
+        private final int slaveKeyIndex;
+        private final boolean inclusive;
+        // slave row ids matched to the current batch of master rows, -1 when there is no match
+        private final DirectLongList matches;
+        // latest slave row id by slot of slave symbol key
+        private final LongList lastSlaveRowIds = new LongList();
+        // slave symbol key by slot of master symbol key, resolved lazily
+        private final IntList masterToSlaveKeys = new IntList();
+        private PageFrameCursor masterFrameCursor;
+        private PageFrameCursor slaveFrameCursor;
+        private SymbolTable masterSymbolTable;
+        private StaticSymbolTable slaveSymbolTable;
+        private int masterSymbolCount;
+        private int masterFrameIndex;
+        private long masterTimestampAddress;
+        private long masterKeyAddress;
+        private long masterFrameRowCount;
+        private long masterBatchLo;
+        private long masterBatchHi;
+        private long masterRowIndex;
+        private int slaveFrameIndex;
+        private long slaveTimestampAddress;
+        private long slaveKeyAddress;
+        private long slaveFrameRowCount;
+        private long slaveRowIndex;
+        private long slaveTimestamp;
+        private boolean slaveExhausted;
+        private long lastSlaveRowId;
+
+        public AsOfJoinPageFrameRecordCursor(
+                CairoConfiguration configuration,
+                DirectLongList matches,
+                int columnSplit,
+                Record nullRecord,
+                int masterTimestampIndex,
+                int slaveTimestampIndex,
+                int masterKeyIndex,
+                int slaveKeyIndex,
+                boolean inclusive
+        ) {
+            this.columnSplit = columnSplit;
+            this.record = new OuterJoinRecord(columnSplit, nullRecord);
+            this.record.of(masterRecord, slaveRecord);
+            this.matches = matches;
+            this.masterAddressCache = new PageAddressCache(configuration);
+            this.slaveAddressCache = new PageAddressCache(configuration);
+            this.masterTimestampIndex = masterTimestampIndex;
+            this.slaveTimestampIndex = slaveTimestampIndex;
+            this.masterKeyIndex = masterKeyIndex;
+            this.slaveKeyIndex = slaveKeyIndex;
+            this.inclusive = inclusive;
+        }
+
+        @Override
+        public void close() {
+            if (masterFrameCursor != null) {
+                masterSymbolTable = Misc.free(masterSymbolTable);
+                slaveSymbolTable = null;
+                Misc.free(masterRecord);
+                Misc.free(slaveRecord);
+                masterAddressCache.clear();
+                slaveAddressCache.clear();
+                masterFrameCursor = Misc.free(masterFrameCursor);
+                slaveFrameCursor = Misc.free(slaveFrameCursor);
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterFrameCursor.getSymbolTable(columnIndex);
+            }
+            return slaveFrameCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (masterRowIndex == masterBatchHi && !nextMasterBatch()) {
+                return false;
+            }
+            masterRecord.setRowIndex(masterRowIndex);
+            final long slaveRowId = matches.get(masterRowIndex - masterBatchLo);
+            if (slaveRowId > -1) {
+                slaveRecord.setFrameIndex(Rows.toPartitionIndex(slaveRowId));
+                slaveRecord.setRowIndex(Rows.toLocalRowID(slaveRowId));
+                record.hasSlave(true);
+            } else {
+                record.hasSlave(false);
+            }
+            masterRowIndex++;
+            return true;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterFrameCursor.newSymbolTable(columnIndex);
+            }
+            return slaveFrameCursor.newSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public long size() {
+            return masterFrameCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            masterFrameCursor.toTop();
+            slaveFrameCursor.toTop();
+            reset();
+        }
+
+        private void mergeKeyed(long lo, long hi) {
+            final long matchesAddress = matches.getAddress();
+            for (long i = lo; i < hi; i++) {
+                final long masterTimestamp = Unsafe.getUnsafe().getLong(masterTimestampAddress + (i << 3));
+                while (slaveRowPrecedes(masterTimestamp)) {
+                    final int slaveKey = slaveKeyAddress != 0 ? Unsafe.getUnsafe().getInt(slaveKeyAddress + (slaveRowIndex << 2)) : SymbolTable.VALUE_IS_NULL;
+                    lastSlaveRowIds.setQuick(slotOf(slaveKey), Rows.toRowID(slaveFrameIndex, slaveRowIndex));
+                    nextSlaveRow();
+                }
+
+                final int masterKey = masterKeyAddress != 0 ? Unsafe.getUnsafe().getInt(masterKeyAddress + (i << 2)) : SymbolTable.VALUE_IS_NULL;
+                final int masterSlot = slotOf(masterKey);
+                int slaveKey = masterToSlaveKeys.getQuick(masterSlot);
+                if (slaveKey == KEY_UNKNOWN) {
+                    slaveKey = masterKey == SymbolTable.VALUE_IS_NULL ? masterKey : slaveSymbolTable.keyOf(masterSymbolTable.valueOf(masterKey));
+                    masterToSlaveKeys.setQuick(masterSlot, slaveKey);
+                }
+                Unsafe.getUnsafe().putLong(
+                        matchesAddress + ((i - lo) << 3),
+                        slaveKey != SymbolTable.VALUE_NOT_FOUND ? lastSlaveRowIds.getQuick(slotOf(slaveKey)) : -1
+                );
+            }
+        }
+
+        private void mergeNoKey(long lo, long hi) {
+            final long matchesAddress = matches.getAddress();
+            for (long i = lo; i < hi; i++) {
+                final long masterTimestamp = Unsafe.getUnsafe().getLong(masterTimestampAddress + (i << 3));
+                while (slaveRowPrecedes(masterTimestamp)) {
+                    lastSlaveRowId = Rows.toRowID(slaveFrameIndex, slaveRowIndex);
+                    nextSlaveRow();
+                }
+                Unsafe.getUnsafe().putLong(matchesAddress + ((i - lo) << 3), lastSlaveRowId);
+            }
+        }
+
+        private boolean nextMasterBatch() {
+            if (masterBatchHi == masterFrameRowCount) {
+                PageFrame frame;
+                do {
+                    if ((frame = masterFrameCursor.next()) == null) {
+                        return false;
+                    }
+                    masterAddressCache.add(++masterFrameIndex, frame);
+                    masterFrameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+                } while (masterFrameRowCount == 0);
+                masterTimestampAddress = frame.getPageAddress(masterTimestampIndex);
+                masterKeyAddress = masterKeyIndex > -1 ? frame.getPageAddress(masterKeyIndex) : 0;
+                masterRecord.setFrameIndex(masterFrameIndex);
+                masterBatchHi = 0;
+            }
+            masterBatchLo = masterBatchHi;
+            masterBatchHi = Math.min(masterBatchLo + BATCH_SIZE, masterFrameRowCount);
+            masterRowIndex = masterBatchLo;
+            if (masterKeyIndex > -1) {
+                mergeKeyed(masterBatchLo, masterBatchHi);
+            } else {
+                mergeNoKey(masterBatchLo, masterBatchHi);
+            }
+            return true;
+        }
+
+        private void nextSlaveFrame() {
+            PageFrame frame;
+            while ((frame = slaveFrameCursor.next()) != null) {
+                slaveAddressCache.add(++slaveFrameIndex, frame);
+                slaveFrameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+                if (slaveFrameRowCount > 0) {
+                    slaveTimestampAddress = frame.getPageAddress(slaveTimestampIndex);
+                    slaveKeyAddress = slaveKeyIndex > -1 ? frame.getPageAddress(slaveKeyIndex) : 0;
+                    slaveRowIndex = 0;
+                    slaveTimestamp = Unsafe.getUnsafe().getLong(slaveTimestampAddress);
+                    slaveExhausted = false;
+                    return;
+                }
+            }
+            // all remaining master rows match the last slave row, a timestamp sentinel
+            // would not do here since master rows can be stamped with any value
+            slaveExhausted = true;
+        }
+
+        private boolean slaveRowPrecedes(long masterTimestamp) {
+            return !slaveExhausted && (slaveTimestamp < masterTimestamp || (inclusive && slaveTimestamp == masterTimestamp));
+        }
+
+        private void nextSlaveRow() {
+            if (++slaveRowIndex < slaveFrameRowCount) {
+                slaveTimestamp = Unsafe.getUnsafe().getLong(slaveTimestampAddress + (slaveRowIndex << 3));
+            } else {
+                nextSlaveFrame();
+            }
+        }
+
+        void of(
+                PageFrameCursor masterFrameCursor,
+                PageFrameCursor slaveFrameCursor,
+                RecordMetadata masterMetadata,
+                RecordMetadata slaveMetadata
+        ) {
+            this.masterFrameCursor = masterFrameCursor;
+            this.slaveFrameCursor = slaveFrameCursor;
+            masterAddressCache.of(masterMetadata);
+            slaveAddressCache.of(slaveMetadata);
+            masterRecord.of(masterFrameCursor, masterAddressCache);
+            slaveRecord.of(slaveFrameCursor, slaveAddressCache);
+            if (masterKeyIndex > -1) {
+                // master symbol values are resolved on a copy of the table to keep symbol table of the cursor intact
+                masterSymbolTable = masterFrameCursor.newSymbolTable(masterKeyIndex);
+                slaveSymbolTable = (StaticSymbolTable) slaveFrameCursor.getSymbolTable(slaveKeyIndex);
+                masterSymbolCount = ((StaticSymbolTable) masterFrameCursor.getSymbolTable(masterKeyIndex)).getSymbolCount();
+            }
+            reset();
+        }
+
+        private void reset() {
+            masterFrameIndex = -1;
+            masterFrameRowCount = 0;
+            masterBatchLo = 0;
+            masterBatchHi = 0;
+            masterRowIndex = 0;
+            slaveFrameIndex = -1;
+            lastSlaveRowId = -1;
+            if (masterKeyIndex > -1) {
+                lastSlaveRowIds.setAll(slaveSymbolTable.getSymbolCount() + 1, -1);
+                masterToSlaveKeys.setAll(masterSymbolCount + 1, KEY_UNKNOWN);
+            }
+            nextSlaveFrame();
+        }
+    }
+}
@@ -0,0 +1,661 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.MemoryReservation;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
+
+/**
+ * Inner hash join of two tables that runs on the page frame reduce queue. Slave table is read
+ * frame by frame and its join keys are hashed into a number of partitions, each partition is a
+ * separate map and row id chain. Frames are reduced concurrently, a worker locks one partition at
+ * a time and inserts rows of the frame that belong to the partition. Once the hash table is built,
+ * frames of the master table are dispatched to the queue, workers look up their keys and the
+ * matches are collected in frame order, which preserves order of the master table.
+ * <p>
+ * Maps and chains of the partitions are accounted against memory budget of the query. Join is
+ * handed over to the fallback factory, which can spill, when the hash table does not fit.
+ */
+public class AsyncHashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final PageFrameReducer BUILD_REDUCER = AsyncHashJoinRecordCursorFactory::build;
+    private static final PageFrameReducer PROBE_REDUCER = AsyncHashJoinRecordCursorFactory::probe;
+    private static final int MAX_PARTITION_COUNT = 256;
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final JoinAtom atom;
+    private final PageFrameSequence<JoinAtom> slaveFrameSequence;
+    private final PageFrameSequence<JoinAtom> masterFrameSequence;
+    private final SCSequence slaveCollectSubSeq = new SCSequence();
+    private final SCSequence masterCollectSubSeq = new SCSequence();
+    private final AsyncHashJoinRecordCursor cursor;
+    private final MemoryReservation reservation = new MemoryReservation();
+    private final RecordCursorFactory fallbackFactory;
+
+    public AsyncHashJoinRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes, // this expected to be two LONGs, head and tail of the row id chain
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            int columnSplit,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            int workerCount,
+            @NotNull RecordCursorFactory fallbackFactory // owns master and slave factories
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.atom = new JoinAtom(configuration, joinColumnTypes, valueTypes, masterKeySink, slaveKeySink, workerCount);
+        this.slaveFrameSequence = new PageFrameSequence<>(configuration, messageBus, BUILD_REDUCER, localTaskPool);
+        this.masterFrameSequence = new PageFrameSequence<>(configuration, messageBus, PROBE_REDUCER, localTaskPool);
+        this.cursor = new AsyncHashJoinRecordCursor(columnSplit);
+        this.fallbackFactory = fallbackFactory;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        atom.clear();
+        reservation.of(executionContext.getArena());
+        slaveFrameSequence.of(slaveFactory, executionContext, slaveCollectSubSeq, atom, ORDER_ANY);
+        try {
+            if (!buildHashTable(executionContext.getCircuitBreaker())) {
+                finish(slaveFrameSequence);
+                atom.clear();
+                reservation.clear();
+                return fallbackFactory.getCursor(executionContext);
+            }
+            atom.orderChains();
+            masterFrameSequence.of(masterFactory, executionContext, masterCollectSubSeq, atom, ORDER_ANY);
+        } catch (Throwable e) {
+            finish(slaveFrameSequence);
+            reservation.clear();
+            throw e;
+        }
+        cursor.of(masterFrameSequence, slaveFrameSequence);
+        return cursor;
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return masterFactory.hasDescendingOrder();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(CharSequence tableName) {
+        return masterFactory.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(fallbackFactory);
+        Misc.free(masterFrameSequence);
+        Misc.free(slaveFrameSequence);
+        Misc.free(atom);
+        cursor.freeRecords();
+    }
+
+    private static void build(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final int frameIndex = task.getFrameIndex();
+        final JoinAtom atom = task.getFrameSequence(JoinAtom.class).getAtom();
+        final int partitionCount = atom.partitionCount;
+
+        final WorkerState state = atom.acquireState(workerId);
+        try {
+            // group rows of the frame by partition, counting sort leaves
+            // partition p at [offsets[p], offsets[p + 1]) of partition rows
+            final int[] offsets = state.partitionOffsets;
+            final int[] positions = state.partitionPositions;
+            final DirectLongList rowPartitions = state.rowPartitions;
+            final DirectLongList partitionRows = state.partitionRows;
+            if (partitionRows.getCapacity() < frameRowCount) {
+                rowPartitions.setCapacity(frameRowCount);
+                partitionRows.setCapacity(frameRowCount);
+            }
+            Arrays.fill(offsets, 0);
+            rowPartitions.clear();
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final FastMap.LookupKey key = state.key.init();
+                key.put(record, atom.slaveKeySink);
+                final int partition = Hash.partitionOf(key.hash(), 0, partitionCount);
+                rowPartitions.add(partition);
+                offsets[partition + 1]++;
+            }
+            for (int p = 0; p < partitionCount; p++) {
+                offsets[p + 1] += offsets[p];
+                positions[p] = offsets[p];
+            }
+            partitionRows.setPos(frameRowCount);
+            for (long r = 0; r < frameRowCount; r++) {
+                partitionRows.set(positions[(int) rowPartitions.get(r)]++, r);
+            }
+
+            // Insert rows into partitions that are not locked by other workers first,
+            // come back to the locked ones later. Each worker starts with a different
+            // partition to reduce contention.
+            int remaining = 0;
+            for (int p = 0; p < partitionCount; p++) {
+                if (offsets[p] < offsets[p + 1]) {
+                    remaining++;
+                } else {
+                    positions[p] = -1;
+                }
+            }
+            final int start = frameIndex % partitionCount;
+            while (remaining > 0) {
+                boolean inserted = false;
+                for (int i = 0; i < partitionCount; i++) {
+                    final int p = (start + i) % partitionCount;
+                    if (positions[p] != -1 && atom.tryLock(p)) {
+                        try {
+                            insert(record, atom, p, partitionRows, offsets[p], offsets[p + 1], frameIndex);
+                        } finally {
+                            atom.unlock(p);
+                        }
+                        positions[p] = -1;
+                        remaining--;
+                        inserted = true;
+                    }
+                }
+                if (!inserted) {
+                    Os.pause();
+                }
+            }
+        } finally {
+            atom.releaseState(workerId);
+        }
+    }
+
+    private static void finish(PageFrameSequence<?> frameSequence) {
+        if (frameSequence.getFrameCount() > 0) {
+            frameSequence.await();
+        }
+        frameSequence.clear();
+    }
+
+    private static void insert(
+            PageAddressCacheRecord record,
+            JoinAtom atom,
+            int partition,
+            DirectLongList partitionRows,
+            long lo,
+            long hi,
+            int frameIndex
+    ) {
+        final FastMap map = atom.maps.getQuick(partition);
+        final LongChain chain = atom.chains.getQuick(partition);
+        final long memUsed = map.getMemUsed() + chain.getMemUsed();
+        for (long i = lo; i < hi; i++) {
+            final long r = partitionRows.get(i);
+            final long rowId = Rows.toRowID(frameIndex, r);
+            record.setRowIndex(r);
+            final MapKey key = map.withKey();
+            key.put(record, atom.slaveKeySink);
+            final MapValue value = key.createValue();
+            if (value.isNew()) {
+                final long offset = chain.put(rowId, -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+            } else {
+                final long tailOffset = value.getLong(1);
+                if (rowId < chain.getValue(tailOffset)) {
+                    // frames are inserted in the order they are reduced, chain
+                    // is put back into slave order once hash table is built
+                    atom.unorderedChains.getQuick(partition).add(value.getLong(0));
+                }
+                value.putLong(1, chain.put(rowId, tailOffset));
+            }
+        }
+        atom.memUsed.addAndGet(map.getMemUsed() + chain.getMemUsed() - memUsed);
+    }
+
+    private static void probe(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final JoinAtom atom = task.getFrameSequence(JoinAtom.class).getAtom();
+        final DirectLongList rows = task.getRows();
+
+        final WorkerState state = atom.acquireState(workerId);
+        try {
+            rows.clear();
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                final FastMap.LookupKey key = state.key.init();
+                key.put(record, atom.masterKeySink);
+                final long hash = key.hash();
+                final int partition = Hash.partitionOf(hash, 0, atom.partitionCount);
+                final MapValue value = atom.maps.getQuick(partition).findValue(key, hash);
+                if (value != null) {
+                    // master row, partition and head of the slave row chain
+                    rows.add(r);
+                    rows.add(partition);
+                    rows.add(value.getLong(0));
+                }
+            }
+        } finally {
+            atom.releaseState(workerId);
+        }
+    }
+
+    /**
+     * @return false when hash table does not fit memory budget of the query
+     */
+    private boolean buildHashTable(SqlExecutionCircuitBreaker circuitBreaker) {
+        final int frameCount = slaveFrameSequence.getFrameCount();
+        long rowCount = 0;
+        for (int i = 0; i < frameCount; i++) {
+            rowCount += slaveFrameSequence.getFrameRowCount(i);
+        }
+        // every slave row takes a chain entry, give up before any frame is dispatched when these do not fit
+        if (!reservation.tryGrow(atom.memUsed.get() + rowCount * LongChain.ENTRY_SIZE)) {
+            return false;
+        }
+
+        // frames are reduced by workers, all we have to do here is to collect them
+        boolean fits = true;
+        for (int i = 0; i < frameCount; ) {
+            final long cursor = slaveFrameSequence.next();
+            if (cursor > -1) {
+                slaveFrameSequence.collect(cursor, false);
+                i++;
+                if (fits && !reservation.tryGrow(atom.memUsed.get())) {
+                    // remaining frames are collected without being reduced
+                    slaveFrameSequence.cancel();
+                    fits = false;
+                }
+            } else {
+                Os.pause();
+            }
+        }
+
+        if (!fits) {
+            return false;
+        }
+
+        if (!slaveFrameSequence.isActive()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            throw CairoException.instance(0).put("could not build hash table of the join");
+        }
+        return true;
+    }
+
+    private static class WorkerState implements Closeable {
+        private final FastMap.LookupKey key;
+        private final DirectLongList rowPartitions;
+        private final DirectLongList partitionRows;
+        private final int[] partitionOffsets;
+        private final int[] partitionPositions;
+
+        private WorkerState(CairoConfiguration configuration, FastMap map, int partitionCount) {
+            this.key = map.newLookupKey();
+            this.rowPartitions = new DirectLongList(configuration.getPageFrameReduceRowIdListCapacity(), MemoryTag.NATIVE_OFFLOAD);
+            this.partitionRows = new DirectLongList(configuration.getPageFrameReduceRowIdListCapacity(), MemoryTag.NATIVE_OFFLOAD);
+            this.partitionOffsets = new int[partitionCount + 1];
+            this.partitionPositions = new int[partitionCount];
+        }
+
+        @Override
+        public void close() {
+            Misc.free(key);
+            Misc.free(rowPartitions);
+            Misc.free(partitionRows);
+        }
+
+        private void clear() {
+            rowPartitions.resetCapacity();
+            partitionRows.resetCapacity();
+        }
+    }
+
+    private static class JoinAtom implements StatefulAtom, Closeable, Mutable {
+        private final int partitionCount;
+        private final ObjList<FastMap> maps = new ObjList<>();
+        private final ObjList<LongChain> chains = new ObjList<>();
+        // heads of the chains that got slave rows out of order, by partition
+        private final ObjList<DirectLongList> unorderedChains = new ObjList<>();
+        private final DirectLongList chainValues;
+        private final AtomicIntegerArray partitionLocks;
+        private final RecordSink masterKeySink;
+        private final RecordSink slaveKeySink;
+        // states of the pool workers followed by the state of threads that are not part of the pool,
+        // such as the query owner thread, which share the last state under a lock
+        private final ObjList<WorkerState> workerStates = new ObjList<>();
+        private final AtomicIntegerArray sharedStateLock = new AtomicIntegerArray(1);
+        private final int workerCount;
+        // footprint of maps and chains of all partitions, workers add to it as partitions grow
+        private final AtomicLong memUsed = new AtomicLong();
+
+        private JoinAtom(
+                CairoConfiguration configuration,
+                @Transient ColumnTypes joinColumnTypes,
+                @Transient ColumnTypes valueTypes,
+                RecordSink masterKeySink,
+                RecordSink slaveKeySink,
+                int workerCount
+        ) {
+            this.workerCount = Math.max(0, workerCount);
+            this.partitionCount = Math.min(Numbers.ceilPow2(Math.max(1, workerCount)) * 4, MAX_PARTITION_COUNT);
+            this.partitionLocks = new AtomicIntegerArray(partitionCount);
+            this.masterKeySink = masterKeySink;
+            this.slaveKeySink = slaveKeySink;
+            // partitions share memory that a single map and chain would have been given
+            final int mapPageSize = Math.max(configuration.getSqlMapPageSize() / partitionCount, 4096);
+            final int mapKeyCapacity = Math.max(configuration.getSqlMapKeyCapacity() / partitionCount, 16);
+            final int chainPageSize = Math.max(Numbers.ceilPow2(configuration.getSqlHashJoinLightValuePageSize()) / partitionCount, 4096);
+            final int maxResizes = configuration.getSqlMapMaxResizes();
+            this.chainValues = new DirectLongList(16, MemoryTag.NATIVE_OFFLOAD);
+            try {
+                for (int i = 0; i < partitionCount; i++) {
+                    maps.add(new FastMap(
+                            mapPageSize,
+                            joinColumnTypes,
+                            valueTypes,
+                            mapKeyCapacity,
+                            configuration.getSqlFastMapLoadFactor(),
+                            maxResizes == Integer.MAX_VALUE ? maxResizes : maxResizes + Numbers.msb(partitionCount)
+                    ));
+                    chains.add(new LongChain(chainPageSize, configuration.getSqlHashJoinLightValueMaxPages()));
+                    unorderedChains.add(new DirectLongList(16, MemoryTag.NATIVE_OFFLOAD));
+                }
+                for (int i = 0; i <= this.workerCount; i++) {
+                    workerStates.add(new WorkerState(configuration, maps.getQuick(0), partitionCount));
+                }
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void clear() {
+            long memUsed = 0;
+            for (int i = 0; i < partitionCount; i++) {
+                final FastMap map = maps.getQuick(i);
+                final LongChain chain = chains.getQuick(i);
+                map.clear();
+                chain.clear();
+                unorderedChains.getQuick(i).resetCapacity();
+                memUsed += map.getMemUsed() + chain.getMemUsed();
+            }
+            this.memUsed.set(memUsed);
+            chainValues.resetCapacity();
+            for (int i = 0, n = workerStates.size(); i < n; i++) {
+                workerStates.getQuick(i).clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjList(maps);
+            Misc.freeObjList(chains);
+            Misc.freeObjList(unorderedChains);
+            Misc.free(chainValues);
+            Misc.freeObjList(workerStates);
+        }
+
+        /**
+         * Restores slave row order of the chains that were built from frames reduced out of order.
+         * Values of such chain are sorted in place, row ids are ordered the same way as slave rows.
+         */
+        private void orderChains() {
+            for (int p = 0; p < partitionCount; p++) {
+                final DirectLongList heads = unorderedChains.getQuick(p);
+                if (heads.size() > 0) {
+                    // chain can be listed more than once
+                    heads.sortAsUnsigned();
+                    final LongChain chain = chains.getQuick(p);
+                    long prevHead = -1;
+                    for (long i = 0, n = heads.size(); i < n; i++) {
+                        final long head = heads.get(i);
+                        if (head != prevHead) {
+                            chain.sort(head, chainValues);
+                            prevHead = head;
+                        }
+                    }
+                    heads.clear();
+                }
+            }
+        }
+
+        private WorkerState acquireState(int workerId) {
+            if (workerId > -1 && workerId < workerCount) {
+                return workerStates.getQuick(workerId);
+            }
+            // query owner and threads that steal work from the queue
+            while (!sharedStateLock.compareAndSet(0, 0, 1)) {
+                Os.pause();
+            }
+            return workerStates.getQuick(workerCount);
+        }
+
+        private void releaseState(int workerId) {
+            if (workerId < 0 || workerId >= workerCount) {
+                sharedStateLock.set(0, 0);
+            }
+        }
+
+        private boolean tryLock(int partition) {
+            return partitionLocks.compareAndSet(partition, 0, 1);
+        }
+
+        private void unlock(int partition) {
+            partitionLocks.set(partition, 0);
+        }
+    }
+
+    private class AsyncHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final int columnSplit;
+        private final JoinRecord record;
+        private final PageAddressCacheRecord masterRecord = new PageAddressCacheRecord();
+        private final PageAddressCacheRecord slaveRecord = new PageAddressCacheRecord();
+        private PageFrameSequence<?> masterFrameSequence;
+        private PageFrameSequence<?> slaveFrameSequence;
+        private LongChain.TreeCursor slaveChainCursor;
+        private DirectLongList rows;
+        private long cursor = -1;
+        private long rowIndex;
+        private long rowCount;
+        private int frameIndex;
+        private int frameLimit;
+
+        private AsyncHashJoinRecordCursor(int columnSplit) {
+            this.columnSplit = columnSplit;
+            this.record = new JoinRecord(columnSplit);
+            this.record.of(masterRecord, slaveRecord);
+        }
+
+        @Override
+        public void close() {
+            collectCursor(true);
+            if (frameLimit > -1) {
+                masterFrameSequence.await();
+            }
+            masterFrameSequence.clear();
+            finish(slaveFrameSequence);
+            reservation.clear();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+            }
+            return slaveFrameSequence.getSymbolTableSource().getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+                slaveRecordAt(slaveChainCursor.next());
+                return true;
+            }
+
+            if (rowIndex < rowCount) {
+                nextMatch();
+                return true;
+            }
+
+            // matches can outgrow row list of the task many times over, shrink it before
+            // the task goes back to the queue that is shared with other queries
+            collectCursor(true);
+
+            if (frameIndex < frameLimit) {
+                fetchNextFrame();
+                if (rowCount > 0) {
+                    nextMatch();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+            }
+            return slaveFrameSequence.getSymbolTableSource().newSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            collectCursor(true);
+            masterFrameSequence.toTop();
+            slaveChainCursor = null;
+            rowIndex = rowCount = 0;
+            if (frameLimit > -1) {
+                frameIndex = -1;
+                fetchNextFrame();
+            }
+        }
+
+        private void collectCursor(boolean forceCollect) {
+            if (cursor > -1) {
+                masterFrameSequence.collect(cursor, forceCollect);
+                cursor = -1;
+            }
+        }
+
+        private void fetchNextFrame() {
+            do {
+                cursor = masterFrameSequence.next();
+                if (cursor > -1) {
+                    final PageFrameReduceTask task = masterFrameSequence.getTask(cursor);
+                    rows = task.getRows();
+                    rowCount = rows.size();
+                    frameIndex = task.getFrameIndex();
+                    if (rowCount > 0 && masterFrameSequence.isActive()) {
+                        rowIndex = 0;
+                        masterRecord.setFrameIndex(frameIndex);
+                        break;
+                    } else {
+                        rowCount = 0;
+                        collectCursor(false);
+                    }
+                } else {
+                    Os.pause();
+                }
+            } while (frameIndex < frameLimit);
+        }
+
+        private void freeRecords() {
+            Misc.free(masterRecord);
+            Misc.free(slaveRecord);
+        }
+
+        private void nextMatch() {
+            masterRecord.setRowIndex(rows.get(rowIndex));
+            slaveChainCursor = atom.chains.getQuick((int) rows.get(rowIndex + 1)).getCursor(rows.get(rowIndex + 2));
+            rowIndex += 3;
+            // chain always has at least one row
+            slaveChainCursor.hasNext();
+            slaveRecordAt(slaveChainCursor.next());
+        }
+
+        private void of(PageFrameSequence<?> masterFrameSequence, PageFrameSequence<?> slaveFrameSequence) {
+            this.masterFrameSequence = masterFrameSequence;
+            this.slaveFrameSequence = slaveFrameSequence;
+            this.frameIndex = -1;
+            this.frameLimit = masterFrameSequence.getFrameCount() - 1;
+            this.slaveChainCursor = null;
+            this.rowIndex = rowCount = 0;
+            masterRecord.of(masterFrameSequence.getSymbolTableSource(), masterFrameSequence.getPageAddressCache());
+            slaveRecord.of(slaveFrameSequence.getSymbolTableSource(), slaveFrameSequence.getPageAddressCache());
+            if (frameLimit > -1) {
+                fetchNextFrame();
+            }
+        }
+
+        private void slaveRecordAt(long rowId) {
+            slaveRecord.setFrameIndex(Rows.toPartitionIndex(rowId));
+            slaveRecord.setRowIndex(Rows.toLocalRowID(rowId));
+        }
+    }
+}
@@ -33,17 +33,23 @@ import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
-import io.questdb.std.Misc;
-import io.questdb.std.Transient;
+import io.questdb.griffin.engine.MemoryReservation;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.SpillMerger;
+import io.questdb.std.*;
 
 public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final CairoConfiguration configuration;
     private final Map joinKeyMap;
     private final RecordChain slaveChain;
     private final RecordCursorFactory masterFactory;
     private final RecordCursorFactory slaveFactory;
     private final RecordSink masterSink;
     private final RecordSink slaveKeySink;
+    private final RecordSink slaveChainSink;
     private final HashJoinRecordCursor cursor;
+    private final SpilledHashJoinRecordCursor spilledCursor;
+    private final MemoryReservation reservation = new MemoryReservation();
 
     public HashJoinRecordCursorFactory(
             CairoConfiguration configuration,
@@ -59,13 +65,16 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
 
     ) {
         super(metadata);
+        this.configuration = configuration;
         this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
         joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes);
         slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
         this.masterSink = masterSink;
         this.slaveKeySink = slaveKeySink;
+        this.slaveChainSink = slaveChainSink;
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
+        this.spilledCursor = new SpilledHashJoinRecordCursor(columnSplit, masterFactory.getMetadata(), slaveFactory.getMetadata());
     }
 
     @Override
@@ -82,11 +91,19 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
         RecordCursor masterCursor = null;
         try {
-            buildMapOfSlaveRecords(slaveCursor, executionContext.getCircuitBreaker());
+            final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+            reservation.of(executionContext.getArena());
+            final boolean fits = buildMapOfSlaveRecords(slaveCursor, circuitBreaker);
             masterCursor = masterFactory.getCursor(executionContext);
-            this.cursor.of(masterCursor, slaveCursor);
-            return this.cursor;
+            if (fits) {
+                this.cursor.of(masterCursor, slaveCursor);
+                return this.cursor;
+            }
+            this.spilledCursor.of(masterCursor, slaveCursor, circuitBreaker);
+            return this.spilledCursor;
         } catch (Throwable e) {
+            spilledCursor.freeSpill();
+            reservation.clear();
             Misc.free(slaveCursor);
             Misc.free(masterCursor);
             throw e;
@@ -108,8 +125,63 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         return masterFactory.supportsUpdateRowId(tableName);
     }
 
-    private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
-        HashOuterJoinRecordCursorFactory.buildMap(slaveCursor, slaveCursor.getRecord(), joinKeyMap, slaveKeySink, slaveChain, circuitBreaker);
+    private static void putSlaveRecord(Map joinKeyMap, RecordSink slaveKeySink, RecordChain slaveChain, Record record) {
+        MapKey key = joinKeyMap.withKey();
+        key.put(record, slaveKeySink);
+        MapValue value = key.createValue();
+        if (value.isNew()) {
+            long offset = slaveChain.put(record, -1);
+            value.putLong(0, offset);
+            value.putLong(1, offset);
+        } else {
+            value.putLong(1, slaveChain.put(record, value.getLong(1)));
+        }
+    }
+
+    /**
+     * @return false when slave records do not fit memory budget of the query and join has to spill
+     */
+    private boolean buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        joinKeyMap.clear();
+        slaveChain.clear();
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            putSlaveRecord(joinKeyMap, slaveKeySink, slaveChain, record);
+            final long memUsed = joinKeyMap.getMemUsed() + slaveChain.getMemUsed();
+            if (!reservation.tryGrow(memUsed)) {
+                if (!configuration.isSqlSpillEnabled()) {
+                    throw reservation.limitExceeded(memUsed);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int partitionOf(Record record, RecordSink keySink, int partitionCount) {
+        final MapKey key = joinKeyMap.withKey();
+        key.put(record, keySink);
+        return Hash.partitionOf(key.hash(), 0, partitionCount);
+    }
+
+    private static class SequenceComparator implements RecordComparator {
+        private final int columnIndex;
+        private long left;
+
+        private SequenceComparator(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public int compare(Record record) {
+            return Long.compare(left, record.getLong(columnIndex));
+        }
+
+        @Override
+        public void setLeft(Record record) {
+            left = record.getLong(columnIndex);
+        }
     }
 
     private class HashJoinRecordCursor extends AbstractJoinCursor {
@@ -158,6 +230,12 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             return false;
         }
 
+        @Override
+        public void close() {
+            super.close();
+            reservation.clear();
+        }
+
         @Override
         public void toTop() {
             masterCursor.toTop();
@@ -174,4 +252,176 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             useSlaveCursor = false;
         }
     }
+
+    /**
+     * Grace hash join. Both sides are split into partitions by hash of the join key and written
+     * to disk, then each pair of partitions is joined in memory. Every master record carries its
+     * sequence number, so that output of all partitions can be merged back into master order.
+     */
+    private class SpilledHashJoinRecordCursor extends AbstractJoinCursor {
+        private final JoinRecord recordA;
+        private final ColumnTypes masterTypes;
+        private final ArrayColumnTypes masterPartitionTypes = new ArrayColumnTypes();
+        private final ArrayColumnTypes outputTypes = new ArrayColumnTypes();
+        private final RecordSink masterPartitionSink;
+        private final int masterSequenceIndex;
+        private final int outputSequenceIndex;
+        private final int outputMasterOffsetIndex;
+        private final RecordComparator sequenceComparator;
+        private final ObjList<SpillRecordChain> masterPartitions = new ObjList<>();
+        private final ObjList<SpillRecordChain> slavePartitions = new ObjList<>();
+        private final ObjList<SpillRecordChain> outputs = new ObjList<>();
+        private final LongList lastOffsets = new LongList();
+        private final SpillMerger merger = new SpillMerger();
+
+        public SpilledHashJoinRecordCursor(int columnSplit, RecordMetadata masterMetadata, RecordMetadata slaveMetadata) {
+            super(columnSplit);
+            this.recordA = new JoinRecord(columnSplit);
+            this.masterTypes = masterMetadata;
+            this.masterPartitionSink = new EntityRecordSink(masterMetadata);
+            for (int i = 0, n = masterMetadata.getColumnCount(); i < n; i++) {
+                masterPartitionTypes.add(masterMetadata.getColumnType(i));
+            }
+            this.masterSequenceIndex = masterPartitionTypes.getColumnCount();
+            masterPartitionTypes.add(ColumnType.LONG);
+
+            for (int i = 0, n = slaveMetadata.getColumnCount(); i < n; i++) {
+                outputTypes.add(slaveMetadata.getColumnType(i));
+            }
+            this.outputSequenceIndex = outputTypes.getColumnCount();
+            outputTypes.add(ColumnType.LONG);
+            this.outputMasterOffsetIndex = outputTypes.getColumnCount();
+            outputTypes.add(ColumnType.LONG);
+            this.sequenceComparator = new SequenceComparator(outputSequenceIndex);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            freeSpill();
+            reservation.clear();
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (merger.hasNext()) {
+                final SpillRecordChain masterPartition = masterPartitions.getQuick(merger.getCurrentIndex());
+                final Record output = merger.getRecord();
+                final Record masterRecord = masterPartition.getRecordB();
+                masterPartition.recordAt(masterRecord, output.getLong(outputMasterOffsetIndex));
+                recordA.of(masterRecord, output);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            merger.toTop();
+        }
+
+        private void freeSpill() {
+            merger.clear();
+            Misc.freeObjListAndClear(masterPartitions);
+            Misc.freeObjListAndClear(slavePartitions);
+            Misc.freeObjListAndClear(outputs);
+        }
+
+        private void joinPartition(int partitionIndex, SqlExecutionCircuitBreaker circuitBreaker) {
+            // partitions are expected to fit memory budget, skewed ones are joined over the budget
+            joinKeyMap.clear();
+            slaveChain.clear();
+            final SpillRecordChain slavePartition = slavePartitions.getQuick(partitionIndex);
+            final Record slaveRecord = slavePartition.getRecord();
+            slavePartition.toTop();
+            while (slavePartition.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                putSlaveRecord(joinKeyMap, slaveKeySink, slaveChain, slaveRecord);
+            }
+            slavePartition.close();
+
+            final SpillRecordChain output = new SpillRecordChain(configuration, outputTypes, slaveChainSink);
+            outputs.add(output);
+            output.setSymbolTableResolver(slaveCursor);
+            final SpillRecordChain masterPartition = masterPartitions.getQuick(partitionIndex);
+            final Record masterRecord = masterPartition.getRecord();
+            final Record chainRecord = slaveChain.getRecord();
+            long outputOffset = -1;
+            masterPartition.toTop();
+            while (masterPartition.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                MapKey key = joinKeyMap.withKey();
+                key.put(masterRecord, masterSink);
+                MapValue value = key.findValue();
+                if (value != null) {
+                    final long sequence = masterRecord.getLong(masterSequenceIndex);
+                    final long masterOffset = masterRecord.getRowId();
+                    slaveChain.of(value.getLong(0));
+                    while (slaveChain.hasNext()) {
+                        outputOffset = output.put(chainRecord, outputOffset);
+                        output.putLong(sequence);
+                        output.putLong(masterOffset);
+                    }
+                }
+            }
+        }
+
+        private void of(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            joinKeyMap.clear();
+            slaveChain.clear();
+            reservation.clear();
+            freeSpill();
+
+            final int partitionCount = configuration.getSqlSpillPartitionCount();
+            lastOffsets.setAll(partitionCount, -1);
+            for (int i = 0; i < partitionCount; i++) {
+                final SpillRecordChain partition = new SpillRecordChain(configuration, slaveFactory.getMetadata(), slaveChainSink);
+                slavePartitions.add(partition);
+                partition.setSymbolTableResolver(slaveCursor);
+            }
+            final Record slaveRecord = slaveCursor.getRecord();
+            slaveCursor.toTop();
+            while (slaveCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final int p = partitionOf(slaveRecord, slaveKeySink, partitionCount);
+                lastOffsets.setQuick(p, slavePartitions.getQuick(p).put(slaveRecord, lastOffsets.getQuick(p)));
+            }
+
+            lastOffsets.setAll(partitionCount, -1);
+            for (int i = 0; i < partitionCount; i++) {
+                final SpillRecordChain partition = new SpillRecordChain(configuration, masterPartitionTypes, masterPartitionSink);
+                masterPartitions.add(partition);
+                partition.setSymbolTableResolver(masterCursor);
+            }
+            final Record masterRecord = masterCursor.getRecord();
+            long sequence = 0;
+            while (masterCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final int p = partitionOf(masterRecord, masterSink, partitionCount);
+                final SpillRecordChain partition = masterPartitions.getQuick(p);
+                lastOffsets.setQuick(p, partition.put(masterRecord, lastOffsets.getQuick(p)));
+                // sequence column follows master columns
+                partition.putLong(sequence++);
+            }
+
+            for (int i = 0; i < partitionCount; i++) {
+                joinPartition(i, circuitBreaker);
+            }
+            joinKeyMap.clear();
+            slaveChain.clear();
+            merger.of(outputs, sequenceComparator);
+        }
+    }
 }
@@ -26,12 +26,15 @@ package io.questdb.griffin.engine.join;
 
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.std.DirectLongList;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Mutable;
 
 import java.io.Closeable;
 
 public class LongChain implements Closeable, Mutable {
+    // reference to the next entry followed by the value
+    public static final int ENTRY_SIZE = 16;
 
     private final MemoryARW valueChain;
     private final TreeCursor cursor;
@@ -56,6 +59,33 @@ public class LongChain implements Closeable, Mutable {
         return cursor;
     }
 
+    public long getMemUsed() {
+        return valueChain.getAppendOffset();
+    }
+
+    public long getValue(long offset) {
+        return valueChain.getLong(offset + 8);
+    }
+
+    /**
+     * Sorts values of the chain in ascending order. Chain entries stay linked as they are,
+     * values are moved between the entries.
+     *
+     * @param offset offset of the first entry of the chain
+     * @param values scratch list
+     */
+    public void sort(long offset, DirectLongList values) {
+        values.clear();
+        for (long o = offset; o != -1; o = valueChain.getLong(o)) {
+            values.add(valueChain.getLong(o + 8));
+        }
+        values.sortAsUnsigned();
+        long i = 0;
+        for (long o = offset; o != -1; o = valueChain.getLong(o)) {
+            valueChain.putLong(o + 8, values.get(i++));
+        }
+    }
+
     public long put(long value, long parentOffset) {
         final long appendOffset = valueChain.getAppendOffset();
         if (parentOffset != -1) {
@@ -47,6 +47,9 @@ public class AlterOperation extends AbstractOperation implements Mutable, QuietC
     public final static short RENAME_COLUMN = 10;
     public final static short SET_PARAM_MAX_UNCOMMITTED_ROWS = 11;
     public final static short SET_PARAM_COMMIT_LAG = 12;
+    public final static short SET_DEDUP_ENABLE = 13;
+    public final static short SET_DEDUP_DISABLE = 14;
+    public final static short ADD_LATEST_ROWS = 15;
 
     private final static Log LOG = LogFactory.getLog(AlterOperation.class);
 
@@ -56,6 +59,7 @@ public class AlterOperation extends AbstractOperation implements Mutable, QuietC
     // This is only used to serialize Partition name in form 2020-02-12 or 2020-02 or 2020
     // to exception message using TableUtils.setSinkForPartition
     private final ExceptionSinkAdapter exceptionSinkAdapter = new ExceptionSinkAdapter();
+    private final IntList dedupKeyColumns = new IntList();
     private short command;
     private CharSequenceList charSequenceList;
 
@@ -108,6 +112,15 @@ public class AlterOperation extends AbstractOperation implements Mutable, QuietC
                 case SET_PARAM_COMMIT_LAG:
                     applyParamCommitLag(tableWriter);
                     break;
+                case SET_DEDUP_ENABLE:
+                    applyDedupEnable(tableWriter);
+                    break;
+                case SET_DEDUP_DISABLE:
+                    tableWriter.disableDeduplication();
+                    break;
+                case ADD_LATEST_ROWS:
+                    applyAddLatestRows(tableWriter);
+                    break;
                 default:
                     LOG.error().$("Invalid alter table command [code=").$(command).$(" ,table=").$(tableName).I$();
                     throw SqlException.$(tableNamePosition, "Invalid alter table command [code=").put(command).put(']');
@@ -243,6 +256,16 @@ public class AlterOperation extends AbstractOperation implements Mutable, QuietC
         }
     }
 
+    private void applyAddLatestRows(TableWriter tableWriter) throws SqlException {
+        CharSequence columnName = charSequenceList.getStrA(0);
+        try {
+            tableWriter.addLatestRows(columnName);
+        } catch (CairoException e) {
+            throw SqlException.position(tableNamePosition).put(e.getFlyweightMessage())
+                    .put("[errno=").put(e.getErrno()).put(']');
+        }
+    }
+
     private void applyAttachPartition(TableWriter tableWriter) throws SqlException {
         for (int i = 0, n = longList.size(); i < n; i++) {
             long partitionTimestamp = longList.getQuick(i);
@@ -290,6 +313,24 @@ public class AlterOperation extends AbstractOperation implements Mutable, QuietC
         }
     }
 
+    private void applyDedupEnable(TableWriter tableWriter) throws SqlException {
+        dedupKeyColumns.clear();
+        final RecordMetadata metadata = tableWriter.getMetadata();
+        for (int i = 0, n = charSequenceList.size(); i < n; i++) {
+            CharSequence columnName = charSequenceList.getStrA(i);
+            int columnIndex = metadata.getColumnIndexQuiet(columnName);
+            if (columnIndex == -1) {
+                throw SqlException.invalidColumn(tableNamePosition, columnName);
+            }
+            dedupKeyColumns.add(columnIndex);
+        }
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex > -1 && dedupKeyColumns.indexOf(timestampIndex, 0, dedupKeyColumns.size()) < 0) {
+            throw SqlException.$(tableNamePosition, "deduplicate key list must include designated timestamp column");
+        }
+        tableWriter.enableDeduplicationWithUpsertKeys(dedupKeyColumns);
+    }
+
     private void applyDropColumn(TableWriter writer) throws SqlException {
         for (int i = 0, n = charSequenceList.size(); i < n; i++) {
             CharSequence columnName = charSequenceList.getStrA(i);
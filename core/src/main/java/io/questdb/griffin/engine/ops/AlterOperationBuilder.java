@@ -73,6 +73,15 @@ public class AlterOperationBuilder {
         return this;
     }
 
+    public AlterOperationBuilder ofAddLatestRows(int tableNamePosition, String tableName, int tableId, CharSequence columnName) {
+        this.command = ADD_LATEST_ROWS;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.tableId = tableId;
+        this.objCharList.add(columnName);
+        return this;
+    }
+
     public AlterOperationBuilder ofAttachPartition(int tableNamePosition, String tableName, int tableId) {
         this.command = ATTACH_PARTITION;
         this.tableNamePosition = tableNamePosition;
@@ -100,6 +109,28 @@ public class AlterOperationBuilder {
         return this;
     }
 
+    public AlterOperationBuilder ofDedupDisable(int tableNamePosition, String tableName, int tableId) {
+        this.command = SET_DEDUP_DISABLE;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.tableId = tableId;
+        return this;
+    }
+
+    public AlterOperationBuilder ofDedupEnable(int tableNamePosition, String tableName, int tableId) {
+        this.command = SET_DEDUP_ENABLE;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.tableId = tableId;
+        return this;
+    }
+
+    public AlterOperationBuilder ofDedupKey(CharSequence columnName) {
+        assert columnName != null && columnName.length() > 0;
+        this.objCharList.add(columnName);
+        return this;
+    }
+
     public AlterOperationBuilder ofDropColumn(CharSequence columnName) {
         assert columnName != null && columnName.length() > 0;
         this.objCharList.add(columnName);
@@ -0,0 +1,580 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.MemoryReservation;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * ORDER BY on a single integer or timestamp column of page frame cursor. Workers extract key of every
+ * row of the frame next to the row index and radix sort the frame, the query owner streams k-way merge
+ * of the sorted frames. Rows with equal keys come out last to first in the order of the base cursor, same as
+ * the tree based sort chains them: frames are sorted from the last row and merge breaks ties by the higher
+ * frame index.
+ * <p>
+ * With LIMIT workers keep only as many entries of the sorted frame as the limit needs, either the head or
+ * the tail of the frame. Rows of the frame come out of the global merge in the same order they have in
+ * the frame, so rows outside of the head (tail) of their frame cannot make it to the head (tail) of
+ * the result.
+ * <p>
+ * Merged entries and radix sort scratch of the workers are reserved against memory budget of the query
+ * before frames are dispatched. When they do not fit, the query is delegated to the fallback factory,
+ * which sorts through the record chain and spills to disk.
+ */
+public class AsyncSortedRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final PageFrameReducer REDUCER = AsyncSortedRecordCursorFactory::sort;
+    // base factory is owned by the fallback factory
+    private final RecordCursorFactory base;
+    private final RecordCursorFactory fallbackFactory;
+    private final SortAtom atom;
+    private final PageFrameSequence<SortAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncSortedRecordCursor cursor;
+    private final Function loFunction;
+    private final Function hiFunction;
+    private long skipFirst;
+    private long skipLast;
+
+    public AsyncSortedRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            int columnIndex,
+            boolean descending,
+            @Nullable Function loFunction,
+            @Nullable Function hiFunction,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
+            int workerCount,
+            @NotNull RecordCursorFactory fallbackFactory
+    ) {
+        super(metadata);
+        this.base = base;
+        this.fallbackFactory = fallbackFactory;
+        this.atom = new SortAtom(configuration, columnIndex, base.getMetadata().getColumnType(columnIndex), descending, workerCount);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.cursor = new AsyncSortedRecordCursor(configuration.getPageFrameReduceRowIdListCapacity());
+        this.loFunction = loFunction;
+        this.hiFunction = hiFunction;
+    }
+
+    public static boolean isSupportedKeyType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        initLimit(executionContext);
+        frameSequence.of(base, executionContext, collectSubSeq, atom, DataFrameCursorFactory.ORDER_ANY);
+        try {
+            if (cursor.of(frameSequence, executionContext, atom.limit, atom.keepTail, skipFirst, skipLast)) {
+                return cursor;
+            }
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+        // sorted frames do not fit memory budget of the query, nothing has been dispatched yet
+        cursor.close();
+        return fallbackFactory.getCursor(executionContext);
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return loFunction != null;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(fallbackFactory);
+        Misc.free(frameSequence);
+        cursor.free();
+        Misc.free(atom);
+    }
+
+    private void initLimit(SqlExecutionContext executionContext) throws SqlException {
+        // same reading of "limit lo, hi" as LimitedSizeSortedLightRecordCursorFactory has
+        atom.limit = -1;
+        atom.keepTail = false;
+        skipFirst = 0;
+        skipLast = 0;
+        if (loFunction == null) {
+            return;
+        }
+        loFunction.init(null, executionContext);
+        if (hiFunction != null) {
+            hiFunction.init(null, executionContext);
+        }
+
+        final long lo = loFunction.getLong(null);
+        if (hiFunction == null) {
+            if (lo < 0) {
+                // last N rows
+                atom.keepTail = true;
+                atom.limit = -lo;
+            } else {
+                // first N rows
+                atom.limit = lo;
+            }
+            return;
+        }
+
+        final long hi = hiFunction.getLong(null);
+        if (lo < 0) {
+            if (lo < hi) {
+                atom.keepTail = true;
+                atom.limit = -lo;
+                skipLast = Math.max(-hi, 0);
+            } else {
+                atom.limit = 0;
+            }
+        } else if (hi < 0) {
+            // from lo-th row up to hi-th row from the end, frames have to be kept whole
+            skipFirst = lo;
+            skipLast = -hi;
+        } else if (hi <= lo) {
+            atom.limit = 0;
+        } else {
+            atom.limit = hi;
+            skipFirst = lo;
+        }
+    }
+
+    private static void extractKeys(int columnType, long address, long entries, long count, long flip) {
+        // Keys become unsigned, radix sort orders them as such. Descending order flips all bits of the key.
+        // Column top reads as null, which is the lowest value of the type.
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                for (long r = 0; r < count; r++) {
+                    final long key = address != 0 ? Unsafe.getUnsafe().getByte(address + r) : 0;
+                    putEntry(entries, count, r, key ^ flip);
+                }
+                break;
+            case ColumnType.SHORT:
+                for (long r = 0; r < count; r++) {
+                    final long key = address != 0 ? Unsafe.getUnsafe().getShort(address + (r << 1)) : 0;
+                    putEntry(entries, count, r, key ^ flip);
+                }
+                break;
+            case ColumnType.CHAR:
+                for (long r = 0; r < count; r++) {
+                    final long key = address != 0 ? Unsafe.getUnsafe().getChar(address + (r << 1)) : 0;
+                    putEntry(entries, count, r, key ^ flip);
+                }
+                break;
+            case ColumnType.INT:
+                for (long r = 0; r < count; r++) {
+                    final long key = address != 0 ? Unsafe.getUnsafe().getInt(address + (r << 2)) : Numbers.INT_NaN;
+                    putEntry(entries, count, r, key ^ flip);
+                }
+                break;
+            default:
+                for (long r = 0; r < count; r++) {
+                    final long key = address != 0 ? Unsafe.getUnsafe().getLong(address + (r << 3)) : Numbers.LONG_NaN;
+                    putEntry(entries, count, r, key ^ flip);
+                }
+                break;
+        }
+    }
+
+    private static void putEntry(long entries, long count, long row, long key) {
+        // rows go in reverse order, stable sort then keeps rows with equal keys last to first
+        final long p = entries + ((count - row - 1) << 4);
+        Unsafe.getUnsafe().putLong(p, key);
+        Unsafe.getUnsafe().putLong(p + Long.BYTES, row);
+    }
+
+    private static void sort(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final long frameRowCount = task.getFrameRowCount();
+        final PageFrameSequence<SortAtom> frameSequence = task.getFrameSequence(SortAtom.class);
+        final SortAtom atom = frameSequence.getAtom();
+        final DirectLongList rows = task.getRows();
+
+        // rows of the frame are pairs of sort key and row index
+        rows.clear();
+        if (atom.limit == 0) {
+            return;
+        }
+        if (rows.getCapacity() < frameRowCount * 2) {
+            rows.setCapacity(frameRowCount * 2);
+        }
+        final long entries = rows.getAddress();
+        extractKeys(
+                atom.columnType,
+                frameSequence.getPageAddressCache().getPageAddress(task.getFrameIndex(), atom.columnIndex),
+                entries,
+                frameRowCount,
+                atom.descending ? Long.MAX_VALUE : Long.MIN_VALUE
+        );
+        rows.setPos(frameRowCount * 2);
+
+        if (frameRowCount > 1) {
+            final DirectLongList scratch = atom.acquireScratch(workerId);
+            try {
+                if (scratch.getCapacity() < frameRowCount * 2) {
+                    scratch.setCapacity(frameRowCount * 2);
+                }
+                Vect.radixSortLongIndexAscInPlace(entries, frameRowCount, scratch.getAddress());
+            } finally {
+                atom.releaseScratch(workerId);
+            }
+        }
+
+        if (atom.limit > -1 && atom.limit < frameRowCount) {
+            if (atom.keepTail) {
+                Vect.memmove(entries, entries + ((frameRowCount - atom.limit) << 4), atom.limit << 4);
+            }
+            rows.setPos(atom.limit * 2);
+        }
+    }
+
+    private static class SortAtom implements StatefulAtom, Closeable, Mutable {
+        private final int columnIndex;
+        private final int columnType;
+        private final boolean descending;
+        // radix sort scratch of the pool workers followed by the scratch of threads that are not
+        // part of the pool, such as the query owner thread, which share the last one under a lock
+        private final ObjList<DirectLongList> scratches = new ObjList<>();
+        private final AtomicIntegerArray sharedScratchLock = new AtomicIntegerArray(1);
+        private final int workerCount;
+        // number of entries to keep of every sorted frame, -1 keeps all of them
+        private long limit = -1;
+        private boolean keepTail;
+
+        private SortAtom(CairoConfiguration configuration, int columnIndex, int columnType, boolean descending, int workerCount) {
+            this.columnIndex = columnIndex;
+            this.columnType = columnType;
+            this.descending = descending;
+            this.workerCount = Math.max(0, workerCount);
+            try {
+                for (int i = 0; i <= this.workerCount; i++) {
+                    scratches.add(new DirectLongList(configuration.getPageFrameReduceRowIdListCapacity(), MemoryTag.NATIVE_LONG_LIST));
+                }
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void clear() {
+            for (int i = 0, n = scratches.size(); i < n; i++) {
+                scratches.getQuick(i).resetCapacity();
+            }
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjList(scratches);
+        }
+
+        private DirectLongList acquireScratch(int workerId) {
+            if (workerId > -1 && workerId < workerCount) {
+                return scratches.getQuick(workerId);
+            }
+            // query owner and threads that steal work from the queue
+            while (!sharedScratchLock.compareAndSet(0, 0, 1)) {
+                Os.pause();
+            }
+            return scratches.getQuick(workerCount);
+        }
+
+        private void releaseScratch(int workerId) {
+            if (workerId < 0 || workerId >= workerCount) {
+                sharedScratchLock.set(0, 0);
+            }
+        }
+    }
+
+    private static class AsyncSortedRecordCursor implements RecordCursor {
+        private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+        // sorted frames one after another, entry is a pair of sort key and row index
+        private final DirectLongList entries;
+        private final LongList chunkPositions = new LongList();
+        private final LongList chunkLimits = new LongList();
+        private final IntList chunkFrameIndexes = new IntList();
+        // binary heap of chunks ordered by key of their current entry
+        private final IntList heap = new IntList();
+        private final MemoryReservation reservation = new MemoryReservation();
+        private PageAddressCacheRecord recordB;
+        private PageFrameSequence<SortAtom> frameSequence;
+        private int heapSize;
+        // merged entries in [from, to) make up the result
+        private long from;
+        private long to;
+        private long remaining;
+
+        private AsyncSortedRecordCursor(long initialCapacity) {
+            this.entries = new DirectLongList(initialCapacity, MemoryTag.NATIVE_LONG_LIST);
+        }
+
+        @Override
+        public void close() {
+            if (frameSequence != null) {
+                if (frameSequence.getFrameCount() > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.getAtom().clear();
+                frameSequence.clear();
+                frameSequence = null;
+            }
+            entries.resetCapacity();
+            reservation.clear();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            recordB = new PageAddressCacheRecord(record);
+            return recordB;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            final int chunk = heap.getQuick(0);
+            final long position = chunkPositions.getQuick(chunk);
+            record.setFrameIndex(chunkFrameIndexes.getQuick(chunk));
+            record.setRowIndex(entries.get((position << 1) + 1));
+            advance(chunk, position);
+            return true;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+            ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return to - from;
+        }
+
+        @Override
+        public void toTop() {
+            // frames stay sorted, merge starts over
+            int chunk = 0;
+            for (int i = 0, n = chunkLimits.size(); i < n; i++) {
+                final long lo = i > 0 ? chunkLimits.getQuick(i - 1) : 0;
+                chunkPositions.setQuick(i, lo);
+                if (lo < chunkLimits.getQuick(i)) {
+                    heap.setQuick(chunk++, i);
+                }
+            }
+            heapSize = chunk;
+            for (int i = (heapSize >> 1) - 1; i > -1; i--) {
+                siftDown(i);
+            }
+            for (long i = 0; i < from; i++) {
+                final int top = heap.getQuick(0);
+                advance(top, chunkPositions.getQuick(top));
+            }
+            remaining = to - from;
+        }
+
+        private void advance(int chunk, long position) {
+            if (position + 1 < chunkLimits.getQuick(chunk)) {
+                chunkPositions.setQuick(chunk, position + 1);
+            } else {
+                heap.setQuick(0, heap.getQuick(--heapSize));
+            }
+            siftDown(0);
+        }
+
+        private void collect(SqlExecutionCircuitBreaker circuitBreaker, long rowCount) {
+            final int frameCount = frameSequence.getFrameCount();
+            if (entries.getCapacity() < rowCount * 2) {
+                entries.setCapacity(rowCount * 2);
+            }
+
+            // frames are sorted by workers, all we have to do here is to collect them
+            for (int i = 0; i < frameCount; ) {
+                final long cursor = frameSequence.next();
+                if (cursor > -1) {
+                    final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    final DirectLongList rows = task.getRows();
+                    if (rows.size() > 0) {
+                        entries.add(rows);
+                        chunkFrameIndexes.add(task.getFrameIndex());
+                        chunkLimits.add(entries.size() >> 1);
+                    }
+                    frameSequence.collect(cursor, false);
+                    i++;
+                } else {
+                    Os.pause();
+                }
+            }
+
+            if (!frameSequence.isActive()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                throw CairoException.instance(0).put("could not sort page frames");
+            }
+        }
+
+        private void free() {
+            Misc.free(entries);
+            Misc.free(record);
+            Misc.free(recordB);
+        }
+
+        private boolean less(int chunkA, int chunkB) {
+            final int cmp = Long.compareUnsigned(
+                    entries.get(chunkPositions.getQuick(chunkA) << 1),
+                    entries.get(chunkPositions.getQuick(chunkB) << 1)
+            );
+            // frames may be collected out of order, ties go to the higher frame index
+            return cmp < 0 || (cmp == 0 && chunkFrameIndexes.getQuick(chunkA) > chunkFrameIndexes.getQuick(chunkB));
+        }
+
+        /**
+         * @return false when sorted frames do not fit memory budget of the query, frames are not dispatched then
+         */
+        private boolean of(
+                PageFrameSequence<SortAtom> frameSequence,
+                SqlExecutionContext executionContext,
+                long limit,
+                boolean keepTail,
+                long skipFirst,
+                long skipLast
+        ) {
+            this.frameSequence = frameSequence;
+            record.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            if (recordB != null) {
+                recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            }
+            entries.clear();
+            chunkLimits.clear();
+            chunkFrameIndexes.clear();
+
+            final int frameCount = frameSequence.getFrameCount();
+            long rowCount = 0;
+            long maxFrameRowCount = 0;
+            for (int i = 0; i < frameCount; i++) {
+                final long frameRowCount = frameSequence.getFrameRowCount(i);
+                rowCount += limit > -1 ? Math.min(frameRowCount, limit) : frameRowCount;
+                maxFrameRowCount = Math.max(maxFrameRowCount, frameRowCount);
+            }
+            // entry is a pair of longs, every worker that sorts a frame needs scratch of the frame size
+            final long scratchCount = limit != 0 ? Math.min(frameCount, frameSequence.getAtom().workerCount + 1) : 0;
+            reservation.of(executionContext.getArena());
+            if (!reservation.tryGrow((rowCount + scratchCount * maxFrameRowCount) << 4)) {
+                return false;
+            }
+
+            if (frameCount > 0) {
+                collect(executionContext.getCircuitBreaker(), rowCount);
+            }
+
+            final long entryCount = entries.size() >> 1;
+            if (keepTail) {
+                from = Math.max(entryCount - limit, 0);
+                to = Math.max(entryCount - skipLast, from);
+            } else {
+                from = Math.min(skipFirst, entryCount);
+                to = Math.max(Math.min(entryCount - skipLast, limit > -1 ? limit : Long.MAX_VALUE), from);
+            }
+            chunkPositions.setAll(chunkLimits.size(), 0);
+            heap.setAll(chunkLimits.size(), 0);
+            toTop();
+            return true;
+        }
+
+        private void siftDown(int index) {
+            final int chunk = heap.getQuick(index);
+            while (true) {
+                int child = (index << 1) + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                int candidate = heap.getQuick(child);
+                if (child + 1 < heapSize && less(heap.getQuick(child + 1), candidate)) {
+                    candidate = heap.getQuick(++child);
+                }
+                if (!less(candidate, chunk)) {
+                    break;
+                }
+                heap.setQuick(index, candidate);
+                index = child;
+            }
+            heap.setQuick(index, chunk);
+        }
+    }
+}
@@ -162,6 +162,13 @@ public class RecordTreeChain implements Closeable, Mutable {
         return cursor;
     }
 
+    /**
+     * @return bytes of memory taken by the tree and records it references
+     */
+    public long getMemUsed() {
+        return mem.size() + recordChain.getMemUsed();
+    }
+
     public void put(Record record) {
         if (root == -1) {
             putParent(record);
@@ -24,27 +24,62 @@
 
 package io.questdb.griffin.engine.orderby;
 
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SpillRecordChain;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.MemoryReservation;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.griffin.engine.SpillMerger;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
 
+/**
+ * Sorts base cursor in memory using red-black tree. When the tree outgrows memory budget of the
+ * query, it is written to disk as a sorted run and emptied. Runs are then merged into a single
+ * file, which the cursor iterates instead of the tree (external merge sort).
+ */
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
+    private final CairoConfiguration configuration;
+    private final ColumnTypes columnTypes;
+    private final RecordSink recordSink;
+    private final RecordComparator comparator;
+    private final MemoryReservation reservation = new MemoryReservation();
+    private final ObjList<SpillRecordChain> runs = new ObjList<>();
+    private final SpillMerger merger = new SpillMerger();
     private RecordTreeChain.TreeCursor chainCursor;
+    // sorted output, when the sort has spilled
+    private SpillRecordChain sorted;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(
+            CairoConfiguration configuration,
+            RecordTreeChain chain,
+            ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator
+    ) {
+        this.configuration = configuration;
         this.chain = chain;
+        this.columnTypes = columnTypes;
+        this.recordSink = recordSink;
+        this.comparator = comparator;
     }
 
     @Override
     public void close() {
         chainCursor.close();
         chain.clear();
+        freeSpill();
+        reservation.clear();
     }
 
     @Override
     public Record getRecord() {
-        return chainCursor.getRecord();
+        return sorted == null ? chainCursor.getRecord() : sorted.getRecord();
     }
 
     @Override
@@ -59,22 +94,30 @@ class SortedRecordCursor implements DelegatingRecordCursor {
 
     @Override
     public boolean hasNext() {
-        return chainCursor.hasNext();
+        return sorted == null ? chainCursor.hasNext() : sorted.hasNext();
     }
 
     @Override
     public Record getRecordB() {
-        return chainCursor.getRecordB();
+        return sorted == null ? chainCursor.getRecordB() : sorted.getRecordB();
     }
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        chainCursor.recordAt(record, atRowId);
+        if (sorted == null) {
+            chainCursor.recordAt(record, atRowId);
+        } else {
+            sorted.recordAt(record, atRowId);
+        }
     }
 
     @Override
     public void toTop() {
-        chainCursor.toTop();
+        if (sorted == null) {
+            chainCursor.toTop();
+        } else {
+            sorted.toTop();
+        }
     }
 
     @Override
@@ -90,6 +133,8 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
 
             chain.clear();
+            freeSpill();
+            reservation.of(executionContext.getArena());
             while (base.hasNext()) {
                 circuitBreaker.statefulThrowExceptionIfTripped();
                 // Tree chain is liable to re-position record to
@@ -97,11 +142,61 @@ class SortedRecordCursor implements DelegatingRecordCursor {
                 // own record instance in case base cursor keeps
                 // state in the record it returns.
                 chain.put(record);
+                if (!reservation.tryGrow(chain.getMemUsed())) {
+                    if (!configuration.isSqlSpillEnabled()) {
+                        throw reservation.limitExceeded(chain.getMemUsed());
+                    }
+                    spillRun(base);
+                }
+            }
+
+            if (runs.size() > 0) {
+                if (chain.getMemUsed() > 0) {
+                    spillRun(base);
+                }
+                mergeRuns(base, circuitBreaker);
+            } else {
+                chainCursor.toTop();
             }
-            chainCursor.toTop();
         } catch (Throwable ex) {
+            freeSpill();
+            reservation.clear();
             base.close();
             throw ex;
         }
     }
+
+    private void freeSpill() {
+        merger.clear();
+        Misc.freeObjListAndClear(runs);
+        sorted = Misc.free(sorted);
+    }
+
+    private void mergeRuns(RecordCursor base, SqlExecutionCircuitBreaker circuitBreaker) {
+        sorted = new SpillRecordChain(configuration, columnTypes, recordSink);
+        sorted.setSymbolTableResolver(base);
+        merger.of(runs, comparator);
+        long offset = -1;
+        while (merger.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            offset = sorted.put(merger.getRecord(), offset);
+        }
+        merger.clear();
+        Misc.freeObjListAndClear(runs);
+        sorted.toTop();
+    }
+
+    private void spillRun(RecordCursor base) {
+        final SpillRecordChain run = new SpillRecordChain(configuration, columnTypes, recordSink);
+        runs.add(run);
+        run.setSymbolTableResolver(base);
+        chainCursor.toTop();
+        final Record record = chainCursor.getRecord();
+        long offset = -1;
+        while (chainCursor.hasNext()) {
+            offset = run.put(record, offset);
+        }
+        chain.clear();
+        reservation.clear();
+    }
 }
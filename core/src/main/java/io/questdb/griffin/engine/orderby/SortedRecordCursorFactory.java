@@ -57,7 +57,7 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValueMaxPages()
         );
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.cursor = new SortedRecordCursor(configuration, chain, metadata, recordSink, comparator);
     }
 
     @Override
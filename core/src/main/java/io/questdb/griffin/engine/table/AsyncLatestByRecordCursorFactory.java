@@ -0,0 +1,392 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * LATEST BY over page frames of the base factory, newest frame first. Workers scan their frames backwards
+ * and find the latest row of every key within the frame, the query owner merges frames newest first and
+ * keeps the first row of every key. When all keys are symbols, the number of distinct keys is bounded by
+ * symbol tables and the query owner stops as soon as it has found every possible key.
+ */
+public class AsyncLatestByRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final PageFrameReducer REDUCER = AsyncLatestByRecordCursorFactory::findLatest;
+    private final RecordCursorFactory base;
+    private final LatestByAtom atom;
+    private final PageFrameSequence<LatestByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final AsyncLatestByRecordCursor cursor;
+
+    /**
+     * @param base              factory of backward page frames
+     * @param symbolKeyColumns  indexes of key columns when all of them are symbols with static symbol tables, null otherwise
+     */
+    public AsyncLatestByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            RecordSink recordSink,
+            @Transient ColumnTypes keyTypes,
+            @Nullable IntList symbolKeyColumns,
+            int workerCount,
+            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+    ) {
+        super(metadata);
+        this.base = base;
+        final ObjList<Map> maps = new ObjList<>(workerCount + 1);
+        final Map mergeMap;
+        try {
+            for (int i = 0; i <= workerCount; i++) {
+                maps.add(MapFactory.createMap(configuration, keyTypes));
+            }
+            mergeMap = MapFactory.createMap(configuration, keyTypes);
+        } catch (Throwable e) {
+            Misc.freeObjList(maps);
+            throw e;
+        }
+        this.atom = new LatestByAtom(recordSink, maps, workerCount);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.cursor = new AsyncLatestByRecordCursor(configuration.getSqlLatestByRowCount(), recordSink, mergeMap, symbolKeyColumns);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        frameSequence.of(base, executionContext, collectSubSeq, atom, DataFrameCursorFactory.ORDER_DESC);
+        try {
+            cursor.of(frameSequence, executionContext.getCircuitBreaker());
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(frameSequence);
+        Misc.freeObjList(atom.maps);
+        cursor.free();
+    }
+
+    private static void findLatest(int workerId, PageAddressCacheRecord record, PageFrameReduceTask task) {
+        final PageFrameSequence<LatestByAtom> frameSequence = task.getFrameSequence(LatestByAtom.class);
+        final LatestByAtom atom = frameSequence.getAtom();
+        final DirectLongList rows = task.getRows();
+        rows.clear();
+
+        final Map map = atom.acquireMap(workerId);
+        record.setFrameIndex(task.getFrameIndex());
+        try {
+            for (long r = task.getFrameRowCount() - 1; r > -1; r--) {
+                record.setRowIndex(r);
+                final MapKey key = map.withKey();
+                key.put(record, atom.recordSink);
+                if (key.create()) {
+                    rows.add(r);
+                }
+            }
+        } finally {
+            map.clear();
+            atom.releaseMap(workerId);
+        }
+    }
+
+    private static class LatestByAtom implements StatefulAtom {
+        private final RecordSink recordSink;
+        // map of threads that are not part of the pool, such as the query owner thread, comes first,
+        // these threads share it under a lock; it is followed by maps of the pool workers
+        private final ObjList<Map> maps;
+        private final AtomicIntegerArray sharedMapLock = new AtomicIntegerArray(1);
+        private final int workerCount;
+
+        private LatestByAtom(RecordSink recordSink, ObjList<Map> maps, int workerCount) {
+            this.recordSink = recordSink;
+            this.maps = maps;
+            this.workerCount = workerCount;
+        }
+
+        private Map acquireMap(int workerId) {
+            if (workerId > -1 && workerId < workerCount) {
+                return maps.getQuick(workerId + 1);
+            }
+            // query owner and threads that steal work from the queue
+            while (!sharedMapLock.compareAndSet(0, 0, 1)) {
+                Os.pause();
+            }
+            return maps.getQuick(0);
+        }
+
+        private void releaseMap(int workerId) {
+            if (workerId < 0 || workerId >= workerCount) {
+                sharedMapLock.set(0, 0);
+            }
+        }
+    }
+
+    private static class AsyncLatestByRecordCursor implements RecordCursor {
+        private final PageAddressCacheRecord record = new PageAddressCacheRecord();
+        private final RecordSink recordSink;
+        private final Map mergeMap;
+        // row ids of latest rows, ascending
+        private final DirectLongList rows;
+        // rows of frames collected ahead of their turn to be merged
+        private final DirectLongList pendingRows;
+        private final LongList pendingOffsets = new LongList();
+        private final LongList pendingSizes = new LongList();
+        private final IntList symbolKeyColumns;
+        private PageAddressCacheRecord recordB;
+        private PageFrameSequence<?> frameSequence;
+        private int nextFrameIndex;
+        private long index;
+
+        private AsyncLatestByRecordCursor(long initialCapacity, RecordSink recordSink, Map mergeMap, @Nullable IntList symbolKeyColumns) {
+            this.recordSink = recordSink;
+            this.mergeMap = mergeMap;
+            this.symbolKeyColumns = symbolKeyColumns;
+            this.rows = new DirectLongList(initialCapacity, MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+            this.pendingRows = new DirectLongList(initialCapacity, MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+        }
+
+        @Override
+        public void close() {
+            if (frameSequence != null) {
+                if (frameSequence.getFrameCount() > 0) {
+                    frameSequence.await();
+                }
+                frameSequence.clear();
+                frameSequence = null;
+            }
+            mergeMap.clear();
+            rows.resetCapacity();
+            pendingRows.resetCapacity();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            recordB = new PageAddressCacheRecord(record);
+            return recordB;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < rows.size()) {
+                final long rowId = rows.get(index++);
+                record.setFrameIndex(Rows.toPartitionIndex(rowId));
+                record.setRowIndex(Rows.toLocalRowID(rowId));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((PageAddressCacheRecord) record).setFrameIndex(Rows.toPartitionIndex(atRowId));
+            ((PageAddressCacheRecord) record).setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return rows.size();
+        }
+
+        @Override
+        public void toTop() {
+            index = 0;
+        }
+
+        private void collect(SqlExecutionCircuitBreaker circuitBreaker, long keyCountLimit) {
+            final int frameCount = frameSequence.getFrameCount();
+            pendingOffsets.setAll(frameCount, -1);
+            pendingSizes.setAll(frameCount, 0);
+            for (int i = 0; i < frameCount; ) {
+                final long cursor = frameSequence.next();
+                if (cursor > -1) {
+                    final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    final int frameIndex = task.getFrameIndex();
+                    final DirectLongList frameRows = task.getRows();
+                    if (frameIndex == nextFrameIndex) {
+                        merge(frameIndex, frameRows, 0, frameRows.size());
+                        nextFrameIndex++;
+                    } else {
+                        pendingOffsets.setQuick(frameIndex, pendingRows.size());
+                        pendingSizes.setQuick(frameIndex, frameRows.size());
+                        pendingRows.add(frameRows);
+                    }
+                    frameSequence.collect(cursor, false);
+                    i++;
+
+                    // frames that are newer than the pending ones have been merged
+                    while (nextFrameIndex < frameCount && pendingOffsets.getQuick(nextFrameIndex) > -1) {
+                        final long offset = pendingOffsets.getQuick(nextFrameIndex);
+                        merge(nextFrameIndex, pendingRows, offset, offset + pendingSizes.getQuick(nextFrameIndex));
+                        nextFrameIndex++;
+                    }
+
+                    if (keyCountLimit > -1 && mergeMap.size() >= keyCountLimit) {
+                        // older frames cannot have new keys, close() collects what is left of the sequence
+                        frameSequence.cancel();
+                        return;
+                    }
+                } else {
+                    Os.pause();
+                }
+            }
+
+            if (!frameSequence.isActive()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                throw CairoException.instance(0).put("could not find latest rows of page frames");
+            }
+        }
+
+        /**
+         * @return number of distinct keys there can be when all keys are symbols or -1 when it is not known
+         */
+        private long keyCountLimit() {
+            if (symbolKeyColumns == null) {
+                return -1;
+            }
+            final SymbolTableSource symbolTableSource = frameSequence.getSymbolTableSource();
+            final PageAddressCache pageAddressCache = frameSequence.getPageAddressCache();
+            long limit = 1;
+            for (int i = 0, n = symbolKeyColumns.size(); i < n; i++) {
+                final int columnIndex = symbolKeyColumns.getQuick(i);
+                final SymbolTable symbolTable = symbolTableSource.getSymbolTable(columnIndex);
+                if (!(symbolTable instanceof StaticSymbolTable)) {
+                    return -1;
+                }
+                int keyCount = ((StaticSymbolTable) symbolTable).getSymbolCount();
+                // column top reads as null too
+                boolean hasNull = ((StaticSymbolTable) symbolTable).containsNullValue();
+                for (int f = 0, m = frameSequence.getFrameCount(); f < m && !hasNull; f++) {
+                    hasNull = pageAddressCache.getPageAddress(f, columnIndex) == 0;
+                }
+                if (hasNull) {
+                    keyCount++;
+                }
+                limit *= keyCount;
+                if (limit > Integer.MAX_VALUE) {
+                    // map runs out of memory long before all the keys are found
+                    return -1;
+                }
+            }
+            return limit;
+        }
+
+        private void free() {
+            Misc.free(mergeMap);
+            Misc.free(rows);
+            Misc.free(pendingRows);
+            Misc.free(record);
+            Misc.free(recordB);
+        }
+
+        private void merge(int frameIndex, DirectLongList frameRows, long lo, long hi) {
+            // rows of the frame are newest first
+            record.setFrameIndex(frameIndex);
+            final int order = frameSequence.getFrameCount() - frameIndex - 1;
+            for (long i = lo; i < hi; i++) {
+                final long row = frameRows.get(i);
+                record.setRowIndex(row);
+                final MapKey key = mergeMap.withKey();
+                key.put(record, recordSink);
+                if (key.create()) {
+                    // frames go newest first, order of the frame makes row ids ascending in time
+                    rows.add(Rows.toRowID(order, row));
+                }
+            }
+        }
+
+        private void of(PageFrameSequence<?> frameSequence, SqlExecutionCircuitBreaker circuitBreaker) {
+            this.frameSequence = frameSequence;
+            record.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            if (recordB != null) {
+                recordB.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+            }
+            rows.clear();
+            pendingRows.clear();
+            mergeMap.clear();
+            nextFrameIndex = 0;
+            final int frameCount = frameSequence.getFrameCount();
+            if (frameCount > 0) {
+                collect(circuitBreaker, keyCountLimit());
+            }
+            mergeMap.clear();
+
+            rows.sortAsUnsigned();
+            for (long i = 0, n = rows.size(); i < n; i++) {
+                final long rowId = rows.get(i);
+                rows.set(i, Rows.toRowID(frameCount - Rows.toPartitionIndex(rowId) - 1, Rows.toLocalRowID(rowId)));
+            }
+            toTop();
+        }
+    }
+}
@@ -81,6 +81,11 @@ class FilteredRecordCursor implements RecordCursor {
         return base.getRecordB();
     }
 
+    @Override
+    public boolean isUsingIndex() {
+        return base.isUsingIndex();
+    }
+
     @Override
     public void recordAt(Record record, long atRowId) {
         base.recordAt(record, atRowId);
@@ -29,7 +29,9 @@ import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.vm.api.MemoryR;
+import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.functions.geohash.GeoHashNative;
 import io.questdb.mp.RingQueue;
@@ -37,6 +39,7 @@ import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.std.DirectLongList;
 import io.questdb.std.IntList;
+import io.questdb.std.NativeArena;
 import io.questdb.std.Rows;
 import io.questdb.std.Vect;
 import io.questdb.tasks.LatestByTask;
@@ -49,6 +52,7 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
     protected long indexShift = 0;
     protected long aIndex;
     protected long aLimit;
+    private NativeArena arena;
 
     public LatestByAllIndexedRecordCursor(
             int columnIndex,
@@ -61,6 +65,12 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
         this.prefixes = prefixes;
     }
 
+    @Override
+    public void close() {
+        releaseArena();
+        super.close();
+    }
+
     @Override
     public boolean hasNext() {
         if (aIndex < aLimit) {
@@ -71,6 +81,17 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
         return false;
     }
 
+    @Override
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) throws SqlException {
+        try {
+            super.of(dataFrameCursor, executionContext);
+        } catch (Throwable e) {
+            // factory does not close the cursor when it fails to open
+            releaseArena();
+            throw e;
+        }
+    }
+
     @Override
     public void toTop() {
         aIndex = indexShift;
@@ -98,7 +119,11 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
         final long chunkSize = (keyCount + workerCount - 1) / workerCount;
         final int taskCount = (int) ((keyCount + chunkSize - 1) / chunkSize);
 
-        final long argumentsAddress = LatestByArguments.allocateMemoryArray(taskCount);
+        // task arguments live in the query arena, they are freed when cursor closes
+        releaseArena();
+        arena = executionContext.getArena();
+        arena.acquire();
+        final long argumentsAddress = LatestByArguments.allocateMemoryArray(arena, taskCount);
         for (long i = 0; i < taskCount; ++i) {
             final long klo = i * chunkSize;
             final long khi = Long.min(klo + chunkSize, keyCount);
@@ -234,7 +259,6 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
             }
         }
         final long rowCount = GeoHashNative.slideFoundBlocks(argumentsAddress, taskCount);
-        LatestByArguments.releaseMemoryArray(argumentsAddress, taskCount);
         aLimit = rowCount;
         aIndex = indexShift;
         postProcessRows();
@@ -244,6 +268,13 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
         return 1 << ColumnType.pow2SizeOfBits(ColumnType.getGeoHashBits(type));
     }
 
+    private void releaseArena() {
+        if (arena != null) {
+            arena.release();
+            arena = null;
+        }
+    }
+
     protected void postProcessRows() {
         Vect.sortULongAscInPlace(rows.getAddress(), aLimit);
     }
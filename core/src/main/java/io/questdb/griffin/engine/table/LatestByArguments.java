@@ -25,6 +25,7 @@
 package io.questdb.griffin.engine.table;
 
 import io.questdb.std.MemoryTag;
+import io.questdb.std.NativeArena;
 import io.questdb.std.Unsafe;
 
 public final class LatestByArguments {
@@ -45,6 +46,10 @@ public final class LatestByArguments {
         return Unsafe.calloc(MEMORY_SIZE * elements, MemoryTag.NATIVE_DEFAULT);
     }
 
+    public static long allocateMemoryArray(NativeArena arena, int elements) {
+        return arena.allocateZeroed(MEMORY_SIZE * elements);
+    }
+
     public static long getFilteredSize(long address) {
         return Unsafe.getUnsafe().getLong(address + FILTERED_SIZE_OFFSET);
     }
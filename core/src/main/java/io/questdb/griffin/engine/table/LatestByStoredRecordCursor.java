@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.LatestRowsReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rows;
+import org.jetbrains.annotations.NotNull;
+
+class LatestByStoredRecordCursor extends AbstractRecordListCursor {
+    private final LatestRowsReader latestRowsReader;
+
+    public LatestByStoredRecordCursor(
+            @NotNull DirectLongList rows,
+            @NotNull IntList columnIndexes,
+            @NotNull LatestRowsReader latestRowsReader
+    ) {
+        super(rows, columnIndexes);
+        this.latestRowsReader = latestRowsReader;
+    }
+
+    @Override
+    protected void buildTreeMap(SqlExecutionContext executionContext) {
+        final TableReader reader = dataFrameCursor.getTableReader();
+        for (long slot = 0, n = latestRowsReader.getKeyCount(); slot < n; slot++) {
+            final long partitionTimestamp = latestRowsReader.getPartitionTimestamp(slot);
+            if (partitionTimestamp == Numbers.LONG_NaN) {
+                // key has no rows
+                continue;
+            }
+            final long row = latestRowsReader.getRow(slot);
+            // latest rows are of the same txn as the reader, their partitions are attached
+            final int partitionIndex = reader.getPartitionIndexByTimestamp(partitionTimestamp);
+            if (partitionIndex < 0
+                    || reader.getPartitionTimestampByIndex(partitionIndex) != partitionTimestamp
+                    || row >= reader.openPartition(partitionIndex)) {
+                throw CairoException.instance(0).put("latest row is out of table bounds [table=").put(reader.getTableName())
+                        .put(", partitionTimestamp=").put(partitionTimestamp)
+                        .put(", row=").put(row)
+                        .put(']');
+            }
+            rows.add(Rows.toRowID(partitionIndex, row));
+        }
+        rows.sortAsUnsigned();
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.LatestRowsReader;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * LATEST BY a symbol column, which has latest rows maintained by table writer. Rows are read from the latest
+ * rows file, the table is not scanned. When the file is not consistent with the table reader, e.g. the writer
+ * has committed but has not updated the file yet, the query is delegated to the factory that scans the table.
+ */
+public class LatestByStoredRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
+    private final RecordCursorFactory fallbackFactory;
+    private final LatestRowsReader latestRowsReader = new LatestRowsReader();
+    private final DirectLongList rows;
+    private final LatestByStoredRecordCursor cursor;
+    private final int latestByIndex;
+
+    public LatestByStoredRecordCursorFactory(
+            @NotNull RecordMetadata metadata,
+            @NotNull CairoConfiguration configuration,
+            @NotNull DataFrameCursorFactory dataFrameCursorFactory,
+            int columnIndex,
+            @NotNull IntList columnIndexes,
+            @NotNull RecordCursorFactory fallbackFactory
+    ) {
+        super(metadata, dataFrameCursorFactory);
+        this.fallbackFactory = fallbackFactory;
+        this.rows = new DirectLongList(configuration.getSqlLatestByRowCount(), MemoryTag.NATIVE_LATEST_BY_LONG_LIST);
+        this.latestByIndex = columnIndexes.getQuick(columnIndex);
+        this.cursor = new LatestByStoredRecordCursor(rows, columnIndexes, latestRowsReader);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(rows);
+        Misc.free(latestRowsReader);
+        Misc.free(fallbackFactory);
+    }
+
+    @Override
+    protected RecordCursor getCursorInstance(
+            DataFrameCursor dataFrameCursor,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        if (dataFrameCursor.getTableReader().readLatestRows(latestByIndex, latestRowsReader)) {
+            cursor.of(dataFrameCursor, executionContext);
+            return cursor;
+        }
+        dataFrameCursor.close();
+        return fallbackFactory.getCursor(executionContext);
+    }
+}
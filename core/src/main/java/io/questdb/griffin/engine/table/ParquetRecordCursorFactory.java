@@ -0,0 +1,173 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cutlass.parquet.ParquetPageFrameCursor;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scans Parquet file, previously exported by QuestDB, as a sequence of page frames.
+ * Page frame support makes the scan eligible for parallel and JIT-compiled filters
+ * and for vectorized aggregation.
+ */
+public class ParquetRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final ParquetPageFrameCursor pageFrameCursor;
+    private final ParquetRecordCursor cursor;
+    private final Path path;
+    private final LongList intervals;
+
+    public ParquetRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            CharSequence path,
+            @Nullable LongList intervals
+    ) {
+        super(metadata);
+        this.path = new Path().of(path).$();
+        this.intervals = intervals;
+        this.pageFrameCursor = new ParquetPageFrameCursor(configuration.getFilesFacade(), configuration.getSqlPageFrameMaxRows());
+        this.cursor = new ParquetRecordCursor(new PageAddressCache(configuration));
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.of(getPageFrameCursor(executionContext, DataFrameCursorFactory.ORDER_ASC), getMetadata());
+        return cursor;
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext, int order) {
+        return pageFrameCursor.of(path, intervals);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return true;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"ParquetRecordCursorFactory\", \"path\":\"").put(path).put("\"}");
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(cursor);
+        Misc.free(pageFrameCursor);
+        Misc.free(path);
+    }
+
+    private static class ParquetRecordCursor implements RecordCursor {
+        private final PageAddressCache pageAddressCache;
+        private final PageAddressCacheRecord recordA = new PageAddressCacheRecord();
+        private final PageAddressCacheRecord recordB = new PageAddressCacheRecord();
+        private PageFrameCursor pageFrameCursor;
+        private int frameIndex;
+        private long frameRowIndex;
+        private long frameRowCount;
+
+        private ParquetRecordCursor(PageAddressCache pageAddressCache) {
+            this.pageAddressCache = pageAddressCache;
+        }
+
+        @Override
+        public void close() {
+            pageAddressCache.clear();
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (frameRowIndex >= frameRowCount) {
+                final PageFrame frame = pageFrameCursor.next();
+                if (frame == null) {
+                    return false;
+                }
+                frameIndex++;
+                pageAddressCache.add(frameIndex, frame);
+                frameRowIndex = 0;
+                frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+                recordA.setFrameIndex(frameIndex);
+            }
+            recordA.setRowIndex(frameRowIndex++);
+            return true;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            final PageAddressCacheRecord pageAddressCacheRecord = (PageAddressCacheRecord) record;
+            pageAddressCacheRecord.setFrameIndex(Rows.toPartitionIndex(atRowId));
+            pageAddressCacheRecord.setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            return pageFrameCursor.size();
+        }
+
+        @Override
+        public void toTop() {
+            pageFrameCursor.toTop();
+            frameIndex = -1;
+            frameRowIndex = 0;
+            frameRowCount = 0;
+        }
+
+        private void of(PageFrameCursor pageFrameCursor, RecordMetadata metadata) {
+            this.pageFrameCursor = pageFrameCursor;
+            pageAddressCache.clear();
+            pageAddressCache.of(metadata);
+            recordA.of(pageFrameCursor, pageAddressCache);
+            recordB.of(pageFrameCursor, pageAddressCache);
+            toTop();
+        }
+    }
+}
@@ -48,6 +48,10 @@ public class SelectedRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.followedOrderByAdvice();
     }
 
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
     @Override
     protected void _close() {
         base.close();
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.SortedIndexReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.RowCursorFactory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.LongList;
+
+/**
+ * Finds rows of a data frame using sorted index of a non-symbol column. Index produces candidate
+ * rows, which are a superset of the rows that match the predicate, and filter is expected to be applied
+ * on top of this cursor. Data frames of partitions that have not been indexed and rows written after the
+ * index was built are scanned in full.
+ */
+public class SortedIndexRowCursorFactory implements RowCursorFactory {
+    // index lookup is abandoned when it matches more than quarter of the frame
+    private static final int MAX_MATCH_SHR = 2;
+    private final int columnIndex;
+    // ascending, non-overlapping inclusive key ranges, lo and hi pairs
+    private final LongList keyRanges;
+    private final boolean pointLookup;
+    private final LongList entries = new LongList();
+    private final SortedIndexRowCursor cursor = new SortedIndexRowCursor();
+    private TableReader tableReader;
+
+    public SortedIndexRowCursorFactory(int columnIndex, LongList keyRanges) {
+        this.columnIndex = columnIndex;
+        this.keyRanges = keyRanges;
+        this.pointLookup = keyRanges.size() == 2 && keyRanges.getQuick(0) == keyRanges.getQuick(1);
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        final long rowLo = dataFrame.getRowLo();
+        final long rowHi = dataFrame.getRowHi();
+        final SortedIndexReader indexReader = tableReader.getSortedIndexReader(dataFrame.getPartitionIndex(), columnIndex);
+        if (indexReader == null) {
+            return cursor.scan(rowLo, rowHi);
+        }
+        final long indexedHi = Math.min(indexReader.getRowCount(), rowHi);
+        if (indexedHi <= rowLo) {
+            return cursor.scan(rowLo, rowHi);
+        }
+
+        entries.clear();
+        long matchCount = 0;
+        for (int i = 0, n = keyRanges.size(); i < n; i += 2) {
+            final long lo = indexReader.lowerBound(keyRanges.getQuick(i));
+            final long keyHi = keyRanges.getQuick(i + 1);
+            final long hi = keyHi == Long.MAX_VALUE ? indexReader.getEntryCount() : indexReader.lowerBound(keyHi + 1);
+            if (lo < hi) {
+                entries.add(lo, hi);
+                matchCount += hi - lo;
+            }
+        }
+
+        if (matchCount > (rowHi - rowLo) >> MAX_MATCH_SHR) {
+            return cursor.scan(rowLo, rowHi);
+        }
+
+        final LongList rows = cursor.rows;
+        rows.clear();
+        for (int i = 0, n = entries.size(); i < n; i += 2) {
+            for (long e = entries.getQuick(i), hi = entries.getQuick(i + 1); e < hi; e++) {
+                final long row = indexReader.getRowId(e);
+                if (row >= rowLo && row < indexedHi) {
+                    rows.add(row);
+                }
+            }
+        }
+        // row ids of the same key are ascending
+        if (!pointLookup) {
+            rows.sort();
+        }
+        return cursor.of(indexedHi, rowHi);
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+
+    @Override
+    public boolean isUsingIndex() {
+        return true;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) {
+        this.tableReader = tableReader;
+    }
+
+    private static class SortedIndexRowCursor implements RowCursor {
+        private final LongList rows = new LongList();
+        private int index;
+        private long current;
+        private long hi;
+
+        @Override
+        public boolean hasNext() {
+            return index < rows.size() || current < hi;
+        }
+
+        @Override
+        public long next() {
+            return index < rows.size() ? rows.getQuick(index++) : current++;
+        }
+
+        private SortedIndexRowCursor scan(long lo, long hi) {
+            rows.clear();
+            return of(lo, hi);
+        }
+
+        private SortedIndexRowCursor of(long lo, long hi) {
+            this.index = 0;
+            this.current = lo;
+            this.hi = hi;
+            return this;
+        }
+    }
+}
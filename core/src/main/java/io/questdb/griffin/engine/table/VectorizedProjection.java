@@ -0,0 +1,549 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.cast.*;
+import io.questdb.griffin.engine.functions.columns.*;
+import io.questdb.griffin.engine.functions.math.*;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Arithmetic expression over fixed-width columns compiled into a list of column-at-a-time instructions.
+ * Every instruction produces values for a batch of page frame rows, so that expression is evaluated
+ * in a handful of tight loops per batch instead of a chain of virtual calls per row.
+ * <p>
+ * Instructions mirror semantics of the functions they replace, including null handling of INT and
+ * LONG values, implicit widening of function arguments and explicit casts. Expressions made of anything
+ * else are not compiled.
+ */
+public class VectorizedProjection {
+    public static final int BATCH_SIZE = 1024;
+    private static final int OP_COLUMN = 0;
+    private static final int OP_CONST = 1;
+    private static final int OP_CONVERT = 2;
+    private static final int OP_ADD = 3;
+    private static final int OP_SUB = 4;
+    private static final int OP_MUL = 5;
+    private static final int OP_DIV = 6;
+    private static final int OP_NEG = 7;
+    // INT values are kept as long, sign extended
+    private static final int KIND_INT = 0;
+    private static final int KIND_LONG = 1;
+    private static final int KIND_DOUBLE = 2;
+    private static final long INT_NULL = Numbers.INT_NaN;
+    private static final ObjIntHashMap<Class<?>> OPS = new ObjIntHashMap<>();
+    private final IntList ops = new IntList();
+    private final IntList kinds = new IntList();
+    private final IntList lefts = new IntList();
+    private final IntList rights = new IntList();
+    // column index and type of OP_COLUMN
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final ObjList<long[]> longValues = new ObjList<>();
+    private final ObjList<double[]> doubleValues = new ObjList<>();
+    private final int type;
+    private int result;
+
+    private VectorizedProjection(int type) {
+        this.type = type;
+    }
+
+    /**
+     * @return compiled function or null when function is not an arithmetic expression over
+     * fixed-width columns and constants
+     */
+    @Nullable
+    public static VectorizedProjection compile(Function function) {
+        return compile(function, false);
+    }
+
+    /**
+     * @param acceptColumn when false, function that is a plain column is not compiled, there is nothing
+     *                     to gain from evaluating it in batches unless the values are consumed in batches too
+     * @return compiled function or null when function is not an arithmetic expression over
+     * fixed-width columns and constants
+     */
+    @Nullable
+    public static VectorizedProjection compile(Function function, boolean acceptColumn) {
+        final int type = ColumnType.tagOf(function.getType());
+        if (opKind(type) < 0 || function.isConstant()) {
+            return null;
+        }
+        final VectorizedProjection projection = new VectorizedProjection(type);
+        final int result = projection.serialize(function);
+        if (result < 0 || (!acceptColumn && projection.ops.getQuick(result) == OP_COLUMN)) {
+            return null;
+        }
+        projection.result = result;
+        return projection;
+    }
+
+    public double getDouble(int batchRow) {
+        return doubleValues.getQuick(result)[batchRow];
+    }
+
+    public int getInt(int batchRow) {
+        return (int) longValues.getQuick(result)[batchRow];
+    }
+
+    public long getLong(int batchRow) {
+        return longValues.getQuick(result)[batchRow];
+    }
+
+    /**
+     * @return INT, LONG or DOUBLE, the type of the compiled function
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Evaluates expression for rows [rowLo, rowLo + count) of the frame, count is at most {@link #BATCH_SIZE}.
+     */
+    public void evaluate(PageAddressCache pageAddressCache, int frameIndex, long rowLo, int count) {
+        for (int i = 0, n = ops.size(); i < n; i++) {
+            switch (ops.getQuick(i)) {
+                case OP_COLUMN:
+                    load(i, pageAddressCache.getPageAddress(frameIndex, columnIndexes.getQuick(i)), rowLo, count);
+                    break;
+                case OP_CONST:
+                    // filled in when compiled
+                    break;
+                case OP_CONVERT:
+                    convert(i, count);
+                    break;
+                default:
+                    compute(i, count);
+                    break;
+            }
+        }
+    }
+
+    private static int leafKind(int type) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+                return KIND_INT;
+            case ColumnType.LONG:
+                return KIND_LONG;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return KIND_DOUBLE;
+            default:
+                return -1;
+        }
+    }
+
+    private static int opKind(int type) {
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.INT:
+                return KIND_INT;
+            case ColumnType.LONG:
+                return KIND_LONG;
+            case ColumnType.DOUBLE:
+                return KIND_DOUBLE;
+            default:
+                return -1;
+        }
+    }
+
+    private int add(int op, int kind, int left, int right) {
+        ops.add(op);
+        kinds.add(kind);
+        lefts.add(left);
+        rights.add(right);
+        columnIndexes.add(-1);
+        columnTypes.add(-1);
+        longValues.add(kind == KIND_DOUBLE ? null : new long[BATCH_SIZE]);
+        doubleValues.add(kind == KIND_DOUBLE ? new double[BATCH_SIZE] : null);
+        return ops.size() - 1;
+    }
+
+    private int addColumn(int columnIndex, int columnType) {
+        final int index = add(OP_COLUMN, leafKind(columnType), -1, -1);
+        columnIndexes.setQuick(index, columnIndex);
+        columnTypes.setQuick(index, ColumnType.tagOf(columnType));
+        return index;
+    }
+
+    private int addConst(Function function) {
+        final int kind = leafKind(function.getType());
+        if (kind < 0) {
+            return -1;
+        }
+        final int index = add(OP_CONST, kind, -1, -1);
+        switch (kind) {
+            case KIND_INT:
+                Arrays.fill(longValues.getQuick(index), function.getInt(null));
+                break;
+            case KIND_LONG:
+                Arrays.fill(longValues.getQuick(index), function.getLong(null));
+                break;
+            default:
+                Arrays.fill(doubleValues.getQuick(index), function.getDouble(null));
+                break;
+        }
+        return index;
+    }
+
+    private void compute(int i, int count) {
+        final int op = ops.getQuick(i);
+        final int left = lefts.getQuick(i);
+        switch (kinds.getQuick(i)) {
+            case KIND_INT: {
+                final long[] out = longValues.getQuick(i);
+                final long[] l = longValues.getQuick(left);
+                if (op == OP_NEG) {
+                    for (int j = 0; j < count; j++) {
+                        final long v = l[j];
+                        out[j] = v != INT_NULL ? (int) -v : INT_NULL;
+                    }
+                    return;
+                }
+                final long[] r = longValues.getQuick(rights.getQuick(i));
+                switch (op) {
+                    case OP_ADD:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != INT_NULL && r[j] != INT_NULL ? (int) (l[j] + r[j]) : INT_NULL;
+                        }
+                        break;
+                    case OP_SUB:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != INT_NULL && r[j] != INT_NULL ? (int) (l[j] - r[j]) : INT_NULL;
+                        }
+                        break;
+                    case OP_MUL:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != INT_NULL && r[j] != INT_NULL ? (int) (l[j] * r[j]) : INT_NULL;
+                        }
+                        break;
+                    default:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != INT_NULL && r[j] != INT_NULL && r[j] != 0 ? (int) (l[j] / r[j]) : INT_NULL;
+                        }
+                        break;
+                }
+                break;
+            }
+            case KIND_LONG: {
+                final long[] out = longValues.getQuick(i);
+                final long[] l = longValues.getQuick(left);
+                if (op == OP_NEG) {
+                    for (int j = 0; j < count; j++) {
+                        final long v = l[j];
+                        out[j] = v != Numbers.LONG_NaN ? -v : Numbers.LONG_NaN;
+                    }
+                    return;
+                }
+                final long[] r = longValues.getQuick(rights.getQuick(i));
+                switch (op) {
+                    case OP_ADD:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != Numbers.LONG_NaN && r[j] != Numbers.LONG_NaN ? l[j] + r[j] : Numbers.LONG_NaN;
+                        }
+                        break;
+                    case OP_SUB:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != Numbers.LONG_NaN && r[j] != Numbers.LONG_NaN ? l[j] - r[j] : Numbers.LONG_NaN;
+                        }
+                        break;
+                    case OP_MUL:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != Numbers.LONG_NaN && r[j] != Numbers.LONG_NaN ? l[j] * r[j] : Numbers.LONG_NaN;
+                        }
+                        break;
+                    default:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] != Numbers.LONG_NaN && r[j] != Numbers.LONG_NaN && r[j] != 0 ? l[j] / r[j] : Numbers.LONG_NaN;
+                        }
+                        break;
+                }
+                break;
+            }
+            default: {
+                final double[] out = doubleValues.getQuick(i);
+                final double[] l = doubleValues.getQuick(left);
+                if (op == OP_NEG) {
+                    for (int j = 0; j < count; j++) {
+                        out[j] = -l[j];
+                    }
+                    return;
+                }
+                final double[] r = doubleValues.getQuick(rights.getQuick(i));
+                switch (op) {
+                    case OP_ADD:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] + r[j];
+                        }
+                        break;
+                    case OP_SUB:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] - r[j];
+                        }
+                        break;
+                    case OP_MUL:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] * r[j];
+                        }
+                        break;
+                    default:
+                        for (int j = 0; j < count; j++) {
+                            out[j] = l[j] / r[j];
+                        }
+                        break;
+                }
+                break;
+            }
+        }
+    }
+
+    private void convert(int i, int count) {
+        final int from = lefts.getQuick(i);
+        switch (kinds.getQuick(from) * 3 + kinds.getQuick(i)) {
+            case KIND_INT * 3 + KIND_LONG: {
+                final long[] in = longValues.getQuick(from);
+                final long[] out = longValues.getQuick(i);
+                for (int j = 0; j < count; j++) {
+                    out[j] = in[j] != INT_NULL ? in[j] : Numbers.LONG_NaN;
+                }
+                break;
+            }
+            case KIND_INT * 3 + KIND_DOUBLE: {
+                final long[] in = longValues.getQuick(from);
+                final double[] out = doubleValues.getQuick(i);
+                for (int j = 0; j < count; j++) {
+                    out[j] = in[j] != INT_NULL ? in[j] : Double.NaN;
+                }
+                break;
+            }
+            case KIND_LONG * 3 + KIND_INT: {
+                final long[] in = longValues.getQuick(from);
+                final long[] out = longValues.getQuick(i);
+                for (int j = 0; j < count; j++) {
+                    out[j] = in[j] != Numbers.LONG_NaN ? (int) in[j] : INT_NULL;
+                }
+                break;
+            }
+            case KIND_LONG * 3 + KIND_DOUBLE: {
+                final long[] in = longValues.getQuick(from);
+                final double[] out = doubleValues.getQuick(i);
+                for (int j = 0; j < count; j++) {
+                    out[j] = in[j] != Numbers.LONG_NaN ? in[j] : Double.NaN;
+                }
+                break;
+            }
+            case KIND_DOUBLE * 3 + KIND_INT: {
+                final double[] in = doubleValues.getQuick(from);
+                final long[] out = longValues.getQuick(i);
+                for (int j = 0; j < count; j++) {
+                    out[j] = in[j] == in[j] ? (int) in[j] : INT_NULL;
+                }
+                break;
+            }
+            default: {
+                final double[] in = doubleValues.getQuick(from);
+                final long[] out = longValues.getQuick(i);
+                for (int j = 0; j < count; j++) {
+                    out[j] = in[j] == in[j] ? (long) in[j] : Numbers.LONG_NaN;
+                }
+                break;
+            }
+        }
+    }
+
+    private void load(int i, long address, long rowLo, int count) {
+        final int columnType = columnTypes.getQuick(i);
+        if (kinds.getQuick(i) == KIND_DOUBLE) {
+            final double[] out = doubleValues.getQuick(i);
+            if (address == 0) {
+                Arrays.fill(out, 0, count, Double.NaN);
+            } else if (columnType == ColumnType.FLOAT) {
+                final long p = address + (rowLo << 2);
+                for (int j = 0; j < count; j++) {
+                    out[j] = Unsafe.getUnsafe().getFloat(p + ((long) j << 2));
+                }
+            } else {
+                final long p = address + (rowLo << 3);
+                for (int j = 0; j < count; j++) {
+                    out[j] = Unsafe.getUnsafe().getDouble(p + ((long) j << 3));
+                }
+            }
+            return;
+        }
+
+        final long[] out = longValues.getQuick(i);
+        // column top reads as null, BYTE and SHORT do not have null
+        switch (columnType) {
+            case ColumnType.BYTE:
+                if (address == 0) {
+                    Arrays.fill(out, 0, count, 0);
+                } else {
+                    final long p = address + rowLo;
+                    for (int j = 0; j < count; j++) {
+                        out[j] = Unsafe.getUnsafe().getByte(p + j);
+                    }
+                }
+                break;
+            case ColumnType.SHORT:
+                if (address == 0) {
+                    Arrays.fill(out, 0, count, 0);
+                } else {
+                    final long p = address + (rowLo << 1);
+                    for (int j = 0; j < count; j++) {
+                        out[j] = Unsafe.getUnsafe().getShort(p + ((long) j << 1));
+                    }
+                }
+                break;
+            case ColumnType.INT:
+                if (address == 0) {
+                    Arrays.fill(out, 0, count, INT_NULL);
+                } else {
+                    final long p = address + (rowLo << 2);
+                    for (int j = 0; j < count; j++) {
+                        out[j] = Unsafe.getUnsafe().getInt(p + ((long) j << 2));
+                    }
+                }
+                break;
+            default:
+                if (address == 0) {
+                    Arrays.fill(out, 0, count, Numbers.LONG_NaN);
+                } else {
+                    final long p = address + (rowLo << 3);
+                    for (int j = 0; j < count; j++) {
+                        out[j] = Unsafe.getUnsafe().getLong(p + ((long) j << 3));
+                    }
+                }
+                break;
+        }
+    }
+
+    private int serialize(Function function) {
+        if (function.isConstant()) {
+            return addConst(function);
+        }
+        if (function instanceof IntColumn) {
+            return addColumn(((IntColumn) function).getColumnIndex(), ColumnType.INT);
+        }
+        if (function instanceof LongColumn) {
+            return addColumn(((LongColumn) function).getColumnIndex(), ColumnType.LONG);
+        }
+        if (function instanceof DoubleColumn) {
+            return addColumn(((DoubleColumn) function).getColumnIndex(), ColumnType.DOUBLE);
+        }
+        if (function instanceof FloatColumn) {
+            return addColumn(((FloatColumn) function).getColumnIndex(), ColumnType.FLOAT);
+        }
+        if (function instanceof ShortColumn) {
+            return addColumn(((ShortColumn) function).getColumnIndex(), ColumnType.SHORT);
+        }
+        if (function instanceof ByteColumn) {
+            return addColumn(((ByteColumn) function).getColumnIndex(), ColumnType.BYTE);
+        }
+
+        final Class<?> factoryClass = function.getClass().getEnclosingClass();
+        final int op = factoryClass != null ? OPS.get(factoryClass) : -1;
+        final int kind = opKind(function.getType());
+        if (op < 0 || kind < 0) {
+            return -1;
+        }
+        if (op == OP_CONVERT) {
+            final int arg = serialize(((UnaryFunction) function).getArg());
+            if (arg < 0) {
+                return -1;
+            }
+            return kinds.getQuick(arg) != kind ? add(OP_CONVERT, kind, arg, -1) : arg;
+        }
+        if (op == OP_NEG) {
+            final int arg = serializeAs(((UnaryFunction) function).getArg(), kind);
+            return arg > -1 ? add(OP_NEG, kind, arg, -1) : -1;
+        }
+        final BinaryFunction binary = (BinaryFunction) function;
+        final int left = serializeAs(binary.getLeft(), kind);
+        if (left < 0) {
+            return -1;
+        }
+        final int right = serializeAs(binary.getRight(), kind);
+        return right > -1 ? add(op, kind, left, right) : -1;
+    }
+
+    // argument of the function is read with getter of the function type, which widens INT and LONG values
+    private int serializeAs(Function function, int kind) {
+        final int index = serialize(function);
+        if (index < 0) {
+            return -1;
+        }
+        final int argKind = kinds.getQuick(index);
+        if (argKind == kind) {
+            return index;
+        }
+        if (argKind < kind) {
+            return add(OP_CONVERT, kind, index, -1);
+        }
+        return -1;
+    }
+
+    static {
+        OPS.put(AddIntFunctionFactory.class, OP_ADD);
+        OPS.put(AddLongFunctionFactory.class, OP_ADD);
+        OPS.put(AddDoubleFunctionFactory.class, OP_ADD);
+        OPS.put(SubIntFunctionFactory.class, OP_SUB);
+        OPS.put(SubLongFunctionFactory.class, OP_SUB);
+        OPS.put(SubDoubleFunctionFactory.class, OP_SUB);
+        OPS.put(MulIntFunctionFactory.class, OP_MUL);
+        OPS.put(MulLongFunctionFactory.class, OP_MUL);
+        OPS.put(MulDoubleFunctionFactory.class, OP_MUL);
+        OPS.put(DivIntFunctionFactory.class, OP_DIV);
+        OPS.put(DivLongFunctionFactory.class, OP_DIV);
+        OPS.put(DivDoubleFunctionFactory.class, OP_DIV);
+        OPS.put(NegIntFunctionFactory.class, OP_NEG);
+        OPS.put(NegLongFunctionFactory.class, OP_NEG);
+        OPS.put(NegDoubleFunctionFactory.class, OP_NEG);
+        OPS.put(CastByteToIntFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastByteToLongFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastByteToDoubleFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastShortToIntFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastShortToLongFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastShortToDoubleFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastIntToLongFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastIntToDoubleFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastLongToIntFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastLongToDoubleFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastFloatToIntFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastFloatToLongFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastFloatToDoubleFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastDoubleToIntFunctionFactory.class, OP_CONVERT);
+        OPS.put(CastDoubleToLongFunctionFactory.class, OP_CONVERT);
+    }
+}
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.SymbolFunction;
+import io.questdb.griffin.engine.groupby.GroupByUtils;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SELECT list over page frames of the base factory. Arithmetic expressions compiled into
+ * {@link VectorizedProjection} are evaluated for a batch of frame rows at a time, the rest of
+ * the functions are evaluated row by row, same as in {@link VirtualRecordCursorFactory}.
+ */
+public class VectorizedVirtualRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<Function> functions;
+    private final VectorizedVirtualRecordCursor cursor;
+    private final boolean supportsRandomAccess;
+
+    public VectorizedVirtualRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            ObjList<Function> functions,
+            ObjList<VectorizedProjection> projections,
+            RecordCursorFactory base
+    ) {
+        super(metadata);
+        this.base = base;
+        this.functions = functions;
+        boolean supportsRandomAccess = base.recordCursorSupportsRandomAccess();
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            if (!functions.getQuick(i).supportsRandomAccess()) {
+                supportsRandomAccess = false;
+                break;
+            }
+        }
+        this.supportsRandomAccess = supportsRandomAccess;
+        this.cursor = new VectorizedVirtualRecordCursor(configuration, base.getMetadata(), functions, projections, supportsRandomAccess);
+    }
+
+    /**
+     * @return compiled projections, one per function and null for functions that are not compiled,
+     * or null when none of the functions could be compiled
+     */
+    @Nullable
+    public static ObjList<VectorizedProjection> compile(ObjList<Function> functions) {
+        ObjList<VectorizedProjection> projections = null;
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            final VectorizedProjection projection = VectorizedProjection.compile(functions.getQuick(i));
+            if (projection != null) {
+                if (projections == null) {
+                    projections = new ObjList<>(n);
+                    projections.setPos(n);
+                }
+                projections.setQuick(i, projection);
+            }
+        }
+        return projections;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext, DataFrameCursorFactory.ORDER_ASC);
+        try {
+            Function.init(functions, pageFrameCursor, executionContext);
+            cursor.of(pageFrameCursor);
+            return cursor;
+        } catch (Throwable th) {
+            Misc.free(pageFrameCursor);
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return false;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return supportsRandomAccess;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(CharSequence tableName) {
+        return base.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(functions);
+        Misc.free(base);
+        cursor.free();
+    }
+
+    private static class VectorizedVirtualRecord extends VirtualRecord {
+        private final ObjList<VectorizedProjection> projections;
+        // type of compiled projection per column, -1 when column is not compiled
+        private final int[] projectionTypes;
+        private PageAddressCache pageAddressCache;
+        private int frameIndex;
+        private long frameRowCount;
+        private long rowIndex;
+        private long batchLo;
+        private int batchCount;
+        // false once the record is positioned by recordAt(), functions take over then
+        private boolean batched;
+
+        private VectorizedVirtualRecord(ObjList<Function> functions, ObjList<VectorizedProjection> projections) {
+            super(functions);
+            this.projections = projections;
+            this.projectionTypes = new int[functions.size()];
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                final VectorizedProjection projection = projections.getQuiet(i);
+                projectionTypes[i] = projection != null ? projection.getType() : -1;
+            }
+        }
+
+        @Override
+        public double getDouble(int col) {
+            if (batched && projectionTypes[col] == ColumnType.DOUBLE) {
+                return projections.getQuick(col).getDouble(batchRow());
+            }
+            return super.getDouble(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            if (batched && projectionTypes[col] == ColumnType.INT) {
+                return projections.getQuick(col).getInt(batchRow());
+            }
+            return super.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            if (batched && projectionTypes[col] == ColumnType.LONG) {
+                return projections.getQuick(col).getLong(batchRow());
+            }
+            return super.getLong(col);
+        }
+
+        private int batchRow() {
+            final long batchRow = rowIndex - batchLo;
+            if (batchRow > -1 && batchRow < batchCount) {
+                return (int) batchRow;
+            }
+            batchLo = rowIndex;
+            batchCount = (int) Math.min(VectorizedProjection.BATCH_SIZE, frameRowCount - rowIndex);
+            for (int i = 0, n = projections.size(); i < n; i++) {
+                final VectorizedProjection projection = projections.getQuick(i);
+                if (projection != null) {
+                    projection.evaluate(pageAddressCache, frameIndex, batchLo, batchCount);
+                }
+            }
+            return 0;
+        }
+
+        private void jumpTo(long rowIndex) {
+            this.rowIndex = rowIndex;
+            this.batched = true;
+        }
+
+        private void of(PageAddressCache pageAddressCache) {
+            this.pageAddressCache = pageAddressCache;
+            this.batchCount = 0;
+        }
+
+        private void ofFrame(int frameIndex, long frameRowCount) {
+            this.frameIndex = frameIndex;
+            this.frameRowCount = frameRowCount;
+            this.batchCount = 0;
+        }
+    }
+
+    private static class VectorizedVirtualRecordCursor implements RecordCursor {
+        private final ObjList<Function> functions;
+        private final RecordMetadata baseMetadata;
+        private final PageAddressCache pageAddressCache;
+        private final LongList frameRowCounts = new LongList();
+        private final PageAddressCacheRecord baseRecord = new PageAddressCacheRecord();
+        private final VectorizedVirtualRecord recordA;
+        private final PageAddressCacheRecord baseRecordB;
+        private final VirtualRecord recordB;
+        private PageFrameCursor pageFrameCursor;
+        private boolean exhausted;
+        private int frameIndex;
+        private long frameRowCount;
+        private long rowIndex;
+
+        private VectorizedVirtualRecordCursor(
+                CairoConfiguration configuration,
+                RecordMetadata baseMetadata,
+                ObjList<Function> functions,
+                ObjList<VectorizedProjection> projections,
+                boolean supportsRandomAccess
+        ) {
+            this.functions = functions;
+            this.baseMetadata = baseMetadata;
+            this.pageAddressCache = new PageAddressCache(configuration);
+            this.recordA = new VectorizedVirtualRecord(functions, projections);
+            this.recordA.of(baseRecord);
+            if (supportsRandomAccess) {
+                this.baseRecordB = new PageAddressCacheRecord();
+                this.recordB = new VirtualRecord(functions);
+                this.recordB.of(baseRecordB);
+            } else {
+                this.baseRecordB = null;
+                this.recordB = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return (SymbolTable) functions.getQuick(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (++rowIndex < frameRowCount) {
+                recordA.jumpTo(rowIndex);
+                baseRecord.setRowIndex(rowIndex);
+                return true;
+            }
+            while (frameIndex + 1 < frameRowCounts.size() || nextFrame()) {
+                frameRowCount = frameRowCounts.getQuick(++frameIndex);
+                if (frameRowCount > 0) {
+                    rowIndex = 0;
+                    recordA.ofFrame(frameIndex, frameRowCount);
+                    recordA.jumpTo(0);
+                    baseRecord.setFrameIndex(frameIndex);
+                    baseRecord.setRowIndex(0);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return ((SymbolFunction) functions.getQuick(columnIndex)).newSymbolTable();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            if (recordB == null) {
+                throw new UnsupportedOperationException();
+            }
+            if (record == recordA) {
+                recordA.batched = false;
+            }
+            final PageAddressCacheRecord base = (PageAddressCacheRecord) ((VirtualRecord) record).getBaseRecord();
+            base.setFrameIndex(Rows.toPartitionIndex(atRowId));
+            base.setRowIndex(Rows.toLocalRowID(atRowId));
+        }
+
+        @Override
+        public long size() {
+            // frames are cached, iteration picks them from the cache
+            while (nextFrame()) {
+                // fetch all frames
+            }
+            long size = 0;
+            for (int i = 0, n = frameRowCounts.size(); i < n; i++) {
+                size += frameRowCounts.getQuick(i);
+            }
+            return size;
+        }
+
+        @Override
+        public void toTop() {
+            frameIndex = -1;
+            frameRowCount = 0;
+            rowIndex = 0;
+            GroupByUtils.toTop(functions);
+        }
+
+        private void free() {
+            Misc.free(baseRecord);
+            Misc.free(baseRecordB);
+        }
+
+        private boolean nextFrame() {
+            if (exhausted) {
+                return false;
+            }
+            final PageFrame frame = pageFrameCursor.next();
+            if (frame == null) {
+                exhausted = true;
+                return false;
+            }
+            pageAddressCache.add(frameRowCounts.size(), frame);
+            frameRowCounts.add(frame.getPartitionHi() - frame.getPartitionLo());
+            return true;
+        }
+
+        private void of(PageFrameCursor pageFrameCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            pageAddressCache.clear();
+            pageAddressCache.of(baseMetadata);
+            frameRowCounts.clear();
+            exhausted = false;
+            baseRecord.of(pageFrameCursor, pageAddressCache);
+            if (baseRecordB != null) {
+                baseRecordB.of(pageFrameCursor, pageAddressCache);
+            }
+            recordA.of(pageAddressCache);
+            frameIndex = -1;
+            frameRowCount = 0;
+            rowIndex = 0;
+        }
+    }
+}
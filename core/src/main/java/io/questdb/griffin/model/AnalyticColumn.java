@@ -30,9 +30,16 @@ import io.questdb.std.ObjectFactory;
 
 public final class AnalyticColumn extends QueryColumn {
     public final static ObjectFactory<AnalyticColumn> FACTORY = AnalyticColumn::new;
+    public static final int FRAMING_ROWS = 1;
+    public static final int FRAMING_RANGE = 2;
     private final ObjList<ExpressionNode> partitionBy = new ObjList<>(2);
     private final ObjList<ExpressionNode> orderBy = new ObjList<>(2);
     private final IntList orderByDirection = new IntList(2);
+    private int framingMode = FRAMING_RANGE;
+    // start of the frame relative to the current row, frame always ends at the current row
+    private long rowsLo = Long.MIN_VALUE;
+    private int framePosition;
+    private boolean defaultFrame = true;
 
     private AnalyticColumn() {
     }
@@ -48,6 +55,18 @@ public final class AnalyticColumn extends QueryColumn {
         partitionBy.clear();
         orderBy.clear();
         orderByDirection.clear();
+        framingMode = FRAMING_RANGE;
+        rowsLo = Long.MIN_VALUE;
+        framePosition = 0;
+        defaultFrame = true;
+    }
+
+    public int getFramePosition() {
+        return framePosition;
+    }
+
+    public int getFramingMode() {
+        return framingMode;
     }
 
     public ObjList<ExpressionNode> getPartitionBy() {
@@ -62,8 +81,27 @@ public final class AnalyticColumn extends QueryColumn {
         return orderByDirection;
     }
 
+    /**
+     * @return start of the frame, Long.MIN_VALUE for unbounded preceding, 0 for current row, otherwise negated
+     * number of rows (ROWS) or negated distance of ordering timestamp in microseconds (RANGE)
+     */
+    public long getRowsLo() {
+        return rowsLo;
+    }
+
+    public boolean isDefaultFrame() {
+        return defaultFrame;
+    }
+
     @Override
     public AnalyticColumn of(CharSequence alias, ExpressionNode ast) {
         return (AnalyticColumn) super.of(alias, ast);
     }
+
+    public void setFrame(int framingMode, long rowsLo, int framePosition) {
+        this.framingMode = framingMode;
+        this.rowsLo = rowsLo;
+        this.framePosition = framePosition;
+        this.defaultFrame = false;
+    }
 }
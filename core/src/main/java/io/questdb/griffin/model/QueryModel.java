@@ -1026,6 +1026,22 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
                             }
                         }
                     }
+
+                    if (!ac.isDefaultFrame()) {
+                        if (partitionBy.size() > 0 || orderBy.size() > 0) {
+                            sink.put(' ');
+                        }
+                        sink.put(ac.getFramingMode() == AnalyticColumn.FRAMING_ROWS ? "rows" : "range").put(" between ");
+                        final long rowsLo = ac.getRowsLo();
+                        if (rowsLo == Long.MIN_VALUE) {
+                            sink.put("unbounded preceding");
+                        } else if (rowsLo == 0) {
+                            sink.put("current row");
+                        } else {
+                            sink.put(-rowsLo).put(" preceding");
+                        }
+                        sink.put(" and current row");
+                    }
                     sink.put(')');
                 }
             } else {
@@ -34,6 +34,7 @@ import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.constants.ConstantFunction;
 import io.questdb.griffin.engine.functions.constants.SymbolConstant;
 import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.std.*;
 
 import java.util.Arrays;
@@ -93,6 +94,8 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     // contains <memory_offset, constant_node> pairs for backfilling purposes
     private final LongObjHashMap<ExpressionNode> backfillNodes = new LongObjHashMap<>();
     private final LongObjHashMap.LongObjConsumer<ExpressionNode> backfillNodeConsumer = this::backfillNode;
+    // comparison nodes that IN and BETWEEN expressions are expanded to
+    private final ObjectPool<ExpressionNode> expandedNodePool = new ObjectPool<>(ExpressionNode.FACTORY, 16);
 
     // internal flag used to forcefully enable scalar mode based on filter's contents
     private boolean forceScalarMode;
@@ -170,6 +173,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         forceScalarMode = false;
         predicateContext.clear();
         backfillNodes.clear();
+        expandedNodePool.clear();
     }
 
     @Override
@@ -180,6 +184,13 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
                     .put(node.token);
         }
 
+        // IN and BETWEEN have no opcodes, serialize them as equivalent comparisons instead
+        final ExpressionNode expandedNode = expand(node);
+        if (expandedNode != null) {
+            traverseAlgo.traverse(expandedNode, this);
+            return false;
+        }
+
         // Check if we're at the start of an arithmetic expression
         predicateContext.onNodeDescended(node);
 
@@ -241,6 +252,133 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         }
     }
 
+    /**
+     * Expands IN list over symbol, char or timestamp column into OR of equalities and BETWEEN over timestamp
+     * column into AND of two comparisons. Returns null when the node is neither or cannot be expanded, e.g. IN
+     * over timestamp column with a single interval literal or BETWEEN with non-constant bounds.
+     */
+    private ExpressionNode expand(ExpressionNode node) {
+        // IN followed by a list in parentheses is parsed as a function call
+        if (node.type != ExpressionNode.SET_OPERATION && node.type != ExpressionNode.FUNCTION) {
+            return null;
+        }
+        if (SqlKeywords.isInKeyword(node.token)) {
+            return expandIn(node);
+        }
+        if (SqlKeywords.isBetweenKeyword(node.token)) {
+            return expandBetween(node);
+        }
+        return null;
+    }
+
+    private ExpressionNode expandBetween(ExpressionNode node) {
+        if (node.paramCount != 3) {
+            return null;
+        }
+        final ExpressionNode column = node.args.getQuick(2);
+        if (columnTypeTagOf(column) != ColumnType.TIMESTAMP) {
+            return null;
+        }
+        final long from = timestampConstantOf(node.args.getQuick(1));
+        final long to = timestampConstantOf(node.args.getQuick(0));
+        if (from == Numbers.LONG_NaN || to == Numbers.LONG_NaN) {
+            return null;
+        }
+        // bounds may come in any order, same as in BetweenTimestampFunctionFactory
+        final ExpressionNode lo = newConstant(Math.min(from, to), node.position);
+        final ExpressionNode hi = newConstant(Math.max(from, to), node.position);
+        return newOperation(
+                "and",
+                newOperation(">=", column, lo, node.position),
+                newOperation("<=", column, hi, node.position),
+                node.position
+        );
+    }
+
+    private ExpressionNode expandIn(ExpressionNode node) {
+        final int paramCount = node.paramCount;
+        if (paramCount < 2) {
+            return null;
+        }
+        final ExpressionNode column = paramCount < 3 ? node.lhs : node.args.getLast();
+        final int columnTypeTag = columnTypeTagOf(column);
+        if (columnTypeTag == ColumnType.TIMESTAMP) {
+            return expandInTimestamp(node, column);
+        }
+        if (columnTypeTag != ColumnType.SYMBOL && columnTypeTag != ColumnType.CHAR) {
+            return null;
+        }
+        ExpressionNode result = null;
+        // values are stored in reverse order
+        for (int i = paramCount - 2; i > -1; i--) {
+            final ExpressionNode value = paramCount < 3 ? node.rhs : node.args.getQuick(i);
+            if (value.type != ExpressionNode.CONSTANT && value.type != ExpressionNode.BIND_VARIABLE) {
+                return null;
+            }
+            final ExpressionNode eq = newOperation("=", column, value, node.position);
+            result = result == null ? eq : newOperation("or", result, eq, node.position);
+        }
+        return result;
+    }
+
+    private ExpressionNode expandInTimestamp(ExpressionNode node, ExpressionNode column) {
+        final int paramCount = node.paramCount;
+        // single string value is an interval, see InTimestampStrFunctionFactory
+        if (paramCount < 3 && Chars.isQuoted(node.rhs.token)) {
+            return null;
+        }
+        ExpressionNode result = null;
+        for (int i = paramCount - 2; i > -1; i--) {
+            final ExpressionNode value = paramCount < 3 ? node.rhs : node.args.getQuick(i);
+            if (value.type == ExpressionNode.CONSTANT && SqlKeywords.isNullKeyword(value.token)) {
+                // null timestamp is never in the list, same as in InTimestampTimestampFunctionFactory
+                continue;
+            }
+            final long timestamp = timestampConstantOf(value);
+            if (timestamp == Numbers.LONG_NaN) {
+                return null;
+            }
+            final ExpressionNode eq = newOperation("=", column, newConstant(timestamp, value.position), node.position);
+            result = result == null ? eq : newOperation("or", result, eq, node.position);
+        }
+        return result;
+    }
+
+    private int columnTypeTagOf(ExpressionNode node) {
+        if (node.type != ExpressionNode.LITERAL) {
+            return UNDEFINED_CODE;
+        }
+        final int index = metadata.getColumnIndexQuiet(node.token);
+        return index == -1 ? UNDEFINED_CODE : ColumnType.tagOf(metadata.getColumnType(index));
+    }
+
+    private ExpressionNode newConstant(long value, int position) {
+        return expandedNodePool.next().of(ExpressionNode.CONSTANT, Long.toString(value), 0, position);
+    }
+
+    private ExpressionNode newOperation(CharSequence token, ExpressionNode lhs, ExpressionNode rhs, int position) {
+        final ExpressionNode node = expandedNodePool.next().of(ExpressionNode.OPERATION, token, 0, position);
+        node.paramCount = 2;
+        node.lhs = lhs;
+        node.rhs = rhs;
+        return node;
+    }
+
+    private static long timestampConstantOf(ExpressionNode node) {
+        if (node.type != ExpressionNode.CONSTANT || SqlKeywords.isNullKeyword(node.token)) {
+            return Numbers.LONG_NaN;
+        }
+        final CharSequence token = node.token;
+        try {
+            if (Chars.isQuoted(token)) {
+                return IntervalUtils.parseFloorPartialDate(token, 1, token.length() - 1);
+            }
+            return Numbers.parseLong(token);
+        } catch (NumericException e) {
+            return Numbers.LONG_NaN;
+        }
+    }
+
     private void backfillNode(long key, ExpressionNode value) {
         try {
             switch (value.type) {
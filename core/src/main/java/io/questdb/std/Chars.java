@@ -189,6 +189,26 @@ public final class Chars {
         return equalsChars(l, r, ll);
     }
 
+    /**
+     * Compares char sequence to UTF-16 chars in native memory without copying them.
+     *
+     * @param l   char sequence
+     * @param lo  address of the first char
+     * @param len number of chars at the address
+     * @return true when both contain the same chars
+     */
+    public static boolean equals(CharSequence l, long lo, int len) {
+        if (l.length() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (l.charAt(i) != Unsafe.getUnsafe().getChar(lo + ((long) i << 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static boolean equals(CharSequence l, CharSequence r, int rLo, int rHi) {
         if (l == r) {
             return true;
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+/**
+ * Allocates memory from the C heap.
+ */
+public final class DefaultNativeAllocator implements NativeAllocator {
+    public static final DefaultNativeAllocator INSTANCE = new DefaultNativeAllocator();
+
+    private DefaultNativeAllocator() {
+    }
+
+    @Override
+    public void free(long address, long size) {
+        Unsafe.getUnsafe().freeMemory(address);
+    }
+
+    @Override
+    public long malloc(long size) {
+        return Unsafe.getUnsafe().allocateMemory(size);
+    }
+
+    @Override
+    public long realloc(long address, long oldSize, long newSize) {
+        return Unsafe.getUnsafe().reallocateMemory(address, newSize);
+    }
+}
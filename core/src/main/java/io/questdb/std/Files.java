@@ -29,8 +29,10 @@ import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.concurrent.atomic.AtomicLong;
 
 public final class Files {
@@ -41,9 +43,22 @@ public final class Files {
     public static final int DT_DIR = 4;
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    public static final int POSIX_MADV_NORMAL = 0;
+    public static final int POSIX_MADV_RANDOM = 1;
+    public static final int POSIX_MADV_SEQUENTIAL = 2;
+    public static final int POSIX_MADV_WILLNEED = 3;
+    public static final int POSIX_MADV_DONTNEED = 4;
+    public static final int POSIX_FADV_NORMAL = 0;
+    public static final int POSIX_FADV_RANDOM = 1;
+    public static final int POSIX_FADV_SEQUENTIAL = 2;
+    public static final int POSIX_FADV_WILLNEED = 3;
+    public static final int POSIX_FADV_DONTNEED = 4;
     public static final char SEPARATOR;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
+    // native libraries built before the hints were added do not export them, hints are skipped then
+    private static final boolean NATIVE_FADVISE;
+    private static final boolean NATIVE_MADVISE;
     private static LongHashSet openFds;
 
     private Files() {
@@ -123,6 +138,21 @@ public final class Files {
 
     public native static int findType(long findPtr);
 
+    /**
+     * Advises OS on how file range is going to be accessed, see posix_fadvise(2). On OSX, which has
+     * no posix_fadvise(), WILLNEED starts asynchronous read-ahead and RANDOM/SEQUENTIAL toggle read-ahead
+     * of the file. Hints are ignored on Windows and when the native library does not export the call.
+     *
+     * @param fd     file descriptor
+     * @param offset start of the range
+     * @param len    length of the range, 0 means up to end of file
+     * @param advice one of POSIX_FADV_* constants
+     * @return 0 on success, -1 on error
+     */
+    public static int fadvise(long fd, long offset, long len, int advice) {
+        return NATIVE_FADVISE ? fadvise0(fd, offset, len, advice) : 0;
+    }
+
     public static long floorPageSize(long size) {
         return size - size % PAGE_SIZE;
     }
@@ -147,6 +177,18 @@ public final class Files {
         return getLastModified(lpsz.address());
     }
 
+    /**
+     * Returns number of hard links to the file or -1 when file system does not expose link count.
+     * Files with more than one link share data with another table and must not be written in place.
+     */
+    public static long getLinkCount(LPSZ lpsz) {
+        try {
+            return ((Number) java.nio.file.Files.getAttribute(Paths.get(lpsz.toString()), "unix:nlink")).longValue();
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
     public static String getOpenFdDebugInfo() {
         if (openFds != null) {
             return openFds.toString();
@@ -160,6 +202,15 @@ public final class Files {
 
     public native static long getStdOutFd();
 
+    public static int hardLink(LPSZ src, LPSZ hardLink) {
+        try {
+            java.nio.file.Files.createLink(Paths.get(hardLink.toString()), Paths.get(src.toString()));
+            return 0;
+        } catch (IOException | UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
     public static boolean isDir(long pUtf8NameZ, long type, StringSink nameSink) {
         if (type == DT_DIR) {
             nameSink.clear();
@@ -215,6 +266,20 @@ public final class Files {
         return 0;
     }
 
+    /**
+     * Advises OS on how mapped memory is going to be accessed, see posix_madvise(2). WILLNEED starts
+     * asynchronous read of the range into page cache. Hints are ignored on Windows and when the native
+     * library does not export the call.
+     *
+     * @param address start of mapped region, it does not have to be page aligned
+     * @param len     length of the region
+     * @param advice  one of POSIX_MADV_* constants
+     * @return 0 on success, -1 on error
+     */
+    public static int madvise(long address, long len, int advice) {
+        return NATIVE_MADVISE ? madvise0(address, len, advice) : 0;
+    }
+
     public static long mmap(long fd, long len, long offset, int flags, int memoryTag) {
         return mmap(fd, len, offset, flags, 0, memoryTag);
     }
@@ -357,12 +422,36 @@ public final class Files {
 
     public native static long write(long fd, long address, long len, long offset);
 
+    private static native int fadvise0(long fd, long offset, long len, int advice);
+
     private static native int getFileSystemStatus(long lpszName);
 
     private native static int close0(long fd);
 
     private static native boolean exists0(long lpsz);
 
+    private static native int madvise0(long address, long len, int advice);
+
+    private static boolean hasFadvise() {
+        try {
+            // invalid descriptor, the call fails without side effects
+            fadvise0(-1, 0, 0, POSIX_FADV_NORMAL);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    private static boolean hasMadvise() {
+        try {
+            // empty range, the call has no effect
+            madvise0(0, 0, POSIX_MADV_NORMAL);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
     private static boolean strcmp(long lpsz, CharSequence s) {
         int len = s.length();
         for (int i = 0; i < len; i++) {
@@ -412,5 +501,7 @@ public final class Files {
         UTF_8 = StandardCharsets.UTF_8;
         PAGE_SIZE = getPageSize();
         SEPARATOR = Os.type == Os.WINDOWS ? '\\' : '/';
+        NATIVE_FADVISE = hasFadvise();
+        NATIVE_MADVISE = hasMadvise();
     }
 }
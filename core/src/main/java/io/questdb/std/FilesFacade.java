@@ -42,6 +42,8 @@ public interface FilesFacade {
 
     boolean exists(long fd);
 
+    int fadvise(long fd, long offset, long len, int advice);
+
     long findClose(long findPtr);
 
     long findFirst(LPSZ path);
@@ -54,6 +56,8 @@ public interface FilesFacade {
 
     long getLastModified(LPSZ path);
 
+    long getLinkCount(LPSZ path);
+
     int msync(long addr, long len, boolean async);
 
     int fsync(long fd);
@@ -66,6 +70,8 @@ public interface FilesFacade {
 
     long getPageSize();
 
+    int hardLink(LPSZ src, LPSZ hardLink);
+
     boolean isRestrictedFileSystem();
 
     void iterateDir(LPSZ path, FindVisitor func);
@@ -76,6 +82,8 @@ public interface FilesFacade {
 
     int lock(long fd);
 
+    int madvise(long address, long len, int advice);
+
     int mkdir(Path path, int mode);
 
     int mkdirs(Path path, int mode);
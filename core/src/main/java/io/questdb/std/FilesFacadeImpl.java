@@ -64,6 +64,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.exists(fd);
     }
 
+    @Override
+    public int fadvise(long fd, long offset, long len, int advice) {
+        return Files.fadvise(fd, offset, len, advice);
+    }
+
     @Override
     public long findClose(long findPtr) {
         if (findPtr != 0) {
@@ -105,6 +110,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.getLastModified(path);
     }
 
+    @Override
+    public long getLinkCount(LPSZ path) {
+        return Files.getLinkCount(path);
+    }
+
     @Override
     public int msync(long addr, long len, boolean async) {
         return Files.msync(addr, len, async);
@@ -138,6 +148,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.PAGE_SIZE;
     }
 
+    @Override
+    public int hardLink(LPSZ src, LPSZ hardLink) {
+        return Files.hardLink(src, hardLink);
+    }
+
     @Override
     public boolean isRestrictedFileSystem() {
         return Os.type == Os.WINDOWS;
@@ -176,6 +191,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.lock(fd);
     }
 
+    @Override
+    public int madvise(long address, long len, int advice) {
+        return Files.madvise(address, len, advice);
+    }
+
     @Override
     public int mkdir(Path path, int mode) {
         return Files.mkdir(path, mode);
@@ -65,6 +65,20 @@ public final class Hash {
         return s == null ? -1 : (Chars.hashCode(s) & 0xFFFFFFF) & max;
     }
 
+    /**
+     * Maps hash code to one of the partitions operators split their data into when spilling to disk.
+     * Each level takes different bits of the hash, so that keys of a single partition spread over
+     * partitions of the next level.
+     *
+     * @param hash           hash code, such as produced by {@link #hashMem(long, long)}
+     * @param level          partitioning level, starting with 0
+     * @param partitionCount number of partitions
+     * @return partition index
+     */
+    public static int partitionOf(long hash, int level, int partitionCount) {
+        return (int) (((Long.rotateLeft(hash, 23 * level) * XXH_PRIME64_1) >>> 33) % partitionCount);
+    }
+
     /**
      * Calculates positive integer hash of memory pointer using 32-bit variant of xxHash hash algorithm.
      *
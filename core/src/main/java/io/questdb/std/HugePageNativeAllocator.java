@@ -0,0 +1,267 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Places large allocations in explicit huge pages. A pool of huge pages is mapped once, at construction,
+ * from a file created on a hugetlbfs mount. The file is unlinked straight after mapping, so the pages are
+ * returned to the OS when the pool is unmapped or the process exits. Allocations above threshold are carved
+ * from the pool in whole huge pages. Allocations below threshold, and allocations the pool cannot satisfy,
+ * come from the C heap. When the pool cannot be mapped the allocator is the C heap allocator.
+ * <p>
+ * Memory is not advised with MADV_HUGEPAGE to get transparent huge pages instead, {@link Files#madvise(long, long, int)}
+ * wraps posix_madvise(), which has no such advice.
+ * <p>
+ * The allocator must be installed before any memory is allocated by the worker threads, memory obtained
+ * from this allocator cannot be released by any other allocator.
+ */
+public class HugePageNativeAllocator implements NativeAllocator, Closeable {
+    private static final Log LOG = LogFactory.getLog(HugePageNativeAllocator.class);
+    private final long hugePageSize;
+    private final long threshold;
+    // 0 when the pool could not be mapped
+    private final long poolAddress;
+    private final long poolSize;
+    // number of pages of the run that starts at the page, positive for allocated runs and negative
+    // for free ones, pages inside runs are 0; adjacent free runs are merged when allocating
+    private final int[] runs;
+    private long hugePageMemUsed;
+    private boolean exhausted;
+
+    public HugePageNativeAllocator(CharSequence hugePagePath, long hugePageSize, long poolSize, long threshold) {
+        assert (hugePageSize & (hugePageSize - 1)) == 0;
+        this.hugePageSize = hugePageSize;
+        this.threshold = Math.max(threshold, hugePageSize);
+        final long pageCount = Math.min(poolSize / hugePageSize, Integer.MAX_VALUE);
+        final long address = pageCount > 0 ? mapPool(hugePagePath, pageCount * hugePageSize) : 0;
+        if (address != 0) {
+            this.poolAddress = address;
+            this.poolSize = pageCount * hugePageSize;
+            this.runs = new int[(int) pageCount];
+            runs[0] = (int) -pageCount;
+        } else {
+            LOG.advisory().$("huge page pool is not available, large allocations use regular memory [path=").$(hugePagePath)
+                    .$(", poolSize=").$(poolSize)
+                    .I$();
+            this.poolAddress = 0;
+            this.poolSize = 0;
+            this.runs = null;
+        }
+    }
+
+    /**
+     * Unmaps the pool. Memory carved from the pool must be released before the allocator is closed.
+     */
+    @Override
+    public void close() {
+        if (poolAddress != 0) {
+            Files.munmap(poolAddress, poolSize, MemoryTag.MMAP_HUGE_PAGE_POOL);
+        }
+    }
+
+    @Override
+    public void free(long address, long size) {
+        if (isPooled(address)) {
+            release(address);
+        } else {
+            DefaultNativeAllocator.INSTANCE.free(address, size);
+        }
+    }
+
+    /**
+     * @return number of bytes currently carved from the pool, this is always a multiple of huge page size
+     */
+    public synchronized long getHugePageMemUsed() {
+        return hugePageMemUsed;
+    }
+
+    @Override
+    public long malloc(long size) {
+        if (size >= threshold && poolAddress != 0) {
+            final long address = allocate(pageCountOf(size));
+            if (address != 0) {
+                return address;
+            }
+        }
+        return DefaultNativeAllocator.INSTANCE.malloc(size);
+    }
+
+    @Override
+    public long realloc(long address, long oldSize, long newSize) {
+        if (address == 0) {
+            return malloc(newSize);
+        }
+
+        if (!isPooled(address)) {
+            if (newSize >= threshold && poolAddress != 0) {
+                final long newAddress = allocate(pageCountOf(newSize));
+                if (newAddress != 0) {
+                    Vect.memcpy(newAddress, address, Math.min(oldSize, newSize));
+                    DefaultNativeAllocator.INSTANCE.free(address, oldSize);
+                    return newAddress;
+                }
+            }
+            return DefaultNativeAllocator.INSTANCE.realloc(address, oldSize, newSize);
+        }
+
+        if (newSize >= threshold && resize(address, pageCountOf(newSize))) {
+            return address;
+        }
+
+        final long newAddress = malloc(newSize);
+        Vect.memcpy(newAddress, address, Math.min(oldSize, newSize));
+        release(address);
+        return newAddress;
+    }
+
+    private static long mapPool(CharSequence hugePagePath, long size) {
+        // thread-local paths could be in use by the caller, this path is short-lived instead
+        try (Path path = new Path().of(hugePagePath).concat("questdb-").put(Os.getPid()).$()) {
+            final long fd = Files.openRW(path);
+            if (fd < 0) {
+                LOG.error().$("could not create huge page file [path=").utf8(path).$(", errno=").$(Os.errno()).I$();
+                return 0;
+            }
+
+            try {
+                if (!Files.truncate(fd, size)) {
+                    LOG.error().$("could not size huge page file [path=").utf8(path).$(", size=").$(size).$(", errno=").$(Os.errno()).I$();
+                    return 0;
+                }
+                final long address = Files.mmap(fd, size, 0, Files.MAP_RW, MemoryTag.MMAP_HUGE_PAGE_POOL);
+                if (address == -1) {
+                    // fewer huge pages are reserved than the pool needs
+                    LOG.error().$("could not map huge pages [path=").utf8(path).$(", size=").$(size).$(", errno=").$(Os.errno()).I$();
+                    return 0;
+                }
+                return address;
+            } finally {
+                Files.close(fd);
+                Files.remove(path);
+            }
+        }
+    }
+
+    private synchronized long allocate(int pageCount) {
+        for (int i = 0, n = runs.length; i < n; ) {
+            int run = runs[i];
+            if (run > 0) {
+                i += run;
+                continue;
+            }
+
+            run = mergeFreeRuns(i);
+            if (-run >= pageCount) {
+                runs[i] = pageCount;
+                if (-run > pageCount) {
+                    runs[i + pageCount] = run + pageCount;
+                }
+                hugePageMemUsed += pageCount * hugePageSize;
+                return poolAddress + i * hugePageSize;
+            }
+            i -= run;
+        }
+
+        if (!exhausted) {
+            // pool is checked on every large allocation regardless, released pages are reused
+            exhausted = true;
+            LOG.advisory().$("huge page pool is exhausted, large allocations use regular memory until pages are released [poolSize=")
+                    .$(poolSize)
+                    .I$();
+        }
+        return 0;
+    }
+
+    private boolean isPooled(long address) {
+        return address >= poolAddress && address < poolAddress + poolSize;
+    }
+
+    /**
+     * Merges free runs that follow the free run at given page into it.
+     *
+     * @return negated length of the merged run
+     */
+    private int mergeFreeRuns(int page) {
+        int run = runs[page];
+        int next;
+        while ((next = page - run) < runs.length && runs[next] < 0) {
+            run += runs[next];
+            runs[next] = 0;
+        }
+        runs[page] = run;
+        return run;
+    }
+
+    private int pageCountOf(long size) {
+        return (int) ((size + hugePageSize - 1) / hugePageSize);
+    }
+
+    private int pageOf(long address) {
+        return (int) ((address - poolAddress) / hugePageSize);
+    }
+
+    private synchronized void release(long address) {
+        final int page = pageOf(address);
+        final int run = runs[page];
+        assert run > 0;
+        runs[page] = -run;
+        hugePageMemUsed -= run * hugePageSize;
+    }
+
+    private synchronized boolean resize(long address, int pageCount) {
+        final int page = pageOf(address);
+        final int run = runs[page];
+        assert run > 0;
+        if (pageCount < run) {
+            // unused tail goes back to the pool
+            runs[page] = pageCount;
+            runs[page + pageCount] = pageCount - run;
+            hugePageMemUsed -= (run - pageCount) * hugePageSize;
+            return true;
+        }
+
+        final int next = page + run;
+        if (pageCount > run && next < runs.length && runs[next] < 0) {
+            final int free = -mergeFreeRuns(next);
+            if (run + free < pageCount) {
+                return false;
+            }
+            runs[next] = 0;
+            runs[page] = pageCount;
+            if (run + free > pageCount) {
+                runs[page + pageCount] = pageCount - run - free;
+            }
+            hugePageMemUsed += (pageCount - run) * hugePageSize;
+            return true;
+        }
+        return pageCount == run;
+    }
+}
@@ -267,7 +267,10 @@ public class LongList implements Mutable, LongVec {
 
     @Override
     public LongVec newInstance() {
-        return new LongList(size());
+        // merge sort writes to the new instance by index
+        final LongList list = new LongList(size());
+        list.setPos(size());
+        return list;
     }
 
     /**
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe account of native memory shared by all queries of the server. Reservations
+ * that would take the total over the limit are refused rather than blocked on.
+ */
+public class MemoryBudget {
+    private final AtomicLong used = new AtomicLong();
+    private final long limit;
+
+    public MemoryBudget(long limit) {
+        this.limit = limit > 0 ? limit : Long.MAX_VALUE;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public void release(long size) {
+        used.addAndGet(-size);
+    }
+
+    public boolean tryReserve(long size) {
+        long current;
+        do {
+            current = used.get();
+            if (size > limit - current) {
+                return false;
+            }
+        } while (!used.compareAndSet(current, current + size));
+        return true;
+    }
+}
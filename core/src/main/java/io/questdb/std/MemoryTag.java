@@ -58,7 +58,12 @@ public final class MemoryTag {
     public static final int NATIVE_CB3 = 30;
     public static final int NATIVE_CB4 = 31;
     public static final int NATIVE_CB5 = 32;
-    public static final int SIZE = NATIVE_CB5 + 1;
+    public static final int NATIVE_QUERY_ARENA = 33;
+    public static final int MMAP_SPILL = 34;
+    public static final int NATIVE_ANALYTIC = 35;
+    public static final int MMAP_HUGE_PAGE_POOL = 36;
+    public static final int NATIVE_GROUP_BY = 37;
+    public static final int SIZE = NATIVE_GROUP_BY + 1;
     private static final ObjList<String> tagNameMap = new ObjList<>(SIZE);
 
     public static String nameOf(int tag) {
@@ -99,5 +104,10 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(NATIVE_CB3, "NATIVE_CB3");
         tagNameMap.extendAndSet(NATIVE_CB4, "NATIVE_CB4");
         tagNameMap.extendAndSet(NATIVE_CB5, "NATIVE_CB5");
+        tagNameMap.extendAndSet(NATIVE_QUERY_ARENA, "NATIVE_QUERY_ARENA");
+        tagNameMap.extendAndSet(MMAP_SPILL, "MMAP_SPILL");
+        tagNameMap.extendAndSet(NATIVE_ANALYTIC, "NATIVE_ANALYTIC");
+        tagNameMap.extendAndSet(MMAP_HUGE_PAGE_POOL, "MMAP_HUGE_PAGE_POOL");
+        tagNameMap.extendAndSet(NATIVE_GROUP_BY, "NATIVE_GROUP_BY");
     }
 }
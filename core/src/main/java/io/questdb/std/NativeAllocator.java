@@ -0,0 +1,40 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+/**
+ * Source of native memory behind {@link Unsafe#malloc(long, int)}, {@link Unsafe#realloc(long, long, long, int)}
+ * and {@link Unsafe#free(long, long, int)}. Allocators do not account memory, Unsafe keeps per-tag
+ * counters regardless of where the memory comes from. Callers always pass the size they allocated, which
+ * lets allocators release memory that is not obtained from the C heap.
+ */
+public interface NativeAllocator {
+
+    void free(long address, long size);
+
+    long malloc(long size);
+
+    long realloc(long address, long oldSize, long newSize);
+}
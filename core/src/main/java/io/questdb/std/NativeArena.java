@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.cairo.CairoException;
+
+import java.io.Closeable;
+
+/**
+ * Memory budget of a query. Scratch memory that lives as long as the query, such as LATEST BY task
+ * arguments, is carved out of large chunks and is never released individually, all chunks are freed
+ * in bulk when the last cursor that holds the arena releases it. Cursors bracket their use of arena
+ * memory with {@link #acquire()} and {@link #release()}, which lets nested and sibling cursors of the
+ * same query share the arena.
+ * <p>
+ * Arena enforces memory limit on the total of bytes allocated between bulk frees. Exceeding the
+ * limit fails the allocation with {@link CairoException} rather than growing the process.
+ * Operators that keep their state in growable structures, such as maps and record chains of sorts,
+ * hash joins and group-by, do not allocate from the arena. They account for that memory through
+ * {@link #tryReserve(long)} against the same limit and spill to disk when reservation is refused.
+ * Chunks and reservations are also charged to the server-wide {@link MemoryBudget}, nothing stays
+ * charged once the query releases the arena and its reservations.
+ * <p>
+ * Arena is not thread-safe, it is owned by execution context of a single query. Memory handed out by
+ * the arena can be shared with worker threads for as long as the arena is held.
+ */
+public class NativeArena implements Closeable {
+    private static final long ALIGNMENT = 8;
+    private final long chunkSize;
+    private final int memoryTag;
+    // address and size pairs
+    private final LongList chunks = new LongList();
+    private final MemoryBudget globalBudget;
+    private long limit;
+    private long lo;
+    private long hi;
+    private long allocated;
+    private long reserved;
+    private int holders;
+
+    public NativeArena(long chunkSize, long limit, int memoryTag) {
+        this(chunkSize, limit, memoryTag, new MemoryBudget(0));
+    }
+
+    public NativeArena(long chunkSize, long limit, int memoryTag, MemoryBudget globalBudget) {
+        this.chunkSize = chunkSize;
+        this.limit = limit > 0 ? limit : Long.MAX_VALUE;
+        this.memoryTag = memoryTag;
+        this.globalBudget = globalBudget;
+    }
+
+    public void acquire() {
+        holders++;
+    }
+
+    /**
+     * Allocates memory from the current chunk, starting a new chunk when current one is exhausted.
+     * Allocations are 8-byte aligned.
+     *
+     * @param size number of bytes
+     * @return address of uninitialised memory, valid until the arena is released by all holders
+     * @throws CairoException when allocation exceeds the memory limit
+     */
+    public long allocate(long size) {
+        assert holders > 0 : "arena must be acquired";
+        final long alignedSize = (size + ALIGNMENT - 1) & -ALIGNMENT;
+        if (alignedSize > limit - allocated - reserved) {
+            throw limitExceeded(size);
+        }
+        if (alignedSize > hi - lo) {
+            newChunk(alignedSize);
+        }
+        final long address = lo;
+        lo += alignedSize;
+        allocated += alignedSize;
+        return address;
+    }
+
+    public long allocateZeroed(long size) {
+        final long address = allocate(size);
+        Vect.memset(address, size, 0);
+        return address;
+    }
+
+    @Override
+    public void close() {
+        freeChunks();
+        holders = 0;
+        if (reserved > 0) {
+            globalBudget.release(reserved);
+            reserved = 0;
+        }
+    }
+
+    /**
+     * @return bytes handed out since arena was last freed
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * @return bytes reserved by operators that manage their own memory
+     */
+    public long getReserved() {
+        return reserved;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public void setLimit(long limit) {
+        this.limit = limit > 0 ? limit : Long.MAX_VALUE;
+    }
+
+    /**
+     * Releases hold on the arena. When no holders remain, all arena memory is freed.
+     */
+    public void release() {
+        assert holders > 0;
+        if (--holders == 0) {
+            freeChunks();
+        }
+    }
+
+    /**
+     * Accounts for memory allocated outside of the arena against the query limit and the
+     * server-wide budget. Reservations outlive bulk frees, callers return them with
+     * {@link #unreserve(long)}.
+     *
+     * @param size number of bytes
+     * @return false when either the query limit or the server-wide budget would be exceeded
+     */
+    public boolean tryReserve(long size) {
+        if (size > limit - allocated - reserved || !globalBudget.tryReserve(size)) {
+            return false;
+        }
+        reserved += size;
+        return true;
+    }
+
+    public void unreserve(long size) {
+        assert size <= reserved;
+        reserved -= size;
+        globalBudget.release(size);
+    }
+
+    public CairoException limitExceeded(long requested) {
+        return CairoException.instance(0)
+                .put("query memory limit exceeded [limit=").put(limit)
+                .put(", allocated=").put(allocated + reserved)
+                .put(", requested=").put(requested)
+                .put(", globalLimit=").put(globalBudget.getLimit())
+                .put(", globalUsed=").put(globalBudget.getUsed())
+                .put(']');
+    }
+
+    private void freeChunks() {
+        for (int i = 0, n = chunks.size(); i < n; i += 2) {
+            Unsafe.free(chunks.getQuick(i), chunks.getQuick(i + 1), memoryTag);
+            globalBudget.release(chunks.getQuick(i + 1));
+        }
+        chunks.clear();
+        lo = hi = 0;
+        allocated = 0;
+    }
+
+    private void newChunk(long size) {
+        final long sz = Math.max(chunkSize, size);
+        if (!globalBudget.tryReserve(sz)) {
+            throw limitExceeded(size);
+        }
+        final long address;
+        try {
+            address = Unsafe.malloc(sz, memoryTag);
+        } catch (Throwable e) {
+            globalBudget.release(sz);
+            throw e;
+        }
+        chunks.add(address);
+        chunks.add(sz);
+        lo = address;
+        hi = address + sz;
+    }
+}
@@ -50,6 +50,7 @@ public final class Unsafe {
     //#endif
     private static final AnonymousClassDefiner anonymousClassDefiner;
     private static final LongAdder[] COUNTERS = new LongAdder[MemoryTag.SIZE];
+    private static NativeAllocator allocator = DefaultNativeAllocator.INSTANCE;
 
     static {
         try {
@@ -169,7 +170,9 @@ public final class Unsafe {
     }
 
     public static void free(long ptr, long size, int memoryTag) {
-        getUnsafe().freeMemory(ptr);
+        if (ptr != 0) {
+            allocator.free(ptr, size);
+        }
         FREE_COUNT.incrementAndGet();
         recordMemAlloc(-size, memoryTag);
     }
@@ -213,7 +216,7 @@ public final class Unsafe {
 
     public static long malloc(long size, int memoryTag) {
         try {
-            long ptr = getUnsafe().allocateMemory(size);
+            long ptr = allocator.malloc(size);
             recordMemAlloc(size, memoryTag);
             MALLOC_COUNT.incrementAndGet();
             return ptr;
@@ -226,7 +229,7 @@ public final class Unsafe {
 
     public static long realloc(long address, long oldSize, long newSize, int memoryTag) {
         try {
-            long ptr = getUnsafe().reallocateMemory(address, newSize);
+            long ptr = allocator.realloc(address, oldSize, newSize);
             recordMemAlloc(-oldSize + newSize, memoryTag);
             REALLOC_COUNT.incrementAndGet();
             return ptr;
@@ -237,6 +240,19 @@ public final class Unsafe {
         }
     }
 
+    /**
+     * Replaces source of native memory. This must be done at startup, before any memory is allocated
+     * by the threads that are going to free it, memory has to be released by the allocator it came from.
+     *
+     * @param allocator native memory allocator
+     * @return previous allocator
+     */
+    public static NativeAllocator setNativeAllocator(NativeAllocator allocator) {
+        final NativeAllocator prev = Unsafe.allocator;
+        Unsafe.allocator = allocator;
+        return prev;
+    }
+
     public static void recordMemAlloc(long size, int memoryTag) {
         long mem = MEM_USED.addAndGet(size);
         assert mem >= 0;
@@ -25,10 +25,13 @@
 package io.questdb.tasks;
 
 import io.questdb.cairo.ColumnIndexer;
+import io.questdb.cairo.SortedColumnIndexer;
 import io.questdb.mp.SOCountDownLatch;
 
 public class ColumnIndexerTask {
     public ColumnIndexer indexer;
+    // set instead of indexer when task builds sorted index of a whole partition
+    public SortedColumnIndexer sortedIndexer;
     public long lo;
     public long hi;
     public SOCountDownLatch countDownLatch;
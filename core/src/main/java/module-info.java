@@ -50,6 +50,7 @@ open module io.questdb {
     exports io.questdb.cutlass.line;
     exports io.questdb.cutlass.line.udp;
     exports io.questdb.cutlass.line.tcp;
+    exports io.questdb.cutlass.parquet;
     exports io.questdb.cutlass.pgwire;
     exports io.questdb.cutlass.text;
     exports io.questdb.cutlass.text.types;
@@ -585,6 +586,7 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.table.AllTablesFunctionFactory,
             io.questdb.griffin.engine.functions.table.TableColumnsFunctionFactory,
             io.questdb.griffin.engine.functions.table.TouchTableFunctionFactory,
+            io.questdb.griffin.engine.functions.table.ReadParquetFunctionFactory,
 
             // first
             io.questdb.griffin.engine.functions.groupby.FirstSymbolGroupByFunctionFactory,
@@ -600,6 +602,16 @@ open module io.questdb {
 
             // analytic functions
             io.questdb.griffin.engine.functions.analytic.RowNumberFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.RankFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.DenseRankFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LagDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LeadDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.FirstValueDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LastValueDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.SumDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.AvgDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.MinDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.MaxDoubleAnalyticFunctionFactory,
 
             // metadata functions
             io.questdb.griffin.engine.functions.metadata.BuildFunctionFactory,
@@ -174,6 +174,28 @@ public class FilesTest {
         });
     }
 
+    @Test
+    public void testFadvise() throws Exception {
+        assertMemoryLeak(() -> {
+            File temp = temporaryFolder.newFile();
+            TestUtils.writeStringToFile(temp, "abcdefghij");
+            try (Path path = new Path().of(temp.getAbsolutePath()).$()) {
+                long fd = Files.openRO(path);
+                Assert.assertTrue(fd > -1);
+                try {
+                    Assert.assertEquals(0, Files.fadvise(fd, 0, 0, Files.POSIX_FADV_WILLNEED));
+                    Assert.assertEquals(0, Files.fadvise(fd, 3, 4, Files.POSIX_FADV_WILLNEED));
+                    Assert.assertEquals(0, Files.fadvise(fd, 7, 100, Files.POSIX_FADV_WILLNEED));
+                    Assert.assertEquals(0, Files.fadvise(fd, 20, 0, Files.POSIX_FADV_WILLNEED));
+                    Assert.assertEquals(0, Files.fadvise(fd, 0, 0, Files.POSIX_FADV_SEQUENTIAL));
+                    Assert.assertEquals(0, Files.fadvise(fd, 0, 0, Files.POSIX_FADV_DONTNEED));
+                } finally {
+                    Files.close(fd);
+                }
+            }
+        });
+    }
+
     @Test
     public void testFailsToAllocateWhenNotEnoughSpace() throws Exception {
         assertMemoryLeak(() -> {
@@ -245,6 +267,28 @@ public class FilesTest {
         });
     }
 
+    @Test
+    public void testMadvise() throws Exception {
+        assertMemoryLeak(() -> {
+            File temp = temporaryFolder.newFile();
+            TestUtils.writeStringToFile(temp, "abcdefghij");
+            try (Path path = new Path().of(temp.getAbsolutePath()).$()) {
+                long fd = Files.openRO(path);
+                Assert.assertTrue(fd > -1);
+                long address = Files.mmap(fd, 10, 0, Files.MAP_RO, MemoryTag.MMAP_DEFAULT);
+                try {
+                    Assert.assertEquals(0, Files.madvise(address, 10, Files.POSIX_MADV_WILLNEED));
+                    Assert.assertEquals(0, Files.madvise(address, 10, Files.POSIX_MADV_RANDOM));
+                    Assert.assertEquals(0, Files.madvise(address, 10, Files.POSIX_MADV_SEQUENTIAL));
+                    Assert.assertEquals('a', Unsafe.getUnsafe().getByte(address));
+                } finally {
+                    Files.munmap(address, 10, MemoryTag.MMAP_DEFAULT);
+                    Files.close(fd);
+                }
+            }
+        });
+    }
+
     @Test
     public void testMkdirs() throws Exception {
         assertMemoryLeak(() -> {
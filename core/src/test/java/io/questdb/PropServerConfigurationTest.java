@@ -155,6 +155,10 @@ public class PropServerConfigurationTest {
 
         Assert.assertEquals(100000, configuration.getCairoConfiguration().getParallelIndexThreshold());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getReaderPoolPinnedTables().size());
+        Assert.assertFalse(configuration.getCairoConfiguration().isReplicationEnabled());
+        Assert.assertNull(configuration.getCairoConfiguration().getReplicationFollowerRoot());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getReplicationTables().size());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSpinLockTimeoutUs());
         Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlCharacterStoreCapacity());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlCharacterStoreSequencePoolCapacity());
@@ -208,6 +212,12 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().ownThread());
 
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelSortEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlVectorizedProjectionEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlVectorizedGroupByEnabled());
+        Assert.assertEquals(65536, configuration.getCairoConfiguration().getSqlVectorizedGroupByMaxSymbolCount());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
         Assert.assertEquals(4, configuration.getCairoConfiguration().getPageFrameReduceShardCount());
@@ -695,6 +705,14 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(509, configuration.getCairoConfiguration().getMkDirMode());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getParallelIndexThreshold());
             Assert.assertEquals(10, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
+            Assert.assertEquals(2, configuration.getCairoConfiguration().getReaderPoolPinnedTables().size());
+            Assert.assertEquals(4, configuration.getCairoConfiguration().getReaderPoolPinnedTables().get("trades"));
+            Assert.assertEquals(1, configuration.getCairoConfiguration().getReaderPoolPinnedTables().get("quotes"));
+            Assert.assertTrue(configuration.getCairoConfiguration().isReplicationEnabled());
+            TestUtils.assertEquals("/tmp/follower", configuration.getCairoConfiguration().getReplicationFollowerRoot());
+            Assert.assertEquals(2, configuration.getCairoConfiguration().getReplicationTables().size());
+            TestUtils.assertEquals("trades", configuration.getCairoConfiguration().getReplicationTables().getQuick(0));
+            TestUtils.assertEquals("quotes", configuration.getCairoConfiguration().getReplicationTables().getQuick(1));
             Assert.assertEquals(5_000_000, configuration.getCairoConfiguration().getSpinLockTimeoutUs());
             Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlCharacterStoreCapacity());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlCharacterStoreSequencePoolCapacity());
@@ -760,6 +778,12 @@ public class PropServerConfigurationTest {
             Assert.assertTrue(configuration.getLineUdpReceiverConfiguration().ownThread());
 
             Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelSortEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlVectorizedProjectionEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlVectorizedGroupByEnabled());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlVectorizedGroupByMaxSymbolCount());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
             Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
             Assert.assertEquals(100, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getPageFrameReduceShardCount());
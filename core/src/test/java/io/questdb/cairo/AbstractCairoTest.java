@@ -74,6 +74,8 @@ public class AbstractCairoTest {
     protected static FilesFacade ff;
     protected static CharSequence backupDir;
     protected static DateFormat backupDirTimestampFormat;
+    protected static CharSequence exportDir;
+    protected static int exportRowGroupSize = -1;
     protected static long configOverrideCommitLagMicros = -1;
     protected static int configOverrideMaxUncommittedRows = -1;
     protected static Metrics metrics = Metrics.enabled();
@@ -88,6 +90,7 @@ public class AbstractCairoTest {
     protected static String snapshotInstanceId = null;
     protected static Boolean snapshotRecoveryEnabled = null;
     protected static Boolean enableParallelFilter = null;
+    protected static Boolean enableParallelLatestBy = null;
     protected static int queryCacheEventQueueCapacity = -1;
     protected static int pageFrameReduceShardCount = -1;
     protected static int pageFrameReduceQueueCapacity = -1;
@@ -145,6 +148,19 @@ public class AbstractCairoTest {
                 return super.getBackupRoot();
             }
 
+            @Override
+            public CharSequence getSqlExportRoot() {
+                if (exportDir != null) {
+                    return exportDir;
+                }
+                return super.getSqlExportRoot();
+            }
+
+            @Override
+            public int getSqlExportRowGroupSize() {
+                return exportRowGroupSize > 0 ? exportRowGroupSize : super.getSqlExportRowGroupSize();
+            }
+
             @Override
             public DateFormat getBackupDirTimestampFormat() {
                 if (backupDirTimestampFormat != null) {
@@ -309,6 +325,11 @@ public class AbstractCairoTest {
                 return enableParallelFilter != null ? enableParallelFilter : super.isSqlParallelFilterEnabled();
             }
 
+            @Override
+            public boolean isSqlParallelLatestByEnabled() {
+                return enableParallelLatestBy != null ? enableParallelLatestBy : super.isSqlParallelLatestByEnabled();
+            }
+
             @Override
             public int getColumnPurgeTaskPoolCapacity() {
                 return columnVersionTaskPoolCapacity >= 0 ? columnVersionTaskPoolCapacity : super.getColumnPurgeTaskPoolCapacity();
@@ -330,6 +351,8 @@ public class AbstractCairoTest {
         engine = Misc.free(engine);
         backupDir = null;
         backupDirTimestampFormat = null;
+        exportDir = null;
+        exportRowGroupSize = -1;
     }
 
     @Before
@@ -364,6 +387,7 @@ public class AbstractCairoTest {
         snapshotInstanceId = null;
         snapshotRecoveryEnabled = null;
         enableParallelFilter = null;
+        enableParallelLatestBy = null;
         hideTelemetryTable = false;
         writerCommandQueueCapacity = 4;
         queryCacheEventQueueCapacity = -1;
@@ -30,7 +30,9 @@ import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.VirtualRecord;
 import io.questdb.griffin.QueryFutureUpdateListener;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.NativeArena;
 import io.questdb.std.Rnd;
 import org.jetbrains.annotations.Nullable;
 
@@ -109,7 +111,11 @@ public final class AllowAllSqlSecurityContext {
                 @Nullable RecordSink partitionBySink,
                 @Nullable ColumnTypes keyTypes,
                 boolean isOrdered,
-                boolean baseSupportsRandomAccess
+                boolean baseSupportsRandomAccess,
+                @Nullable RecordComparator orderByComparator,
+                int timestampIndex,
+                int framingMode,
+                long rowsLo
         ) {
         }
 
@@ -140,5 +146,10 @@ public final class AllowAllSqlSecurityContext {
         public boolean getCloneSymbolTables() {
             return false;
         }
+
+        @Override
+        public NativeArena getArena() {
+            return null;
+        }
     };
 }
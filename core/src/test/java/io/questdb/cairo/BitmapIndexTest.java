@@ -1032,6 +1032,112 @@ public class BitmapIndexTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testCursorRangeSeekAfterAppendAndRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(configuration, path.trimTo(plen), "x", 4);
+
+            final LongList values0 = new LongList();
+            final LongList values1 = new LongList();
+            try (
+                    BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE);
+                    BitmapIndexFwdReader fwdReader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, 0);
+                    BitmapIndexBwdReader bwdReader = new BitmapIndexBwdReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, 0)
+            ) {
+                // keys interleave their blocks in value memory
+                for (int i = 0; i < 200; i++) {
+                    writer.add(i % 3 == 0 ? 1 : 0, i);
+                    (i % 3 == 0 ? values1 : values0).add(i);
+                }
+                assertCursorRange(fwdReader, bwdReader, 0, values0);
+                assertCursorRange(fwdReader, bwdReader, 1, values1);
+
+                // block directory is extended with appended blocks
+                for (int i = 200; i < 400; i++) {
+                    writer.add(i % 2, i);
+                    (i % 2 == 0 ? values0 : values1).add(i);
+                }
+                assertCursorRange(fwdReader, bwdReader, 0, values0);
+                assertCursorRange(fwdReader, bwdReader, 1, values1);
+
+                // rolled back blocks are reallocated and block directory has to be rebuilt
+                writer.rollbackValues(99);
+                trim(values0, 99);
+                trim(values1, 99);
+                for (int i = 100; i < 500; i++) {
+                    writer.add(i % 5 == 0 ? 0 : 1, i);
+                    (i % 5 == 0 ? values0 : values1).add(i);
+                }
+                assertCursorRange(fwdReader, bwdReader, 0, values0);
+                assertCursorRange(fwdReader, bwdReader, 1, values1);
+            }
+        });
+    }
+
+    @Test
+    public void testCursorRangeSeek() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(configuration, path.trimTo(plen), "x", 4);
+
+            final int keyCount = 5;
+            final Rnd rnd = new Rnd();
+            final ObjList<LongList> values = new ObjList<>();
+            for (int i = 0; i < keyCount; i++) {
+                values.add(new LongList());
+            }
+            try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE)) {
+                for (int i = 0; i < 2000; i++) {
+                    // keys are skewed, some values are repeated
+                    final int key = Math.min(rnd.nextInt(keyCount), rnd.nextInt(keyCount));
+                    final int repeat = rnd.nextInt(10) == 0 ? 3 : 1;
+                    for (int j = 0; j < repeat; j++) {
+                        writer.add(key, i);
+                        values.getQuick(key).add(i);
+                    }
+                }
+            }
+
+            final LongList expected = new LongList();
+            final LongList actual = new LongList();
+            try (
+                    BitmapIndexFwdReader fwdReader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, 0);
+                    BitmapIndexBwdReader bwdReader = new BitmapIndexBwdReader(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE, 0)
+            ) {
+                for (int i = 0; i < 5000; i++) {
+                    final int key = rnd.nextInt(keyCount);
+                    final long min = rnd.nextInt(2100) - 50;
+                    final long max = min + rnd.nextInt(i % 2 == 0 ? 20 : 2000);
+
+                    expected.clear();
+                    final LongList keyValues = values.getQuick(key);
+                    for (int j = 0, n = keyValues.size(); j < n; j++) {
+                        final long value = keyValues.getQuick(j);
+                        if (value >= min && value <= max) {
+                            expected.add(value);
+                        }
+                    }
+
+                    actual.clear();
+                    RowCursor cursor = fwdReader.getCursor(true, key, min, max);
+                    while (cursor.hasNext()) {
+                        actual.add(cursor.next());
+                    }
+                    TestUtils.assertEquals(expected, actual);
+
+                    // backward reader requires non-negative range
+                    if (min >= 0) {
+                        cursor = bwdReader.getCursor(true, key, min, max);
+                        for (int j = expected.size() - 1; j > -1; j--) {
+                            Assert.assertTrue(cursor.hasNext());
+                            Assert.assertEquals(expected.getQuick(j), cursor.next());
+                        }
+                        Assert.assertFalse(cursor.hasNext());
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testEmptyBackwardCursor() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -1439,6 +1545,35 @@ public class BitmapIndexTest extends AbstractCairoTest {
         });
     }
 
+    private static void assertCursorRange(BitmapIndexFwdReader fwdReader, BitmapIndexBwdReader bwdReader, int key, LongList values) {
+        final LongList expected = new LongList();
+        for (long min = 0; min < 520; min += 13) {
+            for (long max = min; max < 520; max += 37) {
+                expected.clear();
+                for (int i = 0, n = values.size(); i < n; i++) {
+                    final long value = values.getQuick(i);
+                    if (value >= min && value <= max) {
+                        expected.add(value);
+                    }
+                }
+
+                RowCursor cursor = fwdReader.getCursor(true, key, min, max);
+                for (int i = 0, n = expected.size(); i < n; i++) {
+                    Assert.assertTrue(cursor.hasNext());
+                    Assert.assertEquals(expected.getQuick(i), cursor.next());
+                }
+                Assert.assertFalse(cursor.hasNext());
+
+                cursor = bwdReader.getCursor(true, key, min, max);
+                for (int i = expected.size() - 1; i > -1; i--) {
+                    Assert.assertTrue(cursor.hasNext());
+                    Assert.assertEquals(expected.getQuick(i), cursor.next());
+                }
+                Assert.assertFalse(cursor.hasNext());
+            }
+        }
+    }
+
     private static void indexInts(MemorySRImpl srcMem, BitmapIndexWriter writer, long hi) {
         srcMem.updateSize();
         for (long r = 0L; r < hi; r++) {
@@ -1447,6 +1582,14 @@ public class BitmapIndexTest extends AbstractCairoTest {
         }
     }
 
+    private static void trim(LongList values, long maxValue) {
+        int n = values.size();
+        while (n > 0 && values.getQuick(n - 1) > maxValue) {
+            n--;
+        }
+        values.setPos(n);
+    }
+
     private void writeTripleValues(int N) {
         try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), "x", COLUMN_NAME_TXN_NONE)) {
             for (int i = 0; i < N; i++) {
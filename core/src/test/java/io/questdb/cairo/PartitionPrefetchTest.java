@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBusImpl;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PartitionPrefetchTest extends AbstractGriffinTest {
+
+    @Test
+    public void testPrefetchDisabledByDefault() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (TableReader reader = new TableReader(configuration, "x", engine.getMessageBus())) {
+                reader.openPartition(0);
+                reader.prefetchPartition(1);
+                Assert.assertFalse(new PartitionPrefetchJob(engine.getMessageBus()).run(0));
+            }
+        });
+    }
+
+    @Test
+    public void testPrefetchNextPartition() throws Exception {
+        final AtomicInteger fadviseCount = new AtomicInteger();
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public int fadvise(long fd, long offset, long len, int advice) {
+                Assert.assertEquals(Files.POSIX_FADV_WILLNEED, advice);
+                fadviseCount.incrementAndGet();
+                return super.fadvise(fd, offset, len, advice);
+            }
+        };
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public FilesFacade getFilesFacade() {
+                return ff;
+            }
+
+            @Override
+            public boolean isSqlPartitionPrefetchEnabled() {
+                return true;
+            }
+        };
+
+        assertMemoryLeak(() -> {
+            createTable();
+            try (
+                    MessageBusImpl messageBus = new MessageBusImpl(configuration);
+                    TableReader reader = new TableReader(configuration, "x", messageBus)
+            ) {
+                final PartitionPrefetchJob job = new PartitionPrefetchJob(messageBus);
+                reader.openPartition(0);
+
+                // open partition, out of range partitions are ignored
+                reader.prefetchPartition(0);
+                reader.prefetchPartition(-1);
+                reader.prefetchPartition(3);
+                Assert.assertFalse(job.run(0));
+                Assert.assertEquals(0, fadviseCount.get());
+
+                reader.prefetchPartition(1);
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+                Assert.assertEquals(countFiles("x", "2022-01-02"), fadviseCount.get());
+            }
+        });
+    }
+
+    @Test
+    public void testRandomAccessHintOnIndexLookup() throws Exception {
+        final AtomicInteger randomCount = new AtomicInteger();
+        assertMemoryLeak(new FilesFacadeImpl() {
+            @Override
+            public int madvise(long address, long len, int advice) {
+                if (advice == Files.POSIX_MADV_RANDOM) {
+                    randomCount.incrementAndGet();
+                }
+                return super.madvise(address, len, advice);
+            }
+        }, () -> {
+            createTable();
+            assertSql(
+                    "select count() from x where sym in ('a', 'b')",
+                    "count\n" +
+                            "72\n"
+            );
+            Assert.assertTrue(randomCount.get() > 0);
+        });
+    }
+
+    @Test
+    public void testSequentialHintOnFullScan() throws Exception {
+        final AtomicInteger sequentialCount = new AtomicInteger();
+        assertMemoryLeak(new FilesFacadeImpl() {
+            @Override
+            public int madvise(long address, long len, int advice) {
+                if (advice == Files.POSIX_MADV_SEQUENTIAL) {
+                    sequentialCount.incrementAndGet();
+                }
+                return super.madvise(address, len, advice);
+            }
+        }, () -> {
+            createTable();
+            assertSql(
+                    "select sum(i) from x",
+                    "sum\n" +
+                            "2628\n"
+            );
+            // three partitions, each with three mapped columns
+            Assert.assertTrue(sequentialCount.get() >= 9);
+        });
+    }
+
+    private static int countFiles(String tableName, String partitionName) {
+        final AtomicInteger count = new AtomicInteger();
+        try (Path path = new Path().of(root).concat(tableName).concat(partitionName).$()) {
+            FilesFacadeImpl.INSTANCE.iterateDir(path, (pUtf8NameZ, type) -> {
+                if (type == Files.DT_FILE) {
+                    count.incrementAndGet();
+                }
+            });
+        }
+        return count.get();
+    }
+
+    private void createTable() throws Exception {
+        compile(
+                "create table x as (" +
+                        "select cast(x as int) i, rnd_symbol('a','b') sym, timestamp_sequence('2022-01-01', 3600000000) ts" +
+                        " from long_sequence(72)" +
+                        "), index(sym) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -266,6 +266,53 @@ public class SymbolMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testReaderSharedCache() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (Path path = new Path().of(configuration.getRoot())) {
+                create(path, "x", 16, true);
+
+                int[] keys = new int[16];
+                try (SymbolMapWriter writer = new SymbolMapWriter(configuration, path, "x", COLUMN_NAME_TXN_NONE, 0, -1, NOOP_COLLECTOR)) {
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = writer.put("key" + i);
+                    }
+                }
+
+                final SymbolValueCachePool pool = new SymbolValueCachePool();
+                try (
+                        SymbolMapReaderImpl reader1 = new SymbolMapReaderImpl(configuration, path, "x", COLUMN_NAME_TXN_NONE, keys.length, pool, 1, 0);
+                        SymbolMapReaderImpl reader2 = new SymbolMapReaderImpl(configuration, path, "x", COLUMN_NAME_TXN_NONE, keys.length, pool, 1, 0);
+                        SymbolMapReaderImpl reader3 = new SymbolMapReaderImpl(configuration, path, "x", COLUMN_NAME_TXN_NONE, keys.length, pool, 2, 0);
+                        SymbolMapReaderImpl reader4 = new SymbolMapReaderImpl(configuration, path, "x", COLUMN_NAME_TXN_NONE, keys.length, pool, 1, 1)
+                ) {
+                    // same table id, truncate version and column version share the cache
+                    Assert.assertEquals(3, pool.getCacheCount());
+                    for (int i = 0; i < keys.length; i++) {
+                        final CharSequence value = reader1.valueOf(keys[i]);
+                        TestUtils.assertEquals("key" + i, value);
+                        Assert.assertSame(value, reader2.valueOf(keys[i]));
+                        Assert.assertNotSame(value, reader3.valueOf(keys[i]));
+                        Assert.assertNotSame(value, reader4.valueOf(keys[i]));
+                        Assert.assertEquals(keys[i], reader2.keyOf("key" + i));
+                    }
+                    Assert.assertEquals(0, reader1.getCacheSize());
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader1.keyOf("key"));
+                    Assert.assertEquals(SymbolTable.VALUE_NOT_FOUND, reader1.keyOf("key160"));
+
+                    // rollback seen by one reader drops shared values of rolled back keys
+                    final int last = keys[keys.length - 1];
+                    final CharSequence value = reader2.valueOf(last);
+                    reader1.updateSymbolCount(keys.length / 2);
+                    Assert.assertNull(reader1.valueOf(last));
+                    Assert.assertNotSame(value, reader2.valueOf(last));
+                    TestUtils.assertEquals(value, reader2.valueOf(last));
+                }
+                Assert.assertEquals(0, pool.getCacheCount());
+            }
+        });
+    }
+
     @Test
     public void testRollback() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
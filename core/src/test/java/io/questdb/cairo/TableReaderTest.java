@@ -2464,6 +2464,71 @@ public class TableReaderTest extends AbstractCairoTest {
         testReload(PartitionBy.DAY, 10, 60L * 60000, MUST_NOT_SWITCH);
     }
 
+    @Test
+    public void testReloadLastPartitionGrowthOpensNoFiles() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        ff = new FilesFacadeImpl() {
+            @Override
+            public long openRO(LPSZ name) {
+                openCount.incrementAndGet();
+                return super.openRO(name);
+            }
+        };
+        assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY).col("s", ColumnType.SYMBOL).col("l", ColumnType.LONG).timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            try (
+                    TableWriter writer = new TableWriter(configuration, "x", metrics);
+                    TableReader reader = new TableReader(configuration, "x")
+            ) {
+                TableWriter.Row r = writer.newRow(0);
+                r.putSym(0, "a");
+                r.putLong(1, 0);
+                r.append();
+                writer.commit();
+                Assert.assertTrue(reader.reload());
+                // map columns of the partition
+                RecordCursor cursor = reader.getCursor();
+                while (cursor.hasNext()) {
+                    Assert.assertEquals(0, cursor.getRecord().getLong(1));
+                }
+
+                openCount.set(0);
+                for (int i = 1; i < 5; i++) {
+                    r = writer.newRow(i * Timestamps.SECOND_MICROS);
+                    r.putSym(0, i % 2 == 0 ? "a" : "b");
+                    r.putLong(1, i);
+                    r.append();
+                    writer.commit();
+                    Assert.assertTrue(reader.reload());
+                }
+                for (int i = 5; i < 10; i++) {
+                    r = writer.newRow(i * Timestamps.SECOND_MICROS);
+                    r.putSym(0, i % 2 == 0 ? "a" : "b");
+                    r.putLong(1, i);
+                    r.append();
+                    writer.commit();
+                    Assert.assertTrue(reader.reload());
+                }
+                Assert.assertEquals(0, openCount.get());
+
+                Assert.assertEquals(10, reader.size());
+                Assert.assertEquals(1, reader.getSymbolMapReader(0).keyOf("b"));
+                cursor = reader.getCursor();
+                long expected = 0;
+                while (cursor.hasNext()) {
+                    Record record = cursor.getRecord();
+                    Assert.assertEquals(expected, record.getLong(1));
+                    TestUtils.assertEquals(expected % 2 == 0 ? "a" : "b", record.getSym(0));
+                    expected++;
+                }
+                Assert.assertEquals(10, expected);
+            }
+        });
+    }
+
     @Test
     public void testReloadNonPartitioned() throws Exception {
         testReload(PartitionBy.NONE, 10, 60L * 60000, DONT_CARE);
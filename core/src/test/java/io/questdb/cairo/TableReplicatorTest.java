@@ -0,0 +1,218 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.CompiledQuery;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableReplicatorTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddColumnAndNewSymbols() throws Exception {
+        assertReplication(
+                "create table x as (" +
+                        "select x, rnd_symbol('a','b','c') sym, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(30)" +
+                        ") timestamp(ts) partition by DAY",
+                "alter table x add column s string",
+                "alter table x add column k symbol index",
+                "insert into x select x + 30, rnd_symbol('d','e'), timestamp_sequence('2022-01-02T06', 3600000000), rnd_str(3,5,1), rnd_symbol('k1','k2',null) from long_sequence(20)"
+        );
+    }
+
+    @Test
+    public void testAppendToLastPartition() throws Exception {
+        assertReplication(
+                "create table x as (" +
+                        "select x, rnd_symbol('a','b','c') sym, rnd_str(2,4,1) s, rnd_bin(2,6,1) bin, timestamp_sequence('2022-01-01', 1800000000) ts from long_sequence(30)" +
+                        ") timestamp(ts) partition by DAY",
+                "insert into x select x + 30, rnd_symbol('a','b','c'), rnd_str(2,4,1), rnd_bin(2,6,1), timestamp_sequence('2022-01-01T16', 60000000) from long_sequence(10)",
+                "insert into x select x + 40, rnd_symbol('a','b','c'), rnd_str(2,4,1), rnd_bin(2,6,1), timestamp_sequence('2022-01-01T17', 60000000) from long_sequence(10)",
+                "insert into x select x + 50, rnd_symbol('a','b','c'), rnd_str(2,4,1), rnd_bin(2,6,1), timestamp_sequence('2022-01-02T00', 60000000) from long_sequence(10)"
+        );
+    }
+
+    @Test
+    public void testFollowerIsReadableWhileReplicating() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine followerEngine = new CairoEngine(new DefaultCairoConfiguration(temp.newFolder().getAbsolutePath()));
+                    TableReplicator replicator = new TableReplicator(engine, followerEngine)
+            ) {
+                compile("create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(10)) timestamp(ts) partition by DAY", sqlExecutionContext);
+                Assert.assertTrue(replicator.sync("x"));
+                try (TableReader reader = followerEngine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(10, reader.size());
+                    execute("insert into x select x + 10, timestamp_sequence('2022-01-01T10', 3600000000) from long_sequence(20)");
+                    Assert.assertTrue(replicator.sync("x"));
+                    Assert.assertEquals(10, reader.size());
+                    Assert.assertTrue(reader.reload());
+                    Assert.assertEquals(30, reader.size());
+                }
+                Assert.assertFalse(replicator.sync("x"));
+            }
+        });
+    }
+
+    @Test
+    public void testMasterWriterHeld() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine followerEngine = new CairoEngine(new DefaultCairoConfiguration(temp.newFolder().getAbsolutePath()));
+                    TableReplicator replicator = new TableReplicator(engine, followerEngine)
+            ) {
+                compile("create table x as (select x, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(10)) timestamp(ts) partition by DAY", sqlExecutionContext);
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                    Assert.assertTrue(replicator.sync("x"));
+                    for (int i = 0; i < 30; i++) {
+                        TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp("2022-01-01T10:00:00.000000Z") + i * 3600000000L);
+                        row.putLong(0, 11 + i);
+                        row.append();
+                        if (i == 19) {
+                            writer.commit();
+                        }
+                    }
+                    // uncommitted rows stay on master
+                    Assert.assertTrue(replicator.sync("x"));
+                    try (TableReader reader = followerEngine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        Assert.assertEquals(30, reader.size());
+                    }
+                    writer.commit();
+                    Assert.assertTrue(replicator.sync("x"));
+                    try (TableReader reader = followerEngine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        Assert.assertEquals(40, reader.size());
+                    }
+                }
+                Assert.assertFalse(replicator.sync("x"));
+            }
+        });
+    }
+
+    @Test
+    public void testNonPartitionedTableRejected() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine followerEngine = new CairoEngine(new DefaultCairoConfiguration(temp.newFolder().getAbsolutePath()));
+                    TableReplicator replicator = new TableReplicator(engine, followerEngine)
+            ) {
+                compile("create table x as (select x from long_sequence(10))", sqlExecutionContext);
+                try {
+                    replicator.sync("x");
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "replication requires partitioned table");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderRewritesPartition() throws Exception {
+        assertReplication(
+                "create table x as (" +
+                        "select x, rnd_symbol('a','b','c') sym, rnd_str(2,4,1) s, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(72)" +
+                        ") timestamp(ts) partition by DAY",
+                "insert into x select x + 100, rnd_symbol('a','b','z'), rnd_str(2,4,1), timestamp_sequence('2022-01-01T00:30', 7200000000) from long_sequence(10)",
+                "insert into x select x + 200, rnd_symbol('a','b','z'), rnd_str(2,4,1), timestamp_sequence('2022-01-02T00:30', 60000000) from long_sequence(10)"
+        );
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        assertReplication(
+                "create table x as (" +
+                        "select x, rnd_symbol('a','b','c') sym, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(50)" +
+                        ") timestamp(ts) partition by DAY",
+                "truncate table x",
+                "insert into x select x, rnd_symbol('d','e'), timestamp_sequence('2022-02-01', 3600000000) from long_sequence(30)"
+        );
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertReplication(
+                "create table x as (" +
+                        "select x, rnd_double() d, timestamp_sequence('2022-01-01', 3600000000) ts from long_sequence(50)" +
+                        ") timestamp(ts) partition by DAY",
+                "update x set d = 42.0 where x % 5 = 0"
+        );
+    }
+
+    private static String select(SqlCompiler compiler, SqlExecutionContext executionContext) throws SqlException {
+        final StringSink sink = new StringSink();
+        TestUtils.printSql(compiler, executionContext, "x", sink);
+        return sink.toString();
+    }
+
+    private static void execute(String statement) throws SqlException {
+        final CompiledQuery cq = compiler.compile(statement, sqlExecutionContext);
+        if (cq.getType() == CompiledQuery.UPDATE) {
+            try (
+                    UpdateOperation op = cq.getUpdateOperation();
+                    OperationFuture future = cq.getDispatcher().execute(op, sqlExecutionContext, null)
+            ) {
+                future.await();
+            }
+        } else {
+            try (OperationFuture future = cq.execute(null)) {
+                future.await();
+            }
+        }
+    }
+
+    private void assertReplication(String ddl, String... statements) throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    CairoEngine followerEngine = new CairoEngine(new DefaultCairoConfiguration(temp.newFolder().getAbsolutePath()));
+                    SqlCompiler followerCompiler = new SqlCompiler(followerEngine);
+                    TableReplicator replicator = new TableReplicator(engine, followerEngine)
+            ) {
+                final SqlExecutionContextImpl followerContext = new SqlExecutionContextImpl(followerEngine, 1);
+                compile(ddl, sqlExecutionContext);
+                Assert.assertTrue(replicator.sync("x"));
+                TestUtils.assertEquals(select(compiler, sqlExecutionContext), select(followerCompiler, followerContext));
+
+                for (int i = 0, n = statements.length; i < n; i++) {
+                    execute(statements[i]);
+                    Assert.assertTrue(replicator.sync("x"));
+                    TestUtils.assertEquals(select(compiler, sqlExecutionContext), select(followerCompiler, followerContext));
+                    Assert.assertFalse(replicator.sync("x"));
+                }
+            }
+        });
+    }
+}
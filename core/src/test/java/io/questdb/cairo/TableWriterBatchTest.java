@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.Misc;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableWriterBatchTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAppendBatchInOrderAcrossPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (i int, sym symbol, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test");
+                    BatchData data = new BatchData()
+            ) {
+                final long start = TimestampFormatUtils.parseTimestamp("2022-01-01T20:00:00.000000Z");
+                final String[] syms = {"a", "b", null};
+                for (int r = 0; r < 6; r++) {
+                    data.ints.putInt(r);
+                    data.syms.putInt(writer.resolveSymbol(1, syms[r % 3]));
+                    data.strOffsets.putLong(data.strs.putStr(r == 2 ? null : "s" + r));
+                    data.timestamps.putLong(start + r * 2 * Timestamps.HOUR_MICROS);
+                }
+                writer.appendBatch(data.of(6, true));
+                writer.commit();
+                Assert.assertEquals(2, writer.getPartitionCount());
+            }
+
+            assertSql(
+                    "x",
+                    "i\tsym\ts\tts\n" +
+                            "0\ta\ts0\t2022-01-01T20:00:00.000000Z\n" +
+                            "1\tb\ts1\t2022-01-01T22:00:00.000000Z\n" +
+                            "2\t\t\t2022-01-02T00:00:00.000000Z\n" +
+                            "3\ta\ts3\t2022-01-02T02:00:00.000000Z\n" +
+                            "4\tb\ts4\t2022-01-02T04:00:00.000000Z\n" +
+                            "5\t\ts5\t2022-01-02T06:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendBatchMissingColumnIsNull() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (i int, l long, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test");
+                    BatchData data = new BatchData()
+            ) {
+                for (int r = 0; r < 3; r++) {
+                    data.ints.putInt(r);
+                    data.timestamps.putLong(r * Timestamps.SECOND_MICROS);
+                }
+                writer.appendBatch(
+                        data.batch.of(3)
+                                .putColumn(0, data.ints.getAddress())
+                                .putColumn(2, data.timestamps.getAddress())
+                );
+                writer.commit();
+            }
+
+            assertSql(
+                    "x",
+                    "i\tl\tts\n" +
+                            "0\tNaN\t1970-01-01T00:00:00.000000Z\n" +
+                            "1\tNaN\t1970-01-01T00:00:01.000000Z\n" +
+                            "2\tNaN\t1970-01-01T00:00:02.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendBatchMissingTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test");
+                    BatchData data = new BatchData()
+            ) {
+                data.ints.putInt(1);
+                try {
+                    writer.appendBatch(data.batch.of(1).putColumn(0, data.ints.getAddress()));
+                    Assert.fail();
+                } catch (CairoException e) {
+                    Assert.assertTrue(e.getMessage().contains("designated timestamp column is missing in batch"));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testAppendBatchNoTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (i int, sym symbol, s string)", sqlExecutionContext);
+            try (
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test");
+                    BatchData data = new BatchData()
+            ) {
+                for (int b = 0; b < 2; b++) {
+                    data.clear();
+                    for (int r = 0; r < 2; r++) {
+                        data.ints.putInt(b * 2 + r);
+                        data.syms.putInt(writer.resolveSymbol(1, "k" + r));
+                        data.strOffsets.putLong(data.strs.putStr("v" + b));
+                    }
+                    writer.appendBatch(data.of(2, false));
+                }
+                writer.commit();
+            }
+
+            assertSql(
+                    "x",
+                    "i\tsym\ts\n" +
+                            "0\tk0\tv0\n" +
+                            "1\tk1\tv0\n" +
+                            "2\tk0\tv1\n" +
+                            "3\tk1\tv1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAppendBatchOutOfOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (i int, sym symbol, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values (100, 'z', 'old', '2022-01-01T12:00:00.000000Z')");
+            try (
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test");
+                    BatchData data = new BatchData()
+            ) {
+                final long start = TimestampFormatUtils.parseTimestamp("2022-01-01T00:00:00.000000Z");
+                final int[] hours = {13, 14, 11, 15, 10, 16};
+                for (int r = 0; r < hours.length; r++) {
+                    data.ints.putInt(r);
+                    data.syms.putInt(writer.resolveSymbol(1, r % 2 == 0 ? "a" : "b"));
+                    data.strOffsets.putLong(data.strs.putStr("s" + r));
+                    data.timestamps.putLong(start + hours[r] * Timestamps.HOUR_MICROS);
+                }
+                writer.appendBatch(data.of(hours.length, true));
+                writer.commit();
+            }
+
+            assertSql(
+                    "x",
+                    "i\tsym\ts\tts\n" +
+                            "4\ta\ts4\t2022-01-01T10:00:00.000000Z\n" +
+                            "2\ta\ts2\t2022-01-01T11:00:00.000000Z\n" +
+                            "100\tz\told\t2022-01-01T12:00:00.000000Z\n" +
+                            "0\ta\ts0\t2022-01-01T13:00:00.000000Z\n" +
+                            "1\tb\ts1\t2022-01-01T14:00:00.000000Z\n" +
+                            "3\tb\ts3\t2022-01-01T15:00:00.000000Z\n" +
+                            "5\tb\ts5\t2022-01-01T16:00:00.000000Z\n"
+            );
+        });
+    }
+
+    private static class BatchData implements AutoCloseable {
+        private final ColumnBatch batch = new ColumnBatch();
+        private final MemoryCARW ints = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW syms = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW strs = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW strOffsets = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+        private final MemoryCARW timestamps = Vm.getCARWInstance(1024, Integer.MAX_VALUE, MemoryTag.NATIVE_DEFAULT);
+
+        BatchData() {
+            strOffsets.putLong(0);
+        }
+
+        @Override
+        public void close() {
+            Misc.free(ints);
+            Misc.free(syms);
+            Misc.free(strs);
+            Misc.free(strOffsets);
+            Misc.free(timestamps);
+        }
+
+        void clear() {
+            ints.jumpTo(0);
+            syms.jumpTo(0);
+            strs.jumpTo(0);
+            strOffsets.jumpTo(0);
+            strOffsets.putLong(0);
+            timestamps.jumpTo(0);
+        }
+
+        ColumnBatch of(long rowCount, boolean withTimestamp) {
+            batch.of(rowCount)
+                    .putColumn(0, ints.getAddress())
+                    .putColumn(1, syms.getAddress())
+                    .putVarColumn(2, strs.getAddress(), strOffsets.getAddress());
+            if (withTimestamp) {
+                batch.putColumn(3, timestamps.getAddress());
+            }
+            return batch;
+        }
+    }
+}
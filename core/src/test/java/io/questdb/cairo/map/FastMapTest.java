@@ -178,6 +178,48 @@ public class FastMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testLookupKey() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Rnd rnd = new Rnd();
+            int N = 1000;
+            try (
+                    FastMap map = new FastMap(
+                            Numbers.SIZE_1MB,
+                            new SingleColumnType(ColumnType.STRING),
+                            new SingleColumnType(ColumnType.LONG),
+                            N / 2,
+                            0.5f,
+                            Integer.MAX_VALUE
+                    );
+                    FastMap.LookupKey lookupKey = map.newLookupKey()
+            ) {
+                ObjList<String> keys = new ObjList<>();
+                for (int i = 0; i < N; i++) {
+                    // long keys make lookup key grow its memory
+                    CharSequence s = rnd.nextChars(i % 2 == 0 ? 11 : 300);
+                    keys.add(s.toString());
+                    MapKey key = map.withKey();
+                    key.putStr(s);
+                    key.createValue().putLong(0, i);
+                }
+                final long memUsed = map.getMemUsed();
+
+                for (int i = 0; i < N; i++) {
+                    lookupKey.init().putStr(keys.getQuick(i));
+                    MapValue value = map.findValue(lookupKey, lookupKey.hash());
+                    Assert.assertNotNull(value);
+                    Assert.assertEquals(i, value.getLong(0));
+                }
+
+                lookupKey.init().putStr("not a key");
+                Assert.assertNull(lookupKey.findValue());
+                Assert.assertEquals(N, map.size());
+                Assert.assertEquals(memUsed, map.getMemUsed());
+            }
+        });
+    }
+
     @Test
     public void testAppendUnique() throws Exception {
         testAppendUnique(3);
@@ -776,6 +776,95 @@ public class ReaderPoolTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testPinnedReaders() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public long openRO(LPSZ name) {
+                openCount.incrementAndGet();
+                return super.openRO(name);
+            }
+        };
+        final CharSequenceIntHashMap pinnedTables = new CharSequenceIntHashMap();
+        pinnedTables.put("u", 2);
+        pinnedTables.put("missing", 1);
+
+        assertWithPool(pool -> {
+            final AtomicInteger createCount = new AtomicInteger();
+            final AtomicInteger expireCount = new AtomicInteger();
+            pool.setPoolListener((factoryType, thread, name, event, segment, position) -> {
+                if (event == PoolListener.EV_CREATE) {
+                    createCount.incrementAndGet();
+                } else if (event == PoolListener.EV_EXPIRE) {
+                    expireCount.incrementAndGet();
+                }
+            });
+
+            // warm-up opens pinned readers, missing table is logged and skipped
+            Assert.assertTrue(pool.refreshPinnedReaders());
+            Assert.assertEquals(2, createCount.get());
+            Assert.assertFalse(pool.refreshPinnedReaders());
+
+            try (TableWriter writer = new TableWriter(configuration, "u", metrics)) {
+                writer.setCommitListener(pool);
+                writer.addColumn("x", ColumnType.INT);
+                for (int i = 0; i < 10; i++) {
+                    TableWriter.Row row = writer.newRow();
+                    row.putDate(0, i);
+                    row.putInt(1, i);
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            // commit notification reloads idle pinned readers in the background
+            Assert.assertTrue(pool.refreshPinnedReaders());
+            Assert.assertFalse(pool.refreshPinnedReaders());
+
+            openCount.set(0);
+            try (
+                    TableReader reader1 = pool.get("u");
+                    TableReader reader2 = pool.get("u")
+            ) {
+                Assert.assertEquals(0, openCount.get());
+                Assert.assertEquals(10, reader1.size());
+                Assert.assertEquals(10, reader2.size());
+                Assert.assertEquals(2, reader2.getMetadata().getColumnCount());
+
+                // third reader is opened on demand
+                try (TableReader reader3 = pool.get("u")) {
+                    Assert.assertEquals(10, reader3.size());
+                }
+            }
+            Assert.assertEquals(3, createCount.get());
+
+            // pinned readers outlive inactive reader ttl
+            Assert.assertTrue(pool.releaseInactive());
+            Assert.assertEquals(1, expireCount.get());
+            openCount.set(0);
+            try (TableReader reader = pool.get("u")) {
+                Assert.assertEquals(10, reader.size());
+            }
+            Assert.assertEquals(0, openCount.get());
+        }, new DefaultCairoConfiguration(root) {
+            @Override
+            public FilesFacade getFilesFacade() {
+                return ff;
+            }
+
+            @Override
+            public long getInactiveReaderTTL() {
+                return -10_000;
+            }
+
+            @Override
+            public CharSequenceIntHashMap getReaderPoolPinnedTables() {
+                return pinnedTables;
+            }
+        });
+    }
+
     @Test
     public void testReaderDoubleClose() throws Exception {
         assertWithPool(pool -> {
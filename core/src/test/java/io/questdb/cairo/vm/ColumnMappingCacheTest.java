@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnMappingCacheTest extends AbstractCairoTest {
+
+    @Test
+    public void testExtendHeldByOneGrowsInPlace() throws Exception {
+        assertMemoryLeak(() -> {
+            final FilesFacade ff = FilesFacadeImpl.INSTANCE;
+            final ColumnMappingCache cache = new ColumnMappingCache();
+            try (Path path = new Path().of(root).concat("x.d").$()) {
+                writeLongs(ff, path, 1024);
+                final ColumnMappingCache.Mapping mapping = cache.acquire(ff, "k", path, 8 * 16, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertSame(mapping, cache.extend(mapping, 8 * 1024));
+                Assert.assertEquals(8 * 1024, mapping.getSize());
+                Assert.assertEquals(1023, getLong(mapping, 1023));
+                Assert.assertEquals(1, cache.getMappingCount());
+                cache.release(mapping);
+                Assert.assertEquals(0, cache.getMappingCount());
+            }
+        });
+    }
+
+    @Test
+    public void testReadersShareMapping() throws Exception {
+        assertMemoryLeak(() -> {
+            final FilesFacade ff = FilesFacadeImpl.INSTANCE;
+            final ColumnMappingCache cache = new ColumnMappingCache();
+            try (Path path = new Path().of(root).concat("x.d").$()) {
+                writeLongs(ff, path, 1024);
+                final ColumnMappingCache.Mapping mapping1 = cache.acquire(ff, "k", path, 8 * 512, MemoryTag.MMAP_TABLE_READER);
+                // smaller or equal size is served by existing mapping
+                final ColumnMappingCache.Mapping mapping2 = cache.acquire(ff, "k", path, 8 * 16, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertSame(mapping1, mapping2);
+                Assert.assertEquals(1, cache.getMappingCount());
+
+                // another key is another mapping
+                final ColumnMappingCache.Mapping other = cache.acquire(ff, "j", path, 8 * 16, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertNotSame(mapping1, other);
+                Assert.assertEquals(2, cache.getMappingCount());
+                cache.release(other);
+
+                // shared mapping does not move, larger mapping replaces it in the cache
+                final long address = mapping1.getAddress();
+                final ColumnMappingCache.Mapping mapping3 = cache.extend(mapping2, 8 * 1024);
+                Assert.assertNotSame(mapping1, mapping3);
+                Assert.assertEquals(address, mapping1.getAddress());
+                Assert.assertEquals(8 * 512, mapping1.getSize());
+                Assert.assertEquals(2, cache.getMappingCount());
+                Assert.assertEquals(511, getLong(mapping1, 511));
+                Assert.assertEquals(1023, getLong(mapping3, 1023));
+
+                Assert.assertSame(mapping3, cache.acquire(ff, "k", path, 8 * 1024, MemoryTag.MMAP_TABLE_READER));
+                cache.release(mapping3);
+                // holder of the old mapping catches up with the larger one
+                Assert.assertSame(mapping3, cache.extend(mapping1, 8 * 1000));
+                Assert.assertEquals(1, cache.getMappingCount());
+                cache.release(mapping3);
+                cache.release(mapping3);
+                Assert.assertEquals(0, cache.getMappingCount());
+            }
+        });
+    }
+
+    @Test
+    public void testSharedMemory() throws Exception {
+        assertMemoryLeak(() -> {
+            final FilesFacade ff = FilesFacadeImpl.INSTANCE;
+            final ColumnMappingCache cache = new ColumnMappingCache();
+            try (
+                    Path path = new Path().of(root).concat("x.d").$();
+                    SharedMemoryCMR mem1 = new SharedMemoryCMR(cache);
+                    SharedMemoryCMR mem2 = new SharedMemoryCMR(cache)
+            ) {
+                writeLongs(ff, path, 1024);
+                mem1.of("1:", ff, path, 8 * 100, MemoryTag.MMAP_TABLE_READER);
+                mem2.of("1:", ff, path, 8 * 100, MemoryTag.MMAP_TABLE_READER);
+                Assert.assertEquals(mem1.getPageAddress(0), mem2.getPageAddress(0));
+                Assert.assertEquals(1, cache.getMappingCount());
+
+                mem2.extend(8 * 1024);
+                Assert.assertEquals(2, cache.getMappingCount());
+                Assert.assertEquals(99, mem1.getLong(8 * 99));
+                Assert.assertEquals(1023, mem2.getLong(8 * 1023));
+
+                mem1.close();
+                Assert.assertEquals(1, cache.getMappingCount());
+                mem2.close();
+                Assert.assertEquals(0, cache.getMappingCount());
+            }
+        });
+    }
+
+    private static long getLong(ColumnMappingCache.Mapping mapping, long index) {
+        return Unsafe.getUnsafe().getLong(mapping.getAddress() + index * 8);
+    }
+
+    private static void writeLongs(FilesFacade ff, Path path, int count) {
+        try (MemoryCMARW mem = Vm.getCMARWInstance(ff, path, ff.getPageSize(), -1, MemoryTag.MMAP_DEFAULT, CairoConfiguration.O_NONE)) {
+            for (int i = 0; i < count; i++) {
+                mem.putLong(i);
+            }
+        }
+    }
+}
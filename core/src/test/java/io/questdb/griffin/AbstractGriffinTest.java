@@ -278,6 +278,22 @@ public class AbstractGriffinTest extends AbstractCairoTest {
     public static void tearDownStatic() {
         AbstractCairoTest.tearDownStatic();
         compiler.close();
+        sqlExecutionContext.close();
+    }
+
+    protected static void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
+        assertMemoryLeak(null, code);
+    }
+
+    protected static void assertMemoryLeak(@Nullable FilesFacade ff, TestUtils.LeakProneCode code) throws Exception {
+        AbstractCairoTest.assertMemoryLeak(ff, () -> {
+            try {
+                code.run();
+            } finally {
+                // query arena keeps a chunk between queries of the execution context
+                sqlExecutionContext.getArena().close();
+            }
+        });
     }
 
     @Override
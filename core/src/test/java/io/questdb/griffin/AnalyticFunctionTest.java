@@ -0,0 +1,339 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnalyticFunctionTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table x as (" +
+            "select x i," +
+            " cast(case when x in (1, 2, 7) then 'a' else 'b' end as symbol) s," +
+            " case when x = 4 then NaN else x * 1.5 end d," +
+            " cast(x * 1000000 as timestamp) ts" +
+            " from long_sequence(8)" +
+            ") timestamp(ts)";
+
+    private static final String DDL_PEERS = "create table x as (" +
+            "select x i," +
+            " cast(case when x in (1, 2, 7) then 'a' else 'b' end as symbol) s," +
+            " x / 2 k," +
+            " x * 1.5 d," +
+            " cast((x / 2) * 1000000 as timestamp) ts" +
+            " from long_sequence(8)" +
+            ") timestamp(ts)";
+
+    @Test
+    public void testFirstLastValue() throws Exception {
+        assertQuery(
+                "i\ts\td\tfv\tlv\tfv1\n" +
+                        "1\ta\t1.5\t1.5\t1.5\t1.5\n" +
+                        "2\ta\t3.0\t1.5\t3.0\t1.5\n" +
+                        "3\tb\t4.5\t4.5\t4.5\t3.0\n" +
+                        "4\tb\tNaN\t4.5\tNaN\t4.5\n" +
+                        "5\tb\t7.5\t4.5\t7.5\tNaN\n" +
+                        "6\tb\t9.0\t4.5\t9.0\t7.5\n" +
+                        "7\ta\t10.5\t1.5\t10.5\t9.0\n" +
+                        "8\tb\t12.0\t4.5\t12.0\t10.5\n",
+                "select i, s, d," +
+                        " first_value(d) over (partition by s order by ts) fv," +
+                        " last_value(d) over (partition by s order by ts) lv," +
+                        " first_value(d) over (order by ts rows 1 preceding) fv1" +
+                        " from x",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testFrameMustEndAtCurrentRow() throws Exception {
+        assertFailure(
+                "select i, sum(d) over (order by ts rows between 2 preceding and 1 preceding) from x",
+                DDL,
+                64,
+                "'current row' expected"
+        );
+    }
+
+    @Test
+    public void testFollowingIsNotSupported() throws Exception {
+        assertFailure(
+                "select i, sum(d) over (order by ts rows 1 following) from x",
+                DDL,
+                42,
+                "frames that end after the current row are not supported"
+        );
+    }
+
+    @Test
+    public void testLagInvalidDefault() throws Exception {
+        assertFailure(
+                "select i, lag(d, 1, i) over (order by ts) from x",
+                DDL,
+                20,
+                "numeric constant expected"
+        );
+    }
+
+    @Test
+    public void testLagInvalidOffset() throws Exception {
+        assertFailure(
+                "select i, lag(d, -1) over (order by ts) from x",
+                DDL,
+                17,
+                "non-negative integer constant expected"
+        );
+    }
+
+    @Test
+    public void testLagLead() throws Exception {
+        assertQuery(
+                "i\ts\td\tl1\tl2\tld1\tld2\n" +
+                        "1\ta\t1.5\tNaN\t-1.0\t3.0\t10.5\n" +
+                        "2\ta\t3.0\t1.5\t-1.0\t10.5\t-1.0\n" +
+                        "3\tb\t4.5\tNaN\t-1.0\tNaN\t7.5\n" +
+                        "4\tb\tNaN\t4.5\t-1.0\t7.5\t9.0\n" +
+                        "5\tb\t7.5\tNaN\t4.5\t9.0\t12.0\n" +
+                        "6\tb\t9.0\t7.5\tNaN\t12.0\t-1.0\n" +
+                        "7\ta\t10.5\t3.0\t1.5\tNaN\t-1.0\n" +
+                        "8\tb\t12.0\t9.0\t7.5\tNaN\t-1.0\n",
+                "select i, s, d," +
+                        " lag(d) over (partition by s order by ts) l1," +
+                        " lag(d, 2, -1) over (partition by s order by ts) l2," +
+                        " lead(d) over (partition by s order by ts) ld1," +
+                        " lead(d, 2, -1) over (partition by s order by ts) ld2" +
+                        " from x",
+                DDL,
+                null,
+                true,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testLeadIsCached() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            assertFactory("select i, lead(d) over (order by ts) from x", CachedAnalyticRecordCursorFactory.class);
+            assertFactory("select i, sum(d) over (partition by s) from x", CachedAnalyticRecordCursorFactory.class);
+            assertFactory("select i, lag(d) over (order by i) from x", CachedAnalyticRecordCursorFactory.class);
+        });
+    }
+
+    @Test
+    public void testRangeFramePeers() throws Exception {
+        assertQuery(
+                "i\ts\td\ts1\ts2\tsr\tc\tmx\tmp\tmn\n" +
+                        "1\ta\t1.5\t1.5\t1.5\t1.5\t1.5\t1.5\t1.5\t1.5\n" +
+                        "2\ta\t3.0\t9.0\t4.5\t4.5\t7.5\t4.5\t3.0\t3.0\n" +
+                        "3\tb\t4.5\t9.0\t4.5\t9.0\t7.5\t4.5\t4.5\t3.0\n" +
+                        "4\tb\t6.0\t22.5\t18.0\t15.0\t13.5\t7.5\t7.5\t6.0\n" +
+                        "5\tb\t7.5\t22.5\t18.0\t22.5\t13.5\t7.5\t7.5\t6.0\n" +
+                        "6\tb\t9.0\t42.0\t27.0\t31.5\t19.5\t10.5\t9.0\t9.0\n" +
+                        "7\ta\t10.5\t42.0\t15.0\t42.0\t19.5\t10.5\t10.5\t9.0\n" +
+                        "8\tb\t12.0\t54.0\t39.0\t54.0\t12.0\t12.0\t12.0\t12.0\n",
+                "select i, s, d," +
+                        " sum(d) over (order by ts) s1," +
+                        " sum(d) over (partition by s order by ts) s2," +
+                        " sum(d) over (order by i rows unbounded preceding) sr," +
+                        " sum(d) over (order by k range current row) c," +
+                        " max(d) over (order by ts range 1 second preceding) mx," +
+                        " max(d) over (partition by s order by k) mp," +
+                        " min(d) over (order by ts range current row) mn" +
+                        " from x",
+                DDL_PEERS,
+                null,
+                true,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testRangeFrameRequiresTimestampOrder() throws Exception {
+        assertFailure(
+                "select i, sum(d) over (order by i range 1 preceding) from x",
+                DDL,
+                34,
+                "RANGE frame with offset requires ORDER BY timestamp column in ascending order"
+        );
+    }
+
+    @Test
+    public void testRank() throws Exception {
+        final String expected = "i\ts\trn\tr\tdr\tr0\tdr0\n" +
+                "1\ta\t0\t1\t1\t1\t1\n" +
+                "2\ta\t1\t2\t2\t2\t2\n" +
+                "3\tb\t0\t1\t1\t2\t2\n" +
+                "4\tb\t1\t2\t2\t4\t3\n" +
+                "5\tb\t2\t2\t2\t4\t3\n" +
+                "6\tb\t3\t4\t3\t6\t4\n" +
+                "7\ta\t2\t3\t3\t6\t4\n" +
+                "8\tb\t4\t5\t4\t8\t5\n";
+        assertQuery(
+                expected,
+                "select i, s," +
+                        " row_number() over (partition by s order by ts) rn," +
+                        " rank() over (partition by s order by ts) r," +
+                        " dense_rank() over (partition by s order by ts) dr," +
+                        " rank() over (order by ts) r0," +
+                        " dense_rank() over (order by ts) dr0" +
+                        " from x",
+                DDL_PEERS,
+                null,
+                false,
+                true,
+                true
+        );
+        // peers of a non-timestamp order are ranked by the cached factory
+        assertQuery(
+                expected,
+                "select i, s," +
+                        " row_number() over (partition by s order by i) rn," +
+                        " rank() over (partition by s order by k) r," +
+                        " dense_rank() over (partition by s order by k) dr," +
+                        " rank() over (order by k) r0," +
+                        " dense_rank() over (order by k) dr0" +
+                        " from x",
+                null,
+                null,
+                true,
+                true,
+                false
+        );
+    }
+
+    @Test
+    public void testRunningAggregates() throws Exception {
+        assertQuery(
+                "i\ts\td\ts1\ta1\ta2\tm2\tmx\n" +
+                        "1\ta\t1.5\t1.5\t1.5\t1.5\t1.5\t1.5\n" +
+                        "2\ta\t3.0\t4.5\t2.25\t2.25\t1.5\t3.0\n" +
+                        "3\tb\t4.5\t4.5\t4.5\t3.0\t1.5\t4.5\n" +
+                        "4\tb\tNaN\t4.5\t4.5\t3.75\t3.0\t4.5\n" +
+                        "5\tb\t7.5\t12.0\t6.0\t6.0\t4.5\t7.5\n" +
+                        "6\tb\t9.0\t21.0\t7.0\t8.25\t7.5\t9.0\n" +
+                        "7\ta\t10.5\t15.0\t5.0\t9.0\t7.5\t10.5\n" +
+                        "8\tb\t12.0\t33.0\t8.25\t10.5\t9.0\t12.0\n",
+                "select i, s, d," +
+                        " sum(d) over (partition by s order by ts) s1," +
+                        " avg(d) over (partition by s order by ts rows unbounded preceding) a1," +
+                        " avg(d) over (order by ts rows between 2 preceding and current row) a2," +
+                        " min(d) over (order by ts rows 2 preceding) m2," +
+                        " max(d) over (order by ts range 1 second preceding) mx" +
+                        " from x",
+                DDL,
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testStreamingMatchesCached() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (" +
+                    "select rnd_symbol('a','b','c','d') s, rnd_double(2) d, timestamp_sequence(0, 100000) ts" +
+                    " from long_sequence(5000)" +
+                    ") timestamp(ts) partition by hour");
+
+            final String columns = " lag(d, 3) over (partition by s order by ts) l," +
+                    " sum(d) over (partition by s order by ts rows 10 preceding) s10," +
+                    " avg(d) over (order by ts rows 10 preceding) a1," +
+                    " min(d) over (partition by s order by ts rows 20 preceding) m2," +
+                    " max(d) over (partition by s order by ts rows unbounded preceding) mx," +
+                    " first_value(d) over (partition by s order by ts range 2 second preceding) fv," +
+                    " rank() over (partition by s order by ts) r";
+            final String streaming = "select s, d," + columns + " from x";
+            assertFactory(streaming, AnalyticRecordCursorFactory.class);
+            // lead() makes the whole select go through the cached factory
+            final String cached = "select s, lead(d, 0) over (order by ts) d," + columns + " from x";
+            assertFactory(cached, CachedAnalyticRecordCursorFactory.class);
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, streaming, expected);
+            TestUtils.printSql(compiler, sqlExecutionContext, cached, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    @Test
+    public void testStreamingPeersMatchCached() throws Exception {
+        assertMemoryLeak(() -> {
+            // quarters add up to the same sum in any order, peers are not summed in the order of the cached factory
+            compile("create table x as (" +
+                    "select rnd_symbol('a','b','c') s, rnd_int(0, 100, 2) * 0.25 d, cast((x / 4) * 300000 as timestamp) ts" +
+                    " from long_sequence(2000)" +
+                    ") timestamp(ts)");
+
+            final String columns = " sum(d) over (order by ts) s1," +
+                    " avg(d) over (partition by s order by ts) a1," +
+                    " max(d) over (order by ts range 1 second preceding) mx," +
+                    " min(d) over (partition by s order by ts range current row) mn," +
+                    " rank() over (order by ts) r";
+            final String streaming = "select s, d," + columns + " from x";
+            assertFactory(streaming, AnalyticRecordCursorFactory.class);
+            final String cached = "select s, lead(d, 0) over (order by ts) d," + columns + " from x";
+            assertFactory(cached, CachedAnalyticRecordCursorFactory.class);
+
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, streaming, expected);
+            TestUtils.printSql(compiler, sqlExecutionContext, cached, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    @Test
+    public void testStreamingOverTimestampOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            compile(DDL);
+            assertFactory("select i, lag(d) over (partition by s order by ts) from x", AnalyticRecordCursorFactory.class);
+            assertFactory("select i, row_number() over (partition by s) from x", AnalyticRecordCursorFactory.class);
+            assertFactory("select i, avg(d) over (order by ts rows 2 preceding) from x", AnalyticRecordCursorFactory.class);
+            assertFactory("select i, first_value(d) over (order by ts range 1 second preceding) from x", AnalyticRecordCursorFactory.class);
+            // peers that follow the row in its RANGE frame are buffered by timestamp
+            assertFactory("select i, sum(d) over (order by ts) from x", AnalyticRecordCursorFactory.class);
+            assertFactory("select i, avg(d) over (order by ts range 1 second preceding) from x", AnalyticRecordCursorFactory.class);
+            assertFactory("select i, sum(d) over (order by ts desc) from x", CachedAnalyticRecordCursorFactory.class);
+        });
+    }
+
+    private void assertFactory(String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedFactoryClass, factory.getClass());
+        }
+    }
+}
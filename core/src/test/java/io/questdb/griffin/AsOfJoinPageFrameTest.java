@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.join.AsOfJoinPageFrameRecordCursorFactory;
+import io.questdb.griffin.engine.join.LtJoinNoKeyRecordCursorFactory;
+import io.questdb.griffin.engine.table.SelectedRecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsOfJoinPageFrameTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAsOfJoinMatchesFullFatJoin() throws Exception {
+        assertPageFrameJoin("select x.ts, x.s, x.v, y.ts, y.s, y.v from x asof join y on (s)");
+    }
+
+    @Test
+    public void testAsOfJoinNoKeyMatchesFullFatJoin() throws Exception {
+        assertPageFrameJoin("select x.ts, x.v, y.ts, y.s, y.v from x asof join y");
+    }
+
+    @Test
+    public void testAsOfJoinOnSymbolAddedLater() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // older partitions of both tables have column top for the new symbol column
+            compile("alter table x add column s2 symbol");
+            compile("alter table y add column s2 symbol");
+            compile("insert into x select rnd_symbol('a', 'b', null) s, rnd_double() v, timestamp_sequence(100000000000, 1000000) ts, rnd_symbol('p', 'q', null) s2 from long_sequence(5000)");
+            compile("insert into y select rnd_symbol('a', 'b', 'e', null) s, rnd_int() v, timestamp_sequence(99000000000, 3000000) ts, rnd_symbol('q', 'p', 'r', null) s2 from long_sequence(2000)");
+            final String query = "select x.ts, x.s2, y.ts, y.s2, y.v from x asof join y on (s2)";
+            assertFactory(query, AsOfJoinPageFrameRecordCursorFactory.class);
+            assertSameAsFullFatJoin(query);
+        });
+    }
+
+    @Test
+    public void testAsOfJoinOnMaxTimestamp() throws Exception {
+        assertMemoryLeak(() -> {
+            // master row stamped with the largest timestamp follows exhausted slave
+            compile("create table x (v int, ts timestamp) timestamp(ts)");
+            compile("insert into x values (1, 1), (2, 5), (3, cast(9223372036854775807L as timestamp))");
+            compile("create table y (v int, ts timestamp) timestamp(ts)");
+            compile("insert into y values (10, 1), (20, 3)");
+            final String query = "select x.v, y.v from x asof join y";
+            assertFactory(query, AsOfJoinPageFrameRecordCursorFactory.class);
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(
+                    "v\tv1\n" +
+                            "1\t10\n" +
+                            "2\t20\n" +
+                            "3\t20\n",
+                    sink
+            );
+        });
+    }
+
+    @Test
+    public void testAsOfJoinWithIntervalOnSlave() throws Exception {
+        assertPageFrameJoin("select x.ts, x.s, y.ts, y.v from x asof join (y where ts > '1970-01-01T10') y on (s)");
+    }
+
+    @Test
+    public void testLtJoinMatchesFullFatJoin() throws Exception {
+        assertPageFrameJoin("select x.ts, x.s, x.v, y.ts, y.s, y.v from x lt join y on (s)");
+    }
+
+    @Test
+    public void testLtJoinNoKeyIsNotMerged() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertFactory("x lt join y", LtJoinNoKeyRecordCursorFactory.class);
+        });
+    }
+
+    private static void assertFactory(String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            RecordCursorFactory base = factory;
+            if (factory instanceof SelectedRecordCursorFactory) {
+                base = ((SelectedRecordCursorFactory) factory).getBaseFactory();
+            }
+            Assert.assertEquals(expectedFactoryClass, base.getClass());
+        }
+    }
+
+    private static void createTables() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select rnd_symbol('a', 'b', 'c', null) s, rnd_double() v, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(100000)" +
+                        ") timestamp(ts) partition by hour"
+        );
+        // slave has a symbol that master does not have and lacks one of the master symbols,
+        // timestamps collide with master ones every third row
+        compile(
+                "create table y as (" +
+                        "select rnd_symbol('b', 'a', 'e', null) s, rnd_int() v, timestamp_sequence(0, 3000000) ts" +
+                        " from long_sequence(30000)" +
+                        ") timestamp(ts) partition by hour"
+        );
+    }
+
+    private void assertPageFrameJoin(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertFactory(query, AsOfJoinPageFrameRecordCursorFactory.class);
+            assertSameAsFullFatJoin(query);
+        });
+    }
+
+    private void assertSameAsFullFatJoin(String query) throws SqlException {
+        final StringSink expected = new StringSink();
+        compiler.setFullFatJoins(true);
+        try {
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+        } finally {
+            compiler.setFullFatJoins(false);
+        }
+        Assert.assertTrue(expected.length() > 1000);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CloneTableTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(CloneTableTest.class);
+
+    @Test
+    public void testCloneDoesNotSeeUncommittedRows() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp("2022-01-04T12:00:00.000000Z"));
+                row.putLong(0, 1000);
+                row.append();
+                compile("clone table x to y", sqlExecutionContext);
+                writer.commit();
+            }
+            assertSql("select count() from x", "count\n81\n");
+            assertSql("select count() from y", "count\n80\n");
+        });
+    }
+
+    @Test
+    public void testCloneLinksPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("clone table x to y", sqlExecutionContext);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x", "y", LOG);
+
+            try (Path path = new Path()) {
+                // closed partition is shared, the last partition is a copy
+                path.of(configuration.getRoot()).concat("y").concat("2022-01-01").concat("v.d").$();
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.getLinkCount(path) > 1);
+                path.of(configuration.getRoot()).concat("y").concat("2022-01-04").concat("v.d").$();
+                Assert.assertEquals(1, FilesFacadeImpl.INSTANCE.getLinkCount(path));
+            }
+        });
+    }
+
+    @Test
+    public void testCloneNonPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x, rnd_symbol('a','b',null) sym, rnd_str(3,5,1) s from long_sequence(100))", sqlExecutionContext);
+            compile("clone table x to y", sqlExecutionContext);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x", "y", LOG);
+            executeInsert("insert into y values(101, 'c', 'new')");
+            assertSql("select count() from x", "count\n100\n");
+            assertSql("select count() from y", "count\n101\n");
+        });
+    }
+
+    @Test
+    public void testCloneSourceDoesNotExist() throws Exception {
+        assertFailure("clone table z to y", null, 12, "table 'z' does not exist");
+    }
+
+    @Test
+    public void testCloneTargetExists() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("create table y (a int)", sqlExecutionContext);
+            assertCloneFailure("clone table x to y", 17, "table already exists");
+        });
+    }
+
+    @Test
+    public void testClonesAreIndependent() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("clone table x to y", sqlExecutionContext);
+            compile("create table x_before as (select * from x)", sqlExecutionContext);
+
+            // O3 append to the end of a closed partition must not write into files shared with y
+            compile("insert into y select 100 + x, rnd_symbol('k','l'), rnd_str(3,5,1), timestamp_sequence('2022-01-01T23:30', 60000000) ts from long_sequence(5)", sqlExecutionContext);
+            compile("insert into y select 200 + x, rnd_symbol('k','l'), rnd_str(3,5,1), timestamp_sequence('2022-01-04T23:00', 60000000) ts from long_sequence(5)", sqlExecutionContext);
+            TestUtils.assertSqlCursors(compiler, sqlExecutionContext, "x_before", "x", LOG);
+            assertSql("select count() from y", "count\n90\n");
+            assertSql("select count() from y where ts in '2022-01-01'", "count\n29\n");
+
+            compile("insert into x select 300 + x, rnd_symbol('m','n'), rnd_str(3,5,1), timestamp_sequence('2022-01-02T23:30', 60000000) ts from long_sequence(3)", sqlExecutionContext);
+            // both tables append to the end of the same closed partition
+            compile("insert into x select 400 + x, rnd_symbol('m','n'), rnd_str(3,5,1), timestamp_sequence('2022-01-01T23:40', 60000000) ts from long_sequence(5)", sqlExecutionContext);
+            assertSql(
+                    "select v, ts from y where ts in '2022-01-01T23'",
+                    "v\tts\n" +
+                            "24\t2022-01-01T23:00:00.000000Z\n" +
+                            "101\t2022-01-01T23:30:00.000000Z\n" +
+                            "102\t2022-01-01T23:31:00.000000Z\n" +
+                            "103\t2022-01-01T23:32:00.000000Z\n" +
+                            "104\t2022-01-01T23:33:00.000000Z\n" +
+                            "105\t2022-01-01T23:34:00.000000Z\n"
+            );
+            compile("update x set v = -1 where ts in '2022-01-01'", sqlExecutionContext);
+            assertSql("select count() from y where ts in '2022-01-02'", "count\n24\n");
+            assertSql("select count() from y where v = -1", "count\n0\n");
+            assertSql("select count() from x where ts in '2022-01-01'", "count\n29\n");
+            assertSql("select count() from x where ts in '2022-01-02'", "count\n27\n");
+            assertSql("select count() from y where v > 200", "count\n5\n");
+        });
+    }
+
+    @Test
+    public void testSyntax() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertCloneFailure("clone x to y", 6, "'table' expected");
+            assertCloneFailure("clone table x as y", 14, "'to' expected");
+            assertCloneFailure("clone table x to y z", 19, "end of line or ';' expected");
+            assertCloneFailure("clone table x to x", 17, "table already exists");
+        });
+    }
+
+    private static void assertCloneFailure(String sql, int position, String message) {
+        try {
+            compile(sql, sqlExecutionContext);
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertEquals(position, e.getPosition());
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private static void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select x v, rnd_symbol('a','b',null) sym, rnd_str(3,5,1) s, timestamp_sequence('2022-01-01', 3600000000) ts" +
+                        " from long_sequence(80)" +
+                        "), index(sym) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -376,6 +376,47 @@ public class CompiledFilterRegressionTest extends AbstractGriffinTest {
         assertQueryNullable(query, ddl);
     }
 
+    @Test
+    public void testSymbolInList() throws Exception {
+        final String query = "select * from x where sym in ('HBC', 'DXR', 'XYZ', null) and not sym2 in ('A', 'B')";
+        final String ddl = "create table x as " +
+                "(select rnd_symbol('ABB','HBC','DXR', null) sym, \n" +
+                " rnd_symbol('A','B','C') sym2, \n" +
+                " timestamp_sequence(172800000000, 360000000) ts \n" +
+                "from long_sequence(" + N_SIMD_WITH_SCALAR_TAIL + ")) timestamp (ts)";
+        assertQueryNullable(query, ddl);
+    }
+
+    @Test
+    public void testCharInList() throws Exception {
+        final String query = "select * from x where ch in ('A', 'C', 'E') or ch = 'Z'";
+        final String ddl = "create table x as " +
+                "(select timestamp_sequence(400000000000, 500000000) as k," +
+                " rnd_char() ch" +
+                " from long_sequence(" + N_SIMD_WITH_SCALAR_TAIL + ")) timestamp(k)";
+        assertQueryNotNull(query, ddl);
+    }
+
+    @Test
+    public void testTimestampBetween() throws Exception {
+        final String query = "select * from x where t between '2020-09' and '2020-03-15' or t between 1577836800000000 and 1577836800000000";
+        final String ddl = "create table x as " +
+                "(select timestamp_sequence(400000000000, 500000000) as k," +
+                " rnd_timestamp(to_timestamp('2020', 'yyyy'), to_timestamp('2021', 'yyyy'), 5) t" +
+                " from long_sequence(" + N_SIMD_WITH_SCALAR_TAIL + ")) timestamp(k)";
+        assertQueryNullable(query, ddl);
+    }
+
+    @Test
+    public void testTimestampInList() throws Exception {
+        final String query = "select * from x where k in (400000000000, '1970-01-05T15:15:00.000000Z', null) or not t in (null, 1577836800000000)";
+        final String ddl = "create table x as " +
+                "(select timestamp_sequence(400000000000, 500000000) as k," +
+                " rnd_timestamp(to_timestamp('2020', 'yyyy'), to_timestamp('2021', 'yyyy'), 5) t" +
+                " from long_sequence(" + N_SIMD_WITH_SCALAR_TAIL + ")) timestamp(k)";
+        assertQueryNullable(query, ddl);
+    }
+
     @Test
     public void testDate() throws Exception {
         final String query = "select * from x where d1 != d2";
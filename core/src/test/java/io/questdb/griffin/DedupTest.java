@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DedupTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDedupAcrossCommits() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'a', 1, 'x1')");
+            executeInsert("insert into t values('2022-01-01T00:00:01.000000Z', 'a', 2, 'x2')");
+            executeInsert("insert into t values('2022-01-01T00:00:01.000000Z', 'b', 3, 'x3')");
+            // same timestamp as the last row and the same key
+            executeInsert("insert into t values('2022-01-01T00:00:01.000000Z', 'a', 4, 'x4')");
+            // first row of the partition
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'a', 5, 'x5')");
+            // new key in the middle
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'c', 6, 'x6')");
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tv\ts\n" +
+                            "2022-01-01T00:00:00.000000Z\ta\t5\tx5\n" +
+                            "2022-01-01T00:00:00.000000Z\tc\t6\tx6\n" +
+                            "2022-01-01T00:00:01.000000Z\ta\t4\tx4\n" +
+                            "2022-01-01T00:00:01.000000Z\tb\t3\tx3\n"
+            );
+            assertSql("select count() from t", "count\n4\n");
+        });
+    }
+
+    @Test
+    public void testDedupDisable() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'a', 1, 'x1')");
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'a', 2, 'x2')");
+            compile("alter table t dedup disable", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "t", "test")) {
+                Assert.assertFalse(writer.isDedupEnabled());
+            }
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'a', 3, 'x3')");
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tv\ts\n" +
+                            "2022-01-01T00:00:00.000000Z\ta\t2\tx2\n" +
+                            "2022-01-01T00:00:00.000000Z\ta\t3\tx3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupEnabledSurvivesWriterReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            engine.clear();
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "t", "test")) {
+                Assert.assertTrue(writer.isDedupEnabled());
+            }
+        });
+    }
+
+    @Test
+    public void testDedupKeyColumnWithColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table t (ts timestamp, v long) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 1)");
+            executeInsert("insert into t values('2022-01-02T00:00:00.000000Z', 2)");
+            compile("alter table t add column k int", sqlExecutionContext);
+            compile("alter table t dedup enable upsert keys(ts, k)", sqlExecutionContext);
+
+            // rows above the column top have null key
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 3, null)");
+            executeInsert("insert into t values('2022-01-02T00:00:00.000000Z', 4, null)");
+            executeInsert("insert into t values('2022-01-02T00:00:00.000000Z', 5, 1)");
+
+            assertSql(
+                    "t",
+                    "ts\tv\tk\n" +
+                            "2022-01-01T00:00:00.000000Z\t3\tNaN\n" +
+                            "2022-01-02T00:00:00.000000Z\t4\tNaN\n" +
+                            "2022-01-02T00:00:00.000000Z\t5\t1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupLongKey() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table t (ts timestamp, k long, v int) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compile("alter table t dedup enable upsert keys(ts, k)", sqlExecutionContext);
+            compile(
+                    "insert into t select cast('2022-01-01T00:00:00.000000Z' as timestamp) + (x % 3) * 1000000L, x % 2, cast(x as int) from long_sequence(12)",
+                    sqlExecutionContext
+            );
+
+            assertSql(
+                    "t",
+                    "ts\tk\tv\n" +
+                            "2022-01-01T00:00:00.000000Z\t1\t9\n" +
+                            "2022-01-01T00:00:00.000000Z\t0\t12\n" +
+                            "2022-01-01T00:00:01.000000Z\t1\t7\n" +
+                            "2022-01-01T00:00:01.000000Z\t0\t10\n" +
+                            "2022-01-01T00:00:02.000000Z\t0\t8\n" +
+                            "2022-01-01T00:00:02.000000Z\t1\t11\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupNullKeys() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', null, 1, 'x1')");
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', null, 2, null)");
+            executeInsert("insert into t values('2022-01-01T00:00:00.000000Z', 'a', 3, 'x3')");
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tv\ts\n" +
+                            "2022-01-01T00:00:00.000000Z\t\t2\t\n" +
+                            "2022-01-01T00:00:00.000000Z\ta\t3\tx3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupO3IntoOlderPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            compile(
+                    "insert into t select timestamp_sequence('2022-01-01', 3600000000L), rnd_symbol('a', 'b'), x, 'x' || x from long_sequence(72)",
+                    sqlExecutionContext
+            );
+            // replace every row of the first partition with new values
+            compile(
+                    "create table u as (select ts, sym, v + 1000 v, s || 'u' s from t where ts < '2022-01-02')",
+                    sqlExecutionContext
+            );
+            compile("insert into t select * from u", sqlExecutionContext);
+            assertSql("select count() from t", "count\n72\n");
+            assertSql("select count() from t where v > 1000", "count\n24\n");
+            assertSql("select count() from t where s like '%u'", "count\n24\n");
+
+            // overlap with the middle partition, one row is replaced and two rows are new
+            executeInsert("insert into t values('2022-01-02T04:00:00.000000Z', 'b', 1999, 'upd')");
+            executeInsert("insert into t values('2022-01-02T05:00:00.000000Z', 'z', 2000, 'new')");
+            executeInsert("insert into t values('2022-01-02T05:30:00.000000Z', 'z', 2001, 'new')");
+            assertSql("select count() from t", "count\n74\n");
+            assertSql(
+                    "select * from t where ts between '2022-01-02T04:00:00.000000Z' and '2022-01-02T06:00:00.000000Z'",
+                    "ts\tsym\tv\ts\n" +
+                            "2022-01-02T04:00:00.000000Z\tb\t1999\tupd\n" +
+                            "2022-01-02T05:00:00.000000Z\ta\t30\tx30\n" +
+                            "2022-01-02T05:00:00.000000Z\tz\t2000\tnew\n" +
+                            "2022-01-02T05:30:00.000000Z\tz\t2001\tnew\n" +
+                            "2022-01-02T06:00:00.000000Z\tb\t31\tx31\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupWithinBatch() throws Exception {
+        assertMemoryLeak(() -> {
+            createDedupTable();
+            compile(
+                    "insert into t select cast('2022-01-01T00:00:00.000000Z' as timestamp) + ((x + 1) / 2) * 1000000L, 'a', x, 'x' || x from long_sequence(6)",
+                    sqlExecutionContext
+            );
+
+            assertSql(
+                    "t",
+                    "ts\tsym\tv\ts\n" +
+                            "2022-01-01T00:00:01.000000Z\ta\t2\tx2\n" +
+                            "2022-01-01T00:00:02.000000Z\ta\t4\tx4\n" +
+                            "2022-01-01T00:00:03.000000Z\ta\t6\tx6\n"
+            );
+        });
+    }
+
+    @Test
+    public void testEnableKeysMissingTimestamp() throws Exception {
+        assertFailure(
+                "alter table x dedup enable upsert keys(sym)",
+                "create table x (ts timestamp, sym symbol) timestamp(ts) partition by DAY",
+                42,
+                "deduplicate key list must include designated timestamp column"
+        );
+    }
+
+    @Test
+    public void testEnableNonPartitioned() throws Exception {
+        assertFailure(
+                "alter table x dedup enable upsert keys(ts, sym)",
+                "create table x (ts timestamp, sym symbol) timestamp(ts)",
+                12,
+                "deduplication is only supported for partitioned tables with designated timestamp"
+        );
+    }
+
+    @Test
+    public void testEnableUnknownColumn() throws Exception {
+        assertFailure(
+                "alter table x dedup enable upsert keys(ts, abc)",
+                "create table x (ts timestamp, sym symbol) timestamp(ts) partition by DAY",
+                43,
+                "Invalid column: abc"
+        );
+    }
+
+    @Test
+    public void testEnableUnsupportedKeyType() throws Exception {
+        assertFailure(
+                "alter table x dedup enable upsert keys(ts, d)",
+                "create table x (ts timestamp, d double) timestamp(ts) partition by DAY",
+                12,
+                "unsupported deduplication key column type"
+        );
+    }
+
+    @Test
+    public void testEnableWrongSyntax() throws Exception {
+        assertFailure(
+                "alter table x dedup on",
+                "create table x (ts timestamp, sym symbol) timestamp(ts) partition by DAY",
+                20,
+                "'enable' or 'disable' expected"
+        );
+    }
+
+    private void createDedupTable() throws SqlException {
+        compile("create table t (ts timestamp, sym symbol, v long, s string) timestamp(ts) partition by DAY", sqlExecutionContext);
+        compile("alter table t dedup enable upsert keys(ts, sym)", sqlExecutionContext);
+    }
+}
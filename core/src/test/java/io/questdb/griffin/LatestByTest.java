@@ -24,6 +24,7 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.CairoException;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
@@ -32,6 +33,8 @@ import io.questdb.std.Files;
 import io.questdb.std.FilesFacadeImpl;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class LatestByTest extends AbstractGriffinTest {
@@ -65,6 +68,37 @@ public class LatestByTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testLatestByIndexedFailsOnQueryMemoryLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table t as (" +
+                    "select rnd_symbol('a', 'b', 'c') s, timestamp_sequence(0, 60*60*1000*1000L) ts from long_sequence(49)" +
+                    "), index(s) timestamp(ts) Partition by DAY");
+
+            final long limit = sqlExecutionContext.getArena().getLimit();
+            sqlExecutionContext.getArena().setLimit(8);
+            try (RecordCursorFactory factory = compiler.compile("t latest on ts partition by s", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor ignored = factory.getCursor(sqlExecutionContext)) {
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "query memory limit exceeded");
+                }
+            } finally {
+                sqlExecutionContext.getArena().setLimit(limit);
+            }
+
+            assertQuery("s\tts\n" +
+                            "b\t1970-01-02T22:00:00.000000Z\n" +
+                            "a\t1970-01-02T23:00:00.000000Z\n" +
+                            "c\t1970-01-03T00:00:00.000000Z\n",
+                    "t latest on ts partition by s",
+                    "ts",
+                    true,
+                    true);
+            Assert.assertEquals(0, sqlExecutionContext.getArena().getAllocated());
+        });
+    }
+
     @Test
     public void testLatestBySymbolEmpty() throws Exception {
         assertMemoryLeak(() -> {
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.LatestRowsReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.table.LatestByStoredRecordCursorFactory;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatestRowsTest extends AbstractGriffinTest {
+    private final StringSink expectedSink = new StringSink();
+
+    @Test
+    public void testAddLatestRowsToUnsupportedTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_symbol('a', 'b') s, rnd_int() i, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts) partition by DAY");
+            compile("create table n as (select rnd_symbol('a', 'b') s, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)");
+            assertFailure("alter table x alter column i add latest", "Column should be of type symbol");
+            assertFailure("alter table n alter column s add latest", "latest rows require partitioned table");
+            assertFailure("alter table x alter column s add something", "'index' or 'latest' expected");
+
+            compile("alter table x alter column s add latest");
+            assertFailure("alter table x alter column s add latest", "latest rows already exist");
+        });
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertLatestRows("s");
+
+            // rows go to the last partition
+            insert(3 * 86400000000L + 10000000L, 10000000L, 100);
+            assertLatestRows("s");
+
+            // new partitions
+            insert(5 * 86400000000L, 150000000L, 2000);
+            assertLatestRows("s");
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x i, timestamp_sequence(0, 3600000000) ts from long_sequence(30)) timestamp(ts) partition by DAY");
+            compile("alter table x add column s symbol");
+            compile("insert into x values (31, '1970-01-02T08', 'a'), (32, '1970-01-02T09', 'b'), (33, '1970-01-03T09', 'a')");
+            compile("alter table x alter column s add latest");
+            assertLatestRows(
+                    "x latest by s",
+                    "i\tts\ts\n" +
+                            "30\t1970-01-02T05:00:00.000000Z\t\n" +
+                            "32\t1970-01-02T09:00:00.000000Z\tb\n" +
+                            "33\t1970-01-03T09:00:00.000000Z\ta\n"
+            );
+
+            // partition that has the latest null row and "b" is gone
+            compile("alter table x drop partition list '1970-01-02'");
+            assertLatestRows(
+                    "x latest by s",
+                    "i\tts\ts\n" +
+                            "24\t1970-01-01T23:00:00.000000Z\t\n" +
+                            "33\t1970-01-03T09:00:00.000000Z\ta\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDropPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // oldest partition
+            dropPartition("1970-01-01");
+            assertLatestRows("s");
+
+            // partition in the middle
+            dropPartition("1970-01-03");
+            assertLatestRows("s");
+        });
+    }
+
+    @Test
+    public void testFallBackToScanWhenLatestRowsAreMissing() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (Path path = new Path()) {
+                path.of(configuration.getRoot()).concat("x").concat("s").put(".lr").$();
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.remove(path));
+            }
+            TestUtils.printSql(compiler, sqlExecutionContext, "y latest by s", expectedSink);
+            try (RecordCursorFactory factory = compiler.compile("x latest by s", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(LatestByStoredRecordCursorFactory.class, factory.getClass());
+                assertCursor(factory);
+            }
+            TestUtils.assertEquals(expectedSink, sink);
+        });
+    }
+
+    @Test
+    public void testO3() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // rows go to every partition
+            insert(3600000000L, 60000000L, 2000);
+            assertLatestRows("s");
+
+            // rows go to the last partition only, some of them are older than the latest rows
+            insert(3 * 86400000000L, 3000000L, 500);
+            assertLatestRows("s");
+        });
+    }
+
+    @Test
+    public void testReopenWriterAndRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            engine.releaseAllWriters();
+            insert(3 * 86400000000L + 10000000L, 10000000L, 100);
+            assertLatestRows("s");
+
+            compile("alter table x rename column s to s2");
+            compile("alter table y rename column s to s2");
+            insert(5 * 86400000000L, 150000000L, 100);
+            assertLatestRows("s2");
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compile("truncate table x");
+            compile("truncate table y");
+            assertLatestRows("s");
+
+            insert(0, 60000000L, 1000);
+            // reference query relies on symbol tables of a fresh reader after truncate
+            engine.releaseAllReaders();
+            assertLatestRows("s");
+        });
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // latest rows of some keys move to older partitions
+            update("update %s set s = 'zzz' where ts > '1970-01-03T12' and i < 100");
+            assertLatestRows("s");
+
+            update("update %s set s = null where ts < '1970-01-02' and i > 100");
+            assertLatestRows("s");
+        });
+    }
+
+    private void assertCursor(RecordCursorFactory factory) throws SqlException {
+        sink.clear();
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, TestUtils.printer);
+        }
+    }
+
+    private void assertFailure(String sql, String message) {
+        try {
+            compile(sql);
+            Assert.fail();
+        } catch (SqlException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private void assertLatestRows(String query, String expected) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(LatestByStoredRecordCursorFactory.class, factory.getClass());
+            assertCursor(factory);
+        }
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private void assertLatestRows(String column) throws SqlException {
+        // table writer keeps latest rows consistent with the last transaction
+        try (
+                TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x");
+                LatestRowsReader latestRowsReader = new LatestRowsReader()
+        ) {
+            Assert.assertTrue(reader.readLatestRows(reader.getMetadata().getColumnIndex(column), latestRowsReader));
+        }
+        TestUtils.printSql(compiler, sqlExecutionContext, "y latest by " + column, expectedSink);
+        assertLatestRows("x latest by " + column, expectedSink.toString());
+    }
+
+    private void createTables() throws SqlException {
+        compile("create table x as (" +
+                "select rnd_symbol(200, 4, 4, 5) s, rnd_int(0, 200, 2) i, timestamp_sequence(0, 60000000) ts" +
+                " from long_sequence(5000)" +
+                ") timestamp(ts) partition by DAY");
+        compile("create table y as (select * from x) timestamp(ts) partition by DAY");
+        compile("alter table x alter column s add latest");
+    }
+
+    private void dropPartition(String partition) throws SqlException {
+        compile("alter table x drop partition list '" + partition + "'");
+        compile("alter table y drop partition list '" + partition + "'");
+    }
+
+    private void insert(long timestampLo, long step, int count) throws SqlException {
+        compile("create table z as (" +
+                "select rnd_symbol(250, 4, 4, 5) s, rnd_int(0, 200, 2) i, timestamp_sequence(" + timestampLo + ", " + step + ") ts" +
+                " from long_sequence(" + count + ")" +
+                ")");
+        compile("insert into x select * from z");
+        compile("insert into y select * from z");
+        compile("drop table z");
+    }
+
+    private void update(String sql) throws SqlException {
+        compile(String.format(sql, "x"));
+        compile(String.format(sql, "y"));
+    }
+}
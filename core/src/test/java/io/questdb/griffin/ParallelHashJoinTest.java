@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.join.AsyncHashJoinRecordCursorFactory;
+import io.questdb.griffin.engine.join.HashJoinLightRecordCursorFactory;
+import io.questdb.griffin.engine.table.SelectedRecordCursorFactory;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelHashJoinTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDescendingMasterIsNotParallel() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertFactory("(x order by ts desc) x join y on (k)", HashJoinLightRecordCursorFactory.class);
+        });
+    }
+
+    @Test
+    public void testFallbackWhenHashTableDoesNotFitMemoryLimit() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            final String query = "select x.ts, x.k, y.ts, y.v from x join y on (k)";
+            assertFactory(compiler, sqlExecutionContext, query, AsyncHashJoinRecordCursorFactory.class);
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+            Assert.assertTrue(expected.length() > 1000);
+            sqlExecutionContext.getArena().setLimit(64 * 1024);
+            try {
+                TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            } finally {
+                sqlExecutionContext.getArena().setLimit(0);
+            }
+            TestUtils.assertEquals(expected, sink);
+            Assert.assertEquals(0, sqlExecutionContext.getArena().getReserved());
+        });
+    }
+
+    @Test
+    public void testJoinOnIntMatchesSerialJoin() throws Exception {
+        assertParallelJoin("select x.ts, x.k, x.s, y.ts, y.v from x join y on (k)");
+    }
+
+    @Test
+    public void testJoinOnMultipleColumnsMatchesSerialJoin() throws Exception {
+        assertParallelJoin("select x.ts, x.k, y.ts, y.s, y.v from x join y on (k, s)");
+    }
+
+    @Test
+    public void testJoinOnSymbolMatchesSerialJoin() throws Exception {
+        assertParallelJoin("select x.ts, x.s, y.ts, y.v from x join (select * from y where k < 20) y on (s)");
+    }
+
+    @Test
+    public void testJoinPreservesMasterOrder() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            final String query = "x join y on (k)";
+            assertFactory(compiler, sqlExecutionContext, query, AsyncHashJoinRecordCursorFactory.class);
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            final String[] lines = sink.toString().split("\n");
+            Assert.assertTrue(lines.length > 1000);
+            for (int i = 2; i < lines.length; i++) {
+                final String prev = lines[i - 1].split("\t")[2];
+                final String next = lines[i].split("\t")[2];
+                Assert.assertTrue(prev.compareTo(next) <= 0);
+            }
+        });
+    }
+
+    @Test
+    public void testJoinPreservesSlaveOrder() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            // few keys, each key has slave rows in every frame
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_int(0, 3, 0) k, timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(20)" +
+                            ") timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table y as (" +
+                            "select rnd_int(0, 3, 0) k, timestamp_sequence(0, 17000000) ts" +
+                            " from long_sequence(20000)" +
+                            ") timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            final String query = "select x.ts, y.ts from x join y on (k)";
+            assertFactory(compiler, sqlExecutionContext, query, AsyncHashJoinRecordCursorFactory.class);
+            final StringSink expected = new StringSink();
+            compiler.setFullFatJoins(true);
+            try {
+                TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+            } finally {
+                compiler.setFullFatJoins(false);
+            }
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    @Test
+    public void testToTop() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            TestUtils.printSql(compiler, sqlExecutionContext, "select count() * 3 count from (x join y on (k))", sink);
+            final StringSink expected = new StringSink();
+            expected.put(sink);
+            TestUtils.printSql(compiler, sqlExecutionContext, "select count() from long_sequence(3) cross join (x join y on (k))", sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    private static void assertFactory(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof SelectedRecordCursorFactory);
+            Assert.assertEquals(expectedFactoryClass, ((SelectedRecordCursorFactory) factory).getBaseFactory().getClass());
+        }
+    }
+
+    private static void assertFactory(String query, Class<?> expectedFactoryClass) throws SqlException {
+        assertFactory(compiler, sqlExecutionContext, query, expectedFactoryClass);
+    }
+
+    private static void createTables(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_int(0, 2000, 0) k, rnd_symbol('a', 'b', 'c', 'd', null) s, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(200000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table y as (" +
+                        "select rnd_int(0, 4000, 0) k, rnd_symbol('a', 'b', 'c', 'd', null) s, rnd_str(3, 8, 1) v, timestamp_sequence(0, 17000000) ts" +
+                        " from long_sequence(6000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private static void createTables() throws SqlException {
+        createTables(compiler, sqlExecutionContext);
+    }
+
+    private void assertParallelJoin(String query) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTables(compiler, sqlExecutionContext);
+            final StringSink expected = new StringSink();
+            compiler.setFullFatJoins(true);
+            try {
+                TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+            } finally {
+                compiler.setFullFatJoins(false);
+            }
+            Assert.assertTrue(expected.length() > 1000);
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    private void withPool(JoinRunnable runnable) throws Exception {
+        final int workerCount = 4;
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface JoinRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
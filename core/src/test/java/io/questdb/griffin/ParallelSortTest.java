@@ -0,0 +1,287 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.orderby.AsyncSortedRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelSortTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDoubleKeyIsNotParallel() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            assertFactory(compiler, sqlExecutionContext, "x order by d", SortedLightRecordCursorFactory.class);
+        });
+    }
+
+    @Test
+    public void testMultipleKeysAreNotParallel() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            assertFactory(compiler, sqlExecutionContext, "x order by l, i", SortedLightRecordCursorFactory.class);
+        });
+    }
+
+    @Test
+    public void testSortByteAsc() throws Exception {
+        assertParallelSort("x order by b", "x order by b, ts desc");
+    }
+
+    @Test
+    public void testSortCharDesc() throws Exception {
+        assertParallelSort("x order by c desc", "x order by c desc, ts desc");
+    }
+
+    @Test
+    public void testSortColumnTop() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            compile("alter table x add column i2 int", sqlExecutionContext);
+            compile(
+                    "insert into x select rnd_long(-10, 10, 2), rnd_int(), rnd_short(), rnd_byte(), rnd_char(), rnd_double()," +
+                            " timestamp_sequence(200000000000, 1000000), rnd_int(0, 5, 1) from long_sequence(3000)",
+                    sqlExecutionContext
+            );
+            assertSameResult(compiler, sqlExecutionContext, "x order by i2 desc", "x order by i2 desc, ts desc");
+        });
+    }
+
+    @Test
+    public void testSortIntDesc() throws Exception {
+        assertParallelSort("select i, l, ts from x order by i desc", "select i, l, ts from x order by i desc, ts desc");
+    }
+
+    @Test
+    public void testFallbackWhenFramesDoNotFitMemoryLimit() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            // keys are unique, spilled sort breaks ties in a different order
+            compiler.compile(
+                    "create table y as (" +
+                            "select x k, rnd_double() d, timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(100000)" +
+                            ") timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            final String[] queries = {"y order by k desc", "y order by k desc limit 10, 20", "y order by k limit -100"};
+            final StringSink expected = new StringSink();
+            for (String query : queries) {
+                assertFactory(compiler, sqlExecutionContext, query, AsyncSortedRecordCursorFactory.class);
+                TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+                // sorted frames need 16 bytes per row, the record chain spills to disk instead
+                sqlExecutionContext.getArena().setLimit(64 * 1024);
+                try {
+                    TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+                } finally {
+                    sqlExecutionContext.getArena().setLimit(0);
+                }
+                TestUtils.assertEquals(expected, sink);
+                Assert.assertEquals(0, sqlExecutionContext.getArena().getReserved());
+            }
+        });
+    }
+
+    @Test
+    public void testSortLongAsc() throws Exception {
+        assertParallelSort("x order by l", "x order by l, ts desc");
+    }
+
+    @Test
+    public void testSortOnOwnerThread() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            assertFactory(compiler, sqlExecutionContext, "x order by l desc", AsyncSortedRecordCursorFactory.class);
+            assertSameResult(compiler, sqlExecutionContext, "x order by l desc", "x order by l desc, ts desc");
+        });
+    }
+
+    @Test
+    public void testSortShortAsc() throws Exception {
+        assertParallelSort("x where ts > '1970-01-01T10' order by s", "x where ts > '1970-01-01T10' order by s, ts desc");
+    }
+
+    @Test
+    public void testTopKAsc() throws Exception {
+        assertParallelSort("x order by l limit 100", "x order by l, ts desc limit 100");
+    }
+
+    @Test
+    public void testTopKBindVariable() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            bindVariableService.setLong(0, 20);
+            bindVariableService.setLong(1, 120);
+            try (RecordCursorFactory factory = compiler.compile("x order by i limit $1, $2", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncSortedRecordCursorFactory.class, factory.getClass());
+                final StringSink expected = new StringSink();
+                TestUtils.printSql(compiler, sqlExecutionContext, "x order by i, ts desc limit 20, 120", expected);
+                assertCursor(factory, sqlExecutionContext, expected, 100);
+
+                bindVariableService.setLong(0, -300);
+                bindVariableService.setLong(1, -100);
+                TestUtils.printSql(compiler, sqlExecutionContext, "x order by i, ts desc limit -300, -100", expected);
+                assertCursor(factory, sqlExecutionContext, expected, 200);
+
+                bindVariableService.setLong(0, 10);
+                bindVariableService.setLong(1, 5);
+                TestUtils.printSql(compiler, sqlExecutionContext, "x order by i, ts desc limit 10, 5", expected);
+                assertCursor(factory, sqlExecutionContext, expected, 0);
+            }
+        });
+    }
+
+    @Test
+    public void testTopKDescWithOffset() throws Exception {
+        assertParallelSort("x order by i desc limit 50, 150", "x order by i desc, ts desc limit 50, 150");
+    }
+
+    @Test
+    public void testTopKHiFromEnd() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertSameResult(compiler, sqlExecutionContext, "x order by l limit 10, -99800", "x order by l, ts desc limit 10, -99800");
+        });
+    }
+
+    @Test
+    public void testBottomK() throws Exception {
+        assertParallelSort("x order by l limit -100", "x order by l, ts desc limit -100");
+    }
+
+    @Test
+    public void testBottomKSkipLast() throws Exception {
+        assertParallelSort("x order by s desc limit -150, -50", "x order by s desc, ts desc limit -150, -50");
+    }
+
+    @Test
+    public void testToTopAndRandomAccess() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("x order by i", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncSortedRecordCursorFactory.class, factory.getClass());
+                final StringSink first = new StringSink();
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    final Record record = cursor.getRecord();
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, first, printer);
+
+                    cursor.toTop();
+                    sink.clear();
+                    TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+                    TestUtils.assertEquals(first, sink);
+
+                    cursor.toTop();
+                    Assert.assertTrue(cursor.hasNext());
+                    final long rowId = record.getRowId();
+                    final int expected = record.getInt(1);
+                    while (cursor.hasNext()) {
+                        // move away from the first row
+                    }
+                    final Record recordB = cursor.getRecordB();
+                    cursor.recordAt(recordB, rowId);
+                    Assert.assertEquals(expected, recordB.getInt(1));
+                    Assert.assertEquals(100000, cursor.size());
+                }
+            }
+        });
+    }
+
+    private static void assertCursor(RecordCursorFactory factory, SqlExecutionContext sqlExecutionContext, StringSink expected, long expectedSize) throws SqlException {
+        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+            sink.clear();
+            TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+            TestUtils.assertEquals(expected, sink);
+            Assert.assertEquals(expectedSize, cursor.size());
+        }
+    }
+
+    private static void assertFactory(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedFactoryClass, factory.getClass());
+        }
+    }
+
+    private static void assertSameResult(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String query, String expectedQuery) throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, expectedQuery, expected);
+        Assert.assertTrue(expected.length() > 1000);
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_long(-1000, 1000, 2) l, rnd_int(-50, 50, 2) i, rnd_short() s, rnd_byte() b, rnd_char() c," +
+                        " rnd_double() d, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(100000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void assertParallelSort(String query, String expectedQuery) throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertFactory(compiler, sqlExecutionContext, query, AsyncSortedRecordCursorFactory.class);
+            assertSameResult(compiler, sqlExecutionContext, query, expectedQuery);
+        });
+    }
+
+    private void withPool(SortRunnable runnable) throws Exception {
+        final int workerCount = 4;
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface SortRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Files;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class ParquetExportTest extends AbstractGriffinTest {
+
+    @BeforeClass
+    public static void setUpStatic() {
+        AbstractGriffinTest.setUpStatic();
+        try {
+            exportDir = temp.newFolder().getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        super.setUp();
+        exportRowGroupSize = 100;
+        try (Path path = new Path()) {
+            Files.rmdir(path.of(exportDir).slash$());
+        }
+    }
+
+    @Test
+    public void testAggregateOverParquet() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("export table x to parquet", sqlExecutionContext);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select count(), sum(l), max(d), min(ts) from x where ts in '1970-01-02' and i > 10",
+                    "select count(), sum(l), max(d), min(ts) from read_parquet('x/1970-01-02.parquet') where i > 10",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testExportDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            final CharSequence dir = exportDir;
+            exportDir = null;
+            try {
+                createX();
+                compile("export table x to parquet", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "Export is disabled");
+            } finally {
+                exportDir = dir;
+            }
+        });
+    }
+
+    @Test
+    public void testExportNonPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table y as (select x, rnd_str(3,3,1) s, timestamp_sequence(0, 1000000) ts from long_sequence(250)) timestamp(ts)", sqlExecutionContext);
+            compile("export table y to parquet", sqlExecutionContext);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "y",
+                    "read_parquet('y/default.parquet')",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testExportPartitionList() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("export table x partition list '1970-01-03', '1970-01-01' to parquet", sqlExecutionContext);
+            try (Path path = new Path()) {
+                Assert.assertTrue(Files.exists(path.of(exportDir).concat("x").concat("1970-01-01.parquet").$()));
+                Assert.assertFalse(Files.exists(path.of(exportDir).concat("x").concat("1970-01-02.parquet").$()));
+                Assert.assertTrue(Files.exists(path.of(exportDir).concat("x").concat("1970-01-03.parquet").$()));
+                Assert.assertFalse(Files.exists(path.of(exportDir).concat("x").concat("1970-01-03.parquet.tmp").$()));
+            }
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "read_parquet('x/1970-01-03.parquet')",
+                    "x where ts in '1970-01-03'",
+                    LOG,
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testExportUnknownPartition() throws Exception {
+        assertFailure(
+                "export table x partition list '1980-01-01' to parquet",
+                "create table x as (select timestamp_sequence(0, 1000000000) ts from long_sequence(10)) timestamp(ts) partition by DAY",
+                30,
+                "partition '1980-01-01' does not exist"
+        );
+    }
+
+    @Test
+    public void testExportUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table z as (select rnd_long256() l, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts)", sqlExecutionContext);
+            try {
+                compile("export table z to parquet", sqlExecutionContext);
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "unsupported column type [column=l");
+            }
+        });
+    }
+
+    @Test
+    public void testIntervalPruning() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("export table x to parquet", sqlExecutionContext);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "read_parquet('x/1970-01-02.parquet', '1970-01-02T10;3h')",
+                    "x where ts in '1970-01-02T10;3h'",
+                    LOG,
+                    true
+            );
+            assertSql(
+                    "select count() from read_parquet('x/1970-01-02.parquet', '1970-01-05')",
+                    "count\n0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInvalidFileName() throws Exception {
+        assertFailure(
+                "select * from read_parquet('../x/1970-01-01.parquet')",
+                null,
+                27,
+                "invalid file name"
+        );
+    }
+
+    @Test
+    public void testNotParquetFile() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("export table x to parquet", sqlExecutionContext);
+            try {
+                compile("select * from read_parquet('x/1970-01-05.parquet')", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(27, e.getPosition());
+            }
+        });
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("export table x to parquet", sqlExecutionContext);
+            for (String partition : new String[]{"1970-01-01", "1970-01-02", "1970-01-03", "1970-01-04"}) {
+                TestUtils.assertSqlCursors(
+                        compiler,
+                        sqlExecutionContext,
+                        "read_parquet('x/" + partition + ".parquet')",
+                        "x where ts in '" + partition + "'",
+                        LOG,
+                        true
+                );
+            }
+            // re-export replaces existing files
+            compile("insert into x select * from x where ts in '1970-01-01' limit 5", sqlExecutionContext);
+            compile("export table x partition list '1970-01-01' to parquet", sqlExecutionContext);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "read_parquet('x/1970-01-01.parquet')",
+                    "x where ts in '1970-01-01'",
+                    LOG,
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testRoundTripColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            compile("alter table x add column k long", sqlExecutionContext);
+            compile("alter table x add column s2 string", sqlExecutionContext);
+            compile("insert into x (i, ts, k, s2) values (1, '1970-01-04T23:00:00.000000Z', 42, 'abc')", sqlExecutionContext);
+            compile("export table x partition list '1970-01-04' to parquet", sqlExecutionContext);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "read_parquet('x/1970-01-04.parquet')",
+                    "x where ts in '1970-01-04'",
+                    LOG,
+                    true
+            );
+        });
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_boolean() b," +
+                        " rnd_byte(2, 50) bt," +
+                        " rnd_short(10, 1024) sh," +
+                        " rnd_char() c," +
+                        " rnd_int(0, 100, 2) i," +
+                        " rnd_long(0, 1000, 2) l," +
+                        " rnd_date(to_date('2015', 'yyyy'), to_date('2016', 'yyyy'), 2) d," +
+                        " rnd_timestamp(to_timestamp('2015', 'yyyy'), to_timestamp('2016', 'yyyy'), 2) t," +
+                        " rnd_float(2) f," +
+                        " rnd_double(2) dbl," +
+                        " rnd_str(3, 16, 2) s," +
+                        " rnd_symbol(4, 4, 6, 2) sym," +
+                        " timestamp_sequence(0, 1000000000) ts" +
+                        " from long_sequence(300)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SortedIndexTest extends AbstractGriffinTest {
+    private final StringSink expectedSink = new StringSink();
+
+    @Test
+    public void testAddIndexToUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_double() d, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts) partition by DAY");
+            try {
+                compile("alter table x alter column d add index");
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot create index for");
+            }
+        });
+    }
+
+    @Test
+    public void testIndexFilesAreOpenedOncePerReader() throws Exception {
+        final AtomicInteger openCount = new AtomicInteger();
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public long openRO(LPSZ name) {
+                if (Chars.contains(name, ".si")) {
+                    openCount.incrementAndGet();
+                }
+                return super.openRO(name);
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            createTables();
+            openCount.set(0);
+            assertLookup("l = 42");
+            // one file per indexed partition
+            Assert.assertEquals(3, openCount.get());
+            assertLookup("l = 43");
+            assertLookup("l in (1, 5)");
+            Assert.assertEquals(3, openCount.get());
+
+            // indexes built by the next transaction are picked up
+            insert(5 * 86400000000L);
+            assertLookup("l = 42");
+            final int count = openCount.get();
+            Assert.assertTrue(count > 3);
+            assertLookup("l = 43");
+            Assert.assertEquals(count, openCount.get());
+        });
+    }
+
+    @Test
+    public void testIndexIsBuiltForPartitionsThatAreNoLongerAppended() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // all partitions but the last one are indexed by ALTER
+            Assert.assertTrue(indexExists("1970-01-01", "l"));
+            Assert.assertTrue(indexExists("1970-01-03", "s"));
+            Assert.assertFalse(indexExists("1970-01-04", "l"));
+
+            compile("insert into x select rnd_long(0, 200, 2), rnd_int(0, 200, 2), rnd_str('abc', 'def', 'ghi', null), timestamp_sequence(5 * 86400000000L, 60000000) from long_sequence(10)");
+            Assert.assertTrue(indexExists("1970-01-04", "l"));
+            Assert.assertTrue(indexExists("1970-01-04", "i"));
+            Assert.assertFalse(indexExists("1970-01-06", "l"));
+
+            try {
+                compile("alter table x alter column i add index");
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "already indexed");
+            }
+        });
+    }
+
+    @Test
+    public void testLookupsMatchScan() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertLookups();
+        });
+    }
+
+    @Test
+    public void testLookupsMatchScanAfterO3AndAppend() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // rows go to every partition, those already indexed are merged and re-indexed
+            insert(3600000000L);
+            assertLookups();
+
+            // new partitions, previous last partition gets indexed
+            insert(5 * 86400000000L);
+            assertLookups();
+        });
+    }
+
+    @Test
+    public void testUpdateIndexedColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compile("update x set l = l + 1 where i < 50");
+            compile("update y set l = l + 1 where i < 50");
+            assertLookups();
+        });
+    }
+
+    private void assertLookup(String where) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, "y where " + where, expectedSink);
+        try (RecordCursorFactory factory = compiler.compile("x where " + where, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                Assert.assertTrue(cursor.isUsingIndex());
+                sink.clear();
+                TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, TestUtils.printer);
+            }
+        }
+        TestUtils.assertEquals(expectedSink, sink);
+    }
+
+    private void assertLookups() throws SqlException {
+        assertLookup("l = 42");
+        assertLookup("42 = l");
+        assertLookup("i = 7");
+        assertLookup("s = 'def'");
+        assertLookup("l in (1, 5, 42, 5)");
+        assertLookup("s in ('abc', 'ghi')");
+        assertLookup("i between 20 and 10");
+        assertLookup("l > 190");
+        assertLookup("150 <= l");
+        assertLookup("i < 5 and l > 100");
+        assertLookup("l >= 20 and l < 25 and s = 'abc'");
+        assertLookup("l = -1");
+    }
+
+    private void createTables() throws SqlException {
+        compile("create table x as (" +
+                "select rnd_long(0, 200, 2) l, rnd_int(0, 200, 2) i, rnd_str('abc', 'def', 'ghi', null) s, timestamp_sequence(0, 60000000) ts" +
+                " from long_sequence(5000)" +
+                ") timestamp(ts) partition by DAY");
+        compile("create table y as (select * from x) timestamp(ts) partition by DAY");
+        compile("alter table x alter column l add index");
+        compile("alter table x alter column i add index");
+        compile("alter table x alter column s add index");
+    }
+
+    private void insert(long timestampLo) throws SqlException {
+        compile("create table z as (" +
+                "select rnd_long(0, 200, 2) l, rnd_int(0, 200, 2) i, rnd_str('abc', 'def', 'ghi', null) s, timestamp_sequence(" + timestampLo + ", 150000000) ts" +
+                " from long_sequence(2000)" +
+                ")");
+        compile("insert into x select * from z");
+        compile("insert into y select * from z");
+        compile("drop table z");
+    }
+
+    private boolean indexExists(String partition, String column) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partition).concat(column).put(".si").$();
+            return FilesFacadeImpl.INSTANCE.exists(path);
+        }
+    }
+}
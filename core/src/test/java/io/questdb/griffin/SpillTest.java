@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.SpillRecordChain;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpillTest extends AbstractGriffinTest {
+    private static final long QUERY_MEMORY_LIMIT = 16 * 1024;
+    private final StringSink expectedSink = new StringSink();
+    private int spillFileCount;
+
+    @Test
+    public void testGroupBySpills() throws Exception {
+        assertSpill(
+                "create table x as (" +
+                        "select rnd_int(0, 4000, 0) k, rnd_symbol('a', 'b', 'c', null) sym, rnd_str(1, 2, 0) s, rnd_double() d, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(20000)" +
+                        ") timestamp(ts)",
+                "select * from (select k, sym, count(), sum(d), count_distinct(s), max(ts) from x) order by k, sym"
+        );
+    }
+
+    @Test
+    public void testHashJoinSpills() throws Exception {
+        compiler.setFullFatJoins(true);
+        try {
+            assertSpill(
+                    "create table x as (" +
+                            "select rnd_int(0, 700, 0) k, rnd_symbol('a', 'b', 'c', null) sym, rnd_str(5, 20, 1) s, timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(3000)" +
+                            ") timestamp(ts)",
+                    "select x.k, x.sym, x.ts, y.s, y.sym from x join (select * from x where k % 3 = 0) y on (k)"
+            );
+        } finally {
+            compiler.setFullFatJoins(false);
+        }
+    }
+
+    @Test
+    public void testSortSpills() throws Exception {
+        assertSpill(
+                "create table x as (" +
+                        "select rnd_str(5, 20, 1) s, rnd_symbol('a', 'b', 'c', null) sym, rnd_long() l, timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(5000)" +
+                        ") timestamp(ts)",
+                "select * from (x union all x) order by s, l desc"
+        );
+    }
+
+    private void assertSpill(String ddl, String query) throws Exception {
+        spillFileCount = 0;
+        assertMemoryLeak(
+                new FilesFacadeImpl() {
+                    @Override
+                    public long openRW(LPSZ name, long opts) {
+                        if (Chars.contains(name, SpillRecordChain.SPILL_FILE_PREFIX)) {
+                            spillFileCount++;
+                        }
+                        return super.openRW(name, opts);
+                    }
+                },
+                () -> {
+                    compile(ddl);
+                    TestUtils.printSql(compiler, sqlExecutionContext, query, expectedSink);
+                    Assert.assertEquals(0, spillFileCount);
+
+                    sqlExecutionContext.getArena().setLimit(QUERY_MEMORY_LIMIT);
+                    try {
+                        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+                    } finally {
+                        sqlExecutionContext.getArena().setLimit(0);
+                    }
+                    TestUtils.assertEquals(expectedSink, sink);
+                    Assert.assertTrue(spillFileCount > 0);
+                    Assert.assertEquals(0, sqlExecutionContext.getArena().getReserved());
+                }
+        );
+    }
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Chars;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncVectorizedGroupByRecordCursorFactoryTest extends AbstractGriffinTest {
+    private static final String AGGREGATES = "sum(a * b) s1, avg(d - a) a1, min(a + l) m1, max(l * 2) m2, count() c," +
+            " min(d * 2) m3, max(d + a) m4, sum(l - a) s2, sum(d * a) s3, min(a - 1) m5, max(a * 2) m6";
+
+    @Test
+    public void testColumnTopKeyAndValues() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            compile("alter table x add column sym2 symbol", sqlExecutionContext);
+            compile("alter table x add column i2 int", sqlExecutionContext);
+            compile(
+                    "insert into x select rnd_symbol(5, 2, 4, 2), rnd_int(-100, 100, 2), rnd_int(-10, 10, 0), rnd_long(-1000, 1000, 2)," +
+                            " cast(rnd_int(-1000, 1000, 2) as double), timestamp_sequence(100000000000, 100000), rnd_symbol('k1', 'k2'), rnd_int(0, 10, 1)" +
+                            " from long_sequence(3000)",
+                    sqlExecutionContext
+            );
+            assertVectorized(compiler, sqlExecutionContext, "select sym2, sum(i2 * a), max(i2 + l), count() from x", "sym2");
+        });
+    }
+
+    @Test
+    public void testEmptyFrames() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            final String query = "select " + AGGREGATES + " from x where ts > '2100-01-01'";
+            assertFactory(compiler, sqlExecutionContext, query, AsyncVectorizedGroupByRecordCursorFactory.class);
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    query,
+                    sink,
+                    "s1\ta1\tm1\tm2\tc\tm3\tm4\ts2\ts3\tm5\tm6\n" +
+                            "NaN\tNaN\tNaN\tNaN\t0\tNaN\tNaN\tNaN\tNaN\tNaN\tNaN\n"
+            );
+            assertVectorized(compiler, sqlExecutionContext, "select sym, sum(a * b), count() from x where ts > '2100-01-01'", "sym");
+        });
+    }
+
+    @Test
+    public void testFallbackWhenSymbolCountExceedsLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            // more symbol values than partial results take by default
+            compile(
+                    "create table x as (" +
+                            "select cast(x as symbol) sym, rnd_int(-100, 100, 2) a, rnd_long(-1000, 1000, 2) l, timestamp_sequence(0, 100000) ts" +
+                            " from long_sequence(70000)" +
+                            ") timestamp(ts) partition by hour",
+                    sqlExecutionContext
+            );
+            Assert.assertTrue(configuration.getSqlVectorizedGroupByMaxSymbolCount() < 70000);
+            assertVectorized(compiler, sqlExecutionContext, "select sym, sum(a * l), max(l - a), count() from x", "sym");
+        });
+    }
+
+    @Test
+    public void testNotKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            assertVectorized(compiler, sqlExecutionContext, "select " + AGGREGATES + " from x", null);
+        });
+    }
+
+    @Test
+    public void testConcurrentQueriesStealWork() throws Exception {
+        // query owners reduce frames of each other's queries, they share partial results of non-pool threads
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            final String query = "select sym, " + AGGREGATES + " from x order by sym";
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query.replace(" from x", " from (x limit 1000000)"), expected);
+
+            final int threadCount = 2;
+            final int iterations = 50;
+            final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+            final CountDownLatch haltLatch = new CountDownLatch(threadCount);
+            final AtomicInteger errors = new AtomicInteger();
+            for (int t = 0; t < threadCount; t++) {
+                new Thread(() -> {
+                    try (
+                            SqlCompiler threadCompiler = new SqlCompiler(engine);
+                            SqlExecutionContext threadContext = new SqlExecutionContextImpl(engine, 1)
+                                    .with(AllowAllCairoSecurityContext.INSTANCE, null, null, -1, null);
+                            RecordCursorFactory factory = threadCompiler.compile(query, threadContext).getRecordCursorFactory()
+                    ) {
+                        final StringSink actual = new StringSink();
+                        barrier.await();
+                        for (int i = 0; i < iterations; i++) {
+                            try (RecordCursor cursor = factory.getCursor(threadContext)) {
+                                actual.clear();
+                                TestUtils.printCursor(cursor, factory.getMetadata(), true, actual, printer);
+                            }
+                            if (!Chars.equals(expected, actual)) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        errors.incrementAndGet();
+                    } finally {
+                        Path.clearThreadLocals();
+                        haltLatch.countDown();
+                    }
+                }).start();
+            }
+            haltLatch.await();
+            Assert.assertEquals(0, errors.get());
+        });
+    }
+
+    @Test
+    public void testParallelNotKeyed() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertVectorized(compiler, sqlExecutionContext, "select " + AGGREGATES + " from x where ts > '1970-01-01T05'", null);
+        });
+    }
+
+    @Test
+    public void testParallelSymbolKeyed() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertVectorized(compiler, sqlExecutionContext, "select sym, " + AGGREGATES + " from x", "sym");
+            assertVectorized(compiler, sqlExecutionContext, "select " + AGGREGATES + ", sym from x", "sym");
+        });
+    }
+
+    @Test
+    public void testSymbolKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            assertVectorized(compiler, sqlExecutionContext, "select sym, " + AGGREGATES + " from x", "sym");
+        });
+    }
+
+    @Test
+    public void testUnsupportedQueries() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            // key is not a symbol
+            assertFactory(compiler, sqlExecutionContext, "select b, sum(a * l) from x", GroupByRecordCursorFactory.class);
+            // more than one key
+            assertFactory(compiler, sqlExecutionContext, "select sym, a, sum(a * l) from x", GroupByRecordCursorFactory.class);
+            // function without vectorized counterpart
+            assertFactory(compiler, sqlExecutionContext, "select sym, first(a * l) from x", GroupByRecordCursorFactory.class);
+            // no page frames
+            assertFactory(compiler, sqlExecutionContext, "select sum(a * l) from (x limit 10)", GroupByNotKeyedRecordCursorFactory.class);
+        });
+    }
+
+    private static void assertFactory(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedFactoryClass, factory.getClass());
+        }
+    }
+
+    private static void assertVectorized(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext, String query, CharSequence orderBy) throws SqlException {
+        assertFactory(compiler, sqlExecutionContext, query, AsyncVectorizedGroupByRecordCursorFactory.class);
+        // LIMIT hides page frames of the table, group by falls back to the map
+        final String expectedQuery = query.replace(" from x", " from (x limit 1000000)");
+        final String suffix = orderBy != null ? " order by " + orderBy : "";
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, expectedQuery + suffix, expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, query + suffix, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        // doubles hold integers, sums do not depend on the order of additions
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_symbol(5, 2, 4, 2) sym, rnd_int(-100, 100, 2) a, rnd_int(-10, 10, 0) b, rnd_long(-1000, 1000, 2) l," +
+                        " cast(rnd_int(-1000, 1000, 2) as double) d, timestamp_sequence(0, 100000) ts" +
+                        " from long_sequence(100000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void withPool(GroupByRunnable runnable) throws Exception {
+        final int workerCount = 4;
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface GroupByRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
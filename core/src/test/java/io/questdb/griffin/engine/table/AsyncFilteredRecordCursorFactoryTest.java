@@ -30,10 +30,12 @@ import io.questdb.cairo.sql.*;
 import io.questdb.cairo.sql.async.PageFrameReduceTask;
 import io.questdb.cairo.sql.async.PageFrameSequence;
 import io.questdb.griffin.*;
+import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.jit.JitUtil;
 import io.questdb.mp.*;
 import io.questdb.std.Misc;
+import io.questdb.std.NativeArena;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
@@ -680,9 +682,23 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
                 @Nullable RecordSink partitionBySink,
                 @Nullable ColumnTypes keyTypes,
                 boolean isOrdered,
-                boolean baseSupportsRandomAccess
+                boolean baseSupportsRandomAccess,
+                @Nullable RecordComparator orderByComparator,
+                int timestampIndex,
+                int framingMode,
+                long rowsLo
         ) {
-            sqlExecutionContext.configureAnalyticContext(partitionByRecord, partitionBySink, keyTypes, isOrdered, baseSupportsRandomAccess);
+            sqlExecutionContext.configureAnalyticContext(
+                    partitionByRecord,
+                    partitionBySink,
+                    keyTypes,
+                    isOrdered,
+                    baseSupportsRandomAccess,
+                    orderByComparator,
+                    timestampIndex,
+                    framingMode,
+                    rowsLo
+            );
         }
 
         @Override
@@ -714,6 +730,11 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
         public boolean getCloneSymbolTables() {
             return sqlExecutionContext.getCloneSymbolTables();
         }
+
+        @Override
+        public NativeArena getArena() {
+            return sqlExecutionContext.getArena();
+        }
     }
 
     @Test
@@ -0,0 +1,210 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncLatestByRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTop() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            compile("alter table x add column s2 symbol", sqlExecutionContext);
+            compiler.compile(
+                    "insert into x select rnd_symbol(200, 4, 4, 0), rnd_long(0, 100, 0), rnd_int(0, 5, 0), rnd_double()," +
+                            " timestamp_sequence(200000000000, 1000000), rnd_symbol('a','b','c') from long_sequence(1000)",
+                    sqlExecutionContext
+            );
+            // rows before the column was added have null s2
+            assertParallelLatestBy(compiler, sqlExecutionContext, "select * from x latest on ts partition by s2, i", 24);
+        });
+    }
+
+    @Test
+    public void testFilterIsNotParallel() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select * from x where d > 0.5 latest on ts partition by l", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertNotEquals(AsyncLatestByRecordCursorFactory.class, factory.getClass());
+            }
+        });
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelLatestBy(
+                    compiler,
+                    sqlExecutionContext,
+                    "select * from x where ts between '1970-01-01T03' and '1970-01-01T07' latest on ts partition by l",
+                    -1
+            );
+        });
+    }
+
+    @Test
+    public void testLongKey() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelLatestBy(compiler, sqlExecutionContext, "select * from x latest on ts partition by l", 102);
+        });
+    }
+
+    @Test
+    public void testMultipleKeys() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelLatestBy(compiler, sqlExecutionContext, "select * from x latest on ts partition by s, i", -1);
+        });
+    }
+
+    @Test
+    public void testOnOwnerThread() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(compiler, sqlExecutionContext);
+            assertParallelLatestBy(compiler, sqlExecutionContext, "select * from x latest on ts partition by s, i", -1);
+        });
+    }
+
+    @Test
+    public void testSymbolKeys() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createSymbolTable(compiler, sqlExecutionContext);
+            // all the keys are found in the newest partitions, older ones are not merged
+            assertParallelLatestBy(compiler, sqlExecutionContext, "select * from y latest on ts partition by s1, s2", 15);
+        });
+    }
+
+    @Test
+    public void testSymbolKeysColumnTop() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createSymbolTable(compiler, sqlExecutionContext);
+            compile("alter table y add column s3 symbol", sqlExecutionContext);
+            compiler.compile(
+                    "insert into y select rnd_symbol('a','b','c'), rnd_symbol(4, 4, 4, 2), rnd_double()," +
+                            " timestamp_sequence(200000000000, 1000000), rnd_symbol('k1','k2') from long_sequence(1000)",
+                    sqlExecutionContext
+            );
+            // null s3 keys are only found in partitions before the column was added
+            assertParallelLatestBy(compiler, sqlExecutionContext, "select * from y latest on ts partition by s1, s3", 9);
+        });
+    }
+
+    @Test
+    public void testSymbolKeyIsNotParallel() throws Exception {
+        withPool((compiler, sqlExecutionContext) -> {
+            createTable(compiler, sqlExecutionContext);
+            // single symbol key stops at the partition where all the symbols are found
+            try (RecordCursorFactory factory = compiler.compile("select * from x latest on ts partition by s", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertNotEquals(AsyncLatestByRecordCursorFactory.class, factory.getClass());
+            }
+        });
+    }
+
+    private static void assertParallelLatestBy(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String query,
+            long expectedSize
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        enableParallelLatestBy = false;
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertNotEquals(AsyncLatestByRecordCursorFactory.class, factory.getClass());
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+        } finally {
+            enableParallelLatestBy = null;
+        }
+
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(AsyncLatestByRecordCursorFactory.class, factory.getClass());
+        }
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+        if (expectedSize > -1) {
+            Assert.assertEquals(expectedSize + 1, expected.toString().split("\n").length);
+        }
+    }
+
+    private static void createTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_symbol(200, 4, 4, 2) s, rnd_long(0, 100, 2) l, rnd_int(0, 5, 0) i, rnd_double() d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(50000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private static void createSymbolTable(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        compiler.compile(
+                "create table y as (" +
+                        "select rnd_symbol('a','b','c') s1, rnd_symbol(4, 4, 4, 2) s2, rnd_double() d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(50000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+
+    private void withPool(LatestByRunnable runnable) throws Exception {
+        final int workerCount = 4;
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(workerCount);
+            pool.assignCleaner(Path.CLEANER);
+            O3Utils.setupWorkerPool(pool, engine, null, null);
+            pool.start(null);
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                runnable.run(compiler, sqlExecutionContext);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface LatestByRunnable {
+        void run(SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) throws Exception;
+    }
+}
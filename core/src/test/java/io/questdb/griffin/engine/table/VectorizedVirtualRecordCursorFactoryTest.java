@@ -0,0 +1,154 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VectorizedVirtualRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testArithmetic() throws Exception {
+        assertVectorized("a + b, a - b, a * b, a / b, -a, a / 0");
+    }
+
+    @Test
+    public void testCasts() throws Exception {
+        assertVectorized("cast(l as int) + 1, cast(d as long) * 2, cast(f as int) - a, cast(s as double) / 3, cast(a as long) * l");
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compile("alter table x add column i2 int", sqlExecutionContext);
+            compile("alter table x add column d2 double", sqlExecutionContext);
+            compile(
+                    "insert into x select rnd_int(-100, 100, 2), rnd_int(), rnd_long(-1000, 1000, 2), rnd_double(2), rnd_float(2), rnd_short(), rnd_byte()," +
+                            " timestamp_sequence(100000000000, 100000), rnd_int(0, 10, 1), rnd_double(1) from long_sequence(3000)",
+                    sqlExecutionContext
+            );
+            assertSameResult("i2 * a, d2 - i2, l + i2");
+        });
+    }
+
+    @Test
+    public void testMixedTypes() throws Exception {
+        assertVectorized("a + l, l * d, a * 1.5 - f, s + b2, (a - l) * d, l / a, s * 3 + b2 / 2, -d + f");
+    }
+
+    @Test
+    public void testNoCompiledFunctions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFactory("select a, b, abs(a), ts from x", VirtualRecordCursorFactory.class);
+            assertFactory("select a + 1, ts from (x limit 100)", VirtualRecordCursorFactory.class);
+        });
+    }
+
+    @Test
+    public void testOrderByComputedColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select a, l, a * l p, d * 2 q from x order by p, q, a";
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select a, l, a * l p, d * 2 q from (x limit 1000000) order by p, q, a", expected);
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    @Test
+    public void testUnchangedFunctionsAndSize() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFactory("select a * b, abs(a), ts from x where ts > '1970-01-01T01'", VectorizedVirtualRecordCursorFactory.class);
+            assertSameResult("a * b, abs(a), ts");
+            try (RecordCursorFactory factory = compiler.compile("select a * b from x where ts > '1970-01-01T01'", sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    final long size = cursor.size();
+                    long count = 0;
+                    while (cursor.hasNext()) {
+                        count++;
+                    }
+                    Assert.assertEquals(63999, count);
+                    Assert.assertEquals(count, size);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select a, l * 2 l, ts from x", expected);
+            compile("update x set l = l * 2", sqlExecutionContext);
+            TestUtils.printSql(compiler, sqlExecutionContext, "select a, l, ts from x", sink);
+            TestUtils.assertEquals(expected, sink);
+        });
+    }
+
+    private static void assertFactory(String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedFactoryClass, factory.getClass());
+        }
+    }
+
+    private static void assertSameResult(String projection) throws SqlException {
+        // LIMIT hides page frames of the table, the projection is evaluated row by row
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "select " + projection + " from (x limit 1000000)", expected);
+        TestUtils.printSql(compiler, sqlExecutionContext, "select " + projection + " from x", sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void assertVectorized(String projection) throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFactory("select " + projection + " from x", VectorizedVirtualRecordCursorFactory.class);
+            assertSameResult(projection);
+        });
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_int(-100, 100, 2) a, rnd_int() b, rnd_long(-1000, 1000, 2) l, rnd_double(2) d, rnd_float(2) f," +
+                        " rnd_short() s, rnd_byte() b2, timestamp_sequence(0, 100000) ts" +
+                        " from long_sequence(100000)" +
+                        ") timestamp(ts) partition by hour",
+                sqlExecutionContext
+        );
+    }
+}
@@ -294,6 +294,53 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
     }
 
+    @Test
+    public void testSymbolInList() throws Exception {
+        serialize("asymbol in ('" + KNOWN_SYMBOL_1 + "', '" + UNKNOWN_SYMBOL + "')");
+        assertIR("(i32 :0)(i32 asymbol)(=)(i32 0L)(i32 asymbol)(=)(||)(ret)");
+
+        Assert.assertEquals(1, bindVarFunctions.size());
+        Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
+    }
+
+    @Test
+    public void testSymbolInListSingleValue() throws Exception {
+        serialize("not asymbol in (null) and anothersymbol in ('" + KNOWN_SYMBOL_2 + "')");
+        assertIR("(i32 0L)(i32 anothersymbol)(=)(i32 " + Numbers.INT_NaN + "L)(i32 asymbol)(=)(!)(&&)(ret)");
+    }
+
+    @Test
+    public void testCharInList() throws Exception {
+        serialize("achar in ('a', 'b', 'c')");
+        assertIR("(i16 99L)(i16 achar)(=)(i16 98L)(i16 achar)(=)(i16 97L)(i16 achar)(=)(||)(||)(ret)");
+    }
+
+    @Test
+    public void testTimestampBetween() throws Exception {
+        serialize("atimestamp between 10 and 1");
+        assertIR("(i64 10L)(i64 atimestamp)(<=)(i64 1L)(i64 atimestamp)(>=)(&&)(ret)");
+    }
+
+    @Test
+    public void testTimestampBetweenStringBounds() throws Exception {
+        serialize("atimestamp between '2021-01-01' and '2022-01-01' and anint > 0");
+        assertIR("(i32 0L)(i32 anint)(>)" +
+                "(i64 1640995200000000L)(i64 atimestamp)(<=)(i64 1609459200000000L)(i64 atimestamp)(>=)(&&)" +
+                "(&&)(ret)");
+    }
+
+    @Test
+    public void testTimestampInList() throws Exception {
+        serialize("atimestamp in (10, null, '2021-01-01')");
+        assertIR("(i64 1609459200000000L)(i64 atimestamp)(=)(i64 10L)(i64 atimestamp)(=)(||)(ret)");
+    }
+
+    @Test
+    public void testTimestampInListSingleValue() throws Exception {
+        serialize("not atimestamp in (10)");
+        assertIR("(i64 10L)(i64 atimestamp)(=)(!)(ret)");
+    }
+
     @Test
     public void testNegatedColumn() throws Exception {
         serialize("-ashort > 0");
@@ -516,6 +563,28 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         serialize("asymbol in (select rnd_symbol('A','B','C') from long_sequence(10))");
     }
 
+    @Test(expected = SqlException.class)
+    public void testUnsupportedInTimestampInterval() throws Exception {
+        serialize("atimestamp in ('2021-01-01')");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedInTimestampNullOnly() throws Exception {
+        serialize("atimestamp in (null)");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedInStringColumn() throws Exception {
+        serialize("astring in ('a', 'b')");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedBetweenBindVariableBounds() throws Exception {
+        bindVariableService.clear();
+        bindVariableService.setTimestamp(0, 1);
+        serialize("atimestamp between $1 and 10");
+    }
+
     @Test(expected = SqlException.class)
     public void testUnsupportedStringConstant() throws Exception {
         serialize("achar = 'abc'");
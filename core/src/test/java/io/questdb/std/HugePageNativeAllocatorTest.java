@@ -0,0 +1,221 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class HugePageNativeAllocatorTest {
+    private static final long PAGE_SIZE = 64 * 1024;
+    private static final long POOL_SIZE = 16 * PAGE_SIZE;
+    private static final long THRESHOLD = 128 * 1024;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testFallbackWhenPathIsMissing() throws Exception {
+        withAllocator(new File(temp.getRoot(), "missing").getAbsolutePath(), allocator -> {
+            final long size = 4 * THRESHOLD;
+            final long address = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try {
+                Vect.memset(address, size, 1);
+                Assert.assertEquals(0, allocator.getHugePageMemUsed());
+            } finally {
+                Unsafe.free(address, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testLargeAllocationIsCarvedFromPool() throws Exception {
+        withAllocator(temp.getRoot().getAbsolutePath(), allocator -> {
+            // backing file is unlinked once pool is mapped
+            Assert.assertEquals(0, listFiles());
+            Assert.assertEquals(POOL_SIZE, Unsafe.getMemUsedByTag(MemoryTag.MMAP_HUGE_PAGE_POOL));
+
+            final long memUsed = Unsafe.getMemUsedByTag(MemoryTag.NATIVE_FAST_MAP);
+            final long size = THRESHOLD + 1;
+            final long address = Unsafe.malloc(size, MemoryTag.NATIVE_FAST_MAP);
+            try {
+                // accounting records requested size, pool hands out whole pages
+                Assert.assertEquals(memUsed + size, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_FAST_MAP));
+                Assert.assertEquals(3 * PAGE_SIZE, allocator.getHugePageMemUsed());
+
+                for (long i = 0; i < size / Long.BYTES; i++) {
+                    Unsafe.getUnsafe().putLong(address + i * Long.BYTES, i);
+                }
+                for (long i = 0; i < size / Long.BYTES; i++) {
+                    Assert.assertEquals(i, Unsafe.getUnsafe().getLong(address + i * Long.BYTES));
+                }
+            } finally {
+                Unsafe.free(address, size, MemoryTag.NATIVE_FAST_MAP);
+            }
+            Assert.assertEquals(0, allocator.getHugePageMemUsed());
+            Assert.assertEquals(memUsed, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_FAST_MAP));
+        });
+    }
+
+    @Test
+    public void testPoolExhaustion() throws Exception {
+        withAllocator(temp.getRoot().getAbsolutePath(), allocator -> {
+            final long first = Unsafe.malloc(POOL_SIZE - THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            final long second = Unsafe.malloc(THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            Assert.assertEquals(POOL_SIZE, allocator.getHugePageMemUsed());
+
+            // pool is exhausted, allocation comes from heap
+            final long third = Unsafe.malloc(THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            fill(third, THRESHOLD);
+            Assert.assertEquals(POOL_SIZE, allocator.getHugePageMemUsed());
+            Unsafe.free(third, THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+
+            // released pages are reused
+            Unsafe.free(first, POOL_SIZE - THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            Assert.assertEquals(THRESHOLD, allocator.getHugePageMemUsed());
+            final long fourth = Unsafe.malloc(2 * THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            Assert.assertEquals(first, fourth);
+            Assert.assertEquals(3 * THRESHOLD, allocator.getHugePageMemUsed());
+
+            Unsafe.free(second, THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            Unsafe.free(fourth, 2 * THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+            Assert.assertEquals(0, allocator.getHugePageMemUsed());
+
+            // free runs are merged, whole pool is available again
+            final long all = Unsafe.malloc(POOL_SIZE, MemoryTag.NATIVE_DEFAULT);
+            Assert.assertEquals(first, all);
+            Unsafe.free(all, POOL_SIZE, MemoryTag.NATIVE_DEFAULT);
+        });
+    }
+
+    @Test
+    public void testReallocAcrossThreshold() throws Exception {
+        withAllocator(temp.getRoot().getAbsolutePath(), allocator -> {
+            long size = 1024;
+            long address = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try {
+                fill(address, size);
+                Assert.assertEquals(0, allocator.getHugePageMemUsed());
+
+                // heap to huge pages
+                address = Unsafe.realloc(address, size, 2 * THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+                assertFilled(address, size);
+                Assert.assertEquals(2 * THRESHOLD, allocator.getHugePageMemUsed());
+                fill(address, size = 2 * THRESHOLD);
+
+                // shrinking within pages keeps the address
+                final long pooled = address;
+                address = Unsafe.realloc(address, size, size - 100, MemoryTag.NATIVE_DEFAULT);
+                size -= 100;
+                Assert.assertEquals(pooled, address);
+                assertFilled(address, size);
+
+                // growing into free pages that follow keeps the address too
+                address = Unsafe.realloc(address, size, 4 * THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+                Assert.assertEquals(pooled, address);
+                assertFilled(address, size);
+                size = 4 * THRESHOLD;
+                Assert.assertEquals(4 * THRESHOLD, allocator.getHugePageMemUsed());
+                fill(address, size);
+
+                // shrinking releases the tail
+                address = Unsafe.realloc(address, size, THRESHOLD, MemoryTag.NATIVE_DEFAULT);
+                size = THRESHOLD;
+                Assert.assertEquals(pooled, address);
+                Assert.assertEquals(THRESHOLD, allocator.getHugePageMemUsed());
+                assertFilled(address, size);
+
+                // huge pages back to heap
+                address = Unsafe.realloc(address, size, 512, MemoryTag.NATIVE_DEFAULT);
+                size = 512;
+                assertFilled(address, size);
+                Assert.assertEquals(0, allocator.getHugePageMemUsed());
+            } finally {
+                Unsafe.free(address, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+    }
+
+    @Test
+    public void testSmallAllocationComesFromHeap() throws Exception {
+        withAllocator(temp.getRoot().getAbsolutePath(), allocator -> {
+            try (DirectLongList list = new DirectLongList(16, MemoryTag.NATIVE_LONG_LIST)) {
+                for (int i = 0; i < 16; i++) {
+                    list.add(i);
+                }
+                Assert.assertEquals(0, allocator.getHugePageMemUsed());
+
+                // list outgrows the threshold and moves to huge pages
+                for (int i = 16; i < THRESHOLD / Long.BYTES; i++) {
+                    list.add(i);
+                }
+                Assert.assertTrue(allocator.getHugePageMemUsed() > 0);
+                for (int i = 0; i < list.size(); i++) {
+                    Assert.assertEquals(i, list.get(i));
+                }
+            }
+            Assert.assertEquals(0, allocator.getHugePageMemUsed());
+        });
+    }
+
+    private static void assertFilled(long address, long size) {
+        for (long i = 0; i < size; i++) {
+            Assert.assertEquals((byte) i, Unsafe.getUnsafe().getByte(address + i));
+        }
+    }
+
+    private static void fill(long address, long size) {
+        for (long i = 0; i < size; i++) {
+            Unsafe.getUnsafe().putByte(address + i, (byte) i);
+        }
+    }
+
+    private static void withAllocator(String hugePagePath, AllocatorCode code) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (HugePageNativeAllocator allocator = new HugePageNativeAllocator(hugePagePath, PAGE_SIZE, POOL_SIZE, THRESHOLD)) {
+                final NativeAllocator prev = Unsafe.setNativeAllocator(allocator);
+                try {
+                    code.run(allocator);
+                } finally {
+                    Unsafe.setNativeAllocator(prev);
+                }
+            }
+        });
+    }
+
+    private int listFiles() {
+        final String[] files = temp.getRoot().list();
+        return files == null ? 0 : files.length;
+    }
+
+    @FunctionalInterface
+    private interface AllocatorCode {
+        void run(HugePageNativeAllocator allocator) throws Exception;
+    }
+}
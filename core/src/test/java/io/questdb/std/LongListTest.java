@@ -67,6 +67,57 @@ public class LongListTest {
         testBinarySearchFuzz0(1, 0, 1, 1024);
     }
 
+    @Test
+    public void testNewInstanceHasSameSize() {
+        final LongList list = new LongList();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        final LongList copy = (LongList) list.newInstance();
+        Assert.assertEquals(list.size(), copy.size());
+        // merge sort writes to the new instance by index
+        copy.setQuick(9, 42);
+        Assert.assertEquals(42, copy.getQuick(9));
+    }
+
+    @Test
+    public void testSortAscendingRuns() {
+        // a few long ascending runs make LongSort merge them instead of running quicksort
+        final Rnd rnd = new Rnd();
+        final int runCount = 5;
+        final int runLength = 200;
+        final LongList list = new LongList();
+        for (int r = 0; r < runCount; r++) {
+            long value = rnd.nextInt(1000);
+            for (int i = 0; i < runLength; i++) {
+                list.add(value);
+                value += rnd.nextInt(10);
+            }
+        }
+        list.sort();
+        assertSorted(list, runCount * runLength);
+    }
+
+    @Test
+    public void testSortRandom() {
+        final Rnd rnd = new Rnd();
+        final LongList list = new LongList();
+        for (int i = 0; i < 10_000; i++) {
+            list.add(rnd.nextLong() % 1000);
+        }
+        list.sort();
+        assertSorted(list, 10_000);
+    }
+
+    private static void assertSorted(LongList list, int expectedSize) {
+        Assert.assertEquals(expectedSize, list.size());
+        for (int i = 1, n = list.size(); i < n; i++) {
+            if (list.getQuick(i - 1) > list.getQuick(i)) {
+                Assert.fail("not sorted at " + i + ": " + list.getQuick(i - 1) + " > " + list.getQuick(i));
+            }
+        }
+    }
+
     private void testBinarySearchBlockFuzz0(int N, int skipRate, int dupeRate, int dupeCountBound) {
         final Rnd rnd = new Rnd();
         final LongList list = new LongList();
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NativeArenaTest {
+
+    @Test
+    public void testAllocationsAreAligned() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (NativeArena arena = new NativeArena(1024, 0, MemoryTag.NATIVE_QUERY_ARENA)) {
+                arena.acquire();
+                final long a = arena.allocate(3);
+                final long b = arena.allocate(9);
+                final long c = arena.allocate(8);
+                Assert.assertEquals(0, a % 8);
+                Assert.assertEquals(a + 8, b);
+                Assert.assertEquals(b + 16, c);
+                Assert.assertEquals(32, arena.getAllocated());
+                arena.release();
+            }
+        });
+    }
+
+    @Test
+    public void testBulkFreeOnLastRelease() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (NativeArena arena = new NativeArena(1024, 0, MemoryTag.NATIVE_QUERY_ARENA)) {
+                final long memUsed = Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_ARENA);
+                // parent and child cursor share the arena
+                arena.acquire();
+                arena.acquire();
+                for (int i = 0; i < 100; i++) {
+                    final long p = arena.allocate(100);
+                    Unsafe.getUnsafe().putLong(p, i);
+                }
+                // 100 bytes are rounded to 104, nine allocations fit 1KB chunk
+                Assert.assertEquals(12 * 1024, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_ARENA) - memUsed);
+
+                arena.release();
+                Assert.assertEquals(12 * 1024, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_ARENA) - memUsed);
+
+                arena.release();
+                Assert.assertEquals(memUsed, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_ARENA));
+                Assert.assertEquals(0, arena.getAllocated());
+
+                // arena is reusable after bulk free
+                arena.acquire();
+                Assert.assertEquals(0, arena.allocateZeroed(64) % 8);
+                arena.release();
+                Assert.assertEquals(memUsed, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_ARENA));
+            }
+        });
+    }
+
+    @Test
+    public void testLargeAllocationGetsOwnChunk() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (NativeArena arena = new NativeArena(1024, 0, MemoryTag.NATIVE_QUERY_ARENA)) {
+                arena.acquire();
+                final long size = 64 * 1024;
+                final long p = arena.allocateZeroed(size);
+                for (long i = 0; i < size; i += Long.BYTES) {
+                    Assert.assertEquals(0, Unsafe.getUnsafe().getLong(p + i));
+                }
+                Assert.assertEquals(size, arena.getAllocated());
+                arena.release();
+            }
+        });
+    }
+
+    @Test
+    public void testGlobalBudgetIsShared() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final MemoryBudget budget = new MemoryBudget(3000);
+            try (
+                    NativeArena arena1 = new NativeArena(1024, 0, MemoryTag.NATIVE_QUERY_ARENA, budget);
+                    NativeArena arena2 = new NativeArena(1024, 0, MemoryTag.NATIVE_QUERY_ARENA, budget)
+            ) {
+                arena1.acquire();
+                arena2.acquire();
+                arena1.allocate(1500);
+                Assert.assertEquals(1504, budget.getUsed());
+                Assert.assertTrue(arena2.tryReserve(1000));
+                Assert.assertFalse(arena2.tryReserve(1000));
+                try {
+                    arena2.allocate(8);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "globalLimit=3000, globalUsed=2504]");
+                }
+                arena1.release();
+                Assert.assertEquals(1000, budget.getUsed());
+                arena2.allocate(8);
+                arena2.unreserve(1000);
+                arena2.release();
+                // released arenas keep nothing charged to the budget
+                Assert.assertEquals(0, budget.getUsed());
+            }
+            Assert.assertEquals(0, budget.getUsed());
+        });
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (NativeArena arena = new NativeArena(1024, 100, MemoryTag.NATIVE_QUERY_ARENA)) {
+                arena.acquire();
+                arena.allocate(64);
+                try {
+                    arena.allocate(40);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "query memory limit exceeded [limit=100, allocated=64, requested=40, globalLimit=");
+                }
+                arena.release();
+
+                // limit applies to memory allocated between bulk frees
+                arena.acquire();
+                arena.allocate(96);
+                arena.release();
+            }
+        });
+    }
+
+    @Test
+    public void testReservationCountsTowardsLimit() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (NativeArena arena = new NativeArena(1024, 100, MemoryTag.NATIVE_QUERY_ARENA)) {
+                Assert.assertTrue(arena.tryReserve(60));
+                Assert.assertFalse(arena.tryReserve(60));
+                arena.acquire();
+                try {
+                    arena.allocate(48);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "[limit=100, allocated=60, requested=48");
+                }
+                arena.allocate(40);
+                arena.release();
+
+                // reservation outlives bulk free
+                Assert.assertEquals(60, arena.getReserved());
+                arena.unreserve(60);
+                Assert.assertTrue(arena.tryReserve(100));
+            }
+        });
+    }
+}